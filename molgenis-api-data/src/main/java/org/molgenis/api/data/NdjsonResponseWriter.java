@@ -0,0 +1,43 @@
+package org.molgenis.api.data;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Writes a stream of objects to a HTTP response as newline delimited JSON (NDJSON): one compact
+ * JSON document per line. Objects are written while the stream is consumed, so collections of any
+ * size are sent without holding them in memory.
+ */
+public class NdjsonResponseWriter {
+  public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+  private NdjsonResponseWriter() {}
+
+  /**
+   * Writes the objects to the response. Writing stops with an {@link IOException} when the client
+   * closes the connection, the caller is responsible for closing the stream.
+   */
+  public static void write(HttpServletResponse response, Gson gson, Stream<?> objects)
+      throws IOException {
+    response.setContentType(APPLICATION_NDJSON_VALUE);
+    response.setCharacterEncoding(UTF_8.name());
+
+    Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), UTF_8));
+    for (Iterator<?> it = objects.iterator(); it.hasNext(); ) {
+      Object object = it.next();
+      // json writer without indentation, gson might be configured to pretty print
+      gson.toJson(object, object.getClass(), new JsonWriter(writer));
+      writer.write('\n');
+    }
+    writer.flush();
+  }
+}
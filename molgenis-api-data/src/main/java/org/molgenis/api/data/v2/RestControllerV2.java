@@ -19,6 +19,7 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.http.MediaType.TEXT_PLAIN_VALUE;
 import static org.springframework.web.servlet.support.ServletUriComponentsBuilder.fromCurrentServletMapping;
 
+import com.google.gson.Gson;
 import io.micrometer.core.annotation.Timed;
 import java.io.IOException;
 import java.io.StringWriter;
@@ -40,6 +41,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import org.molgenis.api.ApiNamespace;
+import org.molgenis.api.data.NdjsonResponseWriter;
 import org.molgenis.api.data.RestService;
 import org.molgenis.api.data.v1.EntityPager;
 import org.molgenis.data.DataService;
@@ -117,6 +119,7 @@ public class RestControllerV2 {
   private final PermissionSystemService permissionSystemService;
   private final RepositoryCopier repoCopier;
   private final LocalizationService localizationService;
+  private final Gson gson;
 
   static MolgenisDataAccessException createMolgenisDataAccessExceptionReadOnlyAttribute(
       String entityTypeId, String attributeName) {
@@ -143,13 +146,15 @@ public class RestControllerV2 {
       RestService restService,
       LocalizationService localizationService,
       PermissionSystemService permissionSystemService,
-      RepositoryCopier repoCopier) {
+      RepositoryCopier repoCopier,
+      Gson gson) {
     this.dataService = requireNonNull(dataService);
     this.permissionService = requireNonNull(permissionService);
     this.restService = requireNonNull(restService);
     this.localizationService = requireNonNull(localizationService);
     this.permissionSystemService = requireNonNull(permissionSystemService);
     this.repoCopier = requireNonNull(repoCopier);
+    this.gson = requireNonNull(gson);
   }
 
   /** @deprecated replaced with a call to '/api' with method 'OPTIONS' */
@@ -286,6 +291,44 @@ public class RestControllerV2 {
         uriBuilder, entityTypeId, request, httpRequest, includeCategories);
   }
 
+  /**
+   * Stream an entity collection as newline delimited JSON, optionally specify which attributes to
+   * include in the response. All entities matching the query starting at 'start' are written in a
+   * single response, 'num' and 'aggs' are ignored.
+   */
+  @Transactional(readOnly = true)
+  @GetMapping(value = "/{entityTypeId}", params = "stream=true")
+  public void streamEntityCollection(
+      @PathVariable("entityTypeId") String entityTypeId,
+      @Valid EntityCollectionRequestV2 request,
+      HttpServletResponse response)
+      throws IOException {
+    ServletUriComponentsBuilder uriBuilder = createUriBuilder();
+    Repository<Entity> repository = dataService.getRepository(entityTypeId);
+    EntityType entityType = repository.getEntityType();
+
+    Query<Entity> q =
+        request.getQ() != null ? request.getQ().createQuery(repository) : new QueryImpl<>();
+    q.offset(request.getStart()).sort(request.getSort());
+    Fetch fetch =
+        AttributeFilterToFetchConverter.convert(
+            request.getAttrs(), entityType, LocaleContextHolder.getLocale().getLanguage());
+    if (fetch != null) {
+      q.fetch(fetch);
+    }
+
+    try (Stream<Entity> entities = dataService.findAll(entityTypeId, q)) {
+      Stream<Map<String, Object>> entityResponses =
+          entities.map(
+              entity -> {
+                Map<String, Object> responseData = new LinkedHashMap<>();
+                createEntityValuesResponse(uriBuilder, entity, fetch, responseData);
+                return responseData;
+              });
+      NdjsonResponseWriter.write(response, gson, entityResponses);
+    }
+  }
+
   /** Retrieve attribute meta data */
   @Transactional(readOnly = true)
   @GetMapping(value = "/{entityTypeId}/meta/{attributeName}", produces = APPLICATION_JSON_VALUE)
@@ -1,6 +1,7 @@
 package org.molgenis.api.data.v3;
 
 import java.util.Map;
+import java.util.stream.Stream;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.molgenis.api.model.Query;
@@ -70,6 +71,25 @@ interface DataServiceV3 {
       int size,
       int number);
 
+  /**
+   * Retrieves all entities matching a query without paging. Entities are read from the repository
+   * while the returned stream is consumed, the caller is responsible for closing the stream.
+   *
+   * @param entityTypeId entity type identifier
+   * @param query query specifying which entities to find, or null
+   * @param filter selection describing the filter attributes
+   * @param expand selection describing the expansion attributes
+   * @param sort entities sort criteria
+   * @return entities, never null
+   * @throws UnknownRepositoryException if no repository exists for the given entity type identifier
+   */
+  Stream<Entity> findAll(
+      String entityTypeId,
+      @Nullable @CheckForNull Query query,
+      Selection filter,
+      Selection expand,
+      Sort sort);
+
   /**
    * Update one entity.
    *
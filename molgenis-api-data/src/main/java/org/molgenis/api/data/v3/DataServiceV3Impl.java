@@ -8,6 +8,7 @@ import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_D
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -176,6 +177,24 @@ class DataServiceV3Impl implements DataServiceV3 {
     return getEntities(filter, expand, sort, size, number, repository, findQuery);
   }
 
+  @Transactional(readOnly = true)
+  @Override
+  public Stream<Entity> findAll(
+      String entityTypeId,
+      @Nullable @CheckForNull Query query,
+      Selection filter,
+      Selection expand,
+      Sort sort) {
+    Repository<Entity> repository = getRepository(entityTypeId, OperationType.READ);
+    org.molgenis.data.Query<Entity> findQuery =
+        query != null ? queryMapper.map(query, repository) : new QueryImpl<>(repository);
+
+    EntityType entityType = repository.getEntityType();
+    findQuery.fetch(fetchMapper.toFetch(entityType, filter, expand));
+    findQuery.sort(sortMapper.map(sort, entityType));
+    return repository.findAll(findQuery);
+  }
+
   private Entities getEntities(
       Selection filter,
       Selection expand,
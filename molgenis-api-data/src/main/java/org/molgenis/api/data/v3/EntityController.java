@@ -2,11 +2,16 @@ package org.molgenis.api.data.v3;
 
 import static java.util.Objects.requireNonNull;
 
+import com.google.gson.Gson;
+import java.io.IOException;
 import java.net.URI;
 import java.util.Map;
+import java.util.stream.Stream;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import org.molgenis.api.ApiController;
 import org.molgenis.api.ApiNamespace;
+import org.molgenis.api.data.NdjsonResponseWriter;
 import org.molgenis.api.data.v3.EntityCollection.Page;
 import org.molgenis.api.data.v3.model.DeleteEntitiesRequest;
 import org.molgenis.api.data.v3.model.DeleteEntityRequest;
@@ -42,11 +47,13 @@ public class EntityController extends ApiController {
 
   private final DataServiceV3 dataServiceV3;
   private final EntityMapper entityMapper;
+  private final Gson gson;
 
-  EntityController(DataServiceV3 dataServiceV3, EntityMapper entityMapper) {
+  EntityController(DataServiceV3 dataServiceV3, EntityMapper entityMapper, Gson gson) {
     super(API_ENTITY_ID, 3);
     this.dataServiceV3 = requireNonNull(dataServiceV3);
     this.entityMapper = requireNonNull(entityMapper);
+    this.gson = requireNonNull(gson);
   }
 
   @Transactional
@@ -178,4 +185,27 @@ public class EntityController extends ApiController {
 
     return entityMapper.map(entityCollection, filter, expand, size, page, entities.getTotal());
   }
+
+  /**
+   * Streams all entities matching the query as newline delimited JSON, one entity response per
+   * line. The 'size' and 'page' parameters are ignored.
+   */
+  @Transactional(readOnly = true)
+  @GetMapping(value = "/{entityTypeId}", params = "stream=true")
+  public void streamEntities(
+      @Valid ReadEntitiesRequest entitiesRequest, HttpServletResponse response) throws IOException {
+    Selection filter = entitiesRequest.getFilter();
+    Selection expand = entitiesRequest.getExpand();
+
+    try (Stream<Entity> entities =
+        dataServiceV3.findAll(
+            entitiesRequest.getEntityTypeId(),
+            entitiesRequest.getQ().orElse(null),
+            filter,
+            expand,
+            entitiesRequest.getSort())) {
+      NdjsonResponseWriter.write(
+          response, gson, entities.map(entity -> entityMapper.map(entity, filter, expand)));
+    }
+  }
 }
@@ -57,6 +57,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.google.common.collect.Sets;
+import com.google.gson.Gson;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Arrays;
@@ -737,6 +738,21 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
         .andExpect(jsonPath("$.total").value(2L));
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  void streamEntityCollection() throws Exception {
+    Entity entity = dataService.findOneById(ENTITY_NAME, ENTITY_ID);
+    when(dataService.findAll(eq(ENTITY_NAME), any(Query.class)))
+        .thenReturn(Stream.of(entity, entity));
+    String expectedLine =
+        "{\"_href\":\"/api/v2/entity/0\",\"id\":\"0\",\"string\":\"str\"}\n";
+    mockMvc
+        .perform(get(HREF_ENTITY_COLLECTION).param("stream", "true").param("attrs", "id,string"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+        .andExpect(content().string(expectedLine + expectedLine));
+  }
+
   @SuppressWarnings("unchecked")
   @Test
   void testCreateEntities() throws Exception {
@@ -1432,7 +1448,7 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
     }
 
     @Bean
-    RestControllerV2 restController() {
+    RestControllerV2 restController(Gson gson) {
       return new RestControllerV2(
           dataService(),
           permissionService(),
@@ -1445,7 +1461,8 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
               servletUriComponentsBuilderFactory()),
           localizationService(),
           permissionSystemService(),
-          repositoryCopier());
+          repositoryCopier(),
+          gson);
     }
   }
 }
@@ -2,6 +2,7 @@ package org.molgenis.api.data.v3;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
@@ -260,6 +261,38 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
         actual, Entities.builder().setEntities(asList(entity1, entity2)).setTotal(100).build());
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  void testFindAllStream() {
+    String entityTypeId = "MyEntityType";
+    Selection filter = Selection.FULL_SELECTION;
+    Selection expand = Selection.EMPTY_SELECTION;
+
+    EntityType entityType = mock(EntityType.class);
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    when(metaDataService.getRepository(entityTypeId)).thenReturn(Optional.of(repository));
+
+    Sort sort = Sort.create("field", Direction.ASC);
+    Fetch fetch = new Fetch().field("id");
+    org.molgenis.data.Sort dataSort = mock(org.molgenis.data.Sort.class);
+    when(fetchMapper.toFetch(entityType, filter, expand)).thenReturn(fetch);
+    when(sortMapper.map(sort, entityType)).thenReturn(dataSort);
+
+    Query q = Query.builder().setOperator(Operator.MATCHES).setValue("value").build();
+    org.molgenis.data.Query<Entity> findAllQuery = new QueryImpl<>();
+    when(queryMapper.map(q, repository)).thenReturn(findAllQuery);
+
+    Entity entity1 = mock(Entity.class);
+    Entity entity2 = mock(Entity.class);
+    org.molgenis.data.Query<Entity> findQuery = new QueryImpl<>().fetch(fetch).sort(dataSort);
+    when(repository.findAll(findQuery)).thenReturn(Stream.of(entity1, entity2));
+
+    assertEquals(
+        asList(entity1, entity2),
+        dataServiceV3Impl.findAll(entityTypeId, q, filter, expand, sort).collect(toList()));
+  }
+
   @SuppressWarnings("unchecked")
   @Test
   void testFindField() {
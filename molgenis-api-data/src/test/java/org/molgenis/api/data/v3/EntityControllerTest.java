@@ -1,14 +1,18 @@
 package org.molgenis.api.data.v3;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonMap;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.gson.Gson;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Map;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -25,6 +29,7 @@ import org.molgenis.api.model.Query;
 import org.molgenis.api.model.Query.Operator;
 import org.molgenis.api.model.Selection;
 import org.molgenis.api.model.Sort;
+import org.molgenis.api.model.response.LinksResponse;
 import org.molgenis.data.Entity;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.test.AbstractMockitoTest;
@@ -32,6 +37,7 @@ import org.molgenis.util.i18n.MessageSourceHolder;
 import org.springframework.context.MessageSource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
@@ -43,7 +49,7 @@ class EntityControllerTest extends AbstractMockitoTest {
 
   @BeforeEach
   void setUpBeforeMethod() {
-    entityController = new EntityController(dataServiceV3, entityMapper);
+    entityController = new EntityController(dataServiceV3, entityMapper, new Gson());
     RequestContextHolder.setRequestAttributes(
         new ServletRequestAttributes(new MockHttpServletRequest()));
     MessageSourceHolder.setMessageSource(messageSource);
@@ -121,6 +127,42 @@ class EntityControllerTest extends AbstractMockitoTest {
     assertEquals(entitiesResponse, entityController.getEntities(entityRequest));
   }
 
+  @Test
+  void testStreamEntities() throws IOException {
+    String entityTypeId = "MyEntityTypeId";
+    Selection filter = Selection.FULL_SELECTION;
+    Selection expand = Selection.FULL_SELECTION;
+    Query query = Query.builder().setOperator(Operator.MATCHES).setValue("value").build();
+    Sort sort = Sort.create("field", Direction.ASC);
+
+    ReadEntitiesRequest entityRequest = new ReadEntitiesRequest();
+    entityRequest.setEntityTypeId(entityTypeId);
+    entityRequest.setQ(query);
+    entityRequest.setSort(sort);
+    entityRequest.setFilter(filter);
+    entityRequest.setExpand(expand);
+
+    Entity entity0 = mock(Entity.class);
+    Entity entity1 = mock(Entity.class);
+    when(dataServiceV3.findAll(entityTypeId, query, filter, expand, sort))
+        .thenReturn(Stream.of(entity0, entity1));
+    LinksResponse links0 = LinksResponse.create(null, URI.create("http://localhost/0"), null);
+    LinksResponse links1 = LinksResponse.create(null, URI.create("http://localhost/1"), null);
+    when(entityMapper.map(entity0, filter, expand))
+        .thenReturn(EntityResponse.create(links0, singletonMap("id", "0")));
+    when(entityMapper.map(entity1, filter, expand))
+        .thenReturn(EntityResponse.create(links1, singletonMap("id", "1")));
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    entityController.streamEntities(entityRequest, response);
+
+    assertEquals("application/x-ndjson;charset=UTF-8", response.getContentType());
+    assertEquals(
+        "{\"links\":{\"self\":\"http://localhost/0\"},\"data\":{\"id\":\"0\"}}\n"
+            + "{\"links\":{\"self\":\"http://localhost/1\"},\"data\":{\"id\":\"1\"}}\n",
+        response.getContentAsString());
+  }
+
   @Test
   void testGetField() {
     String entityTypeId = "MyEntityTypeId";
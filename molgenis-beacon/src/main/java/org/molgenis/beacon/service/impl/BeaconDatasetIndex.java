@@ -0,0 +1,381 @@
+package org.molgenis.beacon.service.impl;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.security.EntityTypePermission.READ_DATA;
+import static org.molgenis.security.core.runas.RunAsSystemAspect.runAsSystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.molgenis.beacon.config.BeaconDataset;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.cache.invalidation.CacheInvalidation;
+import org.molgenis.data.cache.invalidation.CacheInvalidationListener;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.security.EntityIdentityUtils;
+import org.molgenis.data.security.EntityTypeIdentity;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.transaction.TransactionInformation;
+import org.molgenis.data.transaction.TransactionListener;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.security.acl.MutableAclClassService;
+import org.molgenis.security.core.UserPermissionEvaluator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index of the variants of beacon datasets. The variants of a dataset are stored per
+ * chromosome in arrays sorted by position, so an allele query is answered with a binary search.
+ *
+ * <p>Dataset indices are created on first use and discarded after a transaction that changed the
+ * dataset is committed on this or another node. Datasets that are changed in the current
+ * transaction, that are row-level secured, that the current user cannot read or that contain more
+ * variants than fit in the index are not queried through the index.
+ */
+@Component
+public class BeaconDatasetIndex implements TransactionListener, CacheInvalidationListener {
+  private static final Logger LOG = LoggerFactory.getLogger(BeaconDatasetIndex.class);
+
+  private final DataService dataService;
+  private final TransactionInformation transactionInformation;
+  private final UserPermissionEvaluator userPermissionEvaluator;
+  private final MutableAclClassService mutableAclClassService;
+  private final int maxNrVariants;
+
+  /** maps entity type id to dataset index */
+  private final ConcurrentMap<String, DatasetIndex> datasetIndices = new ConcurrentHashMap<>();
+  /** maps entity type id to a version that is incremented when the dataset changes */
+  private final ConcurrentMap<String, Long> datasetVersions = new ConcurrentHashMap<>();
+
+  BeaconDatasetIndex(
+      DataService dataService,
+      TransactionManager transactionManager,
+      TransactionInformation transactionInformation,
+      UserPermissionEvaluator userPermissionEvaluator,
+      MutableAclClassService mutableAclClassService,
+      @Value("${beacon.index.max.variants:5000000}") int maxNrVariants) {
+    this.dataService = requireNonNull(dataService);
+    this.transactionInformation = requireNonNull(transactionInformation);
+    this.userPermissionEvaluator = requireNonNull(userPermissionEvaluator);
+    this.mutableAclClassService = requireNonNull(mutableAclClassService);
+    if (maxNrVariants < 0) {
+      throw new IllegalArgumentException("Maximum number of variants must not be negative");
+    }
+    this.maxNrVariants = maxNrVariants;
+    requireNonNull(transactionManager).addTransactionListener(this);
+  }
+
+  @Override
+  public void afterCommitTransaction(String transactionId) {
+    evict(transactionInformation.getDirtyRepositories());
+  }
+
+  @Override
+  public void invalidate(CacheInvalidation cacheInvalidation) {
+    evict(cacheInvalidation.getEntityTypeIds());
+  }
+
+  @Override
+  public void invalidateAll() {
+    datasetVersions.replaceAll((entityTypeId, version) -> version + 1);
+    datasetIndices.clear();
+  }
+
+  private void evict(Collection<String> entityTypeIds) {
+    entityTypeIds.forEach(
+        entityTypeId -> {
+          datasetVersions.merge(entityTypeId, 1L, Long::sum);
+          datasetIndices.remove(entityTypeId);
+        });
+  }
+
+  /**
+   * Returns whether the dataset can be queried for the current user through this index. Creates the
+   * dataset index if it does not exist yet.
+   */
+  public boolean isQueryable(BeaconDataset beaconDataset) {
+    EntityType entityType = beaconDataset.getDatasetEntityType();
+    return transactionInformation.isRepositoryCompletelyClean(entityType)
+        && userPermissionEvaluator.hasPermission(new EntityTypeIdentity(entityType), READ_DATA)
+        && !mutableAclClassService.hasAclClass(EntityIdentityUtils.toType(entityType))
+        && !getDatasetIndex(beaconDataset).oversized;
+  }
+
+  /**
+   * Returns whether the dataset contains a variant at the given position with the given reference
+   * and alternate bases.
+   *
+   * @see #isQueryable(BeaconDataset)
+   */
+  public boolean contains(
+      BeaconDataset beaconDataset,
+      String chromosome,
+      long position,
+      String referenceBases,
+      String alternateBases) {
+    return getDatasetIndex(beaconDataset)
+        .contains(chromosome, position, referenceBases, alternateBases);
+  }
+
+  private DatasetIndex getDatasetIndex(BeaconDataset beaconDataset) {
+    String entityTypeId = beaconDataset.getDatasetEntityType().getId();
+    DatasetAttributes datasetAttributes = DatasetAttributes.create(beaconDataset);
+    DatasetIndex datasetIndex = datasetIndices.get(entityTypeId);
+    if (!isCurrent(datasetIndex, entityTypeId, datasetAttributes)) {
+      // create the index once when a burst of queries arrives for a new dataset
+      synchronized (this) {
+        datasetIndex = datasetIndices.get(entityTypeId);
+        if (!isCurrent(datasetIndex, entityTypeId, datasetAttributes)) {
+          // register the version, so invalidating all indices also discards this index
+          long version = datasetVersions.computeIfAbsent(entityTypeId, key -> 0L);
+          datasetIndex = createDatasetIndex(entityTypeId, datasetAttributes, version);
+          // do not store an index that was created while the dataset changed
+          if (datasetVersions.getOrDefault(entityTypeId, 0L) == version) {
+            datasetIndices.put(entityTypeId, datasetIndex);
+          }
+        }
+      }
+    }
+    return datasetIndex;
+  }
+
+  private boolean isCurrent(
+      @Nullable DatasetIndex datasetIndex,
+      String entityTypeId,
+      DatasetAttributes datasetAttributes) {
+    return datasetIndex != null
+        && datasetIndex.version == datasetVersions.getOrDefault(entityTypeId, 0L)
+        && datasetIndex.datasetAttributes.equals(datasetAttributes);
+  }
+
+  private DatasetIndex createDatasetIndex(
+      String entityTypeId, DatasetAttributes datasetAttributes, long version) {
+    long nrEntities = runAsSystem(() -> dataService.count(entityTypeId, new QueryImpl<>()));
+    if (nrEntities > maxNrVariants) {
+      LOG.info(
+          "Beacon dataset '{}' contains {} variants, more than the maximum of {} in the index",
+          entityTypeId,
+          nrEntities,
+          maxNrVariants);
+      return DatasetIndex.createOversized(datasetAttributes, version);
+    }
+
+    LOG.debug("Creating beacon dataset index for '{}'", entityTypeId);
+    Fetch fetch =
+        new Fetch()
+            .field(datasetAttributes.chromosome)
+            .field(datasetAttributes.position)
+            .field(datasetAttributes.reference)
+            .field(datasetAttributes.alternate);
+
+    DatasetIndex.Builder builder = new DatasetIndex.Builder(datasetAttributes, version);
+    runAsSystem(
+        () -> {
+          try (Stream<Entity> entities =
+              dataService.findAll(entityTypeId, new QueryImpl<>().fetch(fetch))) {
+            entities.forEach(builder::add);
+          }
+        });
+    DatasetIndex datasetIndex = builder.build();
+    LOG.debug(
+        "Created beacon dataset index for '{}' with {} variants", entityTypeId, builder.nrVariants);
+    return datasetIndex;
+  }
+
+  /** Names of the attributes of a dataset entity type that describe a variant */
+  private static class DatasetAttributes {
+    private static final String DEFAULT_REFERENCE = "REF";
+    private static final String DEFAULT_ALTERNATE = "ALT";
+
+    private final String chromosome;
+    private final String position;
+    private final String reference;
+    private final String alternate;
+
+    private DatasetAttributes(
+        String chromosome, String position, String reference, String alternate) {
+      this.chromosome = requireNonNull(chromosome);
+      this.position = requireNonNull(position);
+      this.reference = requireNonNull(reference);
+      this.alternate = requireNonNull(alternate);
+    }
+
+    static DatasetAttributes create(BeaconDataset beaconDataset) {
+      String alt = beaconDataset.getGenomeBrowserAttributes().getAlt();
+      String ref = beaconDataset.getGenomeBrowserAttributes().getRef();
+      return new DatasetAttributes(
+          beaconDataset.getGenomeBrowserAttributes().getChrom(),
+          beaconDataset.getGenomeBrowserAttributes().getPos(),
+          ref == null || ref.isEmpty() ? DEFAULT_REFERENCE : ref,
+          alt == null || alt.isEmpty() ? DEFAULT_ALTERNATE : alt);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      DatasetAttributes that = (DatasetAttributes) o;
+      return chromosome.equals(that.chromosome)
+          && position.equals(that.position)
+          && reference.equals(that.reference)
+          && alternate.equals(that.alternate);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(chromosome, position, reference, alternate);
+    }
+  }
+
+  /**
+   * Immutable index of the variants of one dataset. An oversized index holds no variants, the
+   * dataset has to be queried instead.
+   */
+  private static class DatasetIndex {
+    private final DatasetAttributes datasetAttributes;
+    private final long version;
+    private final Map<String, ChromosomeIndex> chromosomeIndices;
+    private final boolean oversized;
+
+    private DatasetIndex(
+        DatasetAttributes datasetAttributes,
+        long version,
+        Map<String, ChromosomeIndex> chromosomeIndices,
+        boolean oversized) {
+      this.datasetAttributes = requireNonNull(datasetAttributes);
+      this.version = version;
+      this.chromosomeIndices = requireNonNull(chromosomeIndices);
+      this.oversized = oversized;
+    }
+
+    static DatasetIndex createOversized(DatasetAttributes datasetAttributes, long version) {
+      return new DatasetIndex(datasetAttributes, version, emptyMap(), true);
+    }
+
+    boolean contains(String chromosome, long position, String reference, String alternate) {
+      if (oversized) {
+        throw new IllegalStateException("Oversized dataset index cannot be queried");
+      }
+      ChromosomeIndex chromosomeIndex = chromosomeIndices.get(chromosome);
+      return chromosomeIndex != null && chromosomeIndex.contains(position, reference, alternate);
+    }
+
+    private static class Builder {
+      private final DatasetAttributes datasetAttributes;
+      private final long version;
+      private final Map<String, List<Variant>> chromosomeVariants = new HashMap<>();
+      /** Reference and alternate bases repeat often, so equal values share one instance */
+      private final Map<String, String> bases = new HashMap<>();
+
+      private int nrVariants;
+
+      Builder(DatasetAttributes datasetAttributes, long version) {
+        this.datasetAttributes = requireNonNull(datasetAttributes);
+        this.version = version;
+      }
+
+      void add(Entity entity) {
+        Object chromosome = entity.get(datasetAttributes.chromosome);
+        Object position = entity.get(datasetAttributes.position);
+        if (chromosome == null || !(position instanceof Number)) {
+          return;
+        }
+        String reference = toBases(entity.get(datasetAttributes.reference));
+        String alternate = toBases(entity.get(datasetAttributes.alternate));
+        chromosomeVariants
+            .computeIfAbsent(chromosome.toString(), key -> new ArrayList<>())
+            .add(new Variant(((Number) position).longValue(), reference, alternate));
+        nrVariants++;
+      }
+
+      @Nullable
+      private String toBases(@Nullable Object value) {
+        return value != null ? bases.computeIfAbsent(value.toString(), key -> key) : null;
+      }
+
+      DatasetIndex build() {
+        Map<String, ChromosomeIndex> chromosomeIndices = new HashMap<>();
+        chromosomeVariants.forEach(
+            (chromosome, variants) ->
+                chromosomeIndices.put(chromosome, ChromosomeIndex.create(variants)));
+        return new DatasetIndex(datasetAttributes, version, chromosomeIndices, false);
+      }
+    }
+  }
+
+  private static class Variant {
+    private final long position;
+    private final String reference;
+    private final String alternate;
+
+    Variant(long position, @Nullable String reference, @Nullable String alternate) {
+      this.position = position;
+      this.reference = reference;
+      this.alternate = alternate;
+    }
+  }
+
+  /** Variants of one chromosome stored in arrays sorted by position */
+  private static class ChromosomeIndex {
+    private final long[] positions;
+    private final String[] references;
+    private final String[] alternates;
+
+    private ChromosomeIndex(long[] positions, String[] references, String[] alternates) {
+      this.positions = requireNonNull(positions);
+      this.references = requireNonNull(references);
+      this.alternates = requireNonNull(alternates);
+    }
+
+    static ChromosomeIndex create(List<Variant> variants) {
+      variants.sort(Comparator.comparingLong(variant -> variant.position));
+      int nrVariants = variants.size();
+      long[] positions = new long[nrVariants];
+      String[] references = new String[nrVariants];
+      String[] alternates = new String[nrVariants];
+      for (int i = 0; i < nrVariants; i++) {
+        Variant variant = variants.get(i);
+        positions[i] = variant.position;
+        references[i] = variant.reference;
+        alternates[i] = variant.alternate;
+      }
+      return new ChromosomeIndex(positions, references, alternates);
+    }
+
+    boolean contains(long position, String reference, String alternate) {
+      int index = Arrays.binarySearch(positions, position);
+      if (index < 0) {
+        return false;
+      }
+      // binary search returns any of the variants at the position
+      while (index > 0 && positions[index - 1] == position) {
+        index--;
+      }
+      for (; index < positions.length && positions[index] == position; index++) {
+        if (Objects.equals(references[index], reference)
+            && Objects.equals(alternates[index], alternate)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -20,9 +20,11 @@ import org.springframework.stereotype.Component;
 public class BeaconQueryServiceImpl implements BeaconQueryService {
   private static final Logger LOG = LoggerFactory.getLogger(BeaconQueryServiceImpl.class);
   private final DataService dataService;
+  private final BeaconDatasetIndex beaconDatasetIndex;
 
-  public BeaconQueryServiceImpl(DataService dataService) {
+  public BeaconQueryServiceImpl(DataService dataService, BeaconDatasetIndex beaconDatasetIndex) {
     this.dataService = requireNonNull(dataService);
+    this.beaconDatasetIndex = requireNonNull(beaconDatasetIndex);
   }
 
   @Override
@@ -91,6 +93,11 @@ public class BeaconQueryServiceImpl implements BeaconQueryService {
       Long start,
       String referenceBases,
       String alternateBases) {
+    if (start != null && beaconDatasetIndex.isQueryable(beaconDataset)) {
+      return beaconDatasetIndex.contains(
+          beaconDataset, referenceName, start, referenceBases, alternateBases);
+    }
+
     /* Use a count query to determine if a variation exists */
 
     String alt = beaconDataset.getGenomeBrowserAttributes().getAlt();
@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -18,6 +20,7 @@ import org.molgenis.beacon.controller.model.BeaconAlleleRequest;
 import org.molgenis.beacon.controller.model.BeaconAlleleResponse;
 import org.molgenis.beacon.controller.model.exceptions.BeaconException;
 import org.molgenis.beacon.controller.model.exceptions.NestedBeaconException;
+import org.molgenis.beacon.service.impl.BeaconDatasetIndex;
 import org.molgenis.beacon.service.impl.BeaconQueryServiceImpl;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
@@ -29,6 +32,7 @@ class BeaconQueryServiceTest {
   private BeaconQueryService beaconQueryService;
 
   @Mock private DataService dataService;
+  @Mock private BeaconDatasetIndex beaconDatasetIndex;
 
   private Query<Entity> query1;
   private Query<Entity> query2;
@@ -78,7 +82,7 @@ class BeaconQueryServiceTest {
             .and()
             .eq(dataset2.getGenomeBrowserAttributes().getAlt(), "T");
 
-    beaconQueryService = new BeaconQueryServiceImpl(dataService);
+    beaconQueryService = new BeaconQueryServiceImpl(dataService, beaconDatasetIndex);
   }
 
   @Test
@@ -141,6 +145,26 @@ class BeaconQueryServiceTest {
     assertEquals(expectedResponse, actualResponse);
   }
 
+  @Test
+  void queryExistsIndexedTest() {
+    Beacon beacon = mock(Beacon.class);
+    when(beacon.getDataSets()).thenReturn(Lists.newArrayList(dataset1));
+
+    when(dataService.findOneById(BeaconMetadata.BEACON, BEACON_ID, Beacon.class))
+        .thenReturn(beacon);
+    when(beaconDatasetIndex.isQueryable(dataset1)).thenReturn(true);
+    when(beaconDatasetIndex.contains(dataset1, "1", 100L, "A", "T")).thenReturn(true);
+
+    BeaconAlleleRequest request = BeaconAlleleRequest.create("1", 100L, "A", "T");
+
+    BeaconAlleleResponse actualResponse = beaconQueryService.query(BEACON_ID, request);
+    BeaconAlleleResponse expectedResponse =
+        BeaconAlleleResponse.create(BEACON_ID, true, null, request);
+
+    assertEquals(expectedResponse, actualResponse);
+    verify(dataService, never()).count("dataset1", query1);
+  }
+
   @SuppressWarnings("deprecation")
   @Test
   void queryErrorTest() {
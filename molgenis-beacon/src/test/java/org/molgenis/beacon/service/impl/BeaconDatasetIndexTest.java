@@ -0,0 +1,198 @@
+package org.molgenis.beacon.service.impl;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.security.EntityTypePermission.READ_DATA;
+
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.beacon.config.BeaconDataset;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Query;
+import org.molgenis.data.cache.invalidation.CacheInvalidation;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.security.EntityTypeIdentity;
+import org.molgenis.data.transaction.TransactionInformation;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.genomebrowser.meta.GenomeBrowserAttributes;
+import org.molgenis.security.acl.MutableAclClassService;
+import org.molgenis.security.core.UserPermissionEvaluator;
+import org.molgenis.test.AbstractMockitoTest;
+
+class BeaconDatasetIndexTest extends AbstractMockitoTest {
+  @Mock private DataService dataService;
+  @Mock private TransactionManager transactionManager;
+  @Mock private TransactionInformation transactionInformation;
+  @Mock private UserPermissionEvaluator userPermissionEvaluator;
+  @Mock private MutableAclClassService mutableAclClassService;
+  private BeaconDatasetIndex beaconDatasetIndex;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    beaconDatasetIndex =
+        new BeaconDatasetIndex(
+            dataService,
+            transactionManager,
+            transactionInformation,
+            userPermissionEvaluator,
+            mutableAclClassService,
+            3);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testIsQueryable() {
+    BeaconDataset beaconDataset = createBeaconDataset();
+    EntityType entityType = beaconDataset.getDatasetEntityType();
+    when(transactionInformation.isRepositoryCompletelyClean(entityType)).thenReturn(true);
+    when(userPermissionEvaluator.hasPermission(new EntityTypeIdentity("dataset"), READ_DATA))
+        .thenReturn(true);
+    when(dataService.count(eq("dataset"), any(Query.class))).thenReturn(3L);
+    when(dataService.findAll(eq("dataset"), any(Query.class))).thenReturn(Stream.empty());
+
+    assertTrue(beaconDatasetIndex.isQueryable(beaconDataset));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testIsQueryableOversized() {
+    BeaconDataset beaconDataset = createBeaconDataset();
+    EntityType entityType = beaconDataset.getDatasetEntityType();
+    when(transactionInformation.isRepositoryCompletelyClean(entityType)).thenReturn(true);
+    when(userPermissionEvaluator.hasPermission(new EntityTypeIdentity("dataset"), READ_DATA))
+        .thenReturn(true);
+    when(dataService.count(eq("dataset"), any(Query.class))).thenReturn(4L);
+
+    assertFalse(beaconDatasetIndex.isQueryable(beaconDataset));
+    verify(dataService, never()).findAll(eq("dataset"), any(Query.class));
+  }
+
+  @Test
+  void testIsQueryableRowLevelSecured() {
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getId()).thenReturn("dataset");
+    BeaconDataset beaconDataset = mock(BeaconDataset.class);
+    when(beaconDataset.getDatasetEntityType()).thenReturn(entityType);
+    when(transactionInformation.isRepositoryCompletelyClean(entityType)).thenReturn(true);
+    when(userPermissionEvaluator.hasPermission(new EntityTypeIdentity("dataset"), READ_DATA))
+        .thenReturn(true);
+    when(mutableAclClassService.hasAclClass("entity-dataset")).thenReturn(true);
+
+    assertFalse(beaconDatasetIndex.isQueryable(beaconDataset));
+  }
+
+  @Test
+  void testIsQueryableDirty() {
+    EntityType entityType = mock(EntityType.class);
+    BeaconDataset beaconDataset = mock(BeaconDataset.class);
+    when(beaconDataset.getDatasetEntityType()).thenReturn(entityType);
+
+    assertFalse(beaconDatasetIndex.isQueryable(beaconDataset));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testContains() {
+    BeaconDataset beaconDataset = createBeaconDataset();
+    Entity variant0 = createVariant("1", 100, "A", "T");
+    Entity variant1 = createVariant("1", 100, "A", "G");
+    Entity variant2 = createVariant("2", 100, "C", "T");
+    Entity variant3 = createVariant("1", 50, "A", "T");
+    when(dataService.count(eq("dataset"), any(Query.class))).thenReturn(4L);
+    when(dataService.findAll(eq("dataset"), any(Query.class)))
+        .thenReturn(Stream.of(variant0, variant1, variant2, variant3));
+
+    assertTrue(beaconDatasetIndex.contains(beaconDataset, "1", 100L, "A", "T"));
+    assertTrue(beaconDatasetIndex.contains(beaconDataset, "1", 100L, "A", "G"));
+    assertTrue(beaconDatasetIndex.contains(beaconDataset, "1", 50L, "A", "T"));
+    assertTrue(beaconDatasetIndex.contains(beaconDataset, "2", 100L, "C", "T"));
+    assertFalse(beaconDatasetIndex.contains(beaconDataset, "1", 100L, "C", "T"));
+    assertFalse(beaconDatasetIndex.contains(beaconDataset, "1", 75L, "A", "T"));
+    assertFalse(beaconDatasetIndex.contains(beaconDataset, "3", 100L, "A", "T"));
+    verify(dataService).findAll(eq("dataset"), any(Query.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testContainsAfterCommitTransaction() {
+    BeaconDataset beaconDataset = createBeaconDataset();
+    Entity variant0 = createVariant("1", 100, "A", "T");
+    Entity variant1 = createVariant("1", 200, "A", "T");
+    when(dataService.count(eq("dataset"), any(Query.class))).thenReturn(1L, 2L);
+    when(dataService.findAll(eq("dataset"), any(Query.class)))
+        .thenReturn(Stream.of(variant0), Stream.of(variant0, variant1));
+    when(transactionInformation.getDirtyRepositories()).thenReturn(singleton("dataset"));
+
+    assertFalse(beaconDatasetIndex.contains(beaconDataset, "1", 200L, "A", "T"));
+    beaconDatasetIndex.afterCommitTransaction("transactionId");
+    assertTrue(beaconDatasetIndex.contains(beaconDataset, "1", 200L, "A", "T"));
+    verify(dataService, times(2)).findAll(eq("dataset"), any(Query.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testContainsAfterInvalidate() {
+    BeaconDataset beaconDataset = createBeaconDataset();
+    Entity variant0 = createVariant("1", 100, "A", "T");
+    Entity variant1 = createVariant("1", 200, "A", "T");
+    when(dataService.count(eq("dataset"), any(Query.class))).thenReturn(1L, 2L);
+    when(dataService.findAll(eq("dataset"), any(Query.class)))
+        .thenReturn(Stream.of(variant0), Stream.of(variant0, variant1));
+
+    assertFalse(beaconDatasetIndex.contains(beaconDataset, "1", 200L, "A", "T"));
+    beaconDatasetIndex.invalidate(CacheInvalidation.create(emptySet(), singleton("dataset")));
+    assertTrue(beaconDatasetIndex.contains(beaconDataset, "1", 200L, "A", "T"));
+    verify(dataService, times(2)).findAll(eq("dataset"), any(Query.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testContainsAfterInvalidateAll() {
+    BeaconDataset beaconDataset = createBeaconDataset();
+    Entity variant0 = createVariant("1", 100, "A", "T");
+    Entity variant1 = createVariant("1", 200, "A", "T");
+    when(dataService.count(eq("dataset"), any(Query.class))).thenReturn(1L, 2L);
+    when(dataService.findAll(eq("dataset"), any(Query.class)))
+        .thenReturn(Stream.of(variant0), Stream.of(variant0, variant1));
+
+    assertFalse(beaconDatasetIndex.contains(beaconDataset, "1", 200L, "A", "T"));
+    beaconDatasetIndex.invalidateAll();
+    assertTrue(beaconDatasetIndex.contains(beaconDataset, "1", 200L, "A", "T"));
+    verify(dataService, times(2)).findAll(eq("dataset"), any(Query.class));
+  }
+
+  private static BeaconDataset createBeaconDataset() {
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getId()).thenReturn("dataset");
+    GenomeBrowserAttributes genomeBrowserAttributes = mock(GenomeBrowserAttributes.class);
+    when(genomeBrowserAttributes.getChrom()).thenReturn("#CHROM");
+    when(genomeBrowserAttributes.getPos()).thenReturn("POS");
+    when(genomeBrowserAttributes.getRef()).thenReturn("REF");
+    when(genomeBrowserAttributes.getAlt()).thenReturn("ALT");
+    BeaconDataset beaconDataset = mock(BeaconDataset.class);
+    when(beaconDataset.getDatasetEntityType()).thenReturn(entityType);
+    when(beaconDataset.getGenomeBrowserAttributes()).thenReturn(genomeBrowserAttributes);
+    return beaconDataset;
+  }
+
+  private static Entity createVariant(String chrom, int pos, String ref, String alt) {
+    Entity entity = mock(Entity.class);
+    when(entity.get("#CHROM")).thenReturn(chrom);
+    when(entity.get("POS")).thenReturn(pos);
+    when(entity.get("REF")).thenReturn(ref);
+    when(entity.get("ALT")).thenReturn(alt);
+    return entity;
+  }
+}
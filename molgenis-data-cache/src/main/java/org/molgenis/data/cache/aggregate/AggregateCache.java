@@ -0,0 +1,191 @@
+package org.molgenis.data.cache.aggregate;
+
+import static com.google.common.collect.Streams.stream;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.molgenis.data.meta.model.AttributeMetadata.ATTRIBUTE_META_DATA;
+import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
+import static org.molgenis.data.util.EntityTypeUtils.isReferenceType;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Repository;
+import org.molgenis.data.aggregation.AggregateQuery;
+import org.molgenis.data.aggregation.AggregateResult;
+import org.molgenis.data.cache.invalidation.CacheInvalidation;
+import org.molgenis.data.cache.invalidation.CacheInvalidationListener;
+import org.molgenis.data.event.IndexedEvent;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.transaction.TransactionInformation;
+import org.molgenis.data.transaction.TransactionListener;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.data.util.EntityTypeUtils;
+import org.slf4j.Logger;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory cache of aggregate results. A cached result is discarded when data of its entity type
+ * or of an entity type referenced by its entity type changes, or when entity type or attribute
+ * metadata changes.
+ *
+ * <p>Labels of reference attributes are cached as entity ids, since the referenced entities that a
+ * user is allowed to read differ per user. Callers resolve the ids for the current user.
+ *
+ * <p>Results of aggregate queries that are answered by the index can be stale until the index has
+ * been updated after a commit, cached results are therefore discarded when indexing finishes. The
+ * index on other nodes is updated without notifying this node, cached results are therefore also
+ * discarded after a while.
+ */
+@Service
+public class AggregateCache implements TransactionListener, CacheInvalidationListener {
+  private static final Logger LOG = getLogger(AggregateCache.class);
+  private static final int MAX_CACHE_SIZE = 1000;
+  private static final int EXPIRE_AFTER_WRITE_MINUTES = 60;
+
+  private final TransactionInformation transactionInformation;
+  private final Cache<AggregateCacheKey, CachedAggregateResult> cache;
+  /** incremented when cached results are discarded */
+  private final AtomicLong version = new AtomicLong();
+
+  public AggregateCache(
+      TransactionManager transactionManager,
+      TransactionInformation transactionInformation,
+      MeterRegistry meterRegistry) {
+    this.transactionInformation = requireNonNull(transactionInformation);
+    this.cache =
+        Caffeine.newBuilder()
+            .recordStats()
+            .maximumSize(MAX_CACHE_SIZE)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, MINUTES)
+            .build();
+    CaffeineCacheMetrics.monitor(requireNonNull(meterRegistry), cache, "aggregate");
+    requireNonNull(transactionManager).addTransactionListener(this);
+  }
+
+  @Override
+  public void afterCommitTransaction(String transactionId) {
+    evict(transactionInformation.getDirtyRepositories());
+  }
+
+  @Override
+  public void invalidate(CacheInvalidation cacheInvalidation) {
+    evict(cacheInvalidation.getEntityTypeIds());
+  }
+
+  @Override
+  public void invalidateAll() {
+    version.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  @EventListener
+  public void onApplicationEvent(IndexedEvent event) {
+    evict(event.getEntityTypeIds());
+  }
+
+  /**
+   * Returns the cached aggregate result for the given query or retrieves the result from the
+   * repository. The repository is queried directly if data that the result depends on was changed
+   * in the current transaction.
+   *
+   * @param threshold anonymization threshold applied to the result by the repository
+   * @return aggregate result with entity ids instead of entities as labels of reference attributes
+   */
+  public AggregateResult get(
+      Repository<Entity> repository, AggregateQuery aggregateQuery, @Nullable Integer threshold) {
+    EntityType entityType = repository.getEntityType();
+    Set<String> dependencies = getDependencies(entityType);
+    if (!Collections.disjoint(transactionInformation.getDirtyRepositories(), dependencies)) {
+      LOG.debug("Repository is dirty: {}", repository.getName());
+      return withIdLabels(repository.aggregate(aggregateQuery), aggregateQuery);
+    }
+
+    AggregateCacheKey key = AggregateCacheKey.create(entityType, aggregateQuery, threshold);
+    CachedAggregateResult cachedResult = cache.getIfPresent(key);
+    if (cachedResult != null) {
+      return cachedResult.result;
+    }
+
+    // read the version before aggregating, a result retrieved while changes were committed is not
+    // current
+    long currentVersion = version.get();
+    LOG.trace("Loading aggregate result from repository {} for {}", repository.getName(), key);
+    AggregateResult result = withIdLabels(repository.aggregate(aggregateQuery), aggregateQuery);
+    if (currentVersion == version.get()) {
+      cache.put(key, new CachedAggregateResult(result, dependencies));
+    }
+    return result;
+  }
+
+  private void evict(Collection<String> entityTypeIds) {
+    if (entityTypeIds.isEmpty()) {
+      return;
+    }
+    if (entityTypeIds.contains(ENTITY_TYPE_META_DATA)
+        || entityTypeIds.contains(ATTRIBUTE_META_DATA)) {
+      invalidateAll();
+      return;
+    }
+
+    version.incrementAndGet();
+    cache
+        .asMap()
+        .values()
+        .removeIf(cachedResult -> !Collections.disjoint(cachedResult.dependencies, entityTypeIds));
+  }
+
+  private static AggregateResult withIdLabels(
+      AggregateResult result, AggregateQuery aggregateQuery) {
+    return result.withLabels(
+        toIds(result.getxLabels(), aggregateQuery.getAttributeX()),
+        toIds(result.getyLabels(), aggregateQuery.getAttributeY()));
+  }
+
+  private static List<Object> toIds(List<Object> labels, @Nullable Attribute attribute) {
+    if (labels == null || attribute == null || !isReferenceType(attribute)) {
+      return labels;
+    }
+    return labels.stream()
+        .map(label -> label instanceof Entity ? ((Entity) label).getIdValue() : label)
+        .collect(toList());
+  }
+
+  /**
+   * Returns the ids of the entity types whose data determines aggregate results of the given entity
+   * type: the entity type itself and the entity types it references, which provide the labels and
+   * can be queried.
+   */
+  private static Set<String> getDependencies(EntityType entityType) {
+    return Stream.concat(
+            Stream.of(entityType.getId()),
+            stream(entityType.getAtomicAttributes())
+                .filter(EntityTypeUtils::isReferenceType)
+                .map(attribute -> attribute.getRefEntity().getId()))
+        .collect(toSet());
+  }
+
+  private static class CachedAggregateResult {
+    private final AggregateResult result;
+    private final Set<String> dependencies;
+
+    CachedAggregateResult(AggregateResult result, Set<String> dependencies) {
+      this.result = requireNonNull(result);
+      this.dependencies = requireNonNull(dependencies);
+    }
+  }
+}
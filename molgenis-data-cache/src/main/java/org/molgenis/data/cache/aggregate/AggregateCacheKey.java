@@ -0,0 +1,57 @@
+package org.molgenis.data.cache.aggregate;
+
+import static java.util.Collections.emptyList;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
+import org.molgenis.data.aggregation.AggregateQuery;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+
+/**
+ * Normalized {@link AggregateQuery} for an entity type. Attributes are identified by name and only
+ * the query rules are taken into account, sort, paging and fetch do not affect aggregates.
+ */
+@AutoValue
+@SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
+abstract class AggregateCacheKey {
+  abstract String getEntityTypeId();
+
+  abstract String getAttributeX();
+
+  @Nullable
+  @CheckForNull
+  abstract String getAttributeY();
+
+  @Nullable
+  @CheckForNull
+  abstract String getAttributeDistinct();
+
+  abstract ImmutableList<QueryRule> getRules();
+
+  /** @return anonymization threshold applied to the aggregate result */
+  @Nullable
+  @CheckForNull
+  abstract Integer getThreshold();
+
+  static AggregateCacheKey create(
+      EntityType entityType, AggregateQuery aggregateQuery, @Nullable Integer threshold) {
+    Query<Entity> query = aggregateQuery.getQuery();
+    return new AutoValue_AggregateCacheKey(
+        entityType.getId(),
+        getName(aggregateQuery.getAttributeX()),
+        getName(aggregateQuery.getAttributeY()),
+        getName(aggregateQuery.getAttributeDistinct()),
+        ImmutableList.copyOf(query != null ? query.getRules() : emptyList()),
+        threshold);
+  }
+
+  private static String getName(@Nullable Attribute attribute) {
+    return attribute != null ? attribute.getName() : null;
+  }
+}
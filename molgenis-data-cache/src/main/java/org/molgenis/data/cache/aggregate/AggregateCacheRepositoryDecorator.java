@@ -0,0 +1,65 @@
+package org.molgenis.data.cache.aggregate;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.molgenis.data.util.EntityTypeUtils.isReferenceType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.molgenis.data.AbstractRepositoryDecorator;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Repository;
+import org.molgenis.data.aggregation.AggregateQuery;
+import org.molgenis.data.aggregation.AggregateResult;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.settings.AppSettings;
+
+/**
+ * Retrieves aggregate results from the {@link AggregateCache}. Results are cached per
+ * anonymization threshold, so the decorated repository is expected to anonymize aggregate results.
+ * Labels of reference attributes are resolved for the current user, referenced entities that the
+ * user is not allowed to read result in <code>null</code> labels.
+ *
+ * <p>Delegates to the underlying {@link Repository}
+ */
+public class AggregateCacheRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
+  private final AggregateCache aggregateCache;
+  private final AppSettings appSettings;
+  private final DataService dataService;
+
+  public AggregateCacheRepositoryDecorator(
+      Repository<Entity> delegateRepository,
+      AggregateCache aggregateCache,
+      AppSettings appSettings,
+      DataService dataService) {
+    super(delegateRepository);
+    this.aggregateCache = requireNonNull(aggregateCache);
+    this.appSettings = requireNonNull(appSettings);
+    this.dataService = requireNonNull(dataService);
+  }
+
+  @Override
+  public AggregateResult aggregate(AggregateQuery aggregateQuery) {
+    AggregateResult result =
+        aggregateCache.get(delegate(), aggregateQuery, appSettings.getAggregateThreshold());
+    return result.withLabels(
+        toLabels(result.getxLabels(), aggregateQuery.getAttributeX()),
+        toLabels(result.getyLabels(), aggregateQuery.getAttributeY()));
+  }
+
+  private List<Object> toLabels(List<Object> ids, @Nullable Attribute attribute) {
+    if (ids == null || attribute == null || !isReferenceType(attribute)) {
+      return ids;
+    }
+    Map<Object, Entity> entities =
+        dataService
+            .findAll(attribute.getRefEntity().getId(), ids.stream().filter(Objects::nonNull))
+            .collect(toMap(Entity::getIdValue, identity()));
+    return ids.stream().map(id -> id != null ? entities.get(id) : null).collect(toList());
+  }
+}
@@ -0,0 +1,52 @@
+package org.molgenis.data.cache.invalidation;
+
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.util.stream.Collectors.toSet;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.molgenis.data.EntityKey;
+import org.molgenis.data.transaction.TransactionInformation;
+
+/** Entity instances and repositories whose cached data has become stale. */
+@AutoValue
+@SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
+public abstract class CacheInvalidation {
+  public abstract ImmutableSet<EntityKey> getDirtyEntities();
+
+  /** @return ids of the entity types of which all data has become stale */
+  public abstract ImmutableSet<String> getDirtyRepositories();
+
+  /** @return ids of the entity types of which some or all data has become stale */
+  public Set<String> getEntityTypeIds() {
+    return Stream.concat(
+            getDirtyRepositories().stream(),
+            getDirtyEntities().stream().map(EntityKey::getEntityTypeId))
+        .collect(toSet());
+  }
+
+  public boolean isEmpty() {
+    return getDirtyEntities().isEmpty() && getDirtyRepositories().isEmpty();
+  }
+
+  public static CacheInvalidation create(
+      Set<EntityKey> dirtyEntities, Set<String> dirtyRepositories) {
+    return new AutoValue_CacheInvalidation(
+        ImmutableSet.copyOf(dirtyEntities), ImmutableSet.copyOf(dirtyRepositories));
+  }
+
+  /**
+   * Creates a cache invalidation for the changes of the current transaction. Dirty entities of
+   * entirely dirty repositories are left out.
+   */
+  public static CacheInvalidation create(TransactionInformation transactionInformation) {
+    Set<String> dirtyRepositories = transactionInformation.getEntirelyDirtyRepositories();
+    ImmutableSet<EntityKey> dirtyEntities =
+        transactionInformation.getDirtyEntities().stream()
+            .filter(entityKey -> !dirtyRepositories.contains(entityKey.getEntityTypeId()))
+            .collect(toImmutableSet());
+    return new AutoValue_CacheInvalidation(dirtyEntities, ImmutableSet.copyOf(dirtyRepositories));
+  }
+}
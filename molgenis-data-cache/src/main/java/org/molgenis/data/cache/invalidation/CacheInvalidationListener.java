@@ -0,0 +1,12 @@
+package org.molgenis.data.cache.invalidation;
+
+/**
+ * Listener for changes that were committed by other application nodes sharing the same database.
+ */
+public interface CacheInvalidationListener {
+  /** Removes stale data from the cache. */
+  void invalidate(CacheInvalidation cacheInvalidation);
+
+  /** Removes all data from the cache, e.g. when changes by other nodes might have been missed. */
+  void invalidateAll();
+}
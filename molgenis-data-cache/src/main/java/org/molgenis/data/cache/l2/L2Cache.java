@@ -3,29 +3,35 @@ package org.molgenis.data.cache.l2;
 import static com.google.common.collect.Maps.newConcurrentMap;
 import static com.google.common.collect.Streams.stream;
 import static java.util.Objects.requireNonNull;
-import static java.util.Optional.empty;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.guava.CaffeinatedGuava;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityKey;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Repository;
+import org.molgenis.data.cache.invalidation.CacheInvalidation;
+import org.molgenis.data.cache.invalidation.CacheInvalidationListener;
+import org.molgenis.data.cache.utils.DehydratedEntityCodec;
 import org.molgenis.data.cache.utils.EntityHydration;
 import org.molgenis.data.meta.MetaDataService;
 import org.molgenis.data.meta.model.EntityType;
@@ -34,33 +40,56 @@ import org.molgenis.data.transaction.TransactionListener;
 import org.molgenis.data.transaction.TransactionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-/** In-memory cache of entities read from cacheable repositories. */
+/**
+ * In-memory cache of entities read from cacheable repositories. Entities are stored in a compact
+ * binary representation, the cache size of each entity type is limited in bytes.
+ */
 @Service
-public class L2Cache implements TransactionListener {
+public class L2Cache implements TransactionListener, CacheInvalidationListener {
   private static final Logger LOG = LoggerFactory.getLogger(L2Cache.class);
-  private static final int MAX_CACHE_SIZE_PER_ENTITY = 1000;
-  /** maps entity id to the loading cache with Object key and Optional dehydrated entity value */
-  private final ConcurrentMap<String, LoadingCache<Object, Optional<Map<String, Object>>>> caches;
+  /** approximate number of bytes used by a cache entry in addition to the encoded entity */
+  private static final int ENTRY_OVERHEAD_BYTES = 64;
+  /** cached value for entities that are not present in the repository */
+  private static final byte[] ABSENT = new byte[0];
+
+  /** maps entity id to the cache with Object key and encoded dehydrated entity value */
+  private final ConcurrentMap<String, EntityCache> caches;
 
   private final EntityHydration entityHydration;
   private final TransactionInformation transactionInformation;
   private final MeterRegistry meterRegistry;
+  private final long maxBytesPerEntity;
 
   public L2Cache(
       TransactionManager transactionManager,
       EntityHydration entityHydration,
       TransactionInformation transactionInformation,
-      MeterRegistry meterRegistry) {
+      MeterRegistry meterRegistry,
+      @Value("${cache.l2.max.bytes.per.entity:8388608}") long maxBytesPerEntity) {
     this.entityHydration = requireNonNull(entityHydration);
     this.transactionInformation = requireNonNull(transactionInformation);
     this.meterRegistry = requireNonNull(meterRegistry);
+    if (maxBytesPerEntity < 0) {
+      throw new IllegalArgumentException("maxBytesPerEntity must be greater than or equal to 0");
+    }
+    this.maxBytesPerEntity = maxBytesPerEntity;
     caches = newConcurrentMap();
+    Gauge.builder("cache.bytes", caches, L2Cache::getBytes)
+        .tag("cache", "l2")
+        .description("The approximate number of bytes used by the cached entities")
+        .baseUnit("bytes")
+        .register(meterRegistry);
     requireNonNull(transactionManager).addTransactionListener(this);
   }
 
+  private static double getBytes(Map<String, EntityCache> caches) {
+    return caches.values().stream().mapToLong(entityCache -> entityCache.bytes.sum()).sum();
+  }
+
   @Override
   public void afterCommitTransaction(String transactionId) {
     // TODO: trace logging
@@ -68,11 +97,21 @@ public class L2Cache implements TransactionListener {
     transactionInformation.getDirtyEntities().forEach(this::evict);
   }
 
+  @Override
+  public void invalidate(CacheInvalidation cacheInvalidation) {
+    cacheInvalidation.getDirtyRepositories().forEach(caches::remove);
+    cacheInvalidation.getDirtyEntities().forEach(this::evict);
+  }
+
+  @Override
+  public void invalidateAll() {
+    caches.clear();
+  }
+
   private void evict(EntityKey entityKey) {
-    LoadingCache<Object, Optional<Map<String, Object>>> cache =
-        caches.get(entityKey.getEntityTypeId());
-    if (cache != null) {
-      cache.invalidate(entityKey.getId());
+    EntityCache entityCache = caches.get(entityKey.getEntityTypeId());
+    if (entityCache != null) {
+      entityCache.cache.invalidate(entityKey.getId());
     }
   }
 
@@ -86,9 +125,12 @@ public class L2Cache implements TransactionListener {
    *     an error when loading the entity
    */
   public Entity get(Repository<Entity> repository, Object id) {
-    LoadingCache<Object, Optional<Map<String, Object>>> cache = getEntityCache(repository);
+    EntityCache entityCache = getEntityCache(repository);
     EntityType entityType = repository.getEntityType();
-    return cache.getUnchecked(id).map(e -> entityHydration.hydrate(e, entityType)).orElse(null);
+    byte[] value = entityCache.cache.getUnchecked(id);
+    return value != ABSENT
+        ? entityHydration.hydrate(entityCache.codec.decode(value), entityType)
+        : null;
   }
 
   /**
@@ -102,12 +144,12 @@ public class L2Cache implements TransactionListener {
    *     an error when loading the entity
    */
   public Entity get(Repository<Entity> repository, Object id, Fetch fetch) {
-    LoadingCache<Object, Optional<Map<String, Object>>> cache = getEntityCache(repository);
+    EntityCache entityCache = getEntityCache(repository);
     EntityType entityType = repository.getEntityType();
-    return cache
-        .getUnchecked(id)
-        .map(e -> entityHydration.hydrate(e, entityType, fetch))
-        .orElse(null);
+    byte[] value = entityCache.cache.getUnchecked(id);
+    return value != ABSENT
+        ? entityHydration.hydrate(entityCache.codec.decode(value), entityType, fetch)
+        : null;
   }
   /**
    * Retrieves a list of entities from the cache. If the cache doesn't yet exist, will create the
@@ -122,9 +164,10 @@ public class L2Cache implements TransactionListener {
   public List<Entity> getBatch(Repository<Entity> repository, Iterable<Object> ids) {
     try {
       EntityType entityType = repository.getEntityType();
-      return getEntityCache(repository).getAll(ids).values().stream()
-          .filter(Optional::isPresent)
-          .map(e -> entityHydration.hydrate(e.get(), entityType))
+      EntityCache entityCache = getEntityCache(repository);
+      return entityCache.cache.getAll(ids).values().stream()
+          .filter(value -> value != ABSENT)
+          .map(value -> entityHydration.hydrate(entityCache.codec.decode(value), entityType))
           .collect(toList());
     } catch (ExecutionException exception) {
       throw translateExecutionException(exception);
@@ -145,9 +188,11 @@ public class L2Cache implements TransactionListener {
   public List<Entity> getBatch(Repository<Entity> repository, Iterable<Object> ids, Fetch fetch) {
     try {
       EntityType entityType = repository.getEntityType();
-      return getEntityCache(repository).getAll(ids).values().stream()
-          .filter(Optional::isPresent)
-          .map(e -> entityHydration.hydrate(e.get(), entityType, fetch))
+      EntityCache entityCache = getEntityCache(repository);
+      return entityCache.cache.getAll(ids).values().stream()
+          .filter(value -> value != ABSENT)
+          .map(
+              value -> entityHydration.hydrate(entityCache.codec.decode(value), entityType, fetch))
           .collect(toList());
     } catch (ExecutionException exception) {
       throw translateExecutionException(exception);
@@ -168,9 +213,13 @@ public class L2Cache implements TransactionListener {
     // TODO: do we want to log diff with last log instead?
     if (LOG.isDebugEnabled()) {
       LOG.debug("Cache stats:");
-      for (Map.Entry<String, LoadingCache<Object, Optional<Map<String, Object>>>> cacheEntry :
-          caches.entrySet()) {
-        LOG.debug("{}:{}", cacheEntry.getKey(), cacheEntry.getValue().stats());
+      for (Map.Entry<String, EntityCache> cacheEntry : caches.entrySet()) {
+        EntityCache entityCache = cacheEntry.getValue();
+        LOG.debug(
+            "{}:{} bytes={}",
+            cacheEntry.getKey(),
+            entityCache.cache.stats(),
+            entityCache.bytes.sum());
       }
     }
   }
@@ -181,11 +230,10 @@ public class L2Cache implements TransactionListener {
    *
    * @param repository the Repository used to create a new cache if none found, otherwise only the
    *     id of the repository is used to look up the existing cache
-   * @return the LoadingCache for the repository
+   * @return the EntityCache for the repository
    */
   @SuppressWarnings("java:S2201") // ignore return values
-  private LoadingCache<Object, Optional<Map<String, Object>>> getEntityCache(
-      Repository<Entity> repository) {
+  private EntityCache getEntityCache(Repository<Entity> repository) {
     String id = repository.getEntityType().getId();
     if (!caches.containsKey(id)) {
       caches.putIfAbsent(id, createEntityCache(repository));
@@ -197,63 +245,98 @@ public class L2Cache implements TransactionListener {
    * Creates a new Entity cache
    *
    * @param repository the {@link Repository} to load the entities from
-   * @return newly created LoadingCache
+   * @return newly created EntityCache
    */
-  private LoadingCache<Object, Optional<Map<String, Object>>> createEntityCache(
-      Repository<Entity> repository) {
-    Caffeine<Object, Object> cacheBuilder =
-        Caffeine.newBuilder().recordStats().expireAfterAccess(10, MINUTES);
+  private EntityCache createEntityCache(Repository<Entity> repository) {
+    DehydratedEntityCodec codec = new DehydratedEntityCodec(repository.getEntityType());
+    LongAdder bytes = new LongAdder();
+    Caffeine<Object, byte[]> cacheBuilder =
+        Caffeine.newBuilder()
+            .recordStats()
+            .expireAfterAccess(10, MINUTES)
+            .removalListener(
+                (Object id, byte[] value, RemovalCause cause) -> bytes.add(-weigh(value)));
     if (!MetaDataService.isMetaEntityType(repository.getEntityType())) {
-      cacheBuilder.maximumSize(MAX_CACHE_SIZE_PER_ENTITY);
+      cacheBuilder.maximumWeight(maxBytesPerEntity).weigher((id, value) -> weigh(value));
     }
-    LoadingCache<Object, Optional<Map<String, Object>>> cache =
-        CaffeinatedGuava.build(cacheBuilder, createCacheLoader(repository));
+    LoadingCache<Object, byte[]> cache =
+        CaffeinatedGuava.build(cacheBuilder, createCacheLoader(repository, codec, bytes));
     GuavaCacheMetrics.monitor(meterRegistry, cache, "l2." + repository.getEntityType().getId());
-    return cache;
+    return new EntityCache(cache, codec, bytes);
+  }
+
+  private static int weigh(@Nullable @CheckForNull byte[] value) {
+    return value != null ? ENTRY_OVERHEAD_BYTES + value.length : 0;
   }
 
   /**
-   * Creates a CacheLoader that loads entities from the repository and dehydrates them.
+   * Creates a CacheLoader that loads entities from the repository, dehydrates and encodes them.
    *
    * @param repository the Repository to load the entities from
+   * @param codec the codec to encode the dehydrated entities with
+   * @param bytes adder to add the number of bytes of the loaded entities to
    * @return the {@link CacheLoader}
    */
-  private CacheLoader<Object, Optional<Map<String, Object>>> createCacheLoader(
-      final Repository<Entity> repository) {
-    return new CacheLoader<Object, Optional<Map<String, Object>>>() {
+  private CacheLoader<Object, byte[]> createCacheLoader(
+      final Repository<Entity> repository, DehydratedEntityCodec codec, LongAdder bytes) {
+    return new CacheLoader<Object, byte[]>() {
       /**
        * Loads a single entity from the repository.
        *
        * @param id ID value of the entity to retrieve
-       * @return dehydrated entity or empty if the entity was not present in the repository
+       * @return encoded entity or ABSENT if the entity was not present in the repository
        */
       @Override
-      public Optional<Map<String, Object>> load(@Nonnull Object id) {
-        return Optional.ofNullable(repository.findOneById(id)).map(entityHydration::dehydrate);
+      public byte[] load(@Nonnull Object id) {
+        Entity entity = repository.findOneById(id);
+        return entity != null ? encodeEntity(entity) : absent();
       }
 
       /**
        * Loads multiple entities from the repository.
        *
        * @param ids Iterable of String representations of the ID values
-       * @return Map mapping id to loaded entity, or to empty optional if the entity was not present
-       *     in the repository
+       * @return Map mapping id to encoded entity, or to ABSENT if the entity was not present in the
+       *     repository
        */
       @Override
-      public Map<Object, Optional<Map<String, Object>>> loadAll(Iterable<?> ids) {
+      public Map<Object, byte[]> loadAll(Iterable<?> ids) {
         Stream<Object> typedIds = stream(ids).map(id -> id);
-        Map<Object, Optional<Map<String, Object>>> result =
-            repository.findAll(typedIds).collect(toMap(Entity::getIdValue, this::dehydrateEntity));
+        Map<Object, byte[]> result =
+            repository.findAll(typedIds).collect(toMap(Entity::getIdValue, this::encodeEntity));
         for (Object key : ids) {
           // cache the absence of these entities in the backend as empty values
-          result.putIfAbsent(key, empty());
+          if (!result.containsKey(key)) {
+            result.put(key, absent());
+          }
         }
         return result;
       }
 
-      private Optional<Map<String, Object>> dehydrateEntity(Entity entity) {
-        return Optional.of(entityHydration.dehydrate(entity));
+      private byte[] encodeEntity(Entity entity) {
+        byte[] value = codec.encode(entityHydration.dehydrate(entity));
+        bytes.add(weigh(value));
+        return value;
+      }
+
+      private byte[] absent() {
+        bytes.add(weigh(ABSENT));
+        return ABSENT;
       }
     };
   }
+
+  /** Cache of the encoded entities of one entity type */
+  private static class EntityCache {
+    private final LoadingCache<Object, byte[]> cache;
+    private final DehydratedEntityCodec codec;
+    /** approximate number of bytes used by the cache entries */
+    private final LongAdder bytes;
+
+    EntityCache(LoadingCache<Object, byte[]> cache, DehydratedEntityCodec codec, LongAdder bytes) {
+      this.cache = cache;
+      this.codec = codec;
+      this.bytes = bytes;
+    }
+  }
 }
@@ -20,6 +20,8 @@ import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
+import org.molgenis.data.cache.invalidation.CacheInvalidation;
+import org.molgenis.data.cache.invalidation.CacheInvalidationListener;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.data.transaction.TransactionInformation;
 import org.molgenis.data.transaction.TransactionListener;
@@ -30,7 +32,7 @@ import org.springframework.stereotype.Service;
 
 /** In-memory Query cache containing Queries and resulting ids from cacheable repositories */
 @Service
-public class L3Cache implements TransactionListener {
+public class L3Cache implements TransactionListener, CacheInvalidationListener {
   private static final Logger LOG = getLogger(L3Cache.class);
   private static final int MAX_CACHE_SIZE_PER_QUERY = 1000;
 
@@ -56,6 +58,16 @@ public class L3Cache implements TransactionListener {
     transactionInformation.getDirtyRepositories().forEach(caches::remove);
   }
 
+  @Override
+  public void invalidate(CacheInvalidation cacheInvalidation) {
+    cacheInvalidation.getEntityTypeIds().forEach(caches::remove);
+  }
+
+  @Override
+  public void invalidateAll() {
+    caches.clear();
+  }
+
   public List<Object> get(Repository<Entity> repository, Query<Entity> query) {
     // Set fetch to null because we are only caching identifiers
     LoadingCache<Query<Entity>, List<Object>> cache = getQueryCache(repository);
@@ -2,6 +2,8 @@ package org.molgenis.data.cache.l3;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
+import static org.molgenis.data.QueryUtils.containsOperator;
 import static org.molgenis.data.RepositoryCapability.CACHEABLE;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -55,7 +57,7 @@ public class L3CacheRepositoryDecorator extends AbstractRepositoryDecorator<Enti
     if (transactionInformation.isRepositoryCompletelyClean(getEntityType())) {
       // FIXME page size for metadata is always 0, and batching is done by the postgres repository
       // FIXME Only superusers are able to use the L3 cache for metadata
-      if (cacheable && query.getPageSize() > 0 && query.getPageSize() <= MAX_PAGE_SIZE) {
+      if (isCacheable(query) && query.getPageSize() > 0 && query.getPageSize() <= MAX_PAGE_SIZE) {
         List<Object> ids = l3Cache.get(delegate(), query);
         return delegate().findAll(ids.stream(), query.getFetch());
       }
@@ -74,7 +76,7 @@ public class L3CacheRepositoryDecorator extends AbstractRepositoryDecorator<Enti
    */
   @Override
   public Entity findOne(Query<Entity> query) {
-    if (transactionInformation.isRepositoryCompletelyClean(getEntityType()) && cacheable) {
+    if (transactionInformation.isRepositoryCompletelyClean(getEntityType()) && isCacheable(query)) {
       // pageSize is irrelevant for findOne, would be a waste to cache them in different entries
       // sort may affect which of the results is the first result, so cannot ignore that.
       QueryImpl<Entity> cacheKey = new QueryImpl<>(query).setPageSize(1);
@@ -86,4 +88,12 @@ public class L3CacheRepositoryDecorator extends AbstractRepositoryDecorator<Enti
     }
     return delegate().findOne(query);
   }
+
+  /**
+   * Queries filtered on access control lists are not cached, because changes to the access control
+   * lists do not mark the repository as dirty.
+   */
+  private boolean isCacheable(Query<Entity> query) {
+    return cacheable && !containsOperator(query, PERMITTED);
+  }
 }
@@ -0,0 +1,257 @@
+package org.molgenis.data.cache.utils;
+
+import static com.google.common.collect.Maps.newHashMapWithExpectedSize;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.collect.Streams;
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.molgenis.data.meta.AttributeType;
+import org.molgenis.data.meta.IllegalAttributeTypeException;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.util.UnexpectedEnumException;
+
+/**
+ * Encodes dehydrated entities, as created by {@link EntityHydration#dehydrate}, to a compact binary
+ * representation and back.
+ *
+ * <p>The layout is derived from the non-computed atomic attributes of the entity type at the time
+ * the codec was created: a bitmap marking the null values followed by the non-null values in
+ * attribute order. Numbers are stored as variable length integers, strings as UTF-8 and references
+ * as the id values of the referenced entities. Attribute names are not stored.
+ */
+public class DehydratedEntityCodec {
+  private final List<Attribute> attributes;
+
+  public DehydratedEntityCodec(EntityType entityType) {
+    this.attributes =
+        Streams.stream(entityType.getAtomicAttributes())
+            .filter(attribute -> !attribute.hasExpression())
+            .collect(toList());
+  }
+
+  /**
+   * Encodes a dehydrated entity.
+   *
+   * @param dehydratedEntity map with key value pairs representing the entity
+   * @return binary representation of the entity
+   */
+  public byte[] encode(Map<String, Object> dehydratedEntity) {
+    ByteArrayDataOutput output = ByteStreams.newDataOutput();
+    byte[] nullBitmap = new byte[(attributes.size() + 7) / 8];
+    for (int i = 0; i < attributes.size(); i++) {
+      if (dehydratedEntity.get(attributes.get(i).getName()) == null) {
+        nullBitmap[i / 8] |= 1 << (i % 8);
+      }
+    }
+    output.write(nullBitmap);
+
+    for (Attribute attribute : attributes) {
+      Object value = dehydratedEntity.get(attribute.getName());
+      if (value != null) {
+        writeValue(output, attribute, value);
+      }
+    }
+    return output.toByteArray();
+  }
+
+  /**
+   * Decodes a dehydrated entity.
+   *
+   * @param bytes binary representation of the entity created by {@link #encode(Map)}
+   * @return map with key value pairs representing the entity
+   */
+  public Map<String, Object> decode(byte[] bytes) {
+    ByteArrayDataInput input = ByteStreams.newDataInput(bytes);
+    byte[] nullBitmap = new byte[(attributes.size() + 7) / 8];
+    input.readFully(nullBitmap);
+
+    Map<String, Object> dehydratedEntity = newHashMapWithExpectedSize(attributes.size());
+    for (int i = 0; i < attributes.size(); i++) {
+      Attribute attribute = attributes.get(i);
+      boolean isNull = (nullBitmap[i / 8] & (1 << (i % 8))) != 0;
+      dehydratedEntity.put(attribute.getName(), isNull ? null : readValue(input, attribute));
+    }
+    return dehydratedEntity;
+  }
+
+  private static void writeValue(ByteArrayDataOutput output, Attribute attribute, Object value) {
+    AttributeType type = attribute.getDataType();
+    switch (type) {
+      case BOOL:
+        output.writeBoolean((Boolean) value);
+        break;
+      case CATEGORICAL:
+      case FILE:
+      case XREF:
+        writeId(output, attribute, value);
+        break;
+      case CATEGORICAL_MREF:
+      case MREF:
+      case ONE_TO_MANY:
+        List<?> ids = (List<?>) value;
+        writeVarLong(output, ids.size());
+        ids.forEach(id -> writeId(output, attribute, id));
+        break;
+      case DATE:
+        writeVarLong(output, zigZag(((LocalDate) value).toEpochDay()));
+        break;
+      case DATE_TIME:
+        Instant instant = (Instant) value;
+        writeVarLong(output, zigZag(instant.getEpochSecond()));
+        writeVarLong(output, instant.getNano());
+        break;
+      case DECIMAL:
+        output.writeDouble(((Number) value).doubleValue());
+        break;
+      case INT:
+      case LONG:
+        writeVarLong(output, zigZag(((Number) value).longValue()));
+        break;
+      case EMAIL:
+      case ENUM:
+      case HTML:
+      case HYPERLINK:
+      case SCRIPT:
+      case STRING:
+      case TEXT:
+        writeString(output, (String) value);
+        break;
+      case COMPOUND:
+        throw new IllegalAttributeTypeException(type);
+      default:
+        throw new UnexpectedEnumException(type);
+    }
+  }
+
+  private static Object readValue(ByteArrayDataInput input, Attribute attribute) {
+    AttributeType type = attribute.getDataType();
+    switch (type) {
+      case BOOL:
+        return input.readBoolean();
+      case CATEGORICAL:
+      case FILE:
+      case XREF:
+        return readId(input, attribute);
+      case CATEGORICAL_MREF:
+      case MREF:
+      case ONE_TO_MANY:
+        int size = (int) readVarLong(input);
+        List<Object> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          ids.add(readId(input, attribute));
+        }
+        return ids;
+      case DATE:
+        return LocalDate.ofEpochDay(unZigZag(readVarLong(input)));
+      case DATE_TIME:
+        long epochSecond = unZigZag(readVarLong(input));
+        return Instant.ofEpochSecond(epochSecond, readVarLong(input));
+      case DECIMAL:
+        return input.readDouble();
+      case INT:
+        return (int) unZigZag(readVarLong(input));
+      case LONG:
+        return unZigZag(readVarLong(input));
+      case EMAIL:
+      case ENUM:
+      case HTML:
+      case HYPERLINK:
+      case SCRIPT:
+      case STRING:
+      case TEXT:
+        return readString(input);
+      case COMPOUND:
+        throw new IllegalAttributeTypeException(type);
+      default:
+        throw new UnexpectedEnumException(type);
+    }
+  }
+
+  private static void writeId(ByteArrayDataOutput output, Attribute attribute, Object id) {
+    AttributeType idType = getRefIdType(attribute);
+    switch (idType) {
+      case INT:
+      case LONG:
+        writeVarLong(output, zigZag(((Number) id).longValue()));
+        break;
+      case EMAIL:
+      case HYPERLINK:
+      case STRING:
+        writeString(output, (String) id);
+        break;
+      default:
+        throw new IllegalAttributeTypeException(idType);
+    }
+  }
+
+  private static Object readId(ByteArrayDataInput input, Attribute attribute) {
+    AttributeType idType = getRefIdType(attribute);
+    switch (idType) {
+      case INT:
+        return (int) unZigZag(readVarLong(input));
+      case LONG:
+        return unZigZag(readVarLong(input));
+      case EMAIL:
+      case HYPERLINK:
+      case STRING:
+        return readString(input);
+      default:
+        throw new IllegalAttributeTypeException(idType);
+    }
+  }
+
+  private static AttributeType getRefIdType(Attribute attribute) {
+    return attribute.getRefEntity().getIdAttribute().getDataType();
+  }
+
+  private static void writeString(ByteArrayDataOutput output, String value) {
+    byte[] bytes = value.getBytes(UTF_8);
+    writeVarLong(output, bytes.length);
+    output.write(bytes);
+  }
+
+  private static String readString(ByteArrayDataInput input) {
+    byte[] bytes = new byte[(int) readVarLong(input)];
+    input.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  /** Writes a non-negative value using seven bits per byte */
+  private static void writeVarLong(ByteArrayDataOutput output, long value) {
+    while ((value & ~0x7FL) != 0) {
+      output.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    output.writeByte((int) value);
+  }
+
+  private static long readVarLong(ByteArrayDataInput input) {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = input.readByte();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  /** Maps signed values to unsigned values so that small negative values stay small */
+  private static long zigZag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unZigZag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+}
@@ -0,0 +1,119 @@
+package org.molgenis.data.cache.aggregate;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.meta.AttributeType.XREF;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Repository;
+import org.molgenis.data.aggregation.AggregateQuery;
+import org.molgenis.data.aggregation.AggregateResult;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.support.AggregateQueryImpl;
+import org.molgenis.data.transaction.TransactionInformation;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.settings.AppSettings;
+import org.molgenis.test.AbstractMockitoTest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class AggregateCacheRepositoryDecoratorTest extends AbstractMockitoTest {
+  @Mock private Repository<Entity> delegateRepository;
+  @Mock private AggregateCache aggregateCache;
+  @Mock private AppSettings appSettings;
+  @Mock private DataService dataService;
+  private AggregateCacheRepositoryDecorator aggregateCacheRepositoryDecorator;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    aggregateCacheRepositoryDecorator =
+        new AggregateCacheRepositoryDecorator(
+            delegateRepository, aggregateCache, appSettings, dataService);
+  }
+
+  @AfterEach
+  void tearDownAfterEach() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void testAggregate() {
+    when(appSettings.getAggregateThreshold()).thenReturn(10);
+    AggregateQuery aggregateQuery = mock(AggregateQuery.class);
+    AggregateResult aggregateResult =
+        new AggregateResult(singletonList(singletonList(1L)), singletonList("value"), emptyList());
+    when(aggregateCache.get(delegateRepository, aggregateQuery, 10)).thenReturn(aggregateResult);
+
+    assertEquals(aggregateResult, aggregateCacheRepositoryDecorator.aggregate(aggregateQuery));
+  }
+
+  @Test
+  void testAggregateReferenceLabelsPerUser() {
+    TransactionInformation transactionInformation = mock(TransactionInformation.class);
+    when(transactionInformation.getDirtyRepositories()).thenReturn(emptySet());
+    AggregateCache realAggregateCache =
+        new AggregateCache(
+            mock(TransactionManager.class), transactionInformation, new SimpleMeterRegistry());
+    aggregateCacheRepositoryDecorator =
+        new AggregateCacheRepositoryDecorator(
+            delegateRepository, realAggregateCache, appSettings, dataService);
+
+    EntityType refEntityType = mock(EntityType.class);
+    when(refEntityType.getId()).thenReturn("refEntityTypeId");
+    Attribute refAttribute = mock(Attribute.class);
+    when(refAttribute.getName()).thenReturn("refAttr");
+    when(refAttribute.getDataType()).thenReturn(XREF);
+    when(refAttribute.getRefEntity()).thenReturn(refEntityType);
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getAtomicAttributes()).thenReturn(singletonList(refAttribute));
+    when(delegateRepository.getEntityType()).thenReturn(entityType);
+
+    Entity refEntity = mock(Entity.class);
+    when(refEntity.getIdValue()).thenReturn("refEntityId");
+    AggregateQuery aggregateQuery = new AggregateQueryImpl().attrX(refAttribute);
+    List<List<Long>> matrix = asList(singletonList(2L), singletonList(3L));
+    when(delegateRepository.aggregate(aggregateQuery))
+        .thenReturn(new AggregateResult(matrix, asList(refEntity, null), emptyList()));
+
+    // user1 is allowed to read the referenced entity, user2 is not
+    when(dataService.findAll(eq("refEntityTypeId"), any(Stream.class)))
+        .thenAnswer(
+            invocation ->
+                SecurityContextHolder.getContext().getAuthentication().getName().equals("user1")
+                    ? Stream.of(refEntity)
+                    : Stream.empty());
+
+    SecurityContextHolder.getContext()
+        .setAuthentication(new TestingAuthenticationToken("user1", null));
+    AggregateResult user1Result = aggregateCacheRepositoryDecorator.aggregate(aggregateQuery);
+    SecurityContextHolder.getContext()
+        .setAuthentication(new TestingAuthenticationToken("user2", null));
+    AggregateResult user2Result = aggregateCacheRepositoryDecorator.aggregate(aggregateQuery);
+
+    assertAll(
+        () -> assertEquals(asList(refEntity, null), user1Result.getxLabels()),
+        () -> assertEquals(asList(null, null), user2Result.getxLabels()),
+        () -> assertEquals(matrix, user2Result.getMatrix()));
+    verify(delegateRepository, times(1)).aggregate(aggregateQuery);
+  }
+}
@@ -0,0 +1,153 @@
+package org.molgenis.data.cache.aggregate;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.meta.AttributeType.STRING;
+import static org.molgenis.data.meta.AttributeType.XREF;
+import static org.molgenis.data.meta.model.AttributeMetadata.ATTRIBUTE_META_DATA;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityKey;
+import org.molgenis.data.Repository;
+import org.molgenis.data.aggregation.AggregateQuery;
+import org.molgenis.data.aggregation.AggregateResult;
+import org.molgenis.data.cache.invalidation.CacheInvalidation;
+import org.molgenis.data.event.IndexedEvent;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.support.AggregateQueryImpl;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.transaction.TransactionInformation;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.test.AbstractMockitoTest;
+
+class AggregateCacheTest extends AbstractMockitoTest {
+  @Mock private TransactionManager transactionManager;
+  @Mock private TransactionInformation transactionInformation;
+  @Mock private Repository<Entity> repository;
+  @Mock private Attribute attribute;
+  private AggregateCache aggregateCache;
+  private AggregateQuery aggregateQuery;
+  private AggregateResult idLabelsAggregateResult;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    aggregateCache =
+        new AggregateCache(transactionManager, transactionInformation, new SimpleMeterRegistry());
+
+    EntityType refEntityType = mock(EntityType.class);
+    when(refEntityType.getId()).thenReturn("refEntityTypeId");
+    Attribute refAttribute = mock(Attribute.class);
+    when(refAttribute.getDataType()).thenReturn(XREF);
+    when(refAttribute.getRefEntity()).thenReturn(refEntityType);
+    when(attribute.getDataType()).thenReturn(STRING);
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getAtomicAttributes()).thenReturn(asList(attribute, refAttribute));
+    when(repository.getEntityType()).thenReturn(entityType);
+
+    Entity refEntity = mock(Entity.class);
+    when(refEntity.getIdValue()).thenReturn("refEntityId");
+
+    aggregateQuery =
+        new AggregateQueryImpl()
+            .attrX(attribute)
+            .attrY(refAttribute)
+            .query(new QueryImpl<>().eq("attr", "value"));
+    List<List<Long>> matrix = singletonList(singletonList(1L));
+    AggregateResult aggregateResult =
+        new AggregateResult(matrix, singletonList("value"), singletonList(refEntity));
+    when(repository.aggregate(aggregateQuery)).thenReturn(aggregateResult);
+    idLabelsAggregateResult =
+        new AggregateResult(matrix, singletonList("value"), singletonList("refEntityId"));
+  }
+
+  @Test
+  void testGet() {
+    when(attribute.getName()).thenReturn("attr");
+    when(transactionInformation.getDirtyRepositories()).thenReturn(emptySet());
+
+    assertEquals(idLabelsAggregateResult, aggregateCache.get(repository, aggregateQuery, 10));
+    assertEquals(idLabelsAggregateResult, aggregateCache.get(repository, aggregateQuery, 10));
+    verify(repository, times(1)).aggregate(aggregateQuery);
+  }
+
+  @Test
+  void testGetOtherThreshold() {
+    when(attribute.getName()).thenReturn("attr");
+    when(transactionInformation.getDirtyRepositories()).thenReturn(emptySet());
+
+    aggregateCache.get(repository, aggregateQuery, 10);
+    aggregateCache.get(repository, aggregateQuery, null);
+    verify(repository, times(2)).aggregate(aggregateQuery);
+  }
+
+  @Test
+  void testGetRepositoryDirty() {
+    when(transactionInformation.getDirtyRepositories()).thenReturn(singleton("entityTypeId"));
+
+    assertEquals(idLabelsAggregateResult, aggregateCache.get(repository, aggregateQuery, 10));
+    aggregateCache.get(repository, aggregateQuery, 10);
+    verify(repository, times(2)).aggregate(aggregateQuery);
+  }
+
+  @Test
+  void testAfterCommitTransactionReferencedData() {
+    when(attribute.getName()).thenReturn("attr");
+    when(transactionInformation.getDirtyRepositories())
+        .thenReturn(emptySet(), singleton("refEntityTypeId"), emptySet());
+
+    aggregateCache.get(repository, aggregateQuery, 10);
+    aggregateCache.afterCommitTransaction("transactionId");
+    aggregateCache.get(repository, aggregateQuery, 10);
+    verify(repository, times(2)).aggregate(aggregateQuery);
+  }
+
+  @Test
+  void testAfterCommitTransactionOtherData() {
+    when(attribute.getName()).thenReturn("attr");
+    when(transactionInformation.getDirtyRepositories())
+        .thenReturn(emptySet(), singleton("otherEntityTypeId"), emptySet());
+
+    aggregateCache.get(repository, aggregateQuery, 10);
+    aggregateCache.afterCommitTransaction("transactionId");
+    aggregateCache.get(repository, aggregateQuery, 10);
+    verify(repository, times(1)).aggregate(aggregateQuery);
+  }
+
+  @Test
+  void testInvalidateMetadata() {
+    when(attribute.getName()).thenReturn("attr");
+    when(transactionInformation.getDirtyRepositories()).thenReturn(emptySet());
+
+    aggregateCache.get(repository, aggregateQuery, 10);
+    aggregateCache.invalidate(
+        CacheInvalidation.create(
+            singleton(EntityKey.create(ATTRIBUTE_META_DATA, "attrId")), emptySet()));
+    aggregateCache.get(repository, aggregateQuery, 10);
+    verify(repository, times(2)).aggregate(aggregateQuery);
+  }
+
+  @Test
+  void testOnApplicationEventIndexed() {
+    when(attribute.getName()).thenReturn("attr");
+    when(transactionInformation.getDirtyRepositories()).thenReturn(emptySet());
+
+    aggregateCache.get(repository, aggregateQuery, 10);
+    aggregateCache.onApplicationEvent(new IndexedEvent(singleton("entityTypeId")));
+    aggregateCache.get(repository, aggregateQuery, 10);
+    verify(repository, times(2)).aggregate(aggregateQuery);
+  }
+}
@@ -37,6 +37,7 @@ import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Repository;
 import org.molgenis.data.TestHarnessConfig;
+import org.molgenis.data.cache.invalidation.CacheInvalidation;
 import org.molgenis.data.cache.utils.EntityHydration;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.support.DynamicEntity;
@@ -54,6 +55,8 @@ import org.springframework.test.context.ContextConfiguration;
 @MockitoSettings(strictness = Strictness.LENIENT)
 @ContextConfiguration(classes = L2CacheTest.Config.class)
 class L2CacheTest extends AbstractMolgenisSpringTest {
+  private static final long MAX_BYTES_PER_ENTITY = 1024L * 1024L;
+
   private L2Cache l2Cache;
 
   @Autowired private EntityHydration entityHydration;
@@ -91,7 +94,12 @@ class L2CacheTest extends AbstractMolgenisSpringTest {
     when(repository.getName()).thenReturn(emd.getId());
 
     l2Cache =
-        new L2Cache(transactionManager, entityHydration, transactionInformation, meterRegistry);
+        new L2Cache(
+            transactionManager,
+            entityHydration,
+            transactionInformation,
+            meterRegistry,
+            MAX_BYTES_PER_ENTITY);
   }
 
   @Test
@@ -163,6 +171,55 @@ class L2CacheTest extends AbstractMolgenisSpringTest {
     verify(repository, times(2)).findOneById("3");
   }
 
+  @Test
+  void testInvalidateDirtyEntity() {
+    Entity entity2 = testEntities.get(2);
+    Entity entity3 = testEntities.get(3);
+    when(repository.findOneById("2")).thenReturn(entity2);
+    when(repository.findOneById("3")).thenReturn(entity3);
+    l2Cache.get(repository, "2");
+    l2Cache.get(repository, "3");
+
+    l2Cache.invalidate(CacheInvalidation.create(singleton(EntityKey.create(entity3)), emptySet()));
+
+    assertTrue(EntityUtils.equals(l2Cache.get(repository, "2"), entity2));
+    assertTrue(EntityUtils.equals(l2Cache.get(repository, "3"), entity3));
+    verify(repository, times(1)).findOneById("2");
+    verify(repository, times(2)).findOneById("3");
+  }
+
+  @Test
+  void testInvalidateAll() {
+    Entity entity2 = testEntities.get(2);
+    when(repository.findOneById("2")).thenReturn(entity2);
+    l2Cache.get(repository, "2");
+
+    l2Cache.invalidateAll();
+
+    assertTrue(EntityUtils.equals(l2Cache.get(repository, "2"), entity2));
+    verify(repository, times(2)).findOneById("2");
+  }
+
+  @Test
+  void testBytesMetric() {
+    Entity entity2 = testEntities.get(2);
+    when(repository.findOneById("2")).thenReturn(entity2);
+    assertEquals(0d, meterRegistry.get("cache.bytes").tag("cache", "l2").gauge().value());
+
+    l2Cache.get(repository, "2");
+
+    assertTrue(meterRegistry.get("cache.bytes").tag("cache", "l2").gauge().value() > 0);
+  }
+
+  @Test
+  void testNegativeMaxBytesPerEntity() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new L2Cache(
+                transactionManager, entityHydration, transactionInformation, meterRegistry, -1L));
+  }
+
   @Test
   void testGetStringIdCachesLoadedData() {
     Entity entity2 = testEntities.get(2);
@@ -2,6 +2,7 @@ package org.molgenis.data.cache.l3;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -13,6 +14,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.EntityManager.CreationMode.NO_POPULATE;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.RepositoryCapability.CACHEABLE;
 import static org.molgenis.data.meta.AttributeType.INT;
 import static org.molgenis.data.meta.model.EntityType.AttributeRole.ROLE_ID;
@@ -31,7 +33,9 @@ import org.molgenis.data.AbstractMolgenisSpringTest;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityManager;
 import org.molgenis.data.Fetch;
+import org.molgenis.data.PermittedObjectsFilter;
 import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
 import org.molgenis.data.Repository;
 import org.molgenis.data.Sort;
 import org.molgenis.data.meta.model.AttributeFactory;
@@ -178,6 +182,27 @@ class L3CacheRepositoryDecoratorTest extends AbstractMolgenisSpringTest {
     verifyNoMoreInteractions(l3Cache);
   }
 
+  @Test
+  void testFindAllPermittedQuery() {
+    when(transactionInformation.isRepositoryCompletelyClean(entityType)).thenReturn(true);
+    QueryImpl<Entity> permittedQuery = new QueryImpl<>();
+    permittedQuery.addRule(
+        new QueryRule(
+            PERMITTED,
+            PermittedObjectsFilter.create("entity-test", emptyList(), emptyList(), 4)));
+    permittedQuery.pageSize(10);
+
+    List<Entity> expectedEntities = newArrayList(entity1, entity2);
+
+    when(delegateRepository.findAll(permittedQuery)).thenReturn(expectedEntities.stream());
+
+    List<Entity> actualEntities =
+        l3CacheRepositoryDecorator.findAll(permittedQuery).collect(toList());
+
+    assertEquals(expectedEntities, actualEntities);
+    verifyNoMoreInteractions(l3Cache);
+  }
+
   @Test
   void testFindAllRepositoryDirty() {
     when(transactionInformation.isRepositoryCompletelyClean(entityType)).thenReturn(false);
@@ -27,10 +27,12 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.molgenis.data.AbstractMolgenisSpringTest;
 import org.molgenis.data.Entity;
+import org.molgenis.data.EntityKey;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
+import org.molgenis.data.cache.invalidation.CacheInvalidation;
 import org.molgenis.data.meta.model.AttributeFactory;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.EntityTypeFactory;
@@ -190,4 +192,24 @@ class L3CacheTest extends AbstractMolgenisSpringTest {
     verify(decoratedRepository, atLeast(0)).getEntityType();
     verifyNoMoreInteractions(decoratedRepository);
   }
+
+  @Test
+  void testInvalidateDirtyEntity() {
+    Fetch idAttributeFetch = new Fetch().field(entityType.getIdAttribute().getName());
+    Query<Entity> fetchLessQuery = new QueryImpl<>().eq(COUNTRY, "NL").fetch(idAttributeFetch);
+
+    when(decoratedRepository.findAll(fetchLessQuery)).thenReturn(Stream.of(entity1, entity2));
+
+    Query<Entity> query = new QueryImpl<>().eq(COUNTRY, "NL");
+    assertEquals(asList(1, 2), l3Cache.get(decoratedRepository, query));
+
+    l3Cache.invalidate(
+        CacheInvalidation.create(
+            Collections.singleton(EntityKey.create(repositoryName, 3)), Collections.emptySet()));
+
+    when(decoratedRepository.findAll(fetchLessQuery)).thenReturn(Stream.of(entity3, entity2));
+    assertEquals(asList(3, 2), l3Cache.get(decoratedRepository, query));
+
+    verify(decoratedRepository, times(2)).findAll(fetchLessQuery);
+  }
 }
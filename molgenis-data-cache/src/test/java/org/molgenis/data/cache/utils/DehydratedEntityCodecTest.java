@@ -0,0 +1,100 @@
+package org.molgenis.data.cache.utils;
+
+import static com.google.common.collect.Maps.newHashMap;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.molgenis.data.EntityTestHarness.ATTR_BOOL;
+import static org.molgenis.data.EntityTestHarness.ATTR_CATEGORICAL;
+import static org.molgenis.data.EntityTestHarness.ATTR_CATEGORICAL_MREF;
+import static org.molgenis.data.EntityTestHarness.ATTR_COMPOUND_CHILD_INT;
+import static org.molgenis.data.EntityTestHarness.ATTR_DATE;
+import static org.molgenis.data.EntityTestHarness.ATTR_DATETIME;
+import static org.molgenis.data.EntityTestHarness.ATTR_DECIMAL;
+import static org.molgenis.data.EntityTestHarness.ATTR_EMAIL;
+import static org.molgenis.data.EntityTestHarness.ATTR_ENUM;
+import static org.molgenis.data.EntityTestHarness.ATTR_HTML;
+import static org.molgenis.data.EntityTestHarness.ATTR_HYPERLINK;
+import static org.molgenis.data.EntityTestHarness.ATTR_ID;
+import static org.molgenis.data.EntityTestHarness.ATTR_INT;
+import static org.molgenis.data.EntityTestHarness.ATTR_LONG;
+import static org.molgenis.data.EntityTestHarness.ATTR_MREF;
+import static org.molgenis.data.EntityTestHarness.ATTR_SCRIPT;
+import static org.molgenis.data.EntityTestHarness.ATTR_STRING;
+import static org.molgenis.data.EntityTestHarness.ATTR_XREF;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.molgenis.data.AbstractMolgenisSpringTest;
+import org.molgenis.data.EntityTestHarness;
+import org.molgenis.data.TestHarnessConfig;
+import org.molgenis.data.meta.model.EntityType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = {TestHarnessConfig.class})
+class DehydratedEntityCodecTest extends AbstractMolgenisSpringTest {
+  @Autowired private EntityTestHarness entityTestHarness;
+
+  private DehydratedEntityCodec dehydratedEntityCodec;
+  private Map<String, Object> dehydratedEntity;
+
+  @BeforeEach
+  void setUpBeforeMethod() {
+    EntityType refEntityType = entityTestHarness.createDynamicRefEntityType();
+    EntityType entityType = entityTestHarness.createDynamicTestEntityType(refEntityType);
+    dehydratedEntityCodec = new DehydratedEntityCodec(entityType);
+
+    dehydratedEntity = newHashMap();
+    dehydratedEntity.put(ATTR_ID, "0");
+    dehydratedEntity.put(ATTR_STRING, "string1");
+    dehydratedEntity.put(ATTR_BOOL, true);
+    dehydratedEntity.put(ATTR_CATEGORICAL, "0");
+    dehydratedEntity.put(ATTR_CATEGORICAL_MREF, singletonList("0"));
+    dehydratedEntity.put(ATTR_DATE, LocalDate.parse("2012-12-21"));
+    dehydratedEntity.put(ATTR_DATETIME, Instant.parse("1985-08-12T06:12:13.123Z"));
+    dehydratedEntity.put(ATTR_EMAIL, "this.is@mail.address");
+    dehydratedEntity.put(ATTR_DECIMAL, 0.123);
+    dehydratedEntity.put(ATTR_HTML, null);
+    dehydratedEntity.put(ATTR_HYPERLINK, "http://www.molgenis.org");
+    dehydratedEntity.put(ATTR_LONG, 0L);
+    dehydratedEntity.put(ATTR_INT, 10);
+    dehydratedEntity.put(ATTR_SCRIPT, "/bin/blaat/script.sh");
+    dehydratedEntity.put(ATTR_XREF, "0");
+    dehydratedEntity.put(ATTR_MREF, asList("0", "1"));
+    dehydratedEntity.put(ATTR_COMPOUND_CHILD_INT, 10);
+    dehydratedEntity.put(ATTR_ENUM, "option1");
+  }
+
+  @Test
+  void testEncodeDecode() {
+    byte[] bytes = dehydratedEntityCodec.encode(dehydratedEntity);
+    assertEquals(dehydratedEntity, dehydratedEntityCodec.decode(bytes));
+  }
+
+  @Test
+  void testEncodeDecodeNegativeAndNullValues() {
+    dehydratedEntity.put(ATTR_STRING, "ünïcödé");
+    dehydratedEntity.put(ATTR_DATE, LocalDate.parse("1850-01-01"));
+    dehydratedEntity.put(ATTR_DATETIME, Instant.parse("1900-01-01T00:00:00Z"));
+    dehydratedEntity.put(ATTR_DECIMAL, null);
+    dehydratedEntity.put(ATTR_LONG, Long.MIN_VALUE);
+    dehydratedEntity.put(ATTR_INT, -1);
+    dehydratedEntity.put(ATTR_XREF, null);
+    dehydratedEntity.put(ATTR_MREF, emptyList());
+
+    byte[] bytes = dehydratedEntityCodec.encode(dehydratedEntity);
+    assertEquals(dehydratedEntity, dehydratedEntityCodec.decode(bytes));
+  }
+
+  @Test
+  void testEncodeCompact() {
+    byte[] bytes = dehydratedEntityCodec.encode(dehydratedEntity);
+    assertTrue(bytes.length < 150, "encoded entity length: " + bytes.length);
+  }
+}
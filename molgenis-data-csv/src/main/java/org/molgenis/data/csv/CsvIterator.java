@@ -30,7 +30,7 @@ import org.molgenis.data.UnknownEntityTypeException;
 import org.molgenis.data.file.processor.AbstractCellProcessor;
 import org.molgenis.data.file.processor.CellProcessor;
 import org.molgenis.data.meta.model.EntityType;
-import org.molgenis.data.support.DynamicEntity;
+import org.molgenis.data.support.ArrayEntity;
 import org.molgenis.util.CloseableIterator;
 import org.springframework.util.StringUtils;
 
@@ -140,7 +140,7 @@ public class CsvIterator implements CloseableIterator<Entity> {
             values[i] = processCell(value, false);
           }
 
-          next = new DynamicEntity(entityType);
+          next = new ArrayEntity(entityType);
 
           colNamesMap.forEach((key, value) -> next.set(key, valueList.get(value)));
         } else if (values != null
@@ -1,26 +1,39 @@
 package org.molgenis.data.elasticsearch;
 
+import static java.util.Collections.emptyIterator;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 import static org.molgenis.data.util.EntityTypeUtils.createFetchForReindexing;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Streams;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import org.apache.lucene.search.Explanation;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
 import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.aggregation.AggregateResult;
 import org.molgenis.data.elasticsearch.client.ClientFacade;
 import org.molgenis.data.elasticsearch.client.model.SearchHit;
-import org.molgenis.data.elasticsearch.client.model.SearchHits;
 import org.molgenis.data.elasticsearch.generator.ContentGenerators;
 import org.molgenis.data.elasticsearch.generator.model.Document;
 import org.molgenis.data.elasticsearch.generator.model.DocumentAction;
@@ -33,6 +46,8 @@ import org.molgenis.data.index.SearchService;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.IllegalAttributeTypeException;
 import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.util.ExecutorServiceUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
@@ -42,16 +57,30 @@ import org.springframework.stereotype.Component;
 public class ElasticsearchService implements SearchService, IndexService {
   private static final int BATCH_SIZE = 1000;
   public static final int MAX_BATCH_SIZE = 10000;
+  private static final int REBUILD_PARTITION_SIZE = 100000;
+  private static final int MAX_REBUILD_PARTITIONS = 1000;
 
   private final ClientFacade clientFacade;
   private final ContentGenerators contentGenerators;
   private final DataService dataService;
+  private final ExecutorService rebuildExecutorService;
 
   public ElasticsearchService(
-      ClientFacade clientFacade, ContentGenerators contentGenerators, DataService dataService) {
+      ClientFacade clientFacade,
+      ContentGenerators contentGenerators,
+      DataService dataService,
+      @Value("${elasticsearch.index.rebuild.threads:4}") int rebuildThreads) {
     this.clientFacade = requireNonNull(clientFacade);
     this.contentGenerators = requireNonNull(contentGenerators);
     this.dataService = requireNonNull(dataService);
+    this.rebuildExecutorService =
+        ExecutorServiceUtils.newSecurityContextFixedThreadPool(
+            rebuildThreads, "molgenis-index-rebuild-%d");
+  }
+
+  @PreDestroy
+  void preDestroy() {
+    ExecutorServiceUtils.shutdownAndAwaitTermination(rebuildExecutorService);
   }
 
   @Override
@@ -74,19 +103,56 @@ public class ElasticsearchService implements SearchService, IndexService {
     clientFacade.deleteIndex(index);
   }
 
+  /**
+   * Rebuilds the index in a new Elasticsearch index that replaces the existing index once it is
+   * complete, so that searches never see a half-built index. Refreshing is disabled while building.
+   * Large repositories are split into partitions that are read and indexed concurrently.
+   */
   @Override
   public void rebuildIndex(Repository<? extends Entity> repository) {
     EntityType entityType = repository.getEntityType();
+    Index alias = contentGenerators.createIndex(entityType);
+    Index index = Index.create(alias.getName() + '_' + System.currentTimeMillis());
 
-    if (hasIndex(entityType)) {
-      deleteIndex(entityType);
+    IndexSettings indexSettings = IndexSettings.create();
+    IndexSettings buildIndexSettings =
+        indexSettings.toBuilder().setNumberOfReplicas(0).setRefreshInterval("-1").build();
+    Mapping mapping = contentGenerators.createMapping(entityType);
+    clientFacade.createIndex(index, buildIndexSettings, Stream.of(mapping));
+    try {
+      rebuildIndex(repository, alias, index);
+      clientFacade.updateIndexSettings(index, indexSettings);
+      clientFacade.refreshIndex(index);
+    } catch (RuntimeException e) {
+      clientFacade.deleteIndex(index);
+      throw e;
     }
+    clientFacade.replaceIndex(alias, index);
+  }
 
-    createIndex(entityType);
-    repository.forEachBatched(
-        createFetchForReindexing(entityType),
-        entities -> index(entityType, entities.stream()),
-        BATCH_SIZE);
+  private <E extends Entity> void rebuildIndex(Repository<E> repository, Index alias, Index index) {
+    Fetch fetch = createFetchForReindexing(repository.getEntityType());
+    int numberOfPartitions =
+        (int) Math.min(MAX_REBUILD_PARTITIONS, repository.count() / REBUILD_PARTITION_SIZE + 1);
+    List<Query<E>> partitions =
+        numberOfPartitions > 1 ? repository.partition(numberOfPartitions) : emptyList();
+    if (partitions.size() < 2) {
+      repository.forEachBatched(
+          fetch, entities -> index(alias, index, entities.stream()), BATCH_SIZE);
+      return;
+    }
+
+    List<Future<Long>> futures = new ArrayList<>(partitions.size());
+    try {
+      for (Query<E> partition : partitions) {
+        futures.add(
+            rebuildExecutorService.submit(
+                () -> index(alias, index, repository.findAll(partition.fetch(fetch)))));
+      }
+      futures.forEach(ExecutorServiceUtils::getResult);
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
   }
 
   @Override
@@ -94,6 +160,12 @@ public class ElasticsearchService implements SearchService, IndexService {
     clientFacade.refreshIndexes();
   }
 
+  @Override
+  public void refreshIndex(EntityType entityType) {
+    Index index = contentGenerators.createIndex(entityType);
+    clientFacade.refreshIndex(index);
+  }
+
   @Override
   public long count(EntityType entityType) {
     Index index = contentGenerators.createIndex(entityType);
@@ -107,6 +179,26 @@ public class ElasticsearchService implements SearchService, IndexService {
     return clientFacade.getCount(queryBuilder, index);
   }
 
+  @Override
+  public Map<String, Long> count(List<EntityType> entityTypes, Query<Entity> q) {
+    if (entityTypes.isEmpty()) {
+      return emptyMap();
+    }
+    List<Index> indexes =
+        entityTypes.stream().map(contentGenerators::createIndex).collect(toList());
+    List<QueryBuilder> queryBuilders =
+        entityTypes.stream()
+            .map(entityType -> contentGenerators.createQuery(q, entityType))
+            .collect(toList());
+    List<Long> counts = clientFacade.getCounts(queryBuilders, indexes);
+
+    Map<String, Long> countMap = new HashMap<>();
+    for (int i = 0; i < entityTypes.size(); i++) {
+      countMap.put(entityTypes.get(i).getId(), counts.get(i));
+    }
+    return countMap;
+  }
+
   @Override
   public Stream<Object> search(EntityType entityType, Query<Entity> q) {
     int from = q.getOffset();
@@ -118,28 +210,82 @@ public class ElasticsearchService implements SearchService, IndexService {
     QueryBuilder query = contentGenerators.createQuery(q, entityType);
     Sort sort = q.getSort() != null ? contentGenerators.createSorts(q.getSort(), entityType) : null;
     Index index = contentGenerators.createIndex(entityType);
-    Stream<SearchHit> searchHits = Stream.empty();
 
-    boolean done = false;
-    int currentOffset;
-    int i = 0;
-    while (!done) {
-      int batchSize = pageSize < MAX_BATCH_SIZE && pageSize != 0 ? pageSize : MAX_BATCH_SIZE;
-      currentOffset = offset + (i * MAX_BATCH_SIZE);
+    Iterator<SearchHit> searchHits = new SearchAfterIterator(query, sort, index, offset, pageSize);
+    return toEntityIds(entityType, Streams.stream(searchHits).map(SearchHit::getId));
+  }
 
-      SearchHits currentSearchHits =
-          clientFacade.search(query, currentOffset, batchSize, sort, index);
-      searchHits = Streams.concat(searchHits, currentSearchHits.getHits().stream());
+  /**
+   * Lazily iterates over search hits in batches of at most {@link #MAX_BATCH_SIZE} hits using
+   * search_after cursors, so only one batch is held in memory and the cost per batch does not grow
+   * with the offset. A first page that fits within {@link #MAX_BATCH_SIZE} is retrieved with a
+   * from/size window, deeper offsets are skipped by moving the cursor.
+   */
+  private class SearchAfterIterator extends AbstractIterator<SearchHit> {
+    private final QueryBuilder query;
+    private final Sort sort;
+    private final Index index;
+    private int offset;
+    /** Remaining number of hits to return, null if unlimited */
+    private Integer remaining;
+
+    private List<Object> searchAfter;
+    private Iterator<SearchHit> batch = emptyIterator();
+    private boolean done;
+
+    SearchAfterIterator(QueryBuilder query, Sort sort, Index index, int offset, int pageSize) {
+      this.query = requireNonNull(query);
+      this.sort = sort;
+      this.index = requireNonNull(index);
+      this.offset = offset;
+      this.remaining = pageSize != 0 ? pageSize : null;
+    }
 
-      if (currentSearchHits.getHits().size() < MAX_BATCH_SIZE) {
-        done = true;
+    @Override
+    protected SearchHit computeNext() {
+      while (!batch.hasNext()) {
+        if (done) {
+          return endOfData();
+        }
+        batch = nextBatch().iterator();
       }
-
-      if (pageSize != 0) pageSize -= MAX_BATCH_SIZE;
-      i++;
+      return batch.next();
     }
 
-    return toEntityIds(entityType, searchHits.map(SearchHit::getId));
+    private List<SearchHit> nextBatch() {
+      int from = 0;
+      int maxSize = MAX_BATCH_SIZE;
+      if (searchAfter == null && offset < MAX_BATCH_SIZE) {
+        from = offset;
+        maxSize = MAX_BATCH_SIZE - offset;
+        offset = 0;
+      }
+
+      boolean skip = offset > 0;
+      int size;
+      if (skip) {
+        size = Math.min(offset, maxSize);
+      } else {
+        size = remaining != null ? Math.min(remaining, maxSize) : maxSize;
+      }
+
+      List<SearchHit> hits =
+          clientFacade.searchAfter(query, from, size, sort, searchAfter, index).getHits();
+      if (!hits.isEmpty()) {
+        searchAfter = hits.get(hits.size() - 1).getSortValues();
+      }
+      done = hits.size() < size;
+
+      if (skip) {
+        offset -= hits.size();
+        return emptyList();
+      }
+      if (remaining != null) {
+        remaining -= hits.size();
+        done = done || remaining == 0;
+      }
+      return hits;
+    }
   }
 
   private static Stream<Object> toEntityIds(
@@ -205,6 +351,14 @@ public class ElasticsearchService implements SearchService, IndexService {
   @Override
   public long index(EntityType entityType, Stream<? extends Entity> entities) {
     Index index = contentGenerators.createIndex(entityType);
+    return index(index, null, entities);
+  }
+
+  /**
+   * @param index index used as document type
+   * @param targetIndex index to write to if it differs from the document type index
+   */
+  private long index(Index index, @Nullable Index targetIndex, Stream<? extends Entity> entities) {
     Stream<DocumentAction> documentActionStream =
         entities.map(entity -> this.toDocumentAction(index, entity));
 
@@ -214,7 +368,8 @@ public class ElasticsearchService implements SearchService, IndexService {
             documentAction -> {
               count.incrementAndGet();
               return true;
-            }));
+            }),
+        targetIndex);
     return count.get();
   }
 
@@ -237,7 +392,15 @@ public class ElasticsearchService implements SearchService, IndexService {
 
   @Override
   public void deleteAll(EntityType entityType, Stream<Object> entityIds) {
-    entityIds.forEach(entityId -> deleteById(entityType, entityId));
+    Index index = contentGenerators.createIndex(entityType);
+    Stream<DocumentAction> documentActionStream =
+        entityIds.map(
+            entityId ->
+                DocumentAction.create(
+                    index,
+                    contentGenerators.createDocument(entityId),
+                    DocumentAction.Operation.DELETE));
+    clientFacade.processDocumentActions(documentActionStream);
   }
 
   @Override
@@ -1,6 +1,7 @@
 package org.molgenis.data.elasticsearch.client;
 
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
 import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
@@ -11,17 +12,24 @@ import static org.molgenis.data.elasticsearch.ElasticsearchService.MAX_BATCH_SIZ
 import static org.molgenis.util.stream.MapCollectors.toLinkedMap;
 
 import java.io.Closeable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.apache.lucene.search.Explanation;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ResourceAlreadyExistsException;
 import org.elasticsearch.ResourceNotFoundException;
 import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.ShardOperationFailedException;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesResponse;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequestBuilder;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesResponse;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequestBuilder;
@@ -30,6 +38,8 @@ import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsReques
 import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsResponse;
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequestBuilder;
 import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequestBuilder;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsResponse;
 import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
 import org.elasticsearch.action.delete.DeleteResponse;
@@ -37,12 +47,15 @@ import org.elasticsearch.action.explain.ExplainRequestBuilder;
 import org.elasticsearch.action.explain.ExplainResponse;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.MultiSearchRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.ShardSearchFailure;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.Requests;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
@@ -234,6 +247,111 @@ public class ClientFacade implements Closeable {
     }
   }
 
+  public void refreshIndex(Index index) {
+    refreshIndexes(singletonList(index));
+  }
+
+  /** Updates the dynamic settings (number of replicas and refresh interval) of an index. */
+  public void updateIndexSettings(Index index, IndexSettings indexSettings) {
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Updating settings of index '{}' ...", index.getName());
+    }
+
+    Settings settings =
+        Settings.builder()
+            .put("index.number_of_replicas", indexSettings.getNumberOfReplicas())
+            .put("index.refresh_interval", indexSettings.getRefreshInterval())
+            .build();
+    UpdateSettingsRequestBuilder updateSettingsRequest =
+        client.admin().indices().prepareUpdateSettings(index.getName()).setSettings(settings);
+
+    UpdateSettingsResponse updateSettingsResponse;
+    try {
+      updateSettingsResponse = updateSettingsRequest.get();
+    } catch (ResourceNotFoundException e) {
+      LOG.debug("", e);
+      throw new UnknownIndexException(index.getName());
+    } catch (ElasticsearchException e) {
+      LOG.error("", e);
+      throw new IndexException(format("Error updating settings of index '%s'.", index.getName()));
+    }
+
+    if (!updateSettingsResponse.isAcknowledged()) {
+      throw new IndexException(format("Error updating settings of index '%s'.", index.getName()));
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Updated settings of index '{}'.", index.getName());
+    }
+  }
+
+  /**
+   * Atomically points an alias to an index. The indexes the alias referred to before, or the index
+   * with the same name as the alias, are deleted in the same request so that searches never see a
+   * missing or half-built index.
+   *
+   * @param alias alias, the name that is used to search and write documents
+   * @param index index that the alias refers to after this call
+   */
+  public void replaceIndex(Index alias, Index index) {
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Replacing index '{}' with index '{}' ...", alias.getName(), index.getName());
+    }
+
+    List<String> replacedIndexNames = getAliasedIndexNames(alias);
+    if (replacedIndexNames.isEmpty() && indexesExist(alias)) {
+      replacedIndexNames = singletonList(alias.getName());
+    }
+
+    IndicesAliasesRequestBuilder aliasesRequest = client.admin().indices().prepareAliases();
+    replacedIndexNames.forEach(
+        indexName -> aliasesRequest.addAliasAction(AliasActions.removeIndex().index(indexName)));
+    aliasesRequest.addAlias(index.getName(), alias.getName());
+
+    IndicesAliasesResponse aliasesResponse;
+    try {
+      aliasesResponse = aliasesRequest.get();
+    } catch (ResourceNotFoundException e) {
+      LOG.debug("", e);
+      throw new UnknownIndexException(index.getName());
+    } catch (ElasticsearchException e) {
+      LOG.error("", e);
+      throw new IndexException(
+          format("Error replacing index '%s' with index '%s'.", alias.getName(), index.getName()));
+    }
+
+    if (!aliasesResponse.isAcknowledged()) {
+      throw new IndexException(
+          format("Error replacing index '%s' with index '%s'.", alias.getName(), index.getName()));
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Replaced index '{}' with index '{}'.", alias.getName(), index.getName());
+    }
+  }
+
+  private List<String> getAliasedIndexNames(Index alias) {
+    GetAliasesRequestBuilder getAliasesRequest =
+        client.admin().indices().prepareGetAliases(alias.getName());
+
+    GetAliasesResponse getAliasesResponse;
+    try {
+      getAliasesResponse = getAliasesRequest.get();
+    } catch (ElasticsearchException e) {
+      LOG.error("", e);
+      throw new IndexException(format("Error retrieving alias '%s'.", alias.getName()));
+    }
+
+    List<String> indexNames = new ArrayList<>();
+    getAliasesResponse
+        .getAliases()
+        .forEach(
+            cursor -> {
+              if (!cursor.value.isEmpty()) {
+                indexNames.add(cursor.key);
+              }
+            });
+    return indexNames;
+  }
+
   public long getCount(Index index) {
     return getCount(singletonList(index));
   }
@@ -268,21 +386,7 @@ public class ClientFacade implements Closeable {
       throw new IndexException(format("Error counting docs in index(es) '%s'.", toString(indexes)));
     }
 
-    if (searchResponse.getFailedShards() > 0) {
-      if (LOG.isErrorEnabled()) {
-        LOG.error(
-            stream(searchResponse.getShardFailures())
-                .map(ShardSearchFailure::toString)
-                .collect(joining("\n")));
-      }
-      throw new IndexException(format("Error counting docs in index(es) '%s'.", toString(indexes)));
-    }
-    if (searchResponse.isTimedOut()) {
-      throw new IndexException(
-          format("Timeout while counting docs in index(es) '%s'.", toString(indexes)));
-    }
-
-    long totalHits = searchResponse.getHits().getTotalHits();
+    long totalHits = getTotalHits(searchResponse, indexes);
     if (LOG.isDebugEnabled()) {
       if (query != null) {
         LOG.debug(
@@ -302,6 +406,73 @@ public class ClientFacade implements Closeable {
     return totalHits;
   }
 
+  /**
+   * Counts docs in multiple indexes with one multi search request.
+   *
+   * @param queries queries, the query at a position is applied to the index at the same position
+   * @param indexes indexes to count docs in
+   * @return number of matching docs per index in index order
+   */
+  public List<Long> getCounts(List<QueryBuilder> queries, List<Index> indexes) {
+    if (queries.size() != indexes.size()) {
+      throw new IllegalArgumentException("Number of queries and indexes differ");
+    }
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Counting docs in index(es) '{}' with multi search ...", toString(indexes));
+    }
+
+    MultiSearchRequestBuilder multiSearchRequest = client.prepareMultiSearch();
+    for (int i = 0; i < indexes.size(); i++) {
+      multiSearchRequest.add(
+          createSearchRequest(queries.get(i), null, 0, null, null, singletonList(indexes.get(i))));
+    }
+
+    MultiSearchResponse multiSearchResponse;
+    try {
+      multiSearchResponse = multiSearchRequest.get();
+    } catch (ElasticsearchException e) {
+      LOG.error("", e);
+      throw new IndexException(format("Error counting docs in index(es) '%s'.", toString(indexes)));
+    }
+
+    MultiSearchResponse.Item[] items = multiSearchResponse.getResponses();
+    List<Long> counts = new ArrayList<>(items.length);
+    for (int i = 0; i < items.length; i++) {
+      List<Index> itemIndexes = singletonList(indexes.get(i));
+      MultiSearchResponse.Item item = items[i];
+      if (item.isFailure()) {
+        if (item.getFailure() instanceof ResourceNotFoundException) {
+          throw new UnknownIndexException(toIndexNames(itemIndexes));
+        }
+        LOG.error("", item.getFailure());
+        throw new IndexException(
+            format("Error counting docs in index(es) '%s'.", toString(itemIndexes)));
+      }
+      counts.add(getTotalHits(item.getResponse(), itemIndexes));
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Counted {} docs in index(es) '{}' with multi search.", counts, toString(indexes));
+    }
+    return counts;
+  }
+
+  private long getTotalHits(SearchResponse searchResponse, List<Index> indexes) {
+    if (searchResponse.getFailedShards() > 0) {
+      if (LOG.isErrorEnabled()) {
+        LOG.error(
+            stream(searchResponse.getShardFailures())
+                .map(ShardSearchFailure::toString)
+                .collect(joining("\n")));
+      }
+      throw new IndexException(format("Error counting docs in index(es) '%s'.", toString(indexes)));
+    }
+    if (searchResponse.isTimedOut()) {
+      throw new IndexException(
+          format("Timeout while counting docs in index(es) '%s'.", toString(indexes)));
+    }
+    return searchResponse.getHits().getTotalHits();
+  }
+
   public SearchHits search(QueryBuilder query, int from, int size, List<Index> indexes) {
     return search(query, from, size, null, indexes);
   }
@@ -310,8 +481,50 @@ public class ClientFacade implements Closeable {
     return search(query, from, size, sort, singletonList(index));
   }
 
+  /**
+   * Searches docs using a search_after cursor instead of a from/size window. Hits are sorted by the
+   * given sort (or by score if no sort is given) with the document uid as tiebreaker, the sort
+   * values of the last hit of a page are the search_after cursor for the next page. Unlike deep
+   * from/size windows the cost of retrieving a page does not depend on its position.
+   *
+   * @param from offset of the first hit, must be 0 if searchAfter is not null
+   * @param searchAfter sort values of the last hit of the previous page, null for the first page
+   */
+  public SearchHits searchAfter(
+      QueryBuilder query,
+      int from,
+      int size,
+      @Nullable Sort sort,
+      @Nullable List<Object> searchAfter,
+      Index index) {
+    if (searchAfter != null && from != 0) {
+      throw new IllegalArgumentException("From must be 0 when searching after a cursor");
+    }
+
+    List<Index> indexes = singletonList(index);
+    SearchRequestBuilder searchRequest =
+        createSearchRequest(query, from, size, null, null, indexes);
+    sortContentBuilder.createCursorSorts(sort).forEach(searchRequest::addSort);
+    if (searchAfter != null) {
+      searchRequest.searchAfter(searchAfter.toArray());
+    }
+    return search(query, from, size, sort, indexes, searchRequest);
+  }
+
   private SearchHits search(
       QueryBuilder query, int from, int size, Sort sort, List<Index> indexes) {
+    SearchRequestBuilder searchRequest =
+        createSearchRequest(query, from, size, sort, null, indexes);
+    return search(query, from, size, sort, indexes, searchRequest);
+  }
+
+  private SearchHits search(
+      QueryBuilder query,
+      int from,
+      int size,
+      Sort sort,
+      List<Index> indexes,
+      SearchRequestBuilder searchRequest) {
     if (size > 10000) {
       throw new MolgenisQueryException(
           String.format(
@@ -338,9 +551,6 @@ public class ClientFacade implements Closeable {
       }
     }
 
-    SearchRequestBuilder searchRequest =
-        createSearchRequest(query, from, size, sort, null, indexes);
-
     SearchResponse searchResponse;
     try {
       searchResponse = searchRequest.get();
@@ -424,7 +634,13 @@ public class ClientFacade implements Closeable {
     org.elasticsearch.search.SearchHits searchHits = searchResponse.getHits();
     List<SearchHit> searchHitList =
         stream(searchHits.getHits())
-            .map(hit -> SearchHit.create(hit.getId(), hit.getIndex()))
+            .map(
+                hit ->
+                    SearchHit.builder()
+                        .setId(hit.getId())
+                        .setIndex(hit.getIndex())
+                        .setSortValues(asList(hit.getSortValues()))
+                        .build())
             .collect(toList());
     return SearchHits.create(searchHits.getTotalHits(), searchHitList);
   }
@@ -613,12 +829,22 @@ public class ClientFacade implements Closeable {
   }
 
   public void processDocumentActions(Stream<DocumentAction> documentActions) {
+    processDocumentActions(documentActions, null);
+  }
+
+  /**
+   * Processes document actions in the given index instead of the index of each document action,
+   * e.g. to write to an index that is not yet referred to by an alias. The document type remains
+   * the name of the document action index.
+   */
+  public void processDocumentActions(
+      Stream<DocumentAction> documentActions, @Nullable Index index) {
     LOG.trace("Processing document actions ...");
     BulkProcessor bulkProcessor = bulkProcessorFactory.create(client);
     try {
       documentActions.forEachOrdered(
           documentAction -> {
-            DocWriteRequest docWriteRequest = toDocWriteRequest(documentAction);
+            DocWriteRequest docWriteRequest = toDocWriteRequest(documentAction, index);
             bulkProcessor.add(docWriteRequest);
           });
     } finally {
@@ -627,8 +853,10 @@ public class ClientFacade implements Closeable {
     }
   }
 
-  private DocWriteRequest toDocWriteRequest(DocumentAction documentAction) {
+  private DocWriteRequest toDocWriteRequest(
+      DocumentAction documentAction, @Nullable Index targetIndex) {
     String indexName = documentAction.getIndex().getName();
+    String targetIndexName = targetIndex != null ? targetIndex.getName() : indexName;
     String documentId = documentAction.getDocument().getId();
 
     DocWriteRequest docWriteRequest;
@@ -640,14 +868,15 @@ public class ClientFacade implements Closeable {
               format("Document action is missing document source '%s'", documentAction));
         }
         docWriteRequest =
-            Requests.indexRequest(indexName)
+            Requests.indexRequest(targetIndexName)
                 .type(indexName)
                 .id(documentId)
                 .source(source)
                 .opType(INDEX);
         break;
       case DELETE:
-        docWriteRequest = Requests.deleteRequest(indexName).type(indexName).id(documentId);
+        docWriteRequest =
+            Requests.deleteRequest(targetIndexName).type(indexName).id(documentId);
         break;
       default:
         throw new UnexpectedEnumException(documentAction.getOperation());
@@ -2,7 +2,9 @@ package org.molgenis.data.elasticsearch.client;
 
 import static java.util.stream.Collectors.toList;
 
+import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortMode;
@@ -13,10 +15,28 @@ import org.molgenis.util.UnexpectedEnumException;
 
 /** Creates Elasticsearch transport client content for sort. */
 class SortContentBuilder {
+  /** Document uid field used as tiebreaker so that every hit has a unique sort position */
+  private static final String TIEBREAKER_FIELD = "_uid";
+
   List<SortBuilder> createSorts(Sort sort) {
     return sort.getOrders().stream().map(this::createSort).collect(toList());
   }
 
+  /**
+   * Creates a total ordering that can be used with search_after: the given sort or relevance score
+   * if no sort is given, followed by the document uid as tiebreaker.
+   */
+  List<SortBuilder> createCursorSorts(@Nullable Sort sort) {
+    List<SortBuilder> sorts = new ArrayList<>();
+    if (sort != null) {
+      sorts.addAll(createSorts(sort));
+    } else {
+      sorts.add(SortBuilders.scoreSort());
+    }
+    sorts.add(SortBuilders.fieldSort(TIEBREAKER_FIELD).order(toSortOrder(SortDirection.ASC)));
+    return sorts;
+  }
+
   private SortBuilder createSort(SortOrder sortOrder) {
     String field = sortOrder.getField();
     org.elasticsearch.search.sort.SortOrder order = toSortOrder(sortOrder.getDirection());
@@ -1,6 +1,9 @@
 package org.molgenis.data.elasticsearch.client.model;
 
+import static java.util.Collections.emptyList;
+
 import com.google.auto.value.AutoValue;
+import java.util.List;
 
 @AutoValue
 @SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
@@ -9,12 +12,15 @@ public abstract class SearchHit {
 
   public abstract String getIndex();
 
+  /** Sort values of this hit, can be used as search_after cursor to retrieve the next hits. */
+  public abstract List<Object> getSortValues();
+
   public static SearchHit create(String newId, String newIndex) {
     return builder().setId(newId).setIndex(newIndex).build();
   }
 
   public static Builder builder() {
-    return new AutoValue_SearchHit.Builder();
+    return new AutoValue_SearchHit.Builder().setSortValues(emptyList());
   }
 
   @AutoValue.Builder
@@ -23,6 +29,8 @@ public abstract class SearchHit {
 
     public abstract Builder setIndex(String newIndex);
 
+    public abstract Builder setSortValues(List<Object> newSortValues);
+
     public abstract SearchHit build();
   }
 }
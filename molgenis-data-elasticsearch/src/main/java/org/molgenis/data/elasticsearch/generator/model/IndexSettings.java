@@ -7,6 +7,7 @@ import com.google.auto.value.AutoValue;
 public abstract class IndexSettings {
   private static final int DEFAULT_NUMBER_OF_SHARDS = 1;
   private static final int DEFAULT_NUMBER_OF_REPLICAS = 0;
+  private static final String DEFAULT_REFRESH_INTERVAL = "1s";
 
   /** The number of primary shards that an index should have. */
   public abstract int getNumberOfShards();
@@ -14,6 +15,11 @@ public abstract class IndexSettings {
   /** The number of replica shards. */
   public abstract int getNumberOfReplicas();
 
+  /** How often to make recent changes visible to search, "-1" disables refreshing. */
+  public abstract String getRefreshInterval();
+
+  public abstract Builder toBuilder();
+
   public static IndexSettings create() {
     return builder().build();
   }
@@ -28,7 +34,8 @@ public abstract class IndexSettings {
   public static Builder builder() {
     return new AutoValue_IndexSettings.Builder()
         .setNumberOfShards(DEFAULT_NUMBER_OF_SHARDS)
-        .setNumberOfReplicas(DEFAULT_NUMBER_OF_REPLICAS);
+        .setNumberOfReplicas(DEFAULT_NUMBER_OF_REPLICAS)
+        .setRefreshInterval(DEFAULT_REFRESH_INTERVAL);
   }
 
   @AutoValue.Builder
@@ -37,6 +44,8 @@ public abstract class IndexSettings {
 
     public abstract Builder setNumberOfReplicas(int newNumberOfReplicas);
 
+    public abstract Builder setRefreshInterval(String newRefreshInterval);
+
     public abstract IndexSettings build();
   }
 }
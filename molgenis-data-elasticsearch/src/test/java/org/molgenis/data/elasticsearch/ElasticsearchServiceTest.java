@@ -1,27 +1,57 @@
 package org.molgenis.data.elasticsearch;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.elasticsearch.ElasticsearchService.MAX_BATCH_SIZE;
+import static org.molgenis.data.meta.AttributeType.STRING;
 
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.Query;
+import org.molgenis.data.Repository;
 import org.molgenis.data.elasticsearch.client.ClientFacade;
 import org.molgenis.data.elasticsearch.client.model.SearchHit;
 import org.molgenis.data.elasticsearch.client.model.SearchHits;
 import org.molgenis.data.elasticsearch.generator.ContentGenerators;
+import org.molgenis.data.elasticsearch.generator.model.Document;
+import org.molgenis.data.elasticsearch.generator.model.DocumentAction;
+import org.molgenis.data.elasticsearch.generator.model.Index;
+import org.molgenis.data.elasticsearch.generator.model.IndexSettings;
+import org.molgenis.data.elasticsearch.generator.model.Mapping;
+import org.molgenis.data.index.exception.IndexException;
+import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.test.AbstractMockitoTest;
@@ -38,9 +68,19 @@ class ElasticsearchServiceTest extends AbstractMockitoTest {
 
   @Mock private EntityType entityType;
 
+  @Mock private Attribute idAttribute;
+
   @BeforeEach
   void setUpBeforeMethod() {
-    elasticsearchService = new ElasticsearchService(clientFacade, contentGenerators, dataService);
+    when(entityType.getIdAttribute()).thenReturn(idAttribute);
+    when(idAttribute.getDataType()).thenReturn(STRING);
+    elasticsearchService =
+        new ElasticsearchService(clientFacade, contentGenerators, dataService, 2);
+  }
+
+  @AfterEach
+  void tearDownAfterEach() {
+    elasticsearchService.preDestroy();
   }
 
   @Test
@@ -50,22 +90,15 @@ class ElasticsearchServiceTest extends AbstractMockitoTest {
     when(query.getPageSize()).thenReturn(0);
     when(query.getOffset()).thenReturn(0);
 
-    SearchHits searchHitsBatch = mock(SearchHits.class);
-    when(searchHitsBatch.getHits()).thenReturn(asList(new SearchHit[10000]));
+    when(clientFacade.searchAfter(any(), eq(0), eq(MAX_BATCH_SIZE), any(), isNull(), any()))
+        .thenReturn(createSearchHits(0, 10000));
+    when(clientFacade.searchAfter(any(), eq(0), eq(MAX_BATCH_SIZE), any(), eq(cursor(9999)), any()))
+        .thenReturn(createSearchHits(10000, 5000));
 
-    SearchHits finalSearchHitsBatch = mock(SearchHits.class);
-    when(finalSearchHitsBatch.getHits()).thenReturn(asList(new SearchHit[5000]));
+    assertEquals(15000, elasticsearchService.search(entityType, query).count());
 
-    when(clientFacade.search(any(), eq(0), eq(10000), any(), any())).thenReturn(searchHitsBatch);
-    when(clientFacade.search(any(), eq(10000), anyInt(), any(), any())).thenReturn(searchHitsBatch);
-    when(clientFacade.search(any(), eq(20000), anyInt(), any(), any()))
-        .thenReturn(finalSearchHitsBatch);
-
-    elasticsearchService.search(entityType, query);
-
-    verify(clientFacade, times(1)).search(any(), eq(0), eq(MAX_BATCH_SIZE), any(), any());
-    verify(clientFacade, times(1)).search(any(), eq(10000), eq(MAX_BATCH_SIZE), any(), any());
-    verify(clientFacade, times(1)).search(any(), eq(20000), eq(MAX_BATCH_SIZE), any(), any());
+    verify(clientFacade, times(2))
+        .searchAfter(any(), eq(0), eq(MAX_BATCH_SIZE), any(), any(), any());
     verifyNoMoreInteractions(clientFacade);
   }
 
@@ -76,14 +109,14 @@ class ElasticsearchServiceTest extends AbstractMockitoTest {
     when(query.getPageSize()).thenReturn(50);
     when(query.getOffset()).thenReturn(20);
 
-    SearchHits searchHitsBatch = mock(SearchHits.class);
-    when(searchHitsBatch.getHits()).thenReturn(asList(new SearchHit[50]));
-
-    when(clientFacade.search(any(), eq(20), eq(50), any(), any())).thenReturn(searchHitsBatch);
+    when(clientFacade.searchAfter(any(), eq(20), eq(50), any(), isNull(), any()))
+        .thenReturn(createSearchHits(20, 50));
 
-    elasticsearchService.search(entityType, query);
+    assertEquals(
+        asList("20", "21", "22"),
+        elasticsearchService.search(entityType, query).limit(3).collect(toList()));
 
-    verify(clientFacade, times(1)).search(any(), eq(20), eq(50), any(), any());
+    verify(clientFacade, times(1)).searchAfter(any(), eq(20), eq(50), any(), isNull(), any());
     verifyNoMoreInteractions(clientFacade);
   }
 
@@ -94,21 +127,211 @@ class ElasticsearchServiceTest extends AbstractMockitoTest {
     when(query.getPageSize()).thenReturn(10001);
     when(query.getOffset()).thenReturn(5000);
 
-    SearchHits searchHitsBatch = mock(SearchHits.class);
-    when(searchHitsBatch.getHits()).thenReturn(asList(new SearchHit[10000]));
+    when(clientFacade.searchAfter(any(), eq(5000), eq(5000), any(), isNull(), any()))
+        .thenReturn(createSearchHits(5000, 5000));
+    when(clientFacade.searchAfter(any(), eq(0), eq(5001), any(), eq(cursor(9999)), any()))
+        .thenReturn(createSearchHits(10000, 5001));
 
-    SearchHits finalSearchHitsBatch = mock(SearchHits.class);
-    when(finalSearchHitsBatch.getHits()).thenReturn(asList(new SearchHit[1]));
+    assertEquals(10001, elasticsearchService.search(entityType, query).count());
 
-    when(clientFacade.search(any(), eq(5000), eq(MAX_BATCH_SIZE), any(), any()))
-        .thenReturn(searchHitsBatch);
-    when(clientFacade.search(any(), eq(15000), eq(1), any(), any()))
-        .thenReturn(finalSearchHitsBatch);
+    verify(clientFacade, times(1)).searchAfter(any(), eq(5000), eq(5000), any(), isNull(), any());
+    verify(clientFacade, times(1))
+        .searchAfter(any(), eq(0), eq(5001), any(), eq(cursor(9999)), any());
+    verifyNoMoreInteractions(clientFacade);
+  }
 
-    elasticsearchService.search(entityType, query);
+  @Test
+  @SuppressWarnings("unchecked")
+  void testSearchOffsetLargerThanMax() {
+    QueryImpl<Entity> query = mock(QueryImpl.class);
+    when(query.getPageSize()).thenReturn(10);
+    when(query.getOffset()).thenReturn(25000);
+
+    when(clientFacade.searchAfter(any(), eq(0), eq(MAX_BATCH_SIZE), any(), isNull(), any()))
+        .thenReturn(createSearchHits(0, 10000));
+    when(clientFacade.searchAfter(any(), eq(0), eq(MAX_BATCH_SIZE), any(), eq(cursor(9999)), any()))
+        .thenReturn(createSearchHits(10000, 10000));
+    when(clientFacade.searchAfter(any(), eq(0), eq(5000), any(), eq(cursor(19999)), any()))
+        .thenReturn(createSearchHits(20000, 5000));
+    when(clientFacade.searchAfter(any(), eq(0), eq(10), any(), eq(cursor(24999)), any()))
+        .thenReturn(createSearchHits(25000, 10));
 
-    verify(clientFacade, times(1)).search(any(), eq(5000), eq(MAX_BATCH_SIZE), any(), any());
-    verify(clientFacade, times(1)).search(any(), eq(15000), eq(1), any(), any());
+    assertEquals(
+        asList("25000", "25001"),
+        elasticsearchService.search(entityType, query).limit(2).collect(toList()));
+
+    verify(clientFacade, times(4)).searchAfter(any(), eq(0), anyInt(), any(), any(), any());
     verifyNoMoreInteractions(clientFacade);
   }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testSearchLazy() {
+    QueryImpl<Entity> query = mock(QueryImpl.class);
+    when(query.getPageSize()).thenReturn(0);
+    when(query.getOffset()).thenReturn(0);
+
+    elasticsearchService.search(entityType, query);
+
+    verifyNoInteractions(clientFacade);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testRebuildIndex() {
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    when(repository.count()).thenReturn(10L);
+    Index alias = Index.create("alias");
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+    Mapping mapping = mock(Mapping.class);
+    when(contentGenerators.createMapping(entityType)).thenReturn(mapping);
+
+    elasticsearchService.rebuildIndex(repository);
+
+    ArgumentCaptor<Index> indexCaptor = ArgumentCaptor.forClass(Index.class);
+    verify(clientFacade)
+        .createIndex(
+            indexCaptor.capture(),
+            eq(IndexSettings.builder().setRefreshInterval("-1").build()),
+            any());
+    Index index = indexCaptor.getValue();
+    assertTrue(index.getName().startsWith("alias_"));
+    verify(repository).forEachBatched(any(Fetch.class), any(), eq(1000));
+    verify(repository, never()).partition(anyInt());
+    verify(clientFacade).updateIndexSettings(index, IndexSettings.create());
+    verify(clientFacade).refreshIndex(index);
+    verify(clientFacade).replaceIndex(alias, index);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testRebuildIndexPartitioned() {
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    when(repository.count()).thenReturn(250000L);
+    Query<Entity> partition0 = new QueryImpl<>().lt("id", "h");
+    Query<Entity> partition1 = new QueryImpl<>().ge("id", "h");
+    when(repository.partition(3)).thenReturn(asList(partition0, partition1));
+    Entity entity0 = mock(Entity.class);
+    Entity entity1 = mock(Entity.class);
+    when(repository.findAll(partition0)).thenReturn(Stream.of(entity0));
+    when(repository.findAll(partition1)).thenReturn(Stream.of(entity1));
+    Index alias = Index.create("alias");
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+    doAnswer(
+            invocation -> {
+              Stream<DocumentAction> documentActions = invocation.getArgument(0);
+              documentActions.forEach(documentAction -> {});
+              return null;
+            })
+        .when(clientFacade)
+        .processDocumentActions(any(), any(Index.class));
+
+    elasticsearchService.rebuildIndex(repository);
+
+    verify(contentGenerators).createDocument(entity0);
+    verify(contentGenerators).createDocument(entity1);
+    verify(repository, never()).forEachBatched(any(Fetch.class), any(), anyInt());
+    ArgumentCaptor<Index> indexCaptor = ArgumentCaptor.forClass(Index.class);
+    verify(clientFacade, times(2)).processDocumentActions(any(), indexCaptor.capture());
+    verify(clientFacade).replaceIndex(alias, indexCaptor.getValue());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testRebuildIndexFailure() {
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    when(repository.count()).thenReturn(10L);
+    Index alias = Index.create("alias");
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+    doThrow(new IndexException("error"))
+        .when(repository)
+        .forEachBatched(any(Fetch.class), any(), anyInt());
+
+    assertThrows(IndexException.class, () -> elasticsearchService.rebuildIndex(repository));
+
+    ArgumentCaptor<Index> indexCaptor = ArgumentCaptor.forClass(Index.class);
+    verify(clientFacade).createIndex(indexCaptor.capture(), any(), any());
+    verify(clientFacade).deleteIndex(indexCaptor.getValue());
+    verify(clientFacade, never()).replaceIndex(any(), any());
+  }
+
+  @Test
+  void testRefreshIndex() {
+    Index index = Index.create("index");
+    when(contentGenerators.createIndex(entityType)).thenReturn(index);
+
+    elasticsearchService.refreshIndex(entityType);
+
+    verify(clientFacade).refreshIndex(index);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testDeleteAll() {
+    Index index = Index.create("index");
+    when(contentGenerators.createIndex(entityType)).thenReturn(index);
+    Document document0 = Document.builder().setId("id0").build();
+    Document document1 = Document.builder().setId("id1").build();
+    when(contentGenerators.createDocument("id0")).thenReturn(document0);
+    when(contentGenerators.createDocument("id1")).thenReturn(document1);
+
+    elasticsearchService.deleteAll(entityType, Stream.of("id0", "id1"));
+
+    ArgumentCaptor<Stream<DocumentAction>> captor = ArgumentCaptor.forClass(Stream.class);
+    verify(clientFacade).processDocumentActions(captor.capture());
+    assertEquals(
+        asList(
+            DocumentAction.create(index, document0, DocumentAction.Operation.DELETE),
+            DocumentAction.create(index, document1, DocumentAction.Operation.DELETE)),
+        captor.getValue().collect(toList()));
+  }
+
+  private static SearchHits createSearchHits(int from, int size) {
+    List<SearchHit> searchHits =
+        IntStream.range(from, from + size)
+            .mapToObj(
+                i ->
+                    SearchHit.builder()
+                        .setId(String.valueOf(i))
+                        .setIndex("index")
+                        .setSortValues(singletonList(i))
+                        .build())
+            .collect(toList());
+    return SearchHits.create(size, searchHits);
+  }
+
+  @Test
+  void testCountEntityTypes() {
+    EntityType entityType1 = mock(EntityType.class);
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType1.getId()).thenReturn("entityTypeId1");
+    Index index = Index.create("index");
+    Index index1 = Index.create("index1");
+    when(contentGenerators.createIndex(entityType)).thenReturn(index);
+    when(contentGenerators.createIndex(entityType1)).thenReturn(index1);
+    Query<Entity> query = new QueryImpl<>().search("value");
+    QueryBuilder queryBuilder = mock(QueryBuilder.class);
+    QueryBuilder queryBuilder1 = mock(QueryBuilder.class);
+    when(contentGenerators.createQuery(query, entityType)).thenReturn(queryBuilder);
+    when(contentGenerators.createQuery(query, entityType1)).thenReturn(queryBuilder1);
+    when(clientFacade.getCounts(asList(queryBuilder, queryBuilder1), asList(index, index1)))
+        .thenReturn(asList(2L, 3L));
+
+    assertEquals(
+        ImmutableMap.of("entityTypeId", 2L, "entityTypeId1", 3L),
+        elasticsearchService.count(asList(entityType, entityType1), query));
+  }
+
+  @Test
+  void testCountNoEntityTypes() {
+    assertEquals(emptyMap(), elasticsearchService.count(emptyList(), new QueryImpl<>()));
+    verifyNoInteractions(clientFacade);
+  }
+
+  private static List<Object> cursor(int sortValue) {
+    return singletonList(sortValue);
+  }
 }
@@ -5,13 +5,17 @@ import static ch.qos.logback.classic.Level.ERROR;
 import static ch.qos.logback.classic.Level.TRACE;
 import static ch.qos.logback.classic.Level.WARN;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -20,10 +24,17 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Appender;
 import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Stream;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ResourceAlreadyExistsException;
 import org.elasticsearch.ResourceNotFoundException;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesResponse;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequestBuilder;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesResponse;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequestBuilder;
@@ -31,12 +42,16 @@ import org.elasticsearch.action.admin.indices.delete.DeleteIndexResponse;
 import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsRequestBuilder;
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequestBuilder;
 import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequestBuilder;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsResponse;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.explain.ExplainRequestBuilder;
 import org.elasticsearch.action.explain.ExplainResponse;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.MultiSearchRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.ShardSearchFailure;
@@ -45,6 +60,8 @@ import org.elasticsearch.action.support.replication.ReplicationResponse.ShardInf
 import org.elasticsearch.client.AdminClient;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.IndicesAdminClient;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
@@ -52,6 +69,7 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -302,6 +320,57 @@ class ClientFacadeTest {
     assertThat(exception.getMessage()).containsPattern("Error deleting index\\(es\\) 'index'\\.");
   }
 
+  @Test
+  void testUpdateIndexSettingsNotAcknowledged() {
+    Index index = Index.create("index");
+
+    UpdateSettingsRequestBuilder updateSettingsRequestBuilder =
+        mock(UpdateSettingsRequestBuilder.class);
+    UpdateSettingsResponse updateSettingsResponse = mock(UpdateSettingsResponse.class);
+    when(indicesAdminClient.prepareUpdateSettings("index"))
+        .thenReturn(updateSettingsRequestBuilder);
+    when(updateSettingsRequestBuilder.setSettings(any(Settings.class)))
+        .thenReturn(updateSettingsRequestBuilder);
+    when(updateSettingsRequestBuilder.get()).thenReturn(updateSettingsResponse);
+    when(updateSettingsResponse.isAcknowledged()).thenReturn(false);
+
+    IndexSettings indexSettings = IndexSettings.create();
+    Exception exception =
+        assertThrows(
+            IndexException.class, () -> clientFacade.updateIndexSettings(index, indexSettings));
+    assertThat(exception.getMessage())
+        .containsPattern("Error updating settings of index 'index'\\.");
+  }
+
+  @Test
+  void testReplaceIndex() {
+    GetAliasesRequestBuilder getAliasesRequestBuilder = mock(GetAliasesRequestBuilder.class);
+    GetAliasesResponse getAliasesResponse = mock(GetAliasesResponse.class);
+    when(indicesAdminClient.prepareGetAliases("alias")).thenReturn(getAliasesRequestBuilder);
+    when(getAliasesRequestBuilder.get()).thenReturn(getAliasesResponse);
+    when(getAliasesResponse.getAliases())
+        .thenReturn(
+            ImmutableOpenMap.<String, List<AliasMetaData>>builder()
+                .fPut("index_0", singletonList(AliasMetaData.builder("alias").build()))
+                .build());
+    IndicesAliasesRequestBuilder aliasesRequestBuilder = mock(IndicesAliasesRequestBuilder.class);
+    IndicesAliasesResponse aliasesResponse = mock(IndicesAliasesResponse.class);
+    when(indicesAdminClient.prepareAliases()).thenReturn(aliasesRequestBuilder);
+    when(aliasesRequestBuilder.get()).thenReturn(aliasesResponse);
+    when(aliasesResponse.isAcknowledged()).thenReturn(true);
+
+    clientFacade.replaceIndex(Index.create("alias"), Index.create("index_1"));
+
+    verify(aliasesRequestBuilder)
+        .addAliasAction(
+            argThat(
+                action ->
+                    action.actionType() == AliasActions.Type.REMOVE_INDEX
+                        && Arrays.equals(action.indices(), new String[] {"index_0"})));
+    verify(aliasesRequestBuilder).addAlias("index_1", "alias");
+    verify(mockAppender).doAppend(matcher(DEBUG, "Replaced index 'alias' with index 'index_1'."));
+  }
+
   @Test
   void testRefreshIndicesThrowsException() {
     when(indicesAdminClient.prepareRefresh("_all")).thenReturn(refreshRequestBuilder);
@@ -384,6 +453,65 @@ class ClientFacadeTest {
         .containsPattern("Timeout while counting docs in index\\(es\\) 'index'\\.");
   }
 
+  @Test
+  void testGetCounts() {
+    Index index0 = Index.create("index0");
+    Index index1 = Index.create("index1");
+    QueryBuilder queryBuilder1 = mock(QueryBuilder.class);
+    SearchRequestBuilder searchRequestBuilder1 = mock(SearchRequestBuilder.class);
+    when(client.prepareSearch("index0")).thenReturn(searchRequestBuilder);
+    when(client.prepareSearch("index1")).thenReturn(searchRequestBuilder1);
+    MultiSearchRequestBuilder multiSearchRequestBuilder = mock(MultiSearchRequestBuilder.class);
+    when(client.prepareMultiSearch()).thenReturn(multiSearchRequestBuilder);
+    MultiSearchResponse multiSearchResponse = mock(MultiSearchResponse.class);
+    when(multiSearchRequestBuilder.get()).thenReturn(multiSearchResponse);
+    SearchResponse searchResponse1 = mock(SearchResponse.class);
+    when(multiSearchResponse.getResponses())
+        .thenReturn(
+            new MultiSearchResponse.Item[] {
+              new MultiSearchResponse.Item(searchResponse, null),
+              new MultiSearchResponse.Item(searchResponse1, null)
+            });
+    org.elasticsearch.search.SearchHits searchHits =
+        mock(org.elasticsearch.search.SearchHits.class);
+    when(searchHits.getTotalHits()).thenReturn(2L);
+    when(searchResponse.getHits()).thenReturn(searchHits);
+    org.elasticsearch.search.SearchHits searchHits1 =
+        mock(org.elasticsearch.search.SearchHits.class);
+    when(searchHits1.getTotalHits()).thenReturn(3L);
+    when(searchResponse1.getHits()).thenReturn(searchHits1);
+
+    assertEquals(
+        Arrays.asList(2L, 3L),
+        clientFacade.getCounts(
+            Arrays.asList(queryBuilder, queryBuilder1), Arrays.asList(index0, index1)));
+    verify(searchRequestBuilder).setQuery(queryBuilder);
+    verify(searchRequestBuilder1).setQuery(queryBuilder1);
+    verify(multiSearchRequestBuilder).add(searchRequestBuilder);
+    verify(multiSearchRequestBuilder).add(searchRequestBuilder1);
+  }
+
+  @Test
+  void testGetCountsUnknownIndex() {
+    Index index = Index.create("index");
+    when(client.prepareSearch("index")).thenReturn(searchRequestBuilder);
+    MultiSearchRequestBuilder multiSearchRequestBuilder = mock(MultiSearchRequestBuilder.class);
+    when(client.prepareMultiSearch()).thenReturn(multiSearchRequestBuilder);
+    MultiSearchResponse multiSearchResponse = mock(MultiSearchResponse.class);
+    when(multiSearchRequestBuilder.get()).thenReturn(multiSearchResponse);
+    when(multiSearchResponse.getResponses())
+        .thenReturn(
+            new MultiSearchResponse.Item[] {
+              new MultiSearchResponse.Item(null, new ResourceNotFoundException("exception"))
+            });
+
+    Exception exception =
+        assertThrows(
+            UnknownIndexException.class,
+            () -> clientFacade.getCounts(singletonList(queryBuilder), singletonList(index)));
+    assertThat(exception.getMessage()).containsPattern("One or more indexes 'index' not found\\.");
+  }
+
   @Test
   void testSearchTimedOut() {
     Index index = Index.create("index");
@@ -403,6 +531,31 @@ class ClientFacadeTest {
             "Timeout searching counting docs in index\\(es\\) 'index'  with query 'a == b'\\.");
   }
 
+  @Test
+  void testSearchAfter() {
+    Index index = Index.create("index");
+
+    when(client.prepareSearch("index")).thenReturn(searchRequestBuilder);
+    when(searchRequestBuilder.get()).thenReturn(searchResponse);
+    when(searchResponse.getFailedShards()).thenReturn(0);
+    when(searchResponse.isTimedOut()).thenReturn(true);
+
+    assertThrows(
+        IndexException.class,
+        () -> clientFacade.searchAfter(queryBuilder, 0, 100, null, singletonList("id"), index));
+    verify(searchRequestBuilder).searchAfter(new Object[] {"id"});
+    verify(searchRequestBuilder, times(2)).addSort(any(SortBuilder.class));
+  }
+
+  @Test
+  void testSearchAfterWithFrom() {
+    Index index = Index.create("index");
+    List<Object> searchAfter = singletonList("id");
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> clientFacade.searchAfter(queryBuilder, 10, 100, null, searchAfter, index));
+  }
+
   @Test
   void testSearchFailedShards() {
     Index index = Index.create("index");
@@ -1,5 +1,6 @@
 package org.molgenis.data.elasticsearch.client;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -8,6 +9,7 @@ import static org.molgenis.data.elasticsearch.generator.model.SortDirection.DESC
 
 import java.util.List;
 import org.elasticsearch.search.sort.SortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.molgenis.data.elasticsearch.generator.model.Sort;
@@ -35,6 +37,20 @@ class SortContentBuilderTest {
     assertSortsEqual(sorts, singletonList(JSON_SORT_DESC));
   }
 
+  @Test
+  void createCursorSorts() {
+    List<SortBuilder> sorts =
+        sortContentBuilder.createCursorSorts(
+            Sort.create(singletonList(SortOrder.create("field", ASC))));
+    assertSortsEqual(sorts, asList(JSON_SORT_ASC, JSON_SORT_UID));
+  }
+
+  @Test
+  void createCursorSortsNoSort() {
+    List<SortBuilder> sorts = sortContentBuilder.createCursorSorts(null);
+    assertSortsEqual(sorts, asList(SortBuilders.scoreSort().toString(), JSON_SORT_UID));
+  }
+
   private void assertSortsEqual(List<SortBuilder> sorts, List<String> contentStrings) {
     assertEquals(contentStrings, sorts.stream().map(SortBuilder::toString).collect(toList()));
   }
@@ -53,4 +69,10 @@ class SortContentBuilderTest {
           + "    \"mode\" : \"min\"\n"
           + "  }\n"
           + "}";
+  private static final String JSON_SORT_UID =
+      "{\n"
+          + "  \"_uid\" : {\n"
+          + "    \"order\" : \"asc\"\n"
+          + "  }\n"
+          + "}";
 }
@@ -3,7 +3,6 @@ package org.molgenis.data.excel;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.molgenis.data.Entity;
 import org.molgenis.data.file.processor.CellProcessor;
@@ -16,7 +15,7 @@ import org.molgenis.data.support.DynamicEntity;
  * <p>All attributes are of type String, values are processed using the given CellProcessors
  */
 public class ExcelEntity extends DynamicEntity {
-  private final transient Row row;
+  private final transient ExcelRow row;
   private final Map<String, Integer> colNamesMap;
   private final List<CellProcessor> cellProcessors;
 
@@ -27,6 +26,14 @@ public class ExcelEntity extends DynamicEntity {
       Map<String, Integer> colNamesMap,
       List<CellProcessor> cellProcessors,
       EntityType entityType) {
+    this(new PoiExcelRow(row), colNamesMap, cellProcessors, entityType);
+  }
+
+  ExcelEntity(
+      ExcelRow row,
+      Map<String, Integer> colNamesMap,
+      List<CellProcessor> cellProcessors,
+      EntityType entityType) {
     super(entityType);
 
     if (row == null) throw new IllegalArgumentException("row is null");
@@ -54,12 +61,7 @@ public class ExcelEntity extends DynamicEntity {
     } else {
       Integer col = colNamesMap.get(attributeName);
       if (col != null) {
-        Cell cell = row.getCell(col);
-        if (cell != null) {
-          value = ExcelUtils.toValue(cell, cellProcessors);
-        } else {
-          value = null;
-        }
+        value = row.getCellValue(col, cellProcessors);
       } else {
         value = null;
       }
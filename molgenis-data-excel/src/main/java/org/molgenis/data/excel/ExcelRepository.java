@@ -5,6 +5,7 @@ import static java.util.Objects.requireNonNull;
 import static org.molgenis.data.meta.AttributeType.STRING;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -13,12 +14,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.Consumer;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellReference;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.file.processor.AbstractCellProcessor;
@@ -27,6 +28,7 @@ import org.molgenis.data.meta.model.AttributeFactory;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.EntityTypeFactory;
 import org.molgenis.data.support.AbstractRepository;
+import org.molgenis.util.CloseableIterator;
 
 /**
  * ExcelSheet {@link org.molgenis.data.Repository} implementation
@@ -36,9 +38,12 @@ import org.molgenis.data.support.AbstractRepository;
  * <p>All attributes will be of the string type. The cell values are converted to string.
  *
  * <p>The url of this Repository is defined as excel://${filename}/${sheetname}
+ *
+ * <p>Rows are read while iterating, so a repository backed by a streaming {@link ExcelSheet} never
+ * holds more than a single row in memory.
  */
 public class ExcelRepository extends AbstractRepository {
-  private final Sheet sheet;
+  private final ExcelSheet sheet;
   private final EntityTypeFactory entityTypeFactory;
   private final AttributeFactory attrMetaFactory;
 
@@ -59,35 +64,54 @@ public class ExcelRepository extends AbstractRepository {
       EntityTypeFactory entityTypeFactory,
       AttributeFactory attrMetaFactory,
       List<CellProcessor> cellProcessors) {
+    this(
+        new PoiExcelSheet(requireNonNull(sheet)),
+        entityTypeFactory,
+        attrMetaFactory,
+        cellProcessors);
+  }
+
+  ExcelRepository(
+      ExcelSheet sheet,
+      EntityTypeFactory entityTypeFactory,
+      AttributeFactory attrMetaFactory,
+      List<CellProcessor> cellProcessors) {
     this.sheet = requireNonNull(sheet);
-    if (sheet.getNumMergedRegions() > 0) {
-      throw new MolgenisDataException(
-          format(
-              "Sheet [%s] contains merged regions which is not supported", sheet.getSheetName()));
-    }
     this.entityTypeFactory = requireNonNull(entityTypeFactory);
     this.attrMetaFactory = requireNonNull(attrMetaFactory);
     this.cellProcessors = cellProcessors;
   }
 
   public int getNrRows() {
-    return sheet.getLastRowNum() + 1; // getLastRowNum is 0-based
+    return sheet.getNrRows();
   }
 
+  /**
+   * Returns an iterator over the rows of the sheet. Callers that stop iterating before the last row
+   * should close the iterator to release the resources of the sheet.
+   */
   @Override
-  public Iterator<Entity> iterator() {
-    final Iterator<Row> it = sheet.iterator();
-    if (!it.hasNext()) return Collections.<Entity>emptyList().iterator();
-
-    // create column header index once and reuse
-    Row headerRow = it.next();
-    if (colNamesMap == null) {
-      colNamesMap = toColNamesMap(headerRow);
-    }
+  public CloseableIterator<Entity> iterator() {
+    final CloseableIterator<ExcelRow> it = sheet.iterator();
+    try {
+      if (!it.hasNext()) return emptyIterator();
 
-    if (!it.hasNext()) return Collections.<Entity>emptyList().iterator();
+      // create column header index once and reuse
+      ExcelRow headerRow = it.next();
+      if (colNamesMap == null) {
+        colNamesMap = toColNamesMap(headerRow);
+      }
+
+      if (!it.hasNext()) {
+        it.close();
+        return emptyIterator();
+      }
+    } catch (RuntimeException e) {
+      it.close();
+      throw e;
+    }
 
-    return new Iterator<Entity>() {
+    return new CloseableIterator<Entity>() {
       ExcelEntity next = null;
 
       @Override
@@ -112,6 +136,11 @@ public class ExcelRepository extends AbstractRepository {
         throw new UnsupportedOperationException();
       }
 
+      @Override
+      public void close() {
+        it.close();
+      }
+
       private void getAndUpdateNext() {
         // iterator skips empty lines.
         if (it.hasNext() && next == null) {
@@ -134,6 +163,17 @@ public class ExcelRepository extends AbstractRepository {
     };
   }
 
+  @Override
+  public void forEachBatched(Fetch fetch, Consumer<List<Entity>> consumer, int batchSize) {
+    // ignore fetch
+    CloseableIterator<Entity> it = iterator();
+    try {
+      Iterators.partition(it, batchSize).forEachRemaining(consumer);
+    } finally {
+      it.close();
+    }
+  }
+
   public void addCellProcessor(CellProcessor cellProcessor) {
     if (cellProcessors == null) cellProcessors = new ArrayList<>();
     cellProcessors.add(cellProcessor);
@@ -145,10 +185,14 @@ public class ExcelRepository extends AbstractRepository {
       EntityType newEntityType = entityTypeFactory.create(sheetName).setLabel(sheetName);
 
       if (colNamesMap == null) {
-        Iterator<Row> it = sheet.iterator();
-        if (it.hasNext()) {
-          // First row contains the headers
-          colNamesMap = toColNamesMap(it.next());
+        CloseableIterator<ExcelRow> it = sheet.iterator();
+        try {
+          if (it.hasNext()) {
+            // First row contains the headers
+            colNamesMap = toColNamesMap(it.next());
+          }
+        } finally {
+          it.close();
         }
       }
 
@@ -163,21 +207,20 @@ public class ExcelRepository extends AbstractRepository {
     return entityType;
   }
 
-  private Map<String, Integer> toColNamesMap(Row headerRow) {
+  private Map<String, Integer> toColNamesMap(ExcelRow headerRow) {
     if (headerRow == null) return null;
 
     Map<String, Integer> columnIdx = new LinkedHashMap<>();
     int i = 0;
-    for (Iterator<Cell> it = headerRow.cellIterator(); it.hasNext(); ) {
+    for (Iterator<String> it = headerRow.cellValueIterator(); it.hasNext(); ) {
       try {
-        String header =
-            AbstractCellProcessor.processCell(ExcelUtils.toValue(it.next()), true, cellProcessors);
+        String header = AbstractCellProcessor.processCell(it.next(), true, cellProcessors);
         if (header != null) {
           if (columnIdx.containsKey(header)) {
             throw new MolgenisDataException(
                 format(
                     "Duplicate column header '%s' in sheet '%s' not allowed",
-                    header, headerRow.getSheet().getSheetName()));
+                    header, sheet.getSheetName()));
           }
           columnIdx.put(header, i++);
         }
@@ -196,6 +239,25 @@ public class ExcelRepository extends AbstractRepository {
     return Collections.emptySet();
   }
 
+  private static CloseableIterator<Entity> emptyIterator() {
+    return new CloseableIterator<Entity>() {
+      @Override
+      public boolean hasNext() {
+        return false;
+      }
+
+      @Override
+      public Entity next() {
+        throw new NoSuchElementException();
+      }
+
+      @Override
+      public void close() {
+        // noop
+      }
+    };
+  }
+
   @Override
   public long count() {
     return Iterables.size(this);
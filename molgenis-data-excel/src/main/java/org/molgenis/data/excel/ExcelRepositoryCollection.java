@@ -1,14 +1,14 @@
 package org.molgenis.data.excel;
 
 import com.google.common.collect.Lists;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
 import java.util.List;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Repository;
@@ -25,12 +25,16 @@ import org.springframework.beans.factory.annotation.Autowired;
  *
  * <p>A sheet is exposed as a {@link org.molgenis.data.Repository} with the sheetname as the
  * Repository name
+ *
+ * <p>XLSX files are streamed: sheets are parsed row by row while iterating the repositories, so the
+ * memory use does not depend on the size of the sheets and different sheets can be read in
+ * parallel. Other files and input streams are loaded into memory.
  */
 public class ExcelRepositoryCollection extends FileRepositoryCollection {
 
   private static final String REPOSITORY_COLLECTION_NAME = "EXCEL";
 
-  private final Workbook workbook;
+  private final ExcelWorkbook workbook;
 
   private EntityTypeFactory entityTypeFactory;
   private AttributeFactory attributeFactory;
@@ -40,13 +44,24 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection {
   }
 
   public ExcelRepositoryCollection(File file, CellProcessor... cellProcessors) throws IOException {
-    this(new FileInputStream(file), cellProcessors);
+    super(ExcelFileExtensions.getExcel(), cellProcessors);
+    workbook = isOoxml(file) ? new XlsxStreamingWorkbook(file) : createWorkbook(file);
   }
 
   public ExcelRepositoryCollection(InputStream in, CellProcessor... cellProcessors)
       throws IOException {
     super(ExcelFileExtensions.getExcel(), cellProcessors);
-    workbook = WorkbookFactory.create(in);
+    workbook = new PoiExcelWorkbook(WorkbookFactory.create(in));
+  }
+
+  private static boolean isOoxml(File file) throws IOException {
+    try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+      return FileMagic.valueOf(in) == FileMagic.OOXML;
+    }
+  }
+
+  private static ExcelWorkbook createWorkbook(File file) throws IOException {
+    return new PoiExcelWorkbook(WorkbookFactory.create(new FileInputStream(file)));
   }
 
   @Override
@@ -68,12 +83,12 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection {
 
   @Override
   public Repository<Entity> getRepository(String name) {
-    Sheet poiSheet = workbook.getSheet(name);
-    if (poiSheet == null) {
+    ExcelSheet excelSheet = workbook.getSheet(name);
+    if (excelSheet == null) {
       return null;
     }
 
-    return new ExcelRepository(poiSheet, entityTypeFactory, attributeFactory, cellProcessors);
+    return new ExcelRepository(excelSheet, entityTypeFactory, attributeFactory, cellProcessors);
   }
 
   public int getNumberOfSheets() {
@@ -85,12 +100,8 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection {
   }
 
   public ExcelRepository getSheet(int i) {
-    Sheet poiSheet = workbook.getSheetAt(i);
-    if (poiSheet == null) {
-      return null;
-    }
-
-    return new ExcelRepository(poiSheet, entityTypeFactory, attributeFactory, cellProcessors);
+    ExcelSheet excelSheet = workbook.getSheetAt(i);
+    return new ExcelRepository(excelSheet, entityTypeFactory, attributeFactory, cellProcessors);
   }
 
   @Override
@@ -0,0 +1,21 @@
+package org.molgenis.data.excel;
+
+import java.util.Iterator;
+import java.util.List;
+import org.molgenis.data.file.processor.CellProcessor;
+
+/** Row of an {@link ExcelSheet}. */
+interface ExcelRow {
+  /** @return 0-based row number */
+  int getRowNum();
+
+  /** @return unprocessed values of the cells in this row in column order, skipping missing cells */
+  Iterator<String> cellValueIterator();
+
+  /**
+   * @param col 0-based column index
+   * @param cellProcessors processors to apply to the cell value, might be <code>null</code>
+   * @return processed cell value or <code>null</code> if the row has no cell in the column
+   */
+  String getCellValue(int col, List<CellProcessor> cellProcessors);
+}
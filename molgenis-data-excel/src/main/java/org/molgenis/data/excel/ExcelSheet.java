@@ -0,0 +1,18 @@
+package org.molgenis.data.excel;
+
+import org.molgenis.util.CloseableIterator;
+
+/** Sheet read by an {@link ExcelRepository}. */
+interface ExcelSheet extends Iterable<ExcelRow> {
+  String getSheetName();
+
+  /** @return number of the last row plus one */
+  int getNrRows();
+
+  /**
+   * Returns an iterator over the rows of the sheet that contain cells. Each invocation starts
+   * reading the sheet from the beginning. The iterator must be closed if it is not exhausted.
+   */
+  @Override
+  CloseableIterator<ExcelRow> iterator();
+}
@@ -54,13 +54,7 @@ public class ExcelUtils {
             LocaleUtil.resetUserTimeZone();
           }
         } else {
-          // excel stores integer values as double values
-          // read an integer if the double value equals the
-          // integer value
-          double x = cell.getNumericCellValue();
-          if (x == Math.rint(x) && !Double.isNaN(x) && !Double.isInfinite(x))
-            value = String.valueOf((long) x);
-          else value = String.valueOf(x);
+          value = toNumericValue(cell.getNumericCellValue());
         }
         break;
       case BOOLEAN:
@@ -84,25 +78,9 @@ public class ExcelUtils {
             break;
           case NUMERIC:
             if (DateUtil.isCellDateFormatted(cell)) {
-              try {
-                // Excel dates are LocalDateTime, stored without timezone.
-                // Interpret them as UTC to prevent ambiguous DST overlaps which happen in other
-                // timezones.
-                LocaleUtil.setUserTimeZone(LocaleUtil.TIMEZONE_UTC);
-                Date javaDate = DateUtil.getJavaDate(cellValue.getNumberValue(), false);
-                value = formatUTCDateAsLocalDateTime(javaDate);
-
-              } finally {
-                LocaleUtil.resetUserTimeZone();
-              }
+              value = toDateValue(cellValue.getNumberValue(), false);
             } else {
-              // excel stores integer values as double values
-              // read an integer if the double value equals the
-              // integer value
-              double x = cellValue.getNumberValue();
-              if (x == Math.rint(x) && !Double.isNaN(x) && !Double.isInfinite(x))
-                value = String.valueOf((long) x);
-              else value = String.valueOf(x);
+              value = toNumericValue(cellValue.getNumberValue());
             }
             break;
           case STRING:
@@ -123,6 +101,32 @@ public class ExcelUtils {
     return AbstractCellProcessor.processCell(value, false, cellProcessors);
   }
 
+  /** Converts a numeric cell value to a String */
+  static String toNumericValue(double x) {
+    // excel stores integer values as double values
+    // read an integer if the double value equals the
+    // integer value
+    if (x == Math.rint(x) && !Double.isNaN(x) && !Double.isInfinite(x)) {
+      return String.valueOf((long) x);
+    } else {
+      return String.valueOf(x);
+    }
+  }
+
+  /** Converts a date formatted numeric cell value to a String */
+  static String toDateValue(double excelDate, boolean use1904windowing) {
+    try {
+      // Excel dates are LocalDateTime, stored without timezone.
+      // Interpret them as UTC to prevent ambiguous DST overlaps which happen in other
+      // timezones.
+      LocaleUtil.setUserTimeZone(LocaleUtil.TIMEZONE_UTC);
+      Date javaDate = DateUtil.getJavaDate(excelDate, use1904windowing);
+      return formatUTCDateAsLocalDateTime(javaDate);
+    } finally {
+      LocaleUtil.resetUserTimeZone();
+    }
+  }
+
   public static void renameSheet(String newSheetname, File file, int index) {
     try (FileInputStream fis = new FileInputStream(file);
         Workbook workbook = WorkbookFactory.create(fis)) {
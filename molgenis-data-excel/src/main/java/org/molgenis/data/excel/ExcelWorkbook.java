@@ -0,0 +1,14 @@
+package org.molgenis.data.excel;
+
+/** Workbook read by an {@link ExcelRepositoryCollection}. */
+interface ExcelWorkbook {
+  int getNumberOfSheets();
+
+  String getSheetName(int index);
+
+  /** @return sheet with the given name or <code>null</code> if the sheet does not exist */
+  ExcelSheet getSheet(String name);
+
+  /** @throws IllegalArgumentException if the index is out of range */
+  ExcelSheet getSheetAt(int index);
+}
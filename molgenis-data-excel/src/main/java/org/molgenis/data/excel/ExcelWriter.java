@@ -10,7 +10,7 @@ import java.util.stream.Collectors;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.WritableFactory;
 import org.molgenis.data.file.processor.CellProcessor;
@@ -18,8 +18,15 @@ import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.AttributeFactory;
 import org.molgenis.data.support.AbstractWritable.AttributeWriteMode;
 
-/** Creates new Excel sheets */
+/**
+ * Creates new Excel sheets
+ *
+ * <p>XLSX sheets are written with a sliding window of rows: rows that fall out of the window are
+ * flushed to compressed temporary files, so the memory use does not depend on the number of rows.
+ */
 public class ExcelWriter implements WritableFactory {
+  private static final int XLSX_ROWS_IN_MEMORY = 1000;
+
   private final Workbook workbook;
   private final OutputStream os;
   private final AttributeFactory attrMetaFactory;
@@ -38,7 +45,13 @@ public class ExcelWriter implements WritableFactory {
     this.os = requireNonNull(os);
     this.attrMetaFactory = requireNonNull(attrMetaFactory);
     this.workbook =
-        requireNonNull(format) == FileFormat.XLS ? new HSSFWorkbook() : new XSSFWorkbook();
+        requireNonNull(format) == FileFormat.XLS ? new HSSFWorkbook() : createXlsxWorkbook();
+  }
+
+  private static Workbook createXlsxWorkbook() {
+    SXSSFWorkbook sxssfWorkbook = new SXSSFWorkbook(XLSX_ROWS_IN_MEMORY);
+    sxssfWorkbook.setCompressTempFiles(true);
+    return sxssfWorkbook;
   }
 
   public void addCellProcessor(CellProcessor cellProcessor) {
@@ -59,6 +72,10 @@ public class ExcelWriter implements WritableFactory {
       workbook.write(os);
     } catch (IOException e) {
       throw new MolgenisDataException("Exception writing to excel file", e);
+    } finally {
+      if (workbook instanceof SXSSFWorkbook) {
+        ((SXSSFWorkbook) workbook).dispose();
+      }
     }
     os.close();
   }
@@ -0,0 +1,35 @@
+package org.molgenis.data.excel;
+
+import static com.google.common.collect.Iterators.transform;
+
+import java.util.Iterator;
+import java.util.List;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.molgenis.data.file.processor.CellProcessor;
+
+/** {@link ExcelRow} backed by a row of a workbook that is completely loaded into memory. */
+class PoiExcelRow implements ExcelRow {
+  private final Row row;
+
+  PoiExcelRow(Row row) {
+    if (row == null) throw new IllegalArgumentException("row is null");
+    this.row = row;
+  }
+
+  @Override
+  public int getRowNum() {
+    return row.getRowNum();
+  }
+
+  @Override
+  public Iterator<String> cellValueIterator() {
+    return transform(row.cellIterator(), ExcelUtils::toValue);
+  }
+
+  @Override
+  public String getCellValue(int col, List<CellProcessor> cellProcessors) {
+    Cell cell = row.getCell(col);
+    return cell != null ? ExcelUtils.toValue(cell, cellProcessors) : null;
+  }
+}
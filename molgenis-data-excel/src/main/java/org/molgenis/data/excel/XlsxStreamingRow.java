@@ -0,0 +1,56 @@
+package org.molgenis.data.excel;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.file.processor.AbstractCellProcessor;
+import org.molgenis.data.file.processor.CellProcessor;
+
+/** {@link ExcelRow} read by a {@link XlsxStreamingSheet}. */
+class XlsxStreamingRow implements ExcelRow {
+  private final int rowNum;
+  private final List<String> values;
+  private final BitSet presentCells;
+  private final BitSet errorCells;
+
+  /**
+   * @param rowNum 0-based row number
+   * @param values cell values by column, <code>null</code> for missing and blank cells
+   * @param presentCells columns that have a cell, including blank cells
+   * @param errorCells columns that have a cell with an error value
+   */
+  XlsxStreamingRow(int rowNum, List<String> values, BitSet presentCells, BitSet errorCells) {
+    this.rowNum = rowNum;
+    this.values = requireNonNull(values);
+    this.presentCells = requireNonNull(presentCells);
+    this.errorCells = requireNonNull(errorCells);
+  }
+
+  @Override
+  public int getRowNum() {
+    return rowNum;
+  }
+
+  @Override
+  public Iterator<String> cellValueIterator() {
+    return presentCells.stream().mapToObj(this::getValue).iterator();
+  }
+
+  @Override
+  public String getCellValue(int col, List<CellProcessor> cellProcessors) {
+    if (!presentCells.get(col)) {
+      return null;
+    }
+    return AbstractCellProcessor.processCell(getValue(col), false, cellProcessors);
+  }
+
+  private String getValue(int col) {
+    if (errorCells.get(col)) {
+      throw new MolgenisDataException("unsupported cell type: ERROR");
+    }
+    return values.get(col);
+  }
+}
@@ -0,0 +1,292 @@
+package org.molgenis.data.excel;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackagePartName;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.util.CloseableIterator;
+
+/**
+ * {@link ExcelSheet} that parses the sheet XML of a {@link XlsxStreamingWorkbook} while iterating.
+ *
+ * <p>Only the current row is kept in memory. Formula cells are read from the values cached in the
+ * file. Merged regions are stored after the rows and are therefore detected once all rows are read.
+ */
+class XlsxStreamingSheet implements ExcelSheet {
+  private final String sheetName;
+  private final PackagePartName sheetPartName;
+  private final XlsxStreamingWorkbook workbook;
+
+  private Integer nrRows;
+
+  XlsxStreamingSheet(
+      String sheetName, PackagePartName sheetPartName, XlsxStreamingWorkbook workbook) {
+    this.sheetName = requireNonNull(sheetName);
+    this.sheetPartName = requireNonNull(sheetPartName);
+    this.workbook = requireNonNull(workbook);
+  }
+
+  @Override
+  public String getSheetName() {
+    return sheetName;
+  }
+
+  @Override
+  public synchronized int getNrRows() {
+    if (nrRows == null) {
+      nrRows = readNrRows();
+    }
+    return nrRows;
+  }
+
+  private int readNrRows() {
+    try (SheetReader sheetReader = new SheetReader()) {
+      Integer nrRowsFromDimension = sheetReader.readNrRowsFromDimension();
+      if (nrRowsFromDimension != null) {
+        return nrRowsFromDimension;
+      }
+
+      int lastRowNum = -1;
+      while (sheetReader.hasNext()) {
+        lastRowNum = sheetReader.next().getRowNum();
+      }
+      return lastRowNum + 1;
+    }
+  }
+
+  @Override
+  public CloseableIterator<ExcelRow> iterator() {
+    return new SheetReader();
+  }
+
+  /** Reads the rows of the sheet from a package that is opened for this reader only */
+  private class SheetReader implements CloseableIterator<ExcelRow>, AutoCloseable {
+    private final OPCPackage opcPackage;
+    private final InputStream inputStream;
+    private final XMLStreamReader reader;
+    private XlsxStreamingRow nextRow;
+    private int lastRowNum = -1;
+    private boolean done;
+    private boolean closed;
+
+    SheetReader() {
+      try {
+        opcPackage = workbook.openPackage();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      try {
+        PackagePart sheetPart = opcPackage.getPart(sheetPartName);
+        if (sheetPart == null) {
+          throw new MolgenisDataException(format("Sheet [%s] does not exist", sheetName));
+        }
+        inputStream = sheetPart.getInputStream();
+      } catch (IOException e) {
+        opcPackage.revert();
+        throw new UncheckedIOException(e);
+      } catch (RuntimeException e) {
+        opcPackage.revert();
+        throw e;
+      }
+      try {
+        reader = XlsxStreamingWorkbook.createXMLStreamReader(inputStream);
+      } catch (XMLStreamException e) {
+        closeQuietly(inputStream);
+        opcPackage.revert();
+        throw new MolgenisDataException(e);
+      }
+    }
+
+    /** @return number of rows based on the sheet dimension or <code>null</code> if unknown */
+    Integer readNrRowsFromDimension() {
+      try {
+        while (reader.hasNext()) {
+          if (reader.next() == START_ELEMENT) {
+            String localName = reader.getLocalName();
+            if ("dimension".equals(localName)) {
+              String ref = reader.getAttributeValue(null, "ref");
+              return ref != null ? CellRangeAddress.valueOf(ref).getLastRow() + 1 : null;
+            } else if ("sheetData".equals(localName)) {
+              return null;
+            }
+          }
+        }
+        return null;
+      } catch (XMLStreamException e) {
+        throw new MolgenisDataException(e);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (nextRow == null && !done) {
+        try {
+          nextRow = readNextRow();
+        } catch (XMLStreamException e) {
+          close();
+          throw new MolgenisDataException(e);
+        }
+        if (nextRow == null) {
+          done = true;
+          close();
+        }
+      }
+      return nextRow != null;
+    }
+
+    @Override
+    public ExcelRow next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      ExcelRow row = nextRow;
+      nextRow = null;
+      return row;
+    }
+
+    private XlsxStreamingRow readNextRow() throws XMLStreamException {
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == START_ELEMENT && "row".equals(reader.getLocalName())) {
+          return readRow();
+        } else if (event == END_ELEMENT && "sheetData".equals(reader.getLocalName())) {
+          validateNoMergedRegions();
+          return null;
+        }
+      }
+      return null;
+    }
+
+    private void validateNoMergedRegions() throws XMLStreamException {
+      while (reader.hasNext()) {
+        if (reader.next() == START_ELEMENT && "mergeCell".equals(reader.getLocalName())) {
+          close();
+          throw new MolgenisDataException(
+              format("Sheet [%s] contains merged regions which is not supported", sheetName));
+        }
+      }
+    }
+
+    private XlsxStreamingRow readRow() throws XMLStreamException {
+      String rowRef = reader.getAttributeValue(null, "r");
+      int rowNum = rowRef != null ? Integer.parseInt(rowRef) - 1 : lastRowNum + 1;
+      lastRowNum = rowNum;
+
+      List<String> values = new ArrayList<>();
+      BitSet presentCells = new BitSet();
+      BitSet errorCells = new BitSet();
+      int lastCol = -1;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == START_ELEMENT && "c".equals(reader.getLocalName())) {
+          String cellRef = reader.getAttributeValue(null, "r");
+          int col = cellRef != null ? new CellReference(cellRef).getCol() : lastCol + 1;
+          lastCol = col;
+
+          String cellType = reader.getAttributeValue(null, "t");
+          String style = reader.getAttributeValue(null, "s");
+          int styleIndex = style != null ? Integer.parseInt(style) : 0;
+          String rawValue = readCellContent();
+
+          while (values.size() <= col) {
+            values.add(null);
+          }
+          presentCells.set(col);
+          if ("e".equals(cellType)) {
+            errorCells.set(col);
+          } else {
+            values.set(col, toValue(cellType, styleIndex, rawValue));
+          }
+        } else if (event == END_ELEMENT && "row".equals(reader.getLocalName())) {
+          break;
+        }
+      }
+      return new XlsxStreamingRow(rowNum, values, presentCells, errorCells);
+    }
+
+    /** Reads the cached value or inline string of the current cell */
+    private String readCellContent() throws XMLStreamException {
+      String value = null;
+      StringBuilder inlineString = null;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == START_ELEMENT) {
+          String localName = reader.getLocalName();
+          if ("v".equals(localName)) {
+            value = reader.getElementText();
+          } else if ("is".equals(localName)) {
+            inlineString = new StringBuilder();
+          } else if ("t".equals(localName) && inlineString != null) {
+            inlineString.append(reader.getElementText());
+          }
+        } else if (event == END_ELEMENT && "c".equals(reader.getLocalName())) {
+          break;
+        }
+      }
+      return inlineString != null ? inlineString.toString() : value;
+    }
+
+    private String toValue(String cellType, int styleIndex, String rawValue) {
+      if (rawValue == null) {
+        return null;
+      }
+      if (cellType == null || "n".equals(cellType)) {
+        double number = Double.parseDouble(rawValue);
+        if (workbook.isDateFormatted(styleIndex) && DateUtil.isValidExcelDate(number)) {
+          return ExcelUtils.toDateValue(number, workbook.isUse1904windowing());
+        }
+        return ExcelUtils.toNumericValue(number);
+      }
+      switch (cellType) {
+        case "s":
+          return workbook.getSharedString(Integer.parseInt(rawValue));
+        case "b":
+          return String.valueOf("1".equals(rawValue) || "true".equals(rawValue));
+        default:
+          // inline strings, formula strings and ISO 8601 dates
+          return rawValue;
+      }
+    }
+
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        throw new MolgenisDataException(e);
+      } finally {
+        closeQuietly(inputStream);
+        opcPackage.revert();
+      }
+    }
+  }
+
+  private static void closeQuietly(InputStream inputStream) {
+    try {
+      inputStream.close();
+    } catch (IOException e) {
+      // noop
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package org.molgenis.data.excel;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePartName;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.StaxHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFReader.SheetIterator;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.SAXException;
+
+/**
+ * {@link ExcelWorkbook} that streams the sheets of an XLSX file instead of loading the workbook
+ * into memory.
+ *
+ * <p>Only the shared strings table and the date formatted cell styles are kept in memory. Sheets
+ * are parsed while iterating their rows and different sheets can be read concurrently.
+ *
+ * <p>The file is only opened while reading, so that no file handle is kept open for the lifetime of
+ * the workbook.
+ */
+class XlsxStreamingWorkbook implements ExcelWorkbook {
+  private static final XMLInputFactory XML_INPUT_FACTORY = StaxHelper.newXMLInputFactory();
+
+  private final ReadOnlySharedStringsTable sharedStringsTable;
+  private final BitSet dateFormattedStyles;
+  private final boolean use1904windowing;
+  private final File file;
+  private final List<String> sheetNames;
+  private final List<PackagePartName> sheetPartNames;
+
+  XlsxStreamingWorkbook(File file) throws IOException {
+    this.file = requireNonNull(file);
+    OPCPackage opcPackage = openPackage();
+    try {
+      XSSFReader xssfReader = new XSSFReader(opcPackage);
+      sharedStringsTable = new ReadOnlySharedStringsTable(opcPackage);
+      dateFormattedStyles = getDateFormattedStyles(xssfReader.getStylesTable());
+      use1904windowing = isUse1904windowing(xssfReader);
+
+      sheetNames = new ArrayList<>();
+      sheetPartNames = new ArrayList<>();
+      SheetIterator sheetIterator = (SheetIterator) xssfReader.getSheetsData();
+      while (sheetIterator.hasNext()) {
+        sheetIterator.next().close();
+        sheetNames.add(sheetIterator.getSheetName());
+        sheetPartNames.add(sheetIterator.getSheetPart().getPartName());
+      }
+    } catch (OpenXML4JException | SAXException e) {
+      throw new IOException(e);
+    } finally {
+      opcPackage.revert();
+    }
+  }
+
+  /**
+   * Opens the package of this workbook for reading. The caller is responsible for reverting the
+   * package, which closes the file.
+   */
+  OPCPackage openPackage() throws IOException {
+    try {
+      return OPCPackage.open(file, PackageAccess.READ);
+    } catch (InvalidFormatException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static BitSet getDateFormattedStyles(StylesTable stylesTable) {
+    BitSet dateFormattedStyles = new BitSet();
+    if (stylesTable != null) {
+      for (int i = 0; i < stylesTable.getNumCellStyles(); i++) {
+        XSSFCellStyle style = stylesTable.getStyleAt(i);
+        if (DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString())) {
+          dateFormattedStyles.set(i);
+        }
+      }
+    }
+    return dateFormattedStyles;
+  }
+
+  private static boolean isUse1904windowing(XSSFReader xssfReader)
+      throws IOException, OpenXML4JException {
+    try (InputStream inputStream = xssfReader.getWorkbookData()) {
+      XMLStreamReader reader = createXMLStreamReader(inputStream);
+      try {
+        while (reader.hasNext()) {
+          if (reader.next() == START_ELEMENT && "workbookPr".equals(reader.getLocalName())) {
+            String date1904 = reader.getAttributeValue(null, "date1904");
+            return "1".equals(date1904) || "true".equals(date1904);
+          }
+        }
+        return false;
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new IOException(e);
+    }
+  }
+
+  static XMLStreamReader createXMLStreamReader(InputStream inputStream)
+      throws XMLStreamException {
+    return XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+  }
+
+  @Override
+  public int getNumberOfSheets() {
+    return sheetNames.size();
+  }
+
+  @Override
+  public String getSheetName(int index) {
+    validateSheetIndex(index);
+    return sheetNames.get(index);
+  }
+
+  @Override
+  public ExcelSheet getSheet(String name) {
+    int index = sheetNames.indexOf(name);
+    return index != -1 ? getSheetAt(index) : null;
+  }
+
+  @Override
+  public ExcelSheet getSheetAt(int index) {
+    validateSheetIndex(index);
+    return new XlsxStreamingSheet(sheetNames.get(index), sheetPartNames.get(index), this);
+  }
+
+  private void validateSheetIndex(int index) {
+    if (index < 0 || index >= sheetNames.size()) {
+      throw new IllegalArgumentException(
+          format("Sheet index (%d) is out of range (0..%d)", index, sheetNames.size() - 1));
+    }
+  }
+
+  String getSharedString(int index) {
+    return sharedStringsTable.getItemAt(index).getString();
+  }
+
+  boolean isDateFormatted(int styleIndex) {
+    return dateFormattedStyles.get(styleIndex);
+  }
+
+  boolean isUse1904windowing() {
+    return use1904windowing;
+  }
+}
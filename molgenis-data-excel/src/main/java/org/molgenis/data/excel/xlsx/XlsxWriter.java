@@ -8,6 +8,7 @@ import static org.molgenis.data.DataConverter.toLocalDate;
 import static org.molgenis.data.DataConverter.toLong;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.SimpleDateFormat;
@@ -22,6 +23,7 @@ import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.molgenis.data.excel.xlsx.exception.MaximumSheetNameLengthExceededException;
 import org.molgenis.data.excel.xlsx.exception.UnsupportedValueException;
 import org.molgenis.data.excel.xlsx.exception.XlsxWriterException;
@@ -91,11 +93,15 @@ public class XlsxWriter implements AutoCloseable {
 
   @Override
   public void close() throws IOException {
-    try {
-      workbook.write(Files.newOutputStream(target));
+    try (OutputStream outputStream = Files.newOutputStream(target)) {
+      workbook.write(outputStream);
     } catch (RuntimeException e) {
       throw new XlsxWriterException(e);
     } finally {
+      if (workbook instanceof SXSSFWorkbook) {
+        // delete the temporary files backing the rows that were flushed from memory
+        ((SXSSFWorkbook) workbook).dispose();
+      }
       workbook.close();
     }
   }
@@ -1,9 +1,12 @@
 package org.molgenis.data.excel;
 
+import static com.google.common.collect.Lists.newArrayList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import org.junit.jupiter.api.AfterEach;
@@ -13,6 +16,7 @@ import org.mockito.Mock;
 import org.molgenis.data.meta.model.AttributeFactory;
 import org.molgenis.data.meta.model.EntityTypeFactory;
 import org.molgenis.test.AbstractMockitoTest;
+import org.molgenis.util.ResourceUtils;
 
 class ExcelRepositoryCollectionTest extends AbstractMockitoTest {
   @Mock private EntityTypeFactory entityTypeFactory;
@@ -49,6 +53,18 @@ class ExcelRepositoryCollectionTest extends AbstractMockitoTest {
     assertThrows(IllegalArgumentException.class, () -> excelRepositoryCollection.getSheet(123));
   }
 
+  @Test
+  void testGetRepositoryFromXlsxFile() throws IOException {
+    File file = ResourceUtils.getFile(getClass(), "/test.xlsx");
+    ExcelRepositoryCollection fileRepositoryCollection = new ExcelRepositoryCollection(file);
+    fileRepositoryCollection.setEntityTypeFactory(entityTypeFactory);
+    fileRepositoryCollection.setAttributeFactory(attributeFactory);
+    assertEquals(
+        newArrayList(excelRepositoryCollection.getEntityTypeIds()),
+        newArrayList(fileRepositoryCollection.getEntityTypeIds()));
+    assertNotNull(fileRepositoryCollection.getRepository("attributes"));
+  }
+
   @AfterEach
   void tearDownAfterEach() throws IOException {
     inputStream.close();
@@ -1,5 +1,6 @@
 package org.molgenis.data.excel;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -30,6 +31,7 @@ import org.molgenis.data.file.processor.CellProcessor;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.AttributeFactory;
 import org.molgenis.data.meta.model.EntityTypeFactory;
+import org.molgenis.util.CloseableIterator;
 import org.springframework.beans.factory.annotation.Autowired;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -177,6 +179,23 @@ class ExcelRepositoryTest extends AbstractMolgenisSpringTest {
     assertThrows(NoSuchElementException.class, it::next); // does not exist
   }
 
+  @Test
+  void iteratorClose() {
+    ExcelSheet sheet = mock(ExcelSheet.class);
+    @SuppressWarnings("unchecked")
+    CloseableIterator<ExcelRow> rowIterator = mock(CloseableIterator.class);
+    ExcelRow headerRow = mock(ExcelRow.class);
+    when(headerRow.cellValueIterator()).thenReturn(singletonList("col1").iterator());
+    when(rowIterator.hasNext()).thenReturn(true);
+    when(rowIterator.next()).thenReturn(headerRow);
+    when(sheet.iterator()).thenReturn(rowIterator);
+    ExcelRepository excelRepository =
+        new ExcelRepository(sheet, entityTypeFactory, attrMetaFactory, null);
+
+    excelRepository.iterator().close();
+    verify(rowIterator).close();
+  }
+
   @SuppressWarnings("deprecation")
   @Test
   void iteratorDuplicateSheetHeader() throws IOException {
@@ -1,5 +1,6 @@
 package org.molgenis.data.excel;
 
+import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -7,10 +8,14 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Arrays;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.junit.jupiter.api.Test;
 import org.molgenis.data.AbstractMolgenisSpringTest;
 import org.molgenis.data.Entity;
@@ -65,6 +70,25 @@ class ExcelWriterTest extends AbstractMolgenisSpringTest {
     assertEquals(0x04, b[3] & 0xff);
   }
 
+  @Test
+  void ExcelWriterFileFormat_XLSXRowsExceedingWindow() throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ExcelWriter excelWriter = new ExcelWriter(bos, attrMetaFactory, FileFormat.XLSX)) {
+      Writable writable = excelWriter.createWritable("test", singletonList("col1"));
+      for (int i = 0; i < 2500; i++) {
+        Entity entity = createEntity();
+        entity.set("col1", "val" + i);
+        writable.add(entity);
+      }
+    }
+
+    try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(bos.toByteArray()))) {
+      Sheet sheet = workbook.getSheet("test");
+      assertEquals(2500, sheet.getLastRowNum());
+      assertEquals("val2499", sheet.getRow(2500).getCell(0).getStringCellValue());
+    }
+  }
+
   @Test
   void addCellProcessor_header() throws IOException {
     CellProcessor processor =
@@ -90,13 +114,7 @@ class ExcelWriterTest extends AbstractMolgenisSpringTest {
     ExcelWriter excelWriter = new ExcelWriter(os, attrMetaFactory);
     excelWriter.addCellProcessor(processor);
     try {
-      Entity entity =
-          new DynamicEntity(mock(EntityType.class)) {
-            @Override
-            protected void validateValueType(String attrName, Object value) {
-              // noop
-            }
-          };
+      Entity entity = createEntity();
       entity.set("col1", "val1");
       entity.set("col2", "val2");
       Writable writable = excelWriter.createWritable("test", Arrays.asList("col1", "col2"));
@@ -131,4 +149,13 @@ class ExcelWriterTest extends AbstractMolgenisSpringTest {
       assertThrows(IllegalArgumentException.class, () -> excelWriter.createWritable(null, null));
     }
   }
+
+  private static Entity createEntity() {
+    return new DynamicEntity(mock(EntityType.class)) {
+      @Override
+      protected void validateValueType(String attrName, Object value) {
+        // noop
+      }
+    };
+  }
 }
@@ -0,0 +1,183 @@
+package org.molgenis.data.excel;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.Lists;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.file.processor.CellProcessor;
+import org.molgenis.data.file.processor.TrimProcessor;
+
+class XlsxStreamingWorkbookTest {
+  private static final int NR_COLUMNS = 7;
+
+  private File file;
+
+  @BeforeEach
+  void setUpBeforeEach() throws IOException {
+    file = File.createTempFile("XlsxStreamingWorkbookTest_", ".xlsx");
+    try (XSSFWorkbook workbook = new XSSFWorkbook();
+        OutputStream outputStream = new FileOutputStream(file)) {
+      CellStyle dateStyle = workbook.createCellStyle();
+      dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+
+      Sheet sheet = workbook.createSheet("values");
+      Row header = sheet.createRow(0);
+      for (int i = 0; i < NR_COLUMNS; i++) {
+        header.createCell(i).setCellValue("col" + i);
+      }
+      Row row = sheet.createRow(1);
+      row.createCell(0).setCellValue("  str  ");
+      row.createCell(1).setCellValue(1.0);
+      row.createCell(2).setCellValue(1.5);
+      row.createCell(3).setCellValue(43466.0);
+      row.getCell(3).setCellStyle(dateStyle);
+      row.createCell(4).setCellValue(true);
+      row.createCell(5).setCellFormula("B2+C2");
+      row.createCell(6).setCellFormula("A2&\"x\"");
+      Row sparseRow = sheet.createRow(3);
+      sparseRow.createCell(0);
+      sparseRow.createCell(4).setCellValue("sparse");
+
+      Sheet largeSheet = workbook.createSheet("large");
+      for (int i = 0; i < 1000; i++) {
+        Row largeRow = largeSheet.createRow(i);
+        largeRow.createCell(0).setCellValue("row" + i);
+        largeRow.createCell(1).setCellValue(i);
+      }
+
+      Sheet mergedSheet = workbook.createSheet("merged");
+      mergedSheet.createRow(0).createCell(0).setCellValue("merged");
+      mergedSheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 1));
+
+      workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+      workbook.write(outputStream);
+    }
+  }
+
+  @AfterEach
+  void tearDownAfterEach() {
+    file.delete();
+  }
+
+  @Test
+  void testGetSheets() throws IOException {
+    XlsxStreamingWorkbook workbook = new XlsxStreamingWorkbook(file);
+    assertEquals(3, workbook.getNumberOfSheets());
+    assertEquals(asList("values", "large", "merged"), getSheetNames(workbook));
+    assertEquals("large", workbook.getSheet("large").getSheetName());
+    assertNull(workbook.getSheet("unknown"));
+  }
+
+  @Test
+  void testGetSheetAtInvalidIndex() throws IOException {
+    XlsxStreamingWorkbook workbook = new XlsxStreamingWorkbook(file);
+    assertThrows(IllegalArgumentException.class, () -> workbook.getSheetAt(3));
+  }
+
+  @Test
+  void testIteratorEqualsInMemoryWorkbook() throws IOException {
+    ExcelWorkbook streamingWorkbook = new XlsxStreamingWorkbook(file);
+    ExcelWorkbook inMemoryWorkbook = new PoiExcelWorkbook(WorkbookFactory.create(file));
+
+    for (String sheetName : asList("values", "large")) {
+      ExcelSheet streamingSheet = streamingWorkbook.getSheet(sheetName);
+      ExcelSheet inMemorySheet = inMemoryWorkbook.getSheet(sheetName);
+      assertEquals(inMemorySheet.getNrRows(), streamingSheet.getNrRows());
+      assertEquals(readSheet(inMemorySheet), readSheet(streamingSheet));
+    }
+  }
+
+  @Test
+  void testIteratorValues() throws IOException {
+    ExcelSheet sheet = new XlsxStreamingWorkbook(file).getSheet("values");
+    List<List<Object>> expectedRows =
+        asList(
+            asList(0, asList("col0", "col1", "col2", "col3", "col4", "col5", "col6")),
+            asList(1, asList("  str  ", "1", "1.5", "2019-01-01T00:00", "true", "2.5", "  str  x")),
+            asList(3, asList(null, "sparse")));
+    List<List<Object>> rows = new ArrayList<>();
+    sheet.forEach(
+        row -> rows.add(asList(row.getRowNum(), Lists.newArrayList(row.cellValueIterator()))));
+    assertEquals(expectedRows, rows);
+  }
+
+  @Test
+  void testGetCellValue() throws IOException {
+    List<CellProcessor> cellProcessors = singletonList(new TrimProcessor());
+    ExcelSheet sheet = new XlsxStreamingWorkbook(file).getSheet("values");
+    List<ExcelRow> rows = Lists.newArrayList(sheet);
+    assertEquals("str", rows.get(1).getCellValue(0, cellProcessors));
+    assertNull(rows.get(2).getCellValue(1, cellProcessors));
+  }
+
+  @Test
+  void testIteratorSheetsInParallel() throws IOException, ExecutionException, InterruptedException {
+    XlsxStreamingWorkbook workbook = new XlsxStreamingWorkbook(file);
+    ExecutorService executorService = Executors.newFixedThreadPool(2);
+    try {
+      CompletableFuture<List<List<Object>>> valuesFuture =
+          supplyAsync(() -> readSheet(workbook.getSheet("values")), executorService);
+      CompletableFuture<List<List<Object>>> largeFuture =
+          supplyAsync(() -> readSheet(workbook.getSheet("large")), executorService);
+      assertEquals(readSheet(workbook.getSheet("values")), valuesFuture.get());
+      assertEquals(readSheet(workbook.getSheet("large")), largeFuture.get());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  void testIteratorMergedRegions() throws IOException {
+    ExcelSheet sheet = new XlsxStreamingWorkbook(file).getSheet("merged");
+    Exception exception = assertThrows(MolgenisDataException.class, () -> readSheet(sheet));
+    assertEquals(
+        "Sheet [merged] contains merged regions which is not supported", exception.getMessage());
+  }
+
+  private static List<String> getSheetNames(ExcelWorkbook workbook) {
+    List<String> sheetNames = new ArrayList<>();
+    for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+      sheetNames.add(workbook.getSheetName(i));
+    }
+    return sheetNames;
+  }
+
+  private static List<List<Object>> readSheet(ExcelSheet sheet) {
+    List<CellProcessor> cellProcessors = singletonList(new TrimProcessor());
+    List<List<Object>> rows = new ArrayList<>();
+    for (ExcelRow row : sheet) {
+      List<Object> values = new ArrayList<>();
+      values.add(row.getRowNum());
+      values.add(Lists.newArrayList(row.cellValueIterator()));
+      for (int col = 0; col < NR_COLUMNS; col++) {
+        values.add(row.getCellValue(col, cellProcessors));
+      }
+      rows.add(values);
+    }
+    return rows;
+  }
+}
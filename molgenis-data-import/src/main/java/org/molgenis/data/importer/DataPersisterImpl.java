@@ -90,9 +90,11 @@ public class DataPersisterImpl implements DataPersister {
                       "Abstract entity type '%s' with id '%s' cannot contain entities",
                       entityType.getLabel(), entityType.getId()));
             }
-            Stream<Entity> entities = dataProvider.getEntities(entityType);
-            long nrPersistedEntities =
-                persistEntitiesFirstPass(persistedEntityType, entities, dataMode);
+            long nrPersistedEntities;
+            try (Stream<Entity> entities = dataProvider.getEntities(entityType)) {
+              nrPersistedEntities =
+                  persistEntitiesFirstPass(persistedEntityType, entities, dataMode);
+            }
             persistResultBuilder.put(entityType.getId(), nrPersistedEntities);
           }
         });
@@ -120,8 +122,9 @@ public class DataPersisterImpl implements DataPersister {
           }
 
           if (dataProvider.hasEntities(entityType)) {
-            Stream<Entity> entities = dataProvider.getEntities(entityType);
-            persistEntitiesSecondPass(persistedEntityType, entities);
+            try (Stream<Entity> entities = dataProvider.getEntities(entityType)) {
+              persistEntitiesSecondPass(persistedEntityType, entities);
+            }
           }
         });
   }
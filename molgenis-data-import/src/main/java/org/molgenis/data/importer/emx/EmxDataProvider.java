@@ -7,6 +7,7 @@ import static org.molgenis.data.EntityManager.CreationMode.POPULATE;
 import static org.molgenis.data.meta.model.Package.PACKAGE_SEPARATOR;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -21,6 +22,7 @@ import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.IllegalAttributeTypeException;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.util.CloseableIterator;
 import org.molgenis.util.UnexpectedEnumException;
 
 class EmxDataProvider implements DataProvider {
@@ -71,7 +73,13 @@ class EmxDataProvider implements DataProvider {
     if (repository == null) {
       throw new UnknownRepositoryException(entityType.getId());
     }
-    return stream(repository).map(sourceEntity -> toEntity(entityType, sourceEntity));
+    Iterator<Entity> it = repository.iterator();
+    Stream<Entity> entities = stream(it);
+    if (it instanceof CloseableIterator) {
+      // release the resources of the source when the caller stops reading early
+      entities = entities.onClose(((CloseableIterator<?>) it)::close);
+    }
+    return entities.map(sourceEntity -> toEntity(entityType, sourceEntity));
   }
 
   /**
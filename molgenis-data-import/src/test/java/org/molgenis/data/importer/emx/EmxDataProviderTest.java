@@ -8,6 +8,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableCollection;
@@ -27,6 +28,7 @@ import org.molgenis.data.UnknownRepositoryException;
 import org.molgenis.data.importer.ParsedMetaData;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.test.AbstractMockitoTest;
+import org.molgenis.util.CloseableIterator;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
 class EmxDataProviderTest extends AbstractMockitoTest {
@@ -119,12 +121,28 @@ class EmxDataProviderTest extends AbstractMockitoTest {
     RepositoryCollection repositoryCollection = mock(RepositoryCollection.class);
     @SuppressWarnings("unchecked")
     Repository<Entity> repository = mock(Repository.class);
-    when(repository.spliterator()).thenReturn(Collections.<Entity>emptyList().spliterator());
+    when(repository.iterator()).thenReturn(Collections.<Entity>emptyList().iterator());
     when(repositoryCollection.getRepository(entityType)).thenReturn(repository);
     when(emxImportJob.getSource()).thenReturn(repositoryCollection);
     assertEquals(emptyList(), emxDataProvider.getEntities(entityType).collect(toList()));
   }
 
+  @Test
+  void testGetEntitiesCloseStream() {
+    EntityType entityType = mock(EntityType.class);
+    RepositoryCollection repositoryCollection = mock(RepositoryCollection.class);
+    @SuppressWarnings("unchecked")
+    Repository<Entity> repository = mock(Repository.class);
+    @SuppressWarnings("unchecked")
+    CloseableIterator<Entity> iterator = mock(CloseableIterator.class);
+    when(repository.iterator()).thenReturn(iterator);
+    when(repositoryCollection.getRepository(entityType)).thenReturn(repository);
+    when(emxImportJob.getSource()).thenReturn(repositoryCollection);
+
+    emxDataProvider.getEntities(entityType).close();
+    verify(iterator).close();
+  }
+
   @Test
   void testGetEntitiesAlternativeEntityTypeId() {
     String entityTypeId = "base_EntityTypeId";
@@ -133,7 +151,7 @@ class EmxDataProviderTest extends AbstractMockitoTest {
     RepositoryCollection repositoryCollection = mock(RepositoryCollection.class);
     @SuppressWarnings("unchecked")
     Repository<Entity> repository = mock(Repository.class);
-    when(repository.spliterator()).thenReturn(Collections.<Entity>emptyList().spliterator());
+    when(repository.iterator()).thenReturn(Collections.<Entity>emptyList().iterator());
     when(repositoryCollection.getRepository("EntityTypeId")).thenReturn(repository);
     when(emxImportJob.getPackageId()).thenReturn(Optional.of("base"));
     when(emxImportJob.getSource()).thenReturn(repositoryCollection);
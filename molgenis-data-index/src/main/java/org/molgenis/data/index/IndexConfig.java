@@ -24,6 +24,7 @@ import org.molgenis.jobs.JobExecutor;
 import org.molgenis.jobs.JobFactory;
 import org.molgenis.jobs.model.JobExecutionMetaData;
 import org.molgenis.jobs.model.JobPackage;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -51,6 +52,7 @@ public class IndexConfig {
   private final IndexJobExecutionFactory indexJobExecutionFactory;
   private final EntityTypeFactory entityTypeFactory;
   private final JobExecutor jobExecutor;
+  private final ApplicationEventPublisher applicationEventPublisher;
 
   public IndexConfig(
       IndexActionRegisterService indexActionRegisterService,
@@ -59,7 +61,8 @@ public class IndexConfig {
       IndexService indexService,
       IndexJobExecutionFactory indexJobExecutionFactory,
       EntityTypeFactory entityTypeFactory,
-      JobExecutor jobExecutor) {
+      JobExecutor jobExecutor,
+      ApplicationEventPublisher applicationEventPublisher) {
     this.indexActionRegisterService = requireNonNull(indexActionRegisterService);
     this.transactionManager = requireNonNull(transactionManager);
     this.dataService = requireNonNull(dataService);
@@ -67,6 +70,7 @@ public class IndexConfig {
     this.indexJobExecutionFactory = requireNonNull(indexJobExecutionFactory);
     this.entityTypeFactory = requireNonNull(entityTypeFactory);
     this.jobExecutor = requireNonNull(jobExecutor);
+    this.applicationEventPublisher = requireNonNull(applicationEventPublisher);
   }
 
   @PostConstruct
@@ -89,7 +93,8 @@ public class IndexConfig {
 
   @Bean
   public IndexJobService indexJobService() {
-    return new IndexJobService(dataService, indexService, entityTypeFactory);
+    return new IndexJobService(
+        dataService, indexService, entityTypeFactory, applicationEventPublisher);
   }
 
   @Bean
@@ -16,6 +16,8 @@ public interface IndexService {
 
   void refreshIndex();
 
+  void refreshIndex(EntityType entityType);
+
   void index(EntityType entityType, Entity entity);
 
   long index(EntityType entityType, Stream<? extends Entity> entities);
@@ -12,6 +12,7 @@ import static org.molgenis.data.RepositoryCapability.QUERYABLE;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -110,9 +111,17 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
     return unmodifiableSet(capabilities);
   }
 
+  /**
+   * Returns all operators, except for {@link Operator#PERMITTED} which the index can't evaluate
+   * and is only available if the decorated repository supports it.
+   */
   @Override
   public Set<Operator> getQueryOperators() {
-    return EnumSet.allOf(Operator.class);
+    Set<Operator> operators = EnumSet.allOf(Operator.class);
+    if (!delegate().getQueryOperators().contains(Operator.PERMITTED)) {
+      operators.remove(Operator.PERMITTED);
+    }
+    return operators;
   }
 
   @Override
@@ -138,7 +147,21 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
 
   @Override
   public AggregateResult aggregate(AggregateQuery aggregateQuery) {
-    return tryTwice(() -> searchService.aggregate(getEntityType(), aggregateQuery));
+    if (aggregateSupported(aggregateQuery)) {
+      LOG.debug(
+          "public AggregateResult aggregate({}) entityTypeId: [{}] repository: [{}]",
+          aggregateQuery,
+          getEntityType().getId(),
+          DECORATED_REPOSITORY);
+      return delegate().aggregate(aggregateQuery);
+    } else {
+      LOG.debug(
+          "public AggregateResult aggregate({}) entityTypeId: [{}] repository: [{}]",
+          aggregateQuery,
+          getEntityType().getId(),
+          INDEX_REPOSITORY);
+      return tryTwice(() -> searchService.aggregate(getEntityType(), aggregateQuery));
+    }
   }
 
   /**
@@ -179,6 +202,24 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
         && !containsNestedQueryRuleField(q);
   }
 
+  /**
+   * Returns whether the decorated repository can aggregate: it must be aggregateable, support the
+   * query and the aggregated attributes must not be computed.
+   */
+  private boolean aggregateSupported(AggregateQuery aggregateQuery) {
+    if (!delegate().getCapabilities().contains(AGGREGATEABLE)) {
+      return false;
+    }
+    Query<Entity> q = aggregateQuery.getQuery();
+    return (q == null || querySupported(q))
+        && Stream.of(
+                aggregateQuery.getAttributeX(),
+                aggregateQuery.getAttributeY(),
+                aggregateQuery.getAttributeDistinct())
+            .filter(Objects::nonNull)
+            .allMatch(attr -> attr.getExpression() == null);
+  }
+
   private void waitForIndexToBeStable() {
     try {
       indexJobScheduler.waitForIndexToBeStableIncludingReferences(getEntityType());
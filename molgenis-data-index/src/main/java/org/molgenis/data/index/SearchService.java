@@ -1,5 +1,7 @@
 package org.molgenis.data.index;
 
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
@@ -12,6 +14,13 @@ public interface SearchService {
 
   long count(EntityType entityType, Query<Entity> q);
 
+  /**
+   * Counts the entities matching a query for multiple entity types with one request.
+   *
+   * @return number of matching entities by entity type id
+   */
+  Map<String, Long> count(List<EntityType> entityTypes, Query<Entity> q);
+
   Object searchOne(EntityType entityType, Query<Entity> q);
 
   Stream<Object> search(EntityType entityType, Query<Entity> q);
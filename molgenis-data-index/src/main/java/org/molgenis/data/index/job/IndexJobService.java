@@ -1,8 +1,11 @@
 package org.molgenis.data.index.job;
 
+import static com.google.common.collect.Sets.newIdentityHashSet;
 import static java.text.MessageFormat.format;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.molgenis.data.QueryRule.Operator.EQUALS;
 import static org.molgenis.data.index.meta.IndexActionGroupMetadata.INDEX_ACTION_GROUP;
 import static org.molgenis.data.index.meta.IndexActionMetadata.ACTION_ORDER;
@@ -10,39 +13,54 @@ import static org.molgenis.data.index.meta.IndexActionMetadata.INDEX_ACTION;
 import static org.molgenis.data.index.meta.IndexActionMetadata.INDEX_ACTION_GROUP_ATTR;
 import static org.molgenis.data.util.EntityUtils.getTypedValue;
 
+import com.google.common.collect.Lists;
 import io.micrometer.core.annotation.Timed;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Stream;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
-import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.Repository;
 import org.molgenis.data.Sort;
+import org.molgenis.data.event.IndexedEvent;
 import org.molgenis.data.index.IndexService;
 import org.molgenis.data.index.meta.IndexAction;
 import org.molgenis.data.index.meta.IndexActionGroup;
 import org.molgenis.data.index.meta.IndexActionMetadata;
+import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.EntityTypeFactory;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.jobs.Progress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 
 /** Executes the {@link IndexAction}s stored in an {@link IndexActionGroup}. */
 public class IndexJobService {
   private static final Logger LOG = LoggerFactory.getLogger(IndexJobService.class);
+  private static final int BATCH_SIZE = 1000;
 
   private final DataService dataService;
   private final IndexService indexService;
   private final EntityTypeFactory entityTypeFactory;
+  private final ApplicationEventPublisher applicationEventPublisher;
 
   public IndexJobService(
-      DataService dataService, IndexService indexService, EntityTypeFactory entityTypeFactory) {
+      DataService dataService,
+      IndexService indexService,
+      EntityTypeFactory entityTypeFactory,
+      ApplicationEventPublisher applicationEventPublisher) {
     this.dataService = requireNonNull(dataService);
     this.indexService = requireNonNull(indexService);
     this.entityTypeFactory = requireNonNull(entityTypeFactory);
+    this.applicationEventPublisher = requireNonNull(applicationEventPublisher);
   }
 
   @Timed(
@@ -65,7 +83,9 @@ public class IndexJobService {
   }
 
   /**
-   * Performs the IndexActions.
+   * Performs the IndexActions. Actions are coalesced per entity type so that each entity type is
+   * either rebuilt once or has its affected rows indexed in bulk. Publishes an {@link
+   * IndexedEvent} for the entity types whose index was refreshed.
    *
    * @param progress {@link Progress} instance to log progress information to
    */
@@ -74,55 +94,92 @@ public class IndexJobService {
         dataService
             .findAll(INDEX_ACTION, createQueryGetAllIndexActions(transactionId), IndexAction.class)
             .collect(toList());
+    Map<String, List<IndexAction>> indexActionsPerEntityType =
+        indexActions.stream()
+            .collect(groupingBy(IndexAction::getEntityTypeId, LinkedHashMap::new, toList()));
+
+    Set<EntityType> indexedEntityTypes = new LinkedHashSet<>();
     try {
-      boolean success = true;
+      Set<IndexAction> failedIndexActions = newIdentityHashSet();
       int count = 0;
-      for (IndexAction indexAction : indexActions) {
-        success &= performAction(progress, count++, indexAction);
+      for (Entry<String, List<IndexAction>> entry : indexActionsPerEntityType.entrySet()) {
+        List<IndexAction> entityTypeIndexActions = entry.getValue();
+        if (!performActions(
+            progress, count, entry.getKey(), entityTypeIndexActions, indexedEntityTypes)) {
+          failedIndexActions.addAll(entityTypeIndexActions);
+        }
+        count += entityTypeIndexActions.size();
       }
-      if (success) {
+      if (failedIndexActions.isEmpty()) {
         progress.progress(count, "Executed all index actions, cleaning up the actions...");
         dataService.delete(INDEX_ACTION, indexActions.stream());
         dataService.deleteById(INDEX_ACTION_GROUP, transactionId);
         progress.progress(count, "Cleaned up the actions.");
+      } else {
+        updateIndexActionStatus(indexActions, failedIndexActions);
       }
     } catch (Exception ex) {
       LOG.error("Error performing index actions", ex);
       throw ex;
     } finally {
       progress.status("Refresh index start");
-      indexService.refreshIndex();
+      indexedEntityTypes.forEach(this::refreshIndex);
       progress.status("Refresh index done");
+      if (!indexedEntityTypes.isEmpty()) {
+        applicationEventPublisher.publishEvent(
+            new IndexedEvent(indexedEntityTypes.stream().map(EntityType::getId).collect(toSet())));
+      }
     }
   }
 
   /**
-   * Performs a single IndexAction
+   * Refreshes the index of an entity type. The index doesn't exist if the first rebuild of the
+   * index failed. Failures are logged so that they don't hide the failure of the index actions.
+   */
+  private void refreshIndex(EntityType entityType) {
+    try {
+      if (indexService.hasIndex(entityType)) {
+        indexService.refreshIndex(entityType);
+      }
+    } catch (Exception ex) {
+      LOG.error("Error refreshing index of entity type '{}'", entityType.getId(), ex);
+    }
+  }
+
+  /**
+   * Performs the IndexActions of a single entity type. A whole entity type action supersedes the
+   * entity actions for that entity type.
    *
    * @param progress {@link Progress} to report progress to
-   * @param progressCount the progress count for this IndexAction
-   * @param indexAction Entity of type IndexActionMetaData
+   * @param progressCount the progress count for the first IndexAction
+   * @param entityTypeId the id of the entity type that the IndexActions apply to
+   * @param indexActions IndexActions for the entity type
+   * @param indexedEntityTypes entity types whose index has been written to
    * @return boolean indicating success or failure
    */
-  private boolean performAction(Progress progress, int progressCount, IndexAction indexAction) {
-    requireNonNull(indexAction);
-    String entityTypeId = indexAction.getEntityTypeId();
-    updateIndexActionStatus(indexAction, IndexActionMetadata.IndexStatus.STARTED);
+  private boolean performActions(
+      Progress progress,
+      int progressCount,
+      String entityTypeId,
+      List<IndexAction> indexActions,
+      Set<EntityType> indexedEntityTypes) {
     try {
       if (dataService.hasEntityType(entityTypeId)) {
         EntityType entityType = dataService.getEntityType(entityTypeId);
-        if (indexAction.getEntityId() != null) {
-          progress.progress(
-              progressCount,
-              format("Indexing {0}.{1}", entityType.getId(), indexAction.getEntityId()));
-          rebuildIndexOneEntity(entityTypeId, indexAction.getEntityId());
-        } else {
+        indexedEntityTypes.add(entityType);
+        if (indexActions.stream().anyMatch(indexAction -> indexAction.getEntityId() == null)) {
           progress.progress(progressCount, format("Indexing {0}", entityType.getId()));
           final Repository<Entity> repository = dataService.getRepository(entityType.getId());
           indexService.rebuildIndex(repository);
+        } else {
+          List<Object> entityIds = getEntityIds(entityType, indexActions);
+          progress.progress(
+              progressCount,
+              format("Indexing {0} {1} entities", entityIds.size(), entityType.getId()));
+          rebuildIndexEntities(entityType, entityIds);
         }
       } else {
-        EntityType entityType = getEntityType(indexAction);
+        EntityType entityType = entityTypeFactory.create(entityTypeId);
         if (indexService.hasIndex(entityType)) {
           progress.progress(
               progressCount, format("Dropping entityType with id: {0}", entityType.getId()));
@@ -130,66 +187,74 @@ public class IndexJobService {
         } else {
           // Index Job is finished, here we concluded that we don't have enough info to continue the
           // index job
-          progress.progress(
-              progressCount,
-              format("Skip index entity {0}.{1}", entityType.getId(), indexAction.getEntityId()));
+          progress.progress(progressCount, format("Skip index entity {0}", entityType.getId()));
         }
       }
-      updateIndexActionStatus(indexAction, IndexActionMetadata.IndexStatus.FINISHED);
       return true;
     } catch (Exception ex) {
       LOG.error("Index job failed", ex);
-      updateIndexActionStatus(indexAction, IndexActionMetadata.IndexStatus.FAILED);
       return false;
     }
   }
 
   /**
-   * Updates the {@link IndexStatus} of a IndexAction and stores the change.
+   * Stores the {@link IndexActionMetadata.IndexStatus} of the IndexActions of a group that did not
+   * complete successfully in one bulk update.
    *
-   * @param indexAction the IndexAction of which the status is updated
-   * @param status the new {@link IndexStatus}
+   * @param indexActions all IndexActions of the group
+   * @param failedIndexActions the IndexActions that failed
    */
   private void updateIndexActionStatus(
-      IndexAction indexAction, IndexActionMetadata.IndexStatus status) {
-    indexAction.setIndexStatus(status);
-    dataService.update(INDEX_ACTION, indexAction);
+      List<IndexAction> indexActions, Set<IndexAction> failedIndexActions) {
+    indexActions.forEach(
+        indexAction ->
+            indexAction.setIndexStatus(
+                failedIndexActions.contains(indexAction)
+                    ? IndexActionMetadata.IndexStatus.FAILED
+                    : IndexActionMetadata.IndexStatus.FINISHED));
+    dataService.update(INDEX_ACTION, indexActions.stream());
+  }
+
+  /** Returns the distinct typed entity ids of the IndexActions. */
+  private static List<Object> getEntityIds(EntityType entityType, List<IndexAction> indexActions) {
+    Attribute idAttribute = entityType.getIdAttribute();
+    return indexActions.stream()
+        .map(IndexAction::getEntityId)
+        .distinct()
+        .map(untypedEntityId -> getTypedValue(untypedEntityId, idAttribute))
+        .collect(toList());
   }
 
   /**
-   * Indexes one single entity instance.
+   * Indexes entity instances in batches. Entities that no longer exist are deleted from the index.
    *
-   * @param entityTypeId the id of the entity's repository
-   * @param untypedEntityId the identifier of the entity to update
+   * @param entityType the entity type of the entities
+   * @param entityIds the identifiers of the entities to update
    */
-  private void rebuildIndexOneEntity(String entityTypeId, String untypedEntityId) {
-    LOG.trace("Indexing [{}].[{}]... ", entityTypeId, untypedEntityId);
-
-    // convert entity id string to typed entity id
-    EntityType entityType = dataService.getEntityType(entityTypeId);
-    if (null != entityType) {
-      Object entityId = getTypedValue(untypedEntityId, entityType.getIdAttribute());
-      String entityFullName = entityType.getId();
-
-      Entity actualEntity = dataService.findOneById(entityFullName, entityId);
-
-      if (null == actualEntity) {
-        // Delete
-        LOG.debug("Index delete [{}].[{}].", entityFullName, entityId);
-        indexService.deleteById(entityType, entityId);
-        return;
-      }
+  private void rebuildIndexEntities(EntityType entityType, List<Object> entityIds) {
+    LOG.trace("Indexing [{}] entities of [{}]... ", entityIds.size(), entityType.getId());
 
-      boolean indexEntityExists = indexService.hasIndex(entityType);
-      if (!indexEntityExists) {
-        LOG.debug("Create mapping of repository [{}] because it was not exist yet", entityTypeId);
-        indexService.createIndex(entityType);
-      }
+    boolean indexEntityExists = indexService.hasIndex(entityType);
+    if (!indexEntityExists) {
+      LOG.debug(
+          "Create mapping of repository [{}] because it was not exist yet", entityType.getId());
+      indexService.createIndex(entityType);
+    }
 
-      LOG.debug("Index [{}].[{}].", entityTypeId, entityId);
-      indexService.index(actualEntity.getEntityType(), actualEntity);
-    } else {
-      throw new MolgenisDataException("Unknown EntityType for entityTypeId: " + entityTypeId);
+    for (List<Object> batchEntityIds : Lists.partition(entityIds, BATCH_SIZE)) {
+      Set<Object> deletedEntityIds = new LinkedHashSet<>(batchEntityIds);
+      Stream<Entity> entities =
+          dataService
+              .findAll(entityType.getId(), batchEntityIds.stream())
+              .filter(entity -> deletedEntityIds.remove(entity.getIdValue()));
+      long nrIndexedEntities = indexService.index(entityType, entities);
+      LOG.debug("Indexed [{}] entities of [{}].", nrIndexedEntities, entityType.getId());
+
+      if (!deletedEntityIds.isEmpty()) {
+        LOG.debug(
+            "Index delete [{}] entities of [{}].", deletedEntityIds.size(), entityType.getId());
+        indexService.deleteAll(entityType, deletedEntityIds.stream());
+      }
     }
   }
 
@@ -200,8 +265,4 @@ public class IndexJobService {
     q.setSort(new Sort(ACTION_ORDER));
     return q;
   }
-
-  private EntityType getEntityType(IndexAction indexAction) {
-    return entityTypeFactory.create(indexAction.getEntityTypeId());
-  }
 }
@@ -4,6 +4,7 @@ import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static java.util.EnumSet.allOf;
+import static java.util.EnumSet.complementOf;
 import static java.util.EnumSet.of;
 import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,6 +24,7 @@ import static org.molgenis.data.QueryRule.Operator.FUZZY_MATCH;
 import static org.molgenis.data.QueryRule.Operator.IN;
 import static org.molgenis.data.QueryRule.Operator.LESS;
 import static org.molgenis.data.QueryRule.Operator.OR;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.RepositoryCapability.AGGREGATEABLE;
 import static org.molgenis.data.RepositoryCapability.MANAGABLE;
 import static org.molgenis.data.RepositoryCapability.QUERYABLE;
@@ -169,6 +171,29 @@ class IndexedRepositoryDecoratorTest {
             "Error executing query, index for entity type 'My entity type' with id 'entity' does not exist");
   }
 
+  @Test
+  void aggregateDecoratedRepository() {
+    when(delegateRepository.getCapabilities()).thenReturn(EnumSet.of(QUERYABLE, AGGREGATEABLE));
+    Attribute xAttr = mock(Attribute.class);
+    AggregateQuery aggregateQuery = new AggregateQueryImpl().attrX(xAttr).query(query);
+    AggregateResult aggregateResult = mock(AggregateResult.class);
+    when(delegateRepository.aggregate(aggregateQuery)).thenReturn(aggregateResult);
+
+    assertEquals(aggregateResult, indexedRepositoryDecorator.aggregate(aggregateQuery));
+    verifyZeroInteractions(searchService);
+  }
+
+  @Test
+  void aggregateDecoratedRepositoryComputedAttribute() {
+    when(delegateRepository.getCapabilities()).thenReturn(EnumSet.of(QUERYABLE, AGGREGATEABLE));
+    Attribute xAttr = when(mock(Attribute.class).getExpression()).thenReturn("expr").getMock();
+    AggregateQuery aggregateQuery = new AggregateQueryImpl().attrX(xAttr).query(query);
+
+    indexedRepositoryDecorator.aggregate(aggregateQuery);
+    verify(searchService).aggregate(repositoryEntityType, aggregateQuery);
+    verify(delegateRepository, never()).aggregate(aggregateQuery);
+  }
+
   @Test
   void close() throws IOException {
     indexedRepositoryDecorator.close();
@@ -431,6 +456,12 @@ class IndexedRepositoryDecoratorTest {
 
   @Test
   void getQueryOperators() {
+    assertEquals(complementOf(of(PERMITTED)), indexedRepositoryDecorator.getQueryOperators());
+  }
+
+  @Test
+  void getQueryOperatorsPermittedSupportedByDelegate() {
+    when(delegateRepository.getQueryOperators()).thenReturn(EnumSet.of(EQUALS, PERMITTED));
     assertEquals(allOf(Operator.class), indexedRepositoryDecorator.getQueryOperators());
   }
 
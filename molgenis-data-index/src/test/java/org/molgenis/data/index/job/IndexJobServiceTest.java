@@ -1,19 +1,19 @@
 package org.molgenis.data.index.job;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Stream.empty;
 import static java.util.stream.Stream.of;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.index.meta.IndexActionGroupMetadata.INDEX_ACTION_GROUP;
@@ -36,7 +36,9 @@ import org.molgenis.data.Entity;
 import org.molgenis.data.EntityTestHarness;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
+import org.molgenis.data.Repository;
 import org.molgenis.data.TestHarnessConfig;
+import org.molgenis.data.event.IndexedEvent;
 import org.molgenis.data.index.IndexService;
 import org.molgenis.data.index.config.IndexTestConfig;
 import org.molgenis.data.index.meta.IndexAction;
@@ -49,6 +51,7 @@ import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.EntityTypeFactory;
 import org.molgenis.jobs.Progress;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -59,6 +62,8 @@ import org.springframework.test.context.ContextConfiguration;
 @ContextConfiguration(classes = {IndexJobServiceTest.Config.class})
 public class IndexJobServiceTest extends AbstractMolgenisSpringTest {
   @Captor private ArgumentCaptor<Stream<Entity>> streamCaptor;
+  @Captor private ArgumentCaptor<Stream<Object>> idStreamCaptor;
+  @Captor private ArgumentCaptor<IndexedEvent> indexedEventCaptor;
 
   @Autowired private Progress progress;
   @Autowired private Authentication authentication;
@@ -72,6 +77,7 @@ public class IndexJobServiceTest extends AbstractMolgenisSpringTest {
 
   @Autowired private EntityTypeFactory entityTypeFactory;
   private final String transactionId = "aabbcc";
+  private ApplicationEventPublisher applicationEventPublisher;
   private IndexJobService indexJobService;
   private IndexActionGroup indexActionGroup;
   private EntityType testEntityType;
@@ -80,7 +86,10 @@ public class IndexJobServiceTest extends AbstractMolgenisSpringTest {
   @BeforeEach
   public void beforeMethod() {
     config.resetMocks();
-    indexJobService = new IndexJobService(dataService, indexService, entityTypeFactory);
+    applicationEventPublisher = mock(ApplicationEventPublisher.class);
+    indexJobService =
+        new IndexJobService(
+            dataService, indexService, entityTypeFactory, applicationEventPublisher);
     indexActionGroup = indexActionGroupFactory.create(transactionId).setCount(0);
     when(dataService.findOneById(INDEX_ACTION_GROUP, transactionId, IndexActionGroup.class))
         .thenReturn(indexActionGroup);
@@ -114,6 +123,7 @@ public class IndexJobServiceTest extends AbstractMolgenisSpringTest {
 
     verify(progress).status("No index actions found for transaction id: [aabbcc]");
     verify(indexService, never()).refreshIndex();
+    verify(applicationEventPublisher, never()).publishEvent(any(IndexedEvent.class));
   }
 
   private void mockGetAllIndexActions(Stream<IndexAction> entities) {
@@ -130,8 +140,9 @@ public class IndexJobServiceTest extends AbstractMolgenisSpringTest {
   }
 
   @Test
+  @SuppressWarnings("unchecked")
   public void rebuildIndexDeleteSingleEntityTest() {
-    when(dataService.findOneById("TypeTestRefDynamic", "entityId")).thenReturn(null);
+    when(dataService.findAll(eq("TypeTestRefDynamic"), any(Stream.class))).thenReturn(empty());
 
     IndexAction indexAction =
         indexActionFactory
@@ -145,52 +156,117 @@ public class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     indexActionGroup.setCount(1);
 
     when(dataService.hasRepository("TypeTestRefDynamic")).thenReturn(true);
+    when(indexService.hasIndex(testEntityType)).thenReturn(true);
 
     indexJobService.executeJob(progress, transactionId);
     assertEquals(FINISHED, indexAction.getIndexStatus());
 
-    verify(indexService).deleteById(testEntityType, "entityId");
+    verify(indexService).deleteAll(eq(testEntityType), idStreamCaptor.capture());
+    assertEquals(singletonList("entityId"), idStreamCaptor.getValue().collect(toList()));
 
     // verify progress messages
     verify(progress).status("Start indexing for transaction id: [aabbcc]");
     verify(progress).setProgressMax(1);
-    verify(progress).progress(0, "Indexing TypeTestRefDynamic.entityId");
+    verify(progress).progress(0, "Indexing 1 TypeTestRefDynamic entities");
     verify(progress).progress(1, "Executed all index actions, cleaning up the actions...");
     verify(progress).status("Refresh index start");
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
-    verify(indexService).refreshIndex();
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(indexService).refreshIndex(testEntityType);
+    verify(indexService, never()).refreshIndex();
+    verify(dataService, never()).update(eq(INDEX_ACTION), any(Stream.class));
+    verify(applicationEventPublisher).publishEvent(indexedEventCaptor.capture());
+    assertEquals(singleton("TypeTestRefDynamic"), indexedEventCaptor.getValue().getEntityTypeIds());
   }
 
   @Test
+  @SuppressWarnings("unchecked")
   public void rebuildIndexCreateSingleEntityTest() {
+    when(dataService.findAll(eq("TypeTestRefDynamic"), any(Stream.class)))
+        .thenReturn(of(toIndexEntity));
+    when(indexService.index(eq(testEntityType), any(Stream.class)))
+        .thenAnswer(invocation -> invocation.<Stream<Entity>>getArgument(1).count());
+    String entityId = toIndexEntity.getIdValue().toString();
+
     IndexAction indexAction =
         indexActionFactory
             .create()
             .setIndexActionGroup(indexActionGroup)
             .setEntityTypeId("entityType")
-            .setEntityId("entityId")
+            .setEntityId(entityId)
             .setActionOrder(0)
             .setIndexStatus(IndexActionMetadata.IndexStatus.PENDING);
-    mockGetAllIndexActions(of(indexAction));
+    IndexAction duplicateIndexAction =
+        indexActionFactory
+            .create()
+            .setIndexActionGroup(indexActionGroup)
+            .setEntityTypeId("entityType")
+            .setEntityId(entityId)
+            .setActionOrder(1)
+            .setIndexStatus(IndexActionMetadata.IndexStatus.PENDING);
+    mockGetAllIndexActions(of(indexAction, duplicateIndexAction));
     when(dataService.hasRepository("TypeTestRefDynamic")).thenReturn(true);
-    indexActionGroup.setCount(1);
+    when(indexService.hasIndex(testEntityType)).thenReturn(false, true);
+    indexActionGroup.setCount(2);
 
     indexJobService.executeJob(progress, transactionId);
-    assertEquals(FINISHED, indexAction.getIndexStatus());
 
-    verify(this.indexService).index(testEntityType, toIndexEntity);
+    verify(indexService).createIndex(testEntityType);
+    verify(dataService).findAll(eq("TypeTestRefDynamic"), idStreamCaptor.capture());
+    assertEquals(singletonList(entityId), idStreamCaptor.getValue().collect(toList()));
+    verify(indexService).index(eq(testEntityType), any(Stream.class));
+    verify(indexService, never()).deleteAll(any(EntityType.class), any(Stream.class));
 
     verify(progress).status("Start indexing for transaction id: [aabbcc]");
-    verify(progress).setProgressMax(1);
-    verify(progress).progress(0, "Indexing TypeTestRefDynamic.entityId");
-    verify(progress).progress(1, "Executed all index actions, cleaning up the actions...");
+    verify(progress).setProgressMax(2);
+    verify(progress).progress(0, "Indexing 1 TypeTestRefDynamic entities");
+    verify(progress).progress(2, "Executed all index actions, cleaning up the actions...");
     verify(progress).status("Refresh index start");
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
+    verify(indexService).refreshIndex(testEntityType);
 
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService, never()).update(eq(INDEX_ACTION), any(Stream.class));
+    verify(dataService).delete(eq(INDEX_ACTION), streamCaptor.capture());
+    assertEquals(
+        asList(indexAction, duplicateIndexAction), streamCaptor.getValue().collect(toList()));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void rebuildIndexEntityTypeSupersedesEntitiesTest() {
+    Repository<Entity> repository = mock(Repository.class);
+    when(dataService.getRepository("TypeTestRefDynamic")).thenReturn(repository);
+    when(indexService.hasIndex(testEntityType)).thenReturn(true);
+
+    IndexAction indexAction =
+        indexActionFactory
+            .create()
+            .setIndexActionGroup(indexActionGroup)
+            .setEntityTypeId("entityType")
+            .setEntityId("entityId")
+            .setActionOrder(0)
+            .setIndexStatus(IndexActionMetadata.IndexStatus.PENDING);
+    IndexAction entityTypeIndexAction =
+        indexActionFactory
+            .create()
+            .setIndexActionGroup(indexActionGroup)
+            .setEntityTypeId("entityType")
+            .setEntityId(null)
+            .setActionOrder(1)
+            .setIndexStatus(IndexActionMetadata.IndexStatus.PENDING);
+    mockGetAllIndexActions(of(indexAction, entityTypeIndexAction));
+    indexActionGroup.setCount(2);
+
+    indexJobService.executeJob(progress, transactionId);
+
+    verify(indexService).rebuildIndex(repository);
+    verify(dataService, never()).findAll(any(String.class), any(Stream.class));
+    verify(indexService, never()).index(any(EntityType.class), any(Stream.class));
+    verify(progress).progress(0, "Indexing TypeTestRefDynamic");
+    verify(progress).progress(2, "Executed all index actions, cleaning up the actions...");
+    verify(indexService).refreshIndex(testEntityType);
+    verify(dataService).deleteById(INDEX_ACTION_GROUP, transactionId);
   }
 
   @Test
@@ -221,7 +297,7 @@ public class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
 
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService, never()).update(eq(INDEX_ACTION), any(Stream.class));
 
     // make sure both the actions and the action job got deleted
     verify(dataService).delete(eq(INDEX_ACTION), streamCaptor.capture());
@@ -255,7 +331,7 @@ public class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
 
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService, never()).update(eq(INDEX_ACTION), any(Stream.class));
 
     // make sure both the actions and the action job got deleted
     verify(dataService).delete(eq(INDEX_ACTION), streamCaptor.capture());
@@ -304,11 +380,12 @@ public class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
 
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService, never()).update(eq(INDEX_ACTION), any(Stream.class));
   }
 
   @Test
-  public void indexSingleEntityindexServiceThrowsExceptionOnSecondEntityId() {
+  @SuppressWarnings("unchecked")
+  public void indexEntitiesIndexServiceThrowsException() {
     IndexAction indexAction1 =
         indexActionFactory
             .create()
@@ -331,37 +408,66 @@ public class IndexJobServiceTest extends AbstractMolgenisSpringTest {
         indexActionFactory
             .create()
             .setIndexActionGroup(indexActionGroup)
-            .setEntityTypeId("entityType")
-            .setEntityId("entityId3")
+            .setEntityTypeId("entityTypeId")
+            .setEntityId(null)
             .setActionOrder(2)
             .setIndexStatus(IndexActionMetadata.IndexStatus.PENDING);
 
     mockGetAllIndexActions(of(indexAction1, indexAction2, indexAction3));
     indexActionGroup.setCount(3);
 
+    when(dataService.findAll(eq("TypeTestRefDynamic"), any(Stream.class))).thenReturn(empty());
     MolgenisDataException mde = new MolgenisDataException("Random unrecoverable exception");
-    doThrow(mde).when(indexService).deleteById(testEntityType, "entityId2");
-
-    when(dataService.hasRepository("TypeTestRefDynamic")).thenReturn(true);
+    doThrow(mde).when(indexService).deleteAll(eq(testEntityType), any(Stream.class));
+    when(indexService.hasIndex(testEntityType)).thenReturn(true);
 
-    try {
-      indexJobService.executeJob(progress, transactionId);
-    } catch (Exception expected) {
-      assertSame(expected, mde);
-    }
+    indexJobService.executeJob(progress, transactionId);
 
-    verify(indexService).deleteById(testEntityType, "entityId1");
-    verify(indexService).deleteById(testEntityType, "entityId2");
-    verify(indexService).deleteById(testEntityType, "entityId3");
+    verify(indexService).deleteAll(eq(testEntityType), idStreamCaptor.capture());
+    assertEquals(asList("entityId1", "entityId2"), idStreamCaptor.getValue().collect(toList()));
 
-    verify(indexService).refreshIndex();
+    verify(indexService).refreshIndex(testEntityType);
 
     // Make sure the action status got updated and that the actionJob didn't get deleted
-    assertEquals(FINISHED, indexAction1.getIndexStatus());
+    assertEquals(FAILED, indexAction1.getIndexStatus());
     assertEquals(FAILED, indexAction2.getIndexStatus());
-    verify(dataService, atLeast(1)).update(INDEX_ACTION, indexAction1);
-    verify(dataService, atLeast(1)).update(INDEX_ACTION, indexAction2);
-    verify(dataService, never()).delete(INDEX_ACTION_GROUP, indexActionGroup);
+    assertEquals(FINISHED, indexAction3.getIndexStatus());
+    verify(dataService).update(eq(INDEX_ACTION), streamCaptor.capture());
+    assertEquals(
+        asList(indexAction1, indexAction2, indexAction3),
+        streamCaptor.getValue().collect(toList()));
+    verify(dataService, never()).delete(eq(INDEX_ACTION), any(Stream.class));
+    verify(dataService, never()).deleteById(INDEX_ACTION_GROUP, transactionId);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void rebuildIndexFailedWithoutIndexTest() {
+    Repository<Entity> repository = mock(Repository.class);
+    when(dataService.getRepository("TypeTestRefDynamic")).thenReturn(repository);
+    doThrow(new MolgenisDataException("rebuild failed"))
+        .when(indexService)
+        .rebuildIndex(repository);
+    when(indexService.hasIndex(testEntityType)).thenReturn(false);
+
+    IndexAction indexAction =
+        indexActionFactory
+            .create()
+            .setIndexActionGroup(indexActionGroup)
+            .setEntityTypeId("entityType")
+            .setEntityId(null)
+            .setActionOrder(0)
+            .setIndexStatus(IndexActionMetadata.IndexStatus.PENDING);
+    mockGetAllIndexActions(of(indexAction));
+    indexActionGroup.setCount(1);
+
+    indexJobService.executeJob(progress, transactionId);
+
+    assertEquals(FAILED, indexAction.getIndexStatus());
+    verify(indexService, never()).refreshIndex(any(EntityType.class));
+    verify(progress).status("Refresh index done");
+    verify(applicationEventPublisher).publishEvent(indexedEventCaptor.capture());
+    assertEquals(singleton("TypeTestRefDynamic"), indexedEventCaptor.getValue().getEntityTypeIds());
   }
 
   @Configuration
@@ -0,0 +1,157 @@
+package org.molgenis.data.platform.decorators;
+
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.decorator.meta.DecoratorConfigurationMetadata.DECORATOR_CONFIGURATION;
+import static org.molgenis.data.decorator.meta.DecoratorParametersMetadata.DECORATOR_PARAMETERS;
+import static org.molgenis.data.event.BootstrappingEvent.BootstrappingStatus.FINISHED;
+import static org.molgenis.data.meta.model.AttributeMetadata.ATTRIBUTE_META_DATA;
+import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
+import static org.molgenis.data.meta.model.PackageMetadata.PACKAGE;
+import static org.molgenis.data.meta.model.TagMetadata.TAG;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Repository;
+import org.molgenis.data.cache.invalidation.CacheInvalidation;
+import org.molgenis.data.cache.invalidation.CacheInvalidationListener;
+import org.molgenis.data.event.BootstrappingEvent;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.security.EntityIdentityUtils;
+import org.molgenis.data.transaction.TransactionInformation;
+import org.molgenis.data.transaction.TransactionListener;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.security.acl.MutableAclClassService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of decorated repositories per entity type, so that the repository decorator chain is
+ * assembled once instead of on every data access. Decorated repositories are stateless and shared
+ * between threads, the read path does not lock.
+ *
+ * <p>Repositories are cached after bootstrapping, when all decorators have been registered. All
+ * cached repositories are discarded when a change to entity type or decorator metadata is
+ * committed by this or another application node. Transactions that changed this metadata bypass
+ * the cache. A cached repository is decorated again when row-level security of its entity type is
+ * switched on or off.
+ */
+@Component
+public class DecoratedRepositoryCache implements TransactionListener, CacheInvalidationListener {
+  private static final Logger LOG = LoggerFactory.getLogger(DecoratedRepositoryCache.class);
+
+  /** Entity types of the metadata that determines how repositories are decorated */
+  private static final Set<String> METADATA_ENTITY_TYPE_IDS =
+      ImmutableSet.of(
+          ENTITY_TYPE_META_DATA,
+          ATTRIBUTE_META_DATA,
+          PACKAGE,
+          TAG,
+          DECORATOR_CONFIGURATION,
+          DECORATOR_PARAMETERS);
+
+  private final TransactionInformation transactionInformation;
+  private final MutableAclClassService mutableAclClassService;
+
+  /** maps entity type id to decorated repository */
+  private final ConcurrentMap<String, DecoratedRepository> decoratedRepositories =
+      new ConcurrentHashMap<>();
+  /** incremented when all decorated repositories are discarded */
+  private final AtomicLong version = new AtomicLong();
+
+  private volatile boolean bootstrappingDone = false;
+
+  DecoratedRepositoryCache(
+      TransactionManager transactionManager,
+      TransactionInformation transactionInformation,
+      MutableAclClassService mutableAclClassService) {
+    this.transactionInformation = requireNonNull(transactionInformation);
+    this.mutableAclClassService = requireNonNull(mutableAclClassService);
+    requireNonNull(transactionManager).addTransactionListener(this);
+  }
+
+  /**
+   * Returns the cached decorated repository for the entity type of the given repository or
+   * decorates the repository if no current decorated repository is cached.
+   */
+  Repository<Entity> get(
+      Repository<Entity> repository, UnaryOperator<Repository<Entity>> decorator) {
+    if (!bootstrappingDone || isMetadataDirty()) {
+      return decorator.apply(repository);
+    }
+
+    EntityType entityType = repository.getEntityType();
+    boolean rowLevelSecured = isRowLevelSecured(entityType);
+    DecoratedRepository decoratedRepository = decoratedRepositories.get(entityType.getId());
+    if (decoratedRepository == null
+        || decoratedRepository.version != version.get()
+        || decoratedRepository.rowLevelSecured != rowLevelSecured) {
+      // read the version before decorating, a repository decorated while metadata changes were
+      // committed is not current
+      long currentVersion = version.get();
+      decoratedRepository =
+          new DecoratedRepository(decorator.apply(repository), currentVersion, rowLevelSecured);
+      decoratedRepositories.put(entityType.getId(), decoratedRepository);
+    }
+    return decoratedRepository.repository;
+  }
+
+  @Override
+  public void afterCommitTransaction(String transactionId) {
+    if (isMetadata(transactionInformation.getDirtyRepositories())) {
+      invalidateAll();
+    }
+  }
+
+  @Override
+  public void invalidate(CacheInvalidation cacheInvalidation) {
+    if (isMetadata(cacheInvalidation.getEntityTypeIds())) {
+      invalidateAll();
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    LOG.trace("Discarding decorated repositories");
+    version.incrementAndGet();
+    decoratedRepositories.clear();
+  }
+
+  @EventListener
+  public void onApplicationEvent(BootstrappingEvent bootstrappingEvent) {
+    invalidateAll();
+    this.bootstrappingDone = bootstrappingEvent.getStatus() == FINISHED;
+  }
+
+  private boolean isMetadataDirty() {
+    return isMetadata(transactionInformation.getDirtyRepositories());
+  }
+
+  private static boolean isMetadata(Collection<String> entityTypeIds) {
+    return !Collections.disjoint(entityTypeIds, METADATA_ENTITY_TYPE_IDS);
+  }
+
+  private boolean isRowLevelSecured(EntityType entityType) {
+    return mutableAclClassService.hasAclClass(EntityIdentityUtils.toType(entityType));
+  }
+
+  private static class DecoratedRepository {
+    private final Repository<Entity> repository;
+    private final long version;
+    private final boolean rowLevelSecured;
+
+    DecoratedRepository(Repository<Entity> repository, long version, boolean rowLevelSecured) {
+      this.repository = requireNonNull(repository);
+      this.version = version;
+      this.rowLevelSecured = rowLevelSecured;
+    }
+  }
+}
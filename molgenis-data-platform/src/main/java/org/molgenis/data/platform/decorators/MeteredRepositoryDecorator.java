@@ -0,0 +1,394 @@
+package org.molgenis.data.platform.decorators;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Cleaner.Cleanable;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.molgenis.data.AbstractRepositoryDecorator;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.Query;
+import org.molgenis.data.Repository;
+import org.molgenis.data.aggregation.AggregateQuery;
+import org.molgenis.data.aggregation.AggregateResult;
+
+/**
+ * Records the duration and number of rows of repository operations of one layer of the repository
+ * decorator chain as Micrometer metrics tagged with layer, entity type and operation.
+ *
+ * <p>Durations include the time spent in the decorated layers. Streams returned by the decorated
+ * repository are timed while they are consumed, excluding the time spent by the consumer, and are
+ * recorded when they are exhausted or closed. Iterators cannot be closed, an iterator that is not
+ * exhausted is recorded when it is garbage collected. For streams passed to the decorated
+ * repository the time spent producing the stream is excluded.
+ */
+class MeteredRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
+  static final String OPERATION_TIMER = "repository.operation";
+  static final String OPERATION_ROWS_COUNTER = "repository.operation.rows";
+  private static final Cleaner ITERATOR_CLEANER = Cleaner.create();
+
+  private enum Operation {
+    COUNT("count"),
+    FIND_ALL("findAll"),
+    FIND_ONE("findOne"),
+    FIND_ONE_BY_ID("findOneById"),
+    ITERATE("iterate"),
+    AGGREGATE("aggregate"),
+    ADD("add"),
+    UPDATE("update"),
+    DELETE("delete"),
+    DELETE_ALL("deleteAll");
+
+    private final String tag;
+
+    Operation(String tag) {
+      this.tag = tag;
+    }
+  }
+
+  private final Map<Operation, Timer> timers = new EnumMap<>(Operation.class);
+  private final Map<Operation, Counter> rowsCounters = new EnumMap<>(Operation.class);
+
+  MeteredRepositoryDecorator(
+      Repository<Entity> delegateRepository, String layer, MeterRegistry meterRegistry) {
+    super(delegateRepository);
+    requireNonNull(layer);
+    requireNonNull(meterRegistry);
+    String entityTypeId = delegateRepository.getEntityType().getId();
+    for (Operation operation : Operation.values()) {
+      Tags tags = Tags.of("layer", layer, "entityType", entityTypeId, "operation", operation.tag);
+      timers.put(
+          operation,
+          Timer.builder(OPERATION_TIMER)
+              .description("Duration of repository operations per repository decorator layer")
+              .tags(tags)
+              .register(meterRegistry));
+      rowsCounters.put(
+          operation,
+          Counter.builder(OPERATION_ROWS_COUNTER)
+              .description("Number of rows of repository operations per repository decorator layer")
+              .tags(tags)
+              .register(meterRegistry));
+    }
+  }
+
+  @Override
+  public Iterator<Entity> iterator() {
+    return meterIterator(Operation.ITERATE, () -> delegate().iterator());
+  }
+
+  @Override
+  public void forEachBatched(Fetch fetch, Consumer<List<Entity>> consumer, int batchSize) {
+    AtomicLong nrRows = new AtomicLong();
+    AtomicLong consumerNanos = new AtomicLong();
+    long start = System.nanoTime();
+    try {
+      delegate()
+          .forEachBatched(
+              fetch,
+              entities -> {
+                nrRows.addAndGet(entities.size());
+                long consumerStart = System.nanoTime();
+                try {
+                  consumer.accept(entities);
+                } finally {
+                  consumerNanos.addAndGet(System.nanoTime() - consumerStart);
+                }
+              },
+              batchSize);
+    } finally {
+      record(Operation.ITERATE, System.nanoTime() - start - consumerNanos.get(), nrRows.get());
+    }
+  }
+
+  @Override
+  public long count() {
+    return meter(Operation.COUNT, () -> delegate().count());
+  }
+
+  @Override
+  public long count(Query<Entity> q) {
+    return meter(Operation.COUNT, () -> delegate().count(q));
+  }
+
+  @Override
+  public Stream<Entity> findAll(Query<Entity> q) {
+    return meterOutput(Operation.FIND_ALL, () -> delegate().findAll(q));
+  }
+
+  @Override
+  public Entity findOne(Query<Entity> q) {
+    return meterEntity(Operation.FIND_ONE, () -> delegate().findOne(q));
+  }
+
+  @Override
+  public AggregateResult aggregate(AggregateQuery aggregateQuery) {
+    return meter(Operation.AGGREGATE, () -> delegate().aggregate(aggregateQuery));
+  }
+
+  @Override
+  public Entity findOneById(Object id) {
+    return meterEntity(Operation.FIND_ONE_BY_ID, () -> delegate().findOneById(id));
+  }
+
+  @Override
+  public Entity findOneById(Object id, Fetch fetch) {
+    return meterEntity(Operation.FIND_ONE_BY_ID, () -> delegate().findOneById(id, fetch));
+  }
+
+  @Override
+  public Stream<Entity> findAll(Stream<Object> ids) {
+    return meterOutput(Operation.FIND_ALL, () -> delegate().findAll(ids));
+  }
+
+  @Override
+  public Stream<Entity> findAll(Stream<Object> ids, Fetch fetch) {
+    return meterOutput(Operation.FIND_ALL, () -> delegate().findAll(ids, fetch));
+  }
+
+  @Override
+  public void update(Entity entity) {
+    meterEntityAction(Operation.UPDATE, () -> delegate().update(entity));
+  }
+
+  @Override
+  public void delete(Entity entity) {
+    meterEntityAction(Operation.DELETE, () -> delegate().delete(entity));
+  }
+
+  @Override
+  public void deleteById(Object id) {
+    meterEntityAction(Operation.DELETE, () -> delegate().deleteById(id));
+  }
+
+  @Override
+  public void deleteAll() {
+    meterAction(Operation.DELETE_ALL, () -> delegate().deleteAll());
+  }
+
+  @Override
+  public void add(Entity entity) {
+    meterEntityAction(Operation.ADD, () -> delegate().add(entity));
+  }
+
+  @Override
+  public Integer add(Stream<Entity> entities) {
+    return meterInput(Operation.ADD, entities, delegate()::add);
+  }
+
+  @Override
+  public void update(Stream<Entity> entities) {
+    meterInput(
+        Operation.UPDATE,
+        entities,
+        meteredEntities -> {
+          delegate().update(meteredEntities);
+          return null;
+        });
+  }
+
+  @Override
+  public void delete(Stream<Entity> entities) {
+    meterInput(
+        Operation.DELETE,
+        entities,
+        meteredEntities -> {
+          delegate().delete(meteredEntities);
+          return null;
+        });
+  }
+
+  @Override
+  public void deleteAll(Stream<Object> ids) {
+    meterInput(
+        Operation.DELETE,
+        ids,
+        meteredIds -> {
+          delegate().deleteAll(meteredIds);
+          return null;
+        });
+  }
+
+  private <T> T meter(Operation operation, Supplier<T> supplier) {
+    long start = System.nanoTime();
+    try {
+      return supplier.get();
+    } finally {
+      record(operation, System.nanoTime() - start, 0);
+    }
+  }
+
+  private void meterAction(Operation operation, Runnable runnable) {
+    long start = System.nanoTime();
+    try {
+      runnable.run();
+    } finally {
+      record(operation, System.nanoTime() - start, 0);
+    }
+  }
+
+  private Entity meterEntity(Operation operation, Supplier<Entity> supplier) {
+    long start = System.nanoTime();
+    Entity entity = null;
+    try {
+      entity = supplier.get();
+      return entity;
+    } finally {
+      record(operation, System.nanoTime() - start, entity != null ? 1 : 0);
+    }
+  }
+
+  private void meterEntityAction(Operation operation, Runnable runnable) {
+    long start = System.nanoTime();
+    try {
+      runnable.run();
+    } finally {
+      record(operation, System.nanoTime() - start, 1);
+    }
+  }
+
+  private Stream<Entity> meterOutput(Operation operation, Supplier<Stream<Entity>> supplier) {
+    long start = System.nanoTime();
+    Stream<Entity> stream = supplier.get();
+    MeteredSpliterator<Entity> spliterator =
+        new MeteredSpliterator<>(stream.spliterator(), System.nanoTime() - start);
+    spliterator.setEndAction(
+        () -> record(operation, spliterator.getNanos(), spliterator.getNrRows()));
+    return StreamSupport.stream(spliterator, false)
+        .onClose(
+            () -> {
+              spliterator.end();
+              stream.close();
+            });
+  }
+
+  private Iterator<Entity> meterIterator(Operation operation, Supplier<Iterator<Entity>> supplier) {
+    long start = System.nanoTime();
+    Iterator<Entity> iterator = supplier.get();
+    MeteredSpliterator<Entity> spliterator =
+        new MeteredSpliterator<>(
+            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED),
+            System.nanoTime() - start);
+    Iterator<Entity> meteredIterator = Spliterators.iterator(spliterator);
+    // the cleaning action must not refer to the metered iterator, otherwise it is never collected
+    Cleanable cleanable =
+        ITERATOR_CLEANER.register(
+            meteredIterator,
+            () -> record(operation, spliterator.getNanos(), spliterator.getNrRows()));
+    spliterator.setEndAction(cleanable::clean);
+    return meteredIterator;
+  }
+
+  private <T, R> R meterInput(
+      Operation operation, Stream<T> input, Function<Stream<T>, R> function) {
+    MeteredSpliterator<T> spliterator = new MeteredSpliterator<>(input.spliterator(), 0L);
+    long start = System.nanoTime();
+    try {
+      return function.apply(StreamSupport.stream(spliterator, false).onClose(input::close));
+    } finally {
+      long nanos = System.nanoTime() - start - spliterator.getNanos();
+      record(operation, nanos, spliterator.getNrRows());
+    }
+  }
+
+  private void record(Operation operation, long nanos, long nrRows) {
+    timers.get(operation).record(nanos, NANOSECONDS);
+    if (nrRows > 0) {
+      rowsCounters.get(operation).increment(nrRows);
+    }
+  }
+
+  /**
+   * Spliterator that measures the time spent advancing the delegate spliterator and counts the
+   * advanced rows. The time spent by the action that consumes the rows is not measured.
+   */
+  private static class MeteredSpliterator<T> implements Spliterator<T> {
+    private final Spliterator<T> delegate;
+    private final Consumer<T> currentSetter = this::setCurrent;
+    private long nanos;
+    private long nrRows;
+    private T current;
+    private Runnable endAction;
+    private boolean ended;
+
+    MeteredSpliterator(Spliterator<T> delegate, long nanos) {
+      this.delegate = requireNonNull(delegate);
+      this.nanos = nanos;
+    }
+
+    void setEndAction(Runnable endAction) {
+      this.endAction = endAction;
+    }
+
+    long getNanos() {
+      return nanos;
+    }
+
+    long getNrRows() {
+      return nrRows;
+    }
+
+    private void setCurrent(T current) {
+      this.current = current;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      long start = System.nanoTime();
+      boolean advanced = delegate.tryAdvance(currentSetter);
+      nanos += System.nanoTime() - start;
+      if (advanced) {
+        nrRows++;
+        T row = current;
+        current = null;
+        action.accept(row);
+      } else {
+        end();
+      }
+      return advanced;
+    }
+
+    /** Runs the end action once, when the delegate is exhausted or when the stream is closed */
+    void end() {
+      if (!ended) {
+        ended = true;
+        if (endAction != null) {
+          endAction.run();
+        }
+      }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+      return null;
+    }
+
+    @Override
+    public long estimateSize() {
+      return delegate.estimateSize();
+    }
+
+    /** Not sized, so that operations such as count traverse and meter all rows */
+    @Override
+    public int characteristics() {
+      return delegate.characteristics() & ~(SIZED | SUBSIZED);
+    }
+  }
+}
@@ -2,6 +2,7 @@ package org.molgenis.data.platform.decorators;
 
 import static java.util.Objects.requireNonNull;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.molgenis.data.CascadeDeleteRepositoryDecorator;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
@@ -10,6 +11,8 @@ import org.molgenis.data.EntityReferenceResolverDecorator;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryDecoratorFactory;
 import org.molgenis.data.SystemRepositoryDecoratorRegistry;
+import org.molgenis.data.cache.aggregate.AggregateCache;
+import org.molgenis.data.cache.aggregate.AggregateCacheRepositoryDecorator;
 import org.molgenis.data.cache.l1.L1Cache;
 import org.molgenis.data.cache.l1.L1CacheJanitor;
 import org.molgenis.data.cache.l1.L1CacheRepositoryDecorator;
@@ -37,6 +40,7 @@ import org.molgenis.data.validation.QueryValidator;
 import org.molgenis.data.validation.RepositoryValidationDecorator;
 import org.molgenis.security.core.UserPermissionEvaluator;
 import org.molgenis.settings.AppSettings;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.PlatformTransactionManager;
 
@@ -64,6 +68,10 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
   private final RowLevelSecurityRepositoryDecoratorFactory
       rowLevelSecurityRepositoryDecoratorFactory;
   private final L1CacheJanitor l1CacheJanitor;
+  private final MeterRegistry meterRegistry;
+  private final boolean metricsEnabled;
+  private final DecoratedRepositoryCache decoratedRepositoryCache;
+  private final AggregateCache aggregateCache;
 
   public MolgenisRepositoryDecoratorFactory(
       EntityManager entityManager,
@@ -86,7 +94,11 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
       DefaultValueReferenceValidator defaultValueReferenceValidator,
       UserPermissionEvaluator permissionService,
       RowLevelSecurityRepositoryDecoratorFactory rowLevelSecurityRepositoryDecoratorFactory,
-      L1CacheJanitor l1CacheJanitor) {
+      L1CacheJanitor l1CacheJanitor,
+      MeterRegistry meterRegistry,
+      @Value("${repository.metrics.enabled:false}") boolean metricsEnabled,
+      DecoratedRepositoryCache decoratedRepositoryCache,
+      AggregateCache aggregateCache) {
 
     this.entityManager = requireNonNull(entityManager);
     this.entityAttributesValidator = requireNonNull(entityAttributesValidator);
@@ -110,76 +122,117 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
     this.rowLevelSecurityRepositoryDecoratorFactory =
         requireNonNull(rowLevelSecurityRepositoryDecoratorFactory);
     this.l1CacheJanitor = requireNonNull(l1CacheJanitor);
+    this.meterRegistry = requireNonNull(meterRegistry);
+    this.metricsEnabled = metricsEnabled;
+    this.decoratedRepositoryCache = requireNonNull(decoratedRepositoryCache);
+    this.aggregateCache = requireNonNull(aggregateCache);
   }
 
   @Override
   public Repository<Entity> createDecoratedRepository(Repository<Entity> repository) {
-    Repository<Entity> decoratedRepository = repository;
+    return decoratedRepositoryCache.get(repository, this::decorate);
+  }
+
+  private Repository<Entity> decorate(Repository<Entity> repository) {
+    Repository<Entity> decoratedRepository = meter(repository, "backend");
 
-    // 15. Query the L2 cache before querying the database
+    // 16. Query the L2 cache before querying the database
     decoratedRepository =
         new L2CacheRepositoryDecorator(decoratedRepository, l2Cache, transactionInformation);
+    decoratedRepository = meter(decoratedRepository, "l2Cache");
 
-    // 14. Query the L1 cache before querying the database
+    // 15. Query the L1 cache before querying the database
     decoratedRepository =
         new L1CacheRepositoryDecorator(decoratedRepository, l1Cache, l1CacheJanitor);
+    decoratedRepository = meter(decoratedRepository, "l1Cache");
 
-    // 13. Route specific queries to the index
+    // 14. Route specific queries to the index
     decoratedRepository = indexedRepositoryDecoratorFactory.create(decoratedRepository);
+    decoratedRepository = meter(decoratedRepository, "indexed");
 
-    // 12. Query the L3 cache before querying the index
+    // 13. Query the L3 cache before querying the index
     decoratedRepository =
         new L3CacheRepositoryDecorator(decoratedRepository, l3Cache, transactionInformation);
+    decoratedRepository = meter(decoratedRepository, "l3Cache");
 
-    // 11. Register the cud action needed to index indexed repositories
+    // 12. Register the cud action needed to index indexed repositories
     decoratedRepository =
         new IndexActionRepositoryDecorator(decoratedRepository, indexActionRegisterService);
+    decoratedRepository = meter(decoratedRepository, "indexAction");
 
-    // 10. Custom decorators for system entity types
+    // 11. Custom decorators for system entity types
     decoratedRepository = systemRepositoryDecoratorRegistry.decorate(decoratedRepository);
+    decoratedRepository = meter(decoratedRepository, "system");
 
-    // 9. Perform cascading deletes
+    // 10. Perform cascading deletes
     decoratedRepository = new CascadeDeleteRepositoryDecorator(decoratedRepository, dataService);
+    decoratedRepository = meter(decoratedRepository, "cascadeDelete");
 
-    // 8. Row level security decorator
+    // 9. Row level security decorator
     decoratedRepository =
         rowLevelSecurityRepositoryDecoratorFactory.createDecoratedRepository(decoratedRepository);
+    decoratedRepository = meter(decoratedRepository, "rowLevelSecurity");
 
-    // 7. Entity reference resolver decorator
+    // 8. Entity reference resolver decorator
     decoratedRepository = new EntityReferenceResolverDecorator(decoratedRepository, entityManager);
+    decoratedRepository = meter(decoratedRepository, "referenceResolver");
 
-    // 6. Entity listener
+    // 7. Entity listener
     decoratedRepository =
         new EntityListenerRepositoryDecorator(decoratedRepository, entityListenersService);
+    decoratedRepository = meter(decoratedRepository, "entityListener");
 
-    // 5. validation decorator
+    // 6. validation decorator
     decoratedRepository =
         new RepositoryValidationDecorator(
             dataService,
             decoratedRepository,
             entityAttributesValidator,
             defaultValueReferenceValidator);
+    decoratedRepository = meter(decoratedRepository, "validation");
 
-    // 4. aggregate anonymization decorator
+    // 5. aggregate anonymization decorator
     decoratedRepository =
         new AggregateAnonymizerRepositoryDecorator<>(
             decoratedRepository, aggregateAnonymizer, appSettings);
+    decoratedRepository = meter(decoratedRepository, "aggregateAnonymizer");
+
+    // 4. Query the aggregate cache before aggregating, aggregates of row level secured entity types
+    // are restricted to superusers and are not cached. Labels of referenced entities are resolved
+    // for the current user.
+    if (!rowLevelSecurityRepositoryDecoratorFactory.isRowLevelSecured(repository)) {
+      decoratedRepository =
+          new AggregateCacheRepositoryDecorator(
+              decoratedRepository, aggregateCache, appSettings, dataService);
+      decoratedRepository = meter(decoratedRepository, "aggregateCache");
+    }
 
     // 3. security decorator
     decoratedRepository = new RepositorySecurityDecorator(decoratedRepository, permissionService);
+    decoratedRepository = meter(decoratedRepository, "security");
 
     // 2. transaction decorator
     decoratedRepository =
         new TransactionalRepositoryDecorator<>(decoratedRepository, transactionManager);
+    decoratedRepository = meter(decoratedRepository, "transaction");
 
     // 1. query validation decorator
     decoratedRepository =
         new QueryValidationRepositoryDecorator<>(
             decoratedRepository, queryValidator, fetchValidator);
+    decoratedRepository = meter(decoratedRepository, "queryValidation");
 
     // 0. Dynamic decorators
     decoratedRepository = dynamicRepositoryDecoratorRegistry.decorate(decoratedRepository);
+    decoratedRepository = meter(decoratedRepository, "dynamic");
 
     return decoratedRepository;
   }
+
+  /** Records the metrics of a repository decorator layer if repository metrics are enabled */
+  private Repository<Entity> meter(Repository<Entity> repository, String layer) {
+    return metricsEnabled
+        ? new MeteredRepositoryDecorator(repository, layer, meterRegistry)
+        : repository;
+  }
 }
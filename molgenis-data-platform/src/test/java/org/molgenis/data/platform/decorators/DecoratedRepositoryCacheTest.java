@@ -0,0 +1,135 @@
+package org.molgenis.data.platform.decorators;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.event.BootstrappingEvent.BootstrappingStatus.FINISHED;
+import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
+
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityKey;
+import org.molgenis.data.Repository;
+import org.molgenis.data.cache.invalidation.CacheInvalidation;
+import org.molgenis.data.event.BootstrappingEvent;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.transaction.TransactionInformation;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.security.acl.MutableAclClassService;
+import org.molgenis.test.AbstractMockitoTest;
+
+class DecoratedRepositoryCacheTest extends AbstractMockitoTest {
+  @Mock private TransactionManager transactionManager;
+  @Mock private TransactionInformation transactionInformation;
+  @Mock private MutableAclClassService mutableAclClassService;
+  private DecoratedRepositoryCache decoratedRepositoryCache;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    decoratedRepositoryCache =
+        new DecoratedRepositoryCache(
+            transactionManager, transactionInformation, mutableAclClassService);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testGetBootstrapping() {
+    Repository<Entity> repository = mock(Repository.class);
+    assertNotSame(
+        decoratedRepositoryCache.get(repository, decorator()),
+        decoratedRepositoryCache.get(repository, decorator()));
+  }
+
+  @Test
+  void testGet() {
+    decoratedRepositoryCache.onApplicationEvent(new BootstrappingEvent(FINISHED));
+    when(transactionInformation.getDirtyRepositories()).thenReturn(emptySet());
+    Repository<Entity> repository = createRepository();
+
+    assertSame(
+        decoratedRepositoryCache.get(repository, decorator()),
+        decoratedRepositoryCache.get(repository, decorator()));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testGetMetadataDirty() {
+    decoratedRepositoryCache.onApplicationEvent(new BootstrappingEvent(FINISHED));
+    when(transactionInformation.getDirtyRepositories())
+        .thenReturn(singleton(ENTITY_TYPE_META_DATA));
+    Repository<Entity> repository = mock(Repository.class);
+
+    assertNotSame(
+        decoratedRepositoryCache.get(repository, decorator()),
+        decoratedRepositoryCache.get(repository, decorator()));
+  }
+
+  @Test
+  void testGetRowLevelSecurityChanged() {
+    decoratedRepositoryCache.onApplicationEvent(new BootstrappingEvent(FINISHED));
+    when(transactionInformation.getDirtyRepositories()).thenReturn(emptySet());
+    Repository<Entity> repository = createRepository();
+    when(mutableAclClassService.hasAclClass("entity-entityTypeId")).thenReturn(false, true);
+
+    assertNotSame(
+        decoratedRepositoryCache.get(repository, decorator()),
+        decoratedRepositoryCache.get(repository, decorator()));
+  }
+
+  @Test
+  void testAfterCommitTransactionMetadata() {
+    decoratedRepositoryCache.onApplicationEvent(new BootstrappingEvent(FINISHED));
+    when(transactionInformation.getDirtyRepositories())
+        .thenReturn(emptySet(), singleton(ENTITY_TYPE_META_DATA), emptySet());
+    Repository<Entity> repository = createRepository();
+
+    Repository<Entity> decoratedRepository = decoratedRepositoryCache.get(repository, decorator());
+    decoratedRepositoryCache.afterCommitTransaction("transactionId");
+    assertNotSame(decoratedRepository, decoratedRepositoryCache.get(repository, decorator()));
+  }
+
+  @Test
+  void testAfterCommitTransactionData() {
+    decoratedRepositoryCache.onApplicationEvent(new BootstrappingEvent(FINISHED));
+    when(transactionInformation.getDirtyRepositories())
+        .thenReturn(emptySet(), singleton("entityTypeId"), emptySet());
+    Repository<Entity> repository = createRepository();
+
+    Repository<Entity> decoratedRepository = decoratedRepositoryCache.get(repository, decorator());
+    decoratedRepositoryCache.afterCommitTransaction("transactionId");
+    assertSame(decoratedRepository, decoratedRepositoryCache.get(repository, decorator()));
+  }
+
+  @Test
+  void testInvalidate() {
+    decoratedRepositoryCache.onApplicationEvent(new BootstrappingEvent(FINISHED));
+    when(transactionInformation.getDirtyRepositories()).thenReturn(emptySet());
+    Repository<Entity> repository = createRepository();
+
+    Repository<Entity> decoratedRepository = decoratedRepositoryCache.get(repository, decorator());
+    decoratedRepositoryCache.invalidate(
+        CacheInvalidation.create(
+            singleton(EntityKey.create(ENTITY_TYPE_META_DATA, "entityTypeId")), emptySet()));
+    assertNotSame(decoratedRepository, decoratedRepositoryCache.get(repository, decorator()));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Repository<Entity> createRepository() {
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getId()).thenReturn("entityTypeId");
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    return repository;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static UnaryOperator<Repository<Entity>> decorator() {
+    return repository -> mock(Repository.class);
+  }
+}
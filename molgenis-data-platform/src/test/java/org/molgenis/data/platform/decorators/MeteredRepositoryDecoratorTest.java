@@ -0,0 +1,148 @@
+package org.molgenis.data.platform.decorators;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.platform.decorators.MeteredRepositoryDecorator.OPERATION_ROWS_COUNTER;
+import static org.molgenis.data.platform.decorators.MeteredRepositoryDecorator.OPERATION_TIMER;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Query;
+import org.molgenis.data.Repository;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.test.AbstractMockitoTest;
+
+class MeteredRepositoryDecoratorTest extends AbstractMockitoTest {
+  @Mock private Repository<Entity> delegateRepository;
+  @Mock private EntityType entityType;
+  private SimpleMeterRegistry meterRegistry;
+  private MeteredRepositoryDecorator meteredRepositoryDecorator;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    when(entityType.getId()).thenReturn("MyEntityType");
+    when(delegateRepository.getEntityType()).thenReturn(entityType);
+    meterRegistry = new SimpleMeterRegistry();
+    meteredRepositoryDecorator =
+        new MeteredRepositoryDecorator(delegateRepository, "myLayer", meterRegistry);
+  }
+
+  @Test
+  void testCount() {
+    when(delegateRepository.count()).thenReturn(3L);
+    assertEquals(3L, meteredRepositoryDecorator.count());
+    assertEquals(1L, getTimerCount("count"));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testFindAll() {
+    Query<Entity> query = mock(Query.class);
+    Entity entity0 = mock(Entity.class);
+    Entity entity1 = mock(Entity.class);
+    when(delegateRepository.findAll(query)).thenReturn(Stream.of(entity0, entity1));
+
+    Stream<Entity> entities = meteredRepositoryDecorator.findAll(query);
+    assertEquals(0L, getTimerCount("findAll"));
+    assertEquals(2, entities.collect(toList()).size());
+    assertEquals(1L, getTimerCount("findAll"));
+    assertEquals(2.0, getRowsCount("findAll"));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testFindAllClosed() {
+    Query<Entity> query = mock(Query.class);
+    Entity entity0 = mock(Entity.class);
+    Entity entity1 = mock(Entity.class);
+    when(delegateRepository.findAll(query)).thenReturn(Stream.of(entity0, entity1));
+
+    try (Stream<Entity> entities = meteredRepositoryDecorator.findAll(query)) {
+      assertEquals(entity0, entities.findFirst().orElse(null));
+    }
+    assertEquals(1L, getTimerCount("findAll"));
+    assertEquals(1.0, getRowsCount("findAll"));
+  }
+
+  @Test
+  void testIterator() {
+    Entity entity0 = mock(Entity.class);
+    Entity entity1 = mock(Entity.class);
+    when(delegateRepository.iterator()).thenReturn(asList(entity0, entity1).iterator());
+
+    Iterator<Entity> iterator = meteredRepositoryDecorator.iterator();
+    iterator.next();
+    iterator.next();
+    assertEquals(0L, getTimerCount("iterate"));
+    assertFalse(iterator.hasNext());
+    assertEquals(1L, getTimerCount("iterate"));
+    assertEquals(2.0, getRowsCount("iterate"));
+  }
+
+  @Test
+  void testIteratorNotExhausted() throws InterruptedException {
+    Entity entity0 = mock(Entity.class);
+    Entity entity1 = mock(Entity.class);
+    when(delegateRepository.iterator()).thenReturn(asList(entity0, entity1).iterator());
+
+    assertEquals(entity0, meteredRepositoryDecorator.iterator().next());
+    // the iterator is no longer reachable and is recorded when it is garbage collected
+    for (int i = 0; i < 100 && getTimerCount("iterate") == 0L; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    assertEquals(1L, getTimerCount("iterate"));
+    assertEquals(1.0, getRowsCount("iterate"));
+  }
+
+  @Test
+  void testFindOneById() {
+    Entity entity = mock(Entity.class);
+    when(delegateRepository.findOneById("id")).thenReturn(entity);
+    assertEquals(entity, meteredRepositoryDecorator.findOneById("id"));
+    assertEquals(1L, getTimerCount("findOneById"));
+    assertEquals(1.0, getRowsCount("findOneById"));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testAddStream() {
+    when(delegateRepository.add(any(Stream.class)))
+        .thenAnswer(invocation -> (int) invocation.<Stream<Entity>>getArgument(0).count());
+
+    Entity entity0 = mock(Entity.class);
+    Entity entity1 = mock(Entity.class);
+    assertEquals(2, meteredRepositoryDecorator.add(Stream.of(entity0, entity1)));
+    assertEquals(1L, getTimerCount("add"));
+    assertEquals(2.0, getRowsCount("add"));
+  }
+
+  private long getTimerCount(String operation) {
+    return meterRegistry
+        .find(OPERATION_TIMER)
+        .tags("layer", "myLayer", "entityType", "MyEntityType", "operation", operation)
+        .timers()
+        .stream()
+        .mapToLong(Timer::count)
+        .sum();
+  }
+
+  private double getRowsCount(String operation) {
+    return meterRegistry
+        .get(OPERATION_ROWS_COUNTER)
+        .tags("layer", "myLayer", "entityType", "MyEntityType", "operation", operation)
+        .counter()
+        .count();
+  }
+}
@@ -6,6 +6,7 @@ import javax.sql.DataSource;
 import org.molgenis.data.DataService;
 import org.molgenis.data.RepositoryCollection;
 import org.molgenis.data.postgresql.identifier.EntityTypeRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -17,18 +18,21 @@ public class PostgreSqlConfiguration {
   private final DataService dataService;
   private final PostgreSqlExceptionTranslator postgreSqlExceptionTranslator;
   private final EntityTypeRegistry entityTypeRegistry;
+  private final boolean bulkLoadEnabled;
 
   public PostgreSqlConfiguration(
       PostgreSqlEntityFactory postgreSqlEntityFactory,
       DataSource dataSource,
       DataService dataService,
       PostgreSqlExceptionTranslator postgreSqlExceptionTranslator,
-      EntityTypeRegistry entityTypeRegistry) {
+      EntityTypeRegistry entityTypeRegistry,
+      @Value("${postgresql.bulk.load.enabled:false}") boolean bulkLoadEnabled) {
     this.postgreSqlEntityFactory = requireNonNull(postgreSqlEntityFactory);
     this.dataSource = requireNonNull(dataSource);
     this.dataService = requireNonNull(dataService);
     this.postgreSqlExceptionTranslator = requireNonNull(postgreSqlExceptionTranslator);
     this.entityTypeRegistry = requireNonNull(entityTypeRegistry);
+    this.bulkLoadEnabled = bulkLoadEnabled;
   }
 
   @Bean
@@ -42,7 +46,7 @@ public class PostgreSqlConfiguration {
   public RepositoryCollection postgreSqlRepositoryCollection() {
     return new PostgreSqlRepositoryCollectionDecorator(
         new PostgreSqlRepositoryCollection(
-            postgreSqlEntityFactory, dataSource, jdbcTemplate(), dataService),
+            postgreSqlEntityFactory, dataSource, jdbcTemplate(), dataService, bulkLoadEnabled),
         entityTypeRegistry);
   }
 }
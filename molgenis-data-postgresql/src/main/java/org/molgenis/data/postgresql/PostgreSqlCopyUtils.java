@@ -0,0 +1,103 @@
+package org.molgenis.data.postgresql;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.Iterator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Utility methods to stream rows to PostgreSQL using the COPY protocol, which avoids the per-row
+ * statement overhead of batched inserts. Rows are encoded in CSV format.
+ */
+class PostgreSqlCopyUtils {
+  private static final int FLUSH_THRESHOLD = 65536;
+
+  private PostgreSqlCopyUtils() {}
+
+  /**
+   * Streams rows to PostgreSQL. Exceptions are translated by the exception translator of the
+   * given template, just like exceptions of other statements.
+   *
+   * @param copySql COPY ... FROM STDIN statement with CSV format
+   * @param rows PostgreSQL values of each row, see {@link PostgreSqlUtils#getPostgreSqlValue}
+   * @return number of copied rows
+   */
+  static long copyIn(JdbcTemplate jdbcTemplate, String copySql, Iterator<Object[]> rows) {
+    Long nrRows =
+        jdbcTemplate.execute(
+            (ConnectionCallback<Long>) connection -> copyIn(connection, copySql, rows));
+    return nrRows != null ? nrRows : 0L;
+  }
+
+  private static long copyIn(Connection connection, String copySql, Iterator<Object[]> rows)
+      throws SQLException {
+    CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+    try {
+      StringBuilder buffer = new StringBuilder();
+      while (rows.hasNext()) {
+        appendCsvRow(buffer, rows.next());
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+          writeToCopy(copyIn, buffer);
+        }
+      }
+      writeToCopy(copyIn, buffer);
+      return copyIn.endCopy();
+    } finally {
+      if (copyIn.isActive()) {
+        copyIn.cancelCopy();
+      }
+    }
+  }
+
+  private static void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+    if (buffer.length() > 0) {
+      byte[] bytes = buffer.toString().getBytes(UTF_8);
+      copyIn.writeToCopy(bytes, 0, bytes.length);
+      buffer.setLength(0);
+    }
+  }
+
+  /** package-private for testability */
+  static void appendCsvRow(StringBuilder buffer, Object[] values) {
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        buffer.append(',');
+      }
+      appendCsvValue(buffer, values[i]);
+    }
+    buffer.append('\n');
+  }
+
+  /**
+   * Appends a value to a CSV row. Null values are written as an unquoted empty string, other
+   * values are always quoted to distinguish empty strings from null values.
+   */
+  private static void appendCsvValue(StringBuilder buffer, Object value) {
+    if (value == null) {
+      return;
+    }
+    String text;
+    if (value instanceof OffsetDateTime) {
+      text = ISO_OFFSET_DATE_TIME.format((OffsetDateTime) value);
+    } else {
+      text = value.toString();
+    }
+
+    buffer.append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '"') {
+        buffer.append('"');
+      }
+      buffer.append(c);
+    }
+    buffer.append('"');
+  }
+}
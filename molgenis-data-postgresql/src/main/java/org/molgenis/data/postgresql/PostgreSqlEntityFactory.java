@@ -1,5 +1,6 @@
 package org.molgenis.data.postgresql;
 
+import static com.google.common.collect.Streams.stream;
 import static java.time.ZoneOffset.UTC;
 import static java.util.Arrays.asList;
 import static java.util.Comparator.comparing;
@@ -15,8 +16,10 @@ import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.Arrays;
+import java.util.stream.Stream;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityManager;
+import org.molgenis.data.EntityStream;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.IllegalAttributeTypeException;
@@ -47,6 +50,12 @@ class PostgreSqlEntityFactory {
     return entityManager.getReferences(refEntityType, ids);
   }
 
+  /** Returns the entities with the given ids, retrieved together instead of on first access */
+  Stream<Entity> resolveReferences(EntityType refEntityType, Iterable<?> ids) {
+    EntityStream references = new EntityStream(stream(getReferences(refEntityType, ids)), true);
+    return entityManager.resolveReferences(refEntityType, references, null);
+  }
+
   private static class EntityMapper implements RowMapper<Entity> {
     private final EntityManager entityManager;
     private final EntityType entityType;
@@ -43,6 +43,7 @@ import java.text.MessageFormat;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -52,11 +53,13 @@ import javax.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
 import org.molgenis.data.Entity;
 import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.PermittedObjectsFilter;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.Sort;
 import org.molgenis.data.UnknownAttributeException;
+import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.IllegalAttributeTypeException;
 import org.molgenis.data.meta.model.Attribute;
@@ -436,6 +439,27 @@ class PostgreSqlQueryGenerator {
     return sql.toString();
   }
 
+  static String getSqlCopy(EntityType entityType) {
+    String columnNames =
+        getTableAttributes(entityType)
+            .map(PostgreSqlNameGenerator::getColumnName)
+            .collect(joining(", "));
+    return "COPY " + getTableName(entityType) + " (" + columnNames + ") FROM STDIN (FORMAT csv)";
+  }
+
+  static String getSqlCopyJunction(EntityType entityType, Attribute attr) {
+    String junctionTableName = getJunctionTableName(entityType, attr);
+    return "COPY "
+        + junctionTableName
+        + " ("
+        + getJunctionTableOrderColumnName()
+        + ','
+        + getColumnName(entityType.getIdAttribute())
+        + ','
+        + getColumnName(attr)
+        + ") FROM STDIN (FORMAT csv)";
+  }
+
   static String getSqlInsertJunction(EntityType entityType, Attribute attr) {
     String junctionTableName = getJunctionTableName(entityType, attr);
     return "INSERT INTO "
@@ -540,6 +564,24 @@ class PostgreSqlQueryGenerator {
 
   static <E extends Entity> String getSqlSelect(
       EntityType entityType, Query<E> q, List<Object> parameters, boolean includeMrefs) {
+    return getSqlSelect(entityType, q, parameters, includeMrefs, null);
+  }
+
+  /**
+   * Returns SQL that selects the query results. If an id value is given, only the results that
+   * come after this id value are selected, which allows a query that is sorted on id to be read in
+   * batches using index range scans instead of scanning and skipping all previous rows for each
+   * batch. The query offset should be zero in that case.
+   *
+   * @param afterIdValue id value of the last result of the previous batch or <code>null</code>
+   * @see #isKeysetPaginationSupported(EntityType, Query)
+   */
+  static <E extends Entity> String getSqlSelect(
+      EntityType entityType,
+      Query<E> q,
+      List<Object> parameters,
+      boolean includeMrefs,
+      @Nullable Object afterIdValue) {
     final StringBuilder select = new StringBuilder("SELECT ");
     if (isDistinctSelectRequired(entityType, q)) {
       select.append("DISTINCT ");
@@ -615,6 +657,10 @@ class PostgreSqlQueryGenerator {
     StringBuilder result = new StringBuilder().append(select).append(getSqlFrom(entityType, q));
     // where
     String where = getSqlWhere(entityType, q, parameters, new AtomicInteger());
+    if (afterIdValue != null) {
+      String keysetWhere = getSqlWhereAfterId(entityType, q, afterIdValue, parameters);
+      where = where.isEmpty() ? keysetWhere : '(' + where + ") AND " + keysetWhere;
+    }
     if (where.length() > 0) {
       result.append(" WHERE ").append(where);
     }
@@ -632,6 +678,60 @@ class PostgreSqlQueryGenerator {
     return result.toString().trim();
   }
 
+  /**
+   * Returns whether the results of a query can be read in batches using {@link
+   * #getSqlSelect(EntityType, Query, List, boolean, Object)} with the id of the previous batch: the
+   * query must be unsorted or only sorted on id and the id must be fetched.
+   */
+  static <E extends Entity> boolean isKeysetPaginationSupported(
+      EntityType entityType, Query<E> q) {
+    String idAttributeName = entityType.getIdAttribute().getName();
+    if (q.getFetch() != null && !q.getFetch().hasField(idAttributeName)) {
+      return false;
+    }
+    Sort sort = q.getSort();
+    if (sort == null) {
+      return true;
+    }
+    Iterator<Sort.Order> orders = sort.iterator();
+    if (!orders.hasNext()) {
+      return false;
+    }
+    String sortAttributeName = orders.next().getAttr();
+    return sortAttributeName.equals(idAttributeName) && !orders.hasNext();
+  }
+
+  private static <E extends Entity> String getSqlWhereAfterId(
+      EntityType entityType, Query<E> q, Object afterIdValue, List<Object> parameters) {
+    Attribute idAttribute = entityType.getIdAttribute();
+    boolean descending =
+        q.getSort() != null
+            && q.getSort().iterator().next().getDirection() == Sort.Direction.DESC;
+    parameters.add(PostgreSqlUtils.getPostgreSqlQueryValue(afterIdValue, idAttribute));
+    return "this." + getColumnName(idAttribute) + (descending ? " < ?" : " > ?");
+  }
+
+  /**
+   * Returns SQL that selects the lowest id of each partition when dividing the table ordered by id
+   * into a number of partitions of (almost) equal size. The number of partitions is the only
+   * parameter.
+   *
+   * @param entityType entity type of the table to partition
+   * @return SQL string
+   */
+  static String getSqlSelectPartitionBoundaries(EntityType entityType) {
+    String idColumnName = getColumnName(entityType.getIdAttribute());
+    return "SELECT MIN("
+        + idColumnName
+        + ") FROM (SELECT "
+        + idColumnName
+        + ", ntile(?) OVER (ORDER BY "
+        + idColumnName
+        + ") AS \"partition\" FROM "
+        + getTableName(entityType)
+        + ") AS \"partitions\" GROUP BY \"partition\" ORDER BY 1";
+  }
+
   static String getSqlUpdate(EntityType entityType) {
     return getSqlUpdate(entityType, null);
   }
@@ -686,6 +786,103 @@ class PostgreSqlQueryGenerator {
     return sqlBuilder.toString();
   }
 
+  /**
+   * Produces SQL that counts the entities that match the aggregate query per value of the x
+   * attribute and, if available, per value of the y attribute. Counts distinct values of the
+   * distinct attribute instead of entities if available. Values of multiple reference attributes
+   * are read from their junction table. The result columns are the x value, the y value (if
+   * available) and the count.
+   *
+   * @param aggregateQuery aggregate query with x attribute
+   * @param parameters prepared statement parameters
+   * @return SQL string
+   */
+  static String getSqlAggregate(
+      EntityType entityType, AggregateQuery aggregateQuery, List<Object> parameters) {
+    String idColumnName = getColumnName(entityType.getIdAttribute());
+    StringBuilder from =
+        new StringBuilder(" FROM ").append(getTableName(entityType)).append(" AS this");
+
+    List<String> groupColumns = new ArrayList<>(2);
+    groupColumns.add(getSqlAggregateColumn(entityType, aggregateQuery.getAttributeX(), "x", from));
+    Attribute yAttr = aggregateQuery.getAttributeY();
+    if (yAttr != null) {
+      groupColumns.add(getSqlAggregateColumn(entityType, yAttr, "y", from));
+    }
+    Attribute distinctAttr = aggregateQuery.getAttributeDistinct();
+    String countColumn =
+        distinctAttr != null
+            ? getSqlAggregateColumn(entityType, distinctAttr, "d", from)
+            : "this." + idColumnName;
+
+    String groupBy = String.join(", ", groupColumns);
+    StringBuilder sqlBuilder =
+        new StringBuilder("SELECT ")
+            .append(groupBy)
+            .append(", COUNT(DISTINCT ")
+            .append(countColumn)
+            .append(')')
+            .append(from);
+
+    Query<Entity> q = aggregateQuery.getQuery();
+    if (q != null && q.getRules() != null && !q.getRules().isEmpty()) {
+      // filter in a sub-query, joins to filter on multiple reference attributes would otherwise
+      // multiply the aggregated rows
+      String where = getSqlWhere(entityType, q, parameters, new AtomicInteger());
+      sqlBuilder
+          .append(" WHERE this.")
+          .append(idColumnName)
+          .append(" IN (SELECT this.")
+          .append(idColumnName)
+          .append(getSqlFrom(entityType, q))
+          .append(" WHERE ")
+          .append(where)
+          .append(')');
+    }
+    return sqlBuilder.append(" GROUP BY ").append(groupBy).toString();
+  }
+
+  /**
+   * Returns the SQL column that contains the attribute value (the referenced entity id for
+   * reference attributes). Appends a join to the given from clause if the attribute is persisted in
+   * another table.
+   */
+  private static String getSqlAggregateColumn(
+      EntityType entityType, Attribute attr, String alias, StringBuilder from) {
+    if (!isPersistedInOtherTable(attr)) {
+      return "this." + getColumnName(attr);
+    }
+
+    String idColumnName = getColumnName(entityType.getIdAttribute());
+    if (attr.getDataType() == ONE_TO_MANY && attr.isMappedBy()) {
+      from.append(" LEFT JOIN ")
+          .append(getTableName(attr.getRefEntity()))
+          .append(" AS ")
+          .append(alias)
+          .append(" ON (this.")
+          .append(idColumnName)
+          .append(" = ")
+          .append(alias)
+          .append('.')
+          .append(getColumnName(attr.getMappedBy()))
+          .append(')');
+      return alias + '.' + getColumnName(attr.getRefEntity().getIdAttribute());
+    } else {
+      from.append(" LEFT JOIN ")
+          .append(getJunctionTableName(entityType, attr))
+          .append(" AS ")
+          .append(alias)
+          .append(" ON (this.")
+          .append(idColumnName)
+          .append(" = ")
+          .append(alias)
+          .append('.')
+          .append(idColumnName)
+          .append(')');
+      return alias + '.' + getColumnName(attr);
+    }
+  }
+
   private static String getSqlColumn(EntityType entityType, Attribute attr, ColumnMode columnMode) {
     StringBuilder sqlBuilder = new StringBuilder(getColumnName(attr)).append(' ');
 
@@ -1039,6 +1236,15 @@ class PostgreSqlQueryGenerator {
           }
           result.append(predicate);
           break;
+        case PERMITTED:
+          if (result.length() > 0
+              && !result.toString().endsWith(" OR ")
+              && !result.toString().endsWith(" AND ")
+              && !result.toString().endsWith(" NOT ")) {
+            result.append(" AND ");
+          }
+          result.append(getSqlWherePermitted(entityType, r, parameters));
+          break;
         case DIS_MAX:
         case FUZZY_MATCH:
         case FUZZY_MATCH_NGRAM:
@@ -1057,6 +1263,81 @@ class PostgreSqlQueryGenerator {
     return result.toString().trim();
   }
 
+  /**
+   * Returns a semi-join predicate that only matches rows for which the access control list tables
+   * grant one of the permissions in the query rule value to the security identities in the query
+   * rule value. Like the permission granting strategy, the first entry for a permission decides:
+   * entries are ordered by security identity and then by entry order, so a denying entry hides a
+   * row even if a later entry grants the permission.
+   */
+  private static String getSqlWherePermitted(
+      EntityType entityType, QueryRule r, List<Object> parameters) {
+    Object value = r.getValue();
+    if (!(value instanceof PermittedObjectsFilter)) {
+      throw new MolgenisDataException(
+          format(
+              "PERMITTED value is of type [%s] instead of [%s]",
+              value != null ? value.getClass().getSimpleName() : null,
+              PermittedObjectsFilter.class.getSimpleName()));
+    }
+    PermittedObjectsFilter filter = (PermittedObjectsFilter) value;
+    if ((filter.getPrincipals().isEmpty() && filter.getAuthorities().isEmpty())
+        || filter.getMask() == 0) {
+      return "FALSE";
+    }
+    Attribute idAttribute = entityType.getIdAttribute();
+    parameters.add(filter.getAclClass());
+
+    StringBuilder permissionsPredicate = new StringBuilder();
+    for (int mask = filter.getMask(); mask != 0; mask &= mask - 1) {
+      if (permissionsPredicate.length() > 0) {
+        permissionsPredicate.append(" OR ");
+      }
+      permissionsPredicate.append(
+          getSqlPermissionGranted(filter, Integer.lowestOneBit(mask), parameters));
+    }
+
+    return "this."
+        + getColumnName(idAttribute)
+        + " IN (SELECT CAST(acl_object_identity.object_id_identity AS "
+        + getPostgreSqlType(idAttribute)
+        + ") FROM acl_object_identity"
+        + " JOIN acl_class ON acl_object_identity.object_id_class = acl_class.id"
+        + " WHERE acl_class.class = ? AND ("
+        + permissionsPredicate
+        + "))";
+  }
+
+  /**
+   * Returns a subquery that selects whether the first access control entry of an object identity
+   * for the given permission and security identities is granting. Security identities are ordered
+   * as in the filter, principals before authorities.
+   */
+  private static String getSqlPermissionGranted(
+      PermittedObjectsFilter filter, int permissionMask, List<Object> parameters) {
+    StringBuilder sidOrder = new StringBuilder("CASE");
+    int sidIndex = 0;
+    for (String principal : filter.getPrincipals()) {
+      sidOrder.append(" WHEN acl_sid.principal AND acl_sid.sid = ? THEN ").append(sidIndex++);
+      parameters.add(principal);
+    }
+    for (String authority : filter.getAuthorities()) {
+      sidOrder.append(" WHEN NOT acl_sid.principal AND acl_sid.sid = ? THEN ").append(sidIndex++);
+      parameters.add(authority);
+    }
+    sidOrder.append(" END");
+    parameters.add(permissionMask);
+
+    return "(SELECT permission_entry.granting"
+        + " FROM (SELECT acl_entry.granting, acl_entry.ace_order, "
+        + sidOrder
+        + " AS sid_order FROM acl_entry JOIN acl_sid ON acl_entry.sid = acl_sid.id"
+        + " WHERE acl_entry.acl_object_identity = acl_object_identity.id"
+        + " AND (acl_entry.mask & ?) <> 0) AS permission_entry"
+        + " WHERE permission_entry.sid_order IS NOT NULL"
+        + " ORDER BY permission_entry.sid_order, permission_entry.ace_order LIMIT 1)";
+  }
+
   private static void getSqlWhereForInQueryRule(
       QueryRule r,
       EntityType entityType,
@@ -6,7 +6,10 @@ import static com.google.common.collect.Maps.newHashMap;
 import static com.google.common.collect.Streams.stream;
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.unmodifiableSet;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.nullsLast;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.counting;
 import static java.util.stream.Collectors.toList;
@@ -22,7 +25,9 @@ import static org.molgenis.data.QueryRule.Operator.LIKE;
 import static org.molgenis.data.QueryRule.Operator.NESTED;
 import static org.molgenis.data.QueryRule.Operator.NOT;
 import static org.molgenis.data.QueryRule.Operator.OR;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.QueryRule.Operator.RANGE;
+import static org.molgenis.data.RepositoryCapability.AGGREGATEABLE;
 import static org.molgenis.data.RepositoryCapability.CACHEABLE;
 import static org.molgenis.data.RepositoryCapability.MANAGABLE;
 import static org.molgenis.data.RepositoryCapability.QUERYABLE;
@@ -32,8 +37,12 @@ import static org.molgenis.data.RepositoryCapability.VALIDATE_REFERENCE_CONSTRAI
 import static org.molgenis.data.RepositoryCapability.VALIDATE_UNIQUE_CONSTRAINT;
 import static org.molgenis.data.RepositoryCapability.WRITABLE;
 import static org.molgenis.data.meta.AttributeType.ONE_TO_MANY;
+import static org.molgenis.data.postgresql.PostgreSqlCopyUtils.copyIn;
 import static org.molgenis.data.postgresql.PostgreSqlExceptionTranslator.VALUE_TOO_LONG_MSG;
 import static org.molgenis.data.postgresql.PostgreSqlNameGenerator.getJunctionTableOrderColumnName;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlAggregate;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlCopy;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlCopyJunction;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlCount;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlDelete;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlDeleteAll;
@@ -41,39 +50,52 @@ import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlInsert
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlInsertJunction;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlJunctionTableSelect;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlSelect;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlSelectPartitionBoundaries;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlUpdate;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.isKeysetPaginationSupported;
 import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.getJunctionTableAttributes;
 import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.getTableAttributes;
 import static org.molgenis.data.postgresql.PostgreSqlUtils.getPostgreSqlValue;
 import static org.molgenis.data.util.EntityTypeUtils.isMultipleReferenceType;
+import static org.molgenis.data.util.EntityTypeUtils.isReferenceType;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import java.math.BigDecimal;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.aggregation.AggregateQuery;
+import org.molgenis.data.aggregation.AggregateResult;
 import org.molgenis.data.meta.AttributeType;
+import org.molgenis.data.meta.IllegalAttributeTypeException;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.support.AbstractRepository;
@@ -104,6 +126,8 @@ class PostgreSqlRepository extends AbstractRepository {
 
   /** JDBC batch operation size */
   static final int BATCH_SIZE = 1000;
+  /** COPY operation size in bulk load mode */
+  static final int COPY_BATCH_SIZE = 10000;
   /** Repository capabilities */
   private static final Set<RepositoryCapability> REPO_CAPABILITIES =
       unmodifiableSet(
@@ -111,12 +135,17 @@ class PostgreSqlRepository extends AbstractRepository {
               WRITABLE,
               MANAGABLE,
               QUERYABLE,
+              AGGREGATEABLE,
               VALIDATE_REFERENCE_CONSTRAINT,
               VALIDATE_UNIQUE_CONSTRAINT,
               VALIDATE_NOTNULL_CONSTRAINT,
               VALIDATE_READONLY_CONSTRAINT,
               CACHEABLE));
 
+  /** Sorts aggregate labels on their string representation, the missing value label last */
+  private static final Comparator<Object> AGGREGATE_LABEL_COMPARATOR =
+      nullsLast(comparing(Object::toString));
+
   /** Supported query operators */
   private static final Set<Operator> QUERY_OPERATORS =
       unmodifiableSet(
@@ -132,22 +161,30 @@ class PostgreSqlRepository extends AbstractRepository {
               NOT,
               AND,
               OR,
-              NESTED));
+              NESTED,
+              PERMITTED));
 
   private final PostgreSqlEntityFactory postgreSqlEntityFactory;
   private final JdbcTemplate jdbcTemplate;
   private final DataSource dataSource;
   private final EntityType entityType;
+  private final boolean bulkLoadEnabled;
 
+  /**
+   * @param bulkLoadEnabled whether to add entities using the PostgreSQL COPY protocol instead of
+   *     batched inserts
+   */
   PostgreSqlRepository(
       PostgreSqlEntityFactory postgreSqlEntityFactory,
       JdbcTemplate jdbcTemplate,
       DataSource dataSource,
-      EntityType entityType) {
+      EntityType entityType,
+      boolean bulkLoadEnabled) {
     this.postgreSqlEntityFactory = requireNonNull(postgreSqlEntityFactory);
     this.jdbcTemplate = requireNonNull(jdbcTemplate);
     this.dataSource = requireNonNull(dataSource);
     this.entityType = requireNonNull(entityType);
+    this.bulkLoadEnabled = bulkLoadEnabled;
   }
 
   @Override
@@ -186,6 +223,151 @@ class PostgreSqlRepository extends AbstractRepository {
         sql, parameters.toArray(new Object[parameters.size()]), Long.class);
   }
 
+  /**
+   * Aggregates in the database: counts are computed with GROUP BY instead of reading the entities.
+   * Labels are sorted on their string representation with the missing value label last. Labels of
+   * reference attributes are the referenced entities.
+   */
+  @Override
+  public AggregateResult aggregate(AggregateQuery aggregateQuery) {
+    Attribute xAttr = aggregateQuery.getAttributeX();
+    if (xAttr == null) {
+      throw new IllegalArgumentException(
+          "Aggregation requires at least one aggregatable attribute");
+    }
+    Attribute yAttr = aggregateQuery.getAttributeY();
+
+    List<Object> parameters = Lists.newArrayList();
+    String sql = getSqlAggregate(entityType, aggregateQuery, parameters);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Aggregating [{}] rows for query [{}]", getName(), aggregateQuery);
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("SQL: {}, parameters: {}", sql, parameters);
+      }
+    }
+
+    // maps x values to y values to counts, without y attribute all counts have y value null
+    Map<Object, Map<Object, Long>> counts = newHashMap();
+    jdbcTemplate.query(
+        sql,
+        parameters.toArray(new Object[0]),
+        (RowCallbackHandler)
+            resultSet -> {
+              Object xValue = getAggregateValue(resultSet, 1, xAttr);
+              Object yValue = yAttr != null ? getAggregateValue(resultSet, 2, yAttr) : null;
+              long count = resultSet.getLong(yAttr != null ? 3 : 2);
+              counts.computeIfAbsent(xValue, key -> newHashMap()).put(yValue, count);
+            });
+
+    List<Object> xLabels = newArrayList(counts.keySet());
+    xLabels.sort(AGGREGATE_LABEL_COMPARATOR);
+    List<Object> yLabels =
+        yAttr != null
+            ? counts.values().stream()
+                .flatMap(yCounts -> yCounts.keySet().stream())
+                .distinct()
+                .sorted(AGGREGATE_LABEL_COMPARATOR)
+                .collect(toList())
+            : emptyList();
+
+    List<Object> matrixYValues = yAttr != null ? yLabels : singletonList(null);
+    List<List<Long>> matrix =
+        xLabels.stream()
+            .map(counts::get)
+            .map(
+                yCounts ->
+                    matrixYValues.stream()
+                        .map(yValue -> yCounts.getOrDefault(yValue, 0L))
+                        .collect(toList()))
+            .collect(toList());
+
+    return new AggregateResult(
+        matrix,
+        toAggregateLabels(xLabels, xAttr),
+        yAttr != null ? toAggregateLabels(yLabels, yAttr) : yLabels);
+  }
+
+  /**
+   * Maps an aggregate result set value to a label value. Reference attribute values are mapped to
+   * the referenced entity id, dates to their ISO-8601 representation like in the index.
+   */
+  private static Object getAggregateValue(ResultSet resultSet, int columnIndex, Attribute attr)
+      throws SQLException {
+    Attribute valueAttr = attr;
+    while (isReferenceType(valueAttr)) {
+      valueAttr = valueAttr.getRefEntity().getIdAttribute();
+    }
+
+    AttributeType attrType = valueAttr.getDataType();
+    switch (attrType) {
+      case BOOL:
+        boolean boolValue = resultSet.getBoolean(columnIndex);
+        return resultSet.wasNull() ? null : boolValue;
+      case DATE:
+        LocalDate localDate = resultSet.getObject(columnIndex, LocalDate.class);
+        return localDate != null ? localDate.toString() : null;
+      case DATE_TIME:
+        OffsetDateTime offsetDateTime = resultSet.getObject(columnIndex, OffsetDateTime.class);
+        return offsetDateTime != null ? offsetDateTime.toInstant().toString() : null;
+      case DECIMAL:
+        BigDecimal bigDecimalValue = resultSet.getBigDecimal(columnIndex);
+        return bigDecimalValue != null ? bigDecimalValue.doubleValue() : null;
+      case EMAIL:
+      case ENUM:
+      case HTML:
+      case HYPERLINK:
+      case SCRIPT:
+      case STRING:
+      case TEXT:
+        return resultSet.getString(columnIndex);
+      case INT:
+        int intValue = resultSet.getInt(columnIndex);
+        return resultSet.wasNull() ? null : intValue;
+      case LONG:
+        long longValue = resultSet.getLong(columnIndex);
+        return resultSet.wasNull() ? null : longValue;
+      case CATEGORICAL:
+      case CATEGORICAL_MREF:
+      case COMPOUND:
+      case FILE:
+      case MREF:
+      case ONE_TO_MANY:
+      case XREF:
+        throw new IllegalAttributeTypeException(attrType);
+      default:
+        throw new UnexpectedEnumException(attrType);
+    }
+  }
+
+  /**
+   * Replaces the referenced entity ids of reference attributes with the referenced entities and
+   * maps other values to labels.
+   */
+  private List<Object> toAggregateLabels(List<Object> values, Attribute attr) {
+    if (!isReferenceType(attr)) {
+      return values.stream().map(PostgreSqlRepository::toAggregateLabel).collect(toList());
+    }
+
+    List<Object> ids = values.stream().filter(Objects::nonNull).collect(toList());
+    Map<Object, Entity> refEntities = newHashMap();
+    postgreSqlEntityFactory
+        .resolveReferences(attr.getRefEntity(), ids)
+        .forEach(refEntity -> refEntities.put(refEntity.getIdValue(), refEntity));
+    return values.stream()
+        .map(value -> value != null ? refEntities.get(value) : null)
+        .collect(toList());
+  }
+
+  /** Maps boolean and integer values to long labels like the terms keys returned by the index */
+  private static Object toAggregateLabel(Object value) {
+    if (value instanceof Boolean) {
+      return (Boolean) value ? 1L : 0L;
+    } else if (value instanceof Integer) {
+      return ((Integer) value).longValue();
+    }
+    return value;
+  }
+
   @Override
   public Stream<Entity> findAll(Query<Entity> q) {
     return stream(findAllBatching(q));
@@ -303,6 +485,43 @@ class PostgreSqlRepository extends AbstractRepository {
     LOG.debug("Streamed entire repository in batches of size {} in {}.", batchSize, stopwatch);
   }
 
+  /**
+   * Partitions the table in id ranges of (almost) equal size, so that the ranges can be read
+   * concurrently using index range scans on the primary key.
+   */
+  @Override
+  public List<Query<Entity>> partition(int numberOfPartitions) {
+    if (numberOfPartitions < 2) {
+      return singletonList(new QueryImpl<>());
+    }
+
+    String sql = getSqlSelectPartitionBoundaries(entityType);
+    LOG.debug("Partitioning [{}] in {} partitions", getName(), numberOfPartitions);
+    LOG.trace("SQL: {}", sql);
+    List<Object> lowerBounds =
+        jdbcTemplate.queryForList(sql, new Object[] {numberOfPartitions}, Object.class);
+    if (lowerBounds.size() < 2) {
+      return singletonList(new QueryImpl<>());
+    }
+
+    String idAttributeName = entityType.getIdAttribute().getName();
+    List<Query<Entity>> partitions = new ArrayList<>(lowerBounds.size());
+    for (int i = 0; i < lowerBounds.size(); i++) {
+      Query<Entity> partition = new QueryImpl<>();
+      if (i > 0) {
+        partition.ge(idAttributeName, lowerBounds.get(i));
+      }
+      if (i < lowerBounds.size() - 1) {
+        if (i > 0) {
+          partition.and();
+        }
+        partition.lt(idAttributeName, lowerBounds.get(i + 1));
+      }
+      partitions.add(partition);
+    }
+    return partitions;
+  }
+
   private Object processResultSet(
       Consumer<List<Entity>> consumer,
       int batchSize,
@@ -447,27 +666,79 @@ class PostgreSqlRepository extends AbstractRepository {
     };
   }
 
-  private BatchingQueryResult<Entity> findAllBatching(Query<Entity> q) {
+  /**
+   * Returns the query results in batches. Unsorted and id-sorted queries use keyset pagination:
+   * each batch after the first selects the rows after the last id of the previous batch, so that
+   * reading a batch does not require scanning all previous rows like an offset does.
+   */
+  private Iterable<Entity> findAllBatching(Query<Entity> q) {
+    if (isKeysetPaginationSupported(entityType, q)) {
+      return findAllKeysetBatching(q);
+    }
     return new BatchingQueryResult<Entity>(BATCH_SIZE, q) {
       @Override
       protected List<Entity> getBatch(Query<Entity> batchQuery) {
-        List<Object> parameters = new ArrayList<>();
-
-        String sql = getSqlSelect(getEntityType(), batchQuery, parameters, true);
-        RowMapper<Entity> entityMapper =
-            postgreSqlEntityFactory.createRowMapper(getEntityType(), batchQuery.getFetch());
-        LOG.debug("Fetching [{}] data for query [{}]", getName(), batchQuery);
-        LOG.trace("SQL: {}, parameters: {}", sql, parameters);
-        Stopwatch sw = createStarted();
-        List<Entity> result =
-            jdbcTemplate.query(
-                sql, parameters.toArray(new Object[parameters.size()]), entityMapper);
-        LOG.trace("That took {}", sw);
-        return result;
+        return findBatch(batchQuery, null);
       }
     };
   }
 
+  private Iterable<Entity> findAllKeysetBatching(Query<Entity> q) {
+    return () ->
+        new AbstractIterator<Entity>() {
+          private final int limit = q.getPageSize();
+          private int nrEntities;
+          private Iterator<Entity> batchIterator;
+          private Object lastIdValue;
+          private boolean lastBatch;
+
+          @Override
+          protected Entity computeNext() {
+            if (batchIterator == null || !batchIterator.hasNext()) {
+              if (lastBatch) {
+                return endOfData();
+              }
+              nextBatch();
+              if (!batchIterator.hasNext()) {
+                return endOfData();
+              }
+            }
+            nrEntities++;
+            return batchIterator.next();
+          }
+
+          private void nextBatch() {
+            int batchSize = limit > 0 ? Math.min(BATCH_SIZE, limit - nrEntities) : BATCH_SIZE;
+            Query<Entity> batchQuery = new QueryImpl<>(q).setPageSize(batchSize);
+            if (batchIterator != null) {
+              batchQuery.setOffset(0);
+            }
+            List<Entity> batch = findBatch(batchQuery, lastIdValue);
+            if (!batch.isEmpty()) {
+              lastIdValue = batch.get(batch.size() - 1).getIdValue();
+            }
+            lastBatch =
+                batch.size() < batchSize || (limit > 0 && nrEntities + batch.size() >= limit);
+            batchIterator = batch.iterator();
+          }
+        };
+  }
+
+  private List<Entity> findBatch(Query<Entity> batchQuery, @Nullable Object afterIdValue) {
+    List<Object> parameters = new ArrayList<>();
+
+    String sql = getSqlSelect(getEntityType(), batchQuery, parameters, true, afterIdValue);
+    RowMapper<Entity> entityMapper =
+        postgreSqlEntityFactory.createRowMapper(getEntityType(), batchQuery.getFetch());
+    LOG.debug("Fetching [{}] data for query [{}]", getName(), batchQuery);
+    LOG.trace("SQL: {}, parameters: {}", sql, parameters);
+    Stopwatch sw = createStarted();
+    List<Entity> result =
+        jdbcTemplate.query(sql, parameters.toArray(new Object[parameters.size()]), entityMapper);
+    LOG.trace("That took {}", sw);
+    return result;
+  }
+
   private Integer addBatching(Iterator<? extends Entity> entities) {
     AtomicInteger count = new AtomicInteger();
 
@@ -475,9 +746,9 @@ class PostgreSqlRepository extends AbstractRepository {
     final List<Attribute> tableAttrs = getTableAttributes(entityType).collect(toList());
     final List<Attribute> junctionTableAttrs =
         getJunctionTableAttributes(entityType).collect(toList());
-    final String insertSql = getSqlInsert(entityType);
+    final String insertSql = bulkLoadEnabled ? getSqlCopy(entityType) : getSqlInsert(entityType);
 
-    Iterators.partition(entities, BATCH_SIZE)
+    Iterators.partition(entities, bulkLoadEnabled ? COPY_BATCH_SIZE : BATCH_SIZE)
         .forEachRemaining(
             entitiesBatch -> {
               if (LOG.isDebugEnabled()) {
@@ -488,8 +759,17 @@ class PostgreSqlRepository extends AbstractRepository {
               }
 
               // persist values in entity table
-              jdbcTemplate.batchUpdate(
-                  insertSql, new BatchAddPreparedStatementSetter(entitiesBatch, tableAttrs));
+              if (bulkLoadEnabled) {
+                copyIn(
+                    jdbcTemplate,
+                    insertSql,
+                    entitiesBatch.stream()
+                        .map(entity -> getTableRowValues(entity, tableAttrs))
+                        .iterator());
+              } else {
+                jdbcTemplate.batchUpdate(
+                    insertSql, new BatchAddPreparedStatementSetter(entitiesBatch, tableAttrs));
+              }
 
               // persist values in entity junction table
               if (!junctionTableAttrs.isEmpty()) {
@@ -634,7 +914,10 @@ class PostgreSqlRepository extends AbstractRepository {
     }
 
     final Attribute idAttr = entityType.getIdAttribute();
-    String insertMrefSql = getSqlInsertJunction(entityType, attr);
+    String insertMrefSql =
+        bulkLoadEnabled
+            ? getSqlCopyJunction(entityType, attr)
+            : getSqlInsertJunction(entityType, attr);
 
     if (LOG.isDebugEnabled()) {
       LOG.debug(
@@ -647,9 +930,15 @@ class PostgreSqlRepository extends AbstractRepository {
     }
 
     try {
-      jdbcTemplate.batchUpdate(
-          insertMrefSql, new BatchJunctionTableAddPreparedStatementSetter(mrefs, attr, idAttr));
-
+      if (bulkLoadEnabled) {
+        copyIn(
+            jdbcTemplate,
+            insertMrefSql,
+            mrefs.stream().map(mref -> getJunctionTableRowValues(mref, attr, idAttr)).iterator());
+      } else {
+        jdbcTemplate.batchUpdate(
+            insertMrefSql, new BatchJunctionTableAddPreparedStatementSetter(mrefs, attr, idAttr));
+      }
     } catch (MolgenisValidationException mve) {
       if (mve.getMessage().equals(VALUE_TOO_LONG_MSG)) {
         mve =
@@ -681,6 +970,31 @@ class PostgreSqlRepository extends AbstractRepository {
         deleteMrefSql, new BatchJunctionTableDeletePreparedStatementSetter(ids));
   }
 
+  private static Object[] getTableRowValues(Entity entity, List<Attribute> tableAttrs) {
+    Object[] values = new Object[tableAttrs.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = getPostgreSqlValue(entity, tableAttrs.get(i));
+    }
+    return values;
+  }
+
+  /** Returns the order, first id and second id column values of a junction table row */
+  private static Object[] getJunctionTableRowValues(
+      Map<String, Object> mref, Attribute attr, Attribute idAttr) {
+    Object idValue0;
+    Object idValue1;
+    if (attr.isMappedBy()) {
+      Entity mrefEntity = (Entity) mref.get(attr.getName());
+      idValue0 = getPostgreSqlValue(mrefEntity, attr.getRefEntity().getIdAttribute());
+      idValue1 = mref.get(idAttr.getName());
+    } else {
+      idValue0 = mref.get(idAttr.getName());
+      Entity mrefEntity = (Entity) mref.get(attr.getName());
+      idValue1 = getPostgreSqlValue(mrefEntity, mrefEntity.getEntityType().getIdAttribute());
+    }
+    return new Object[] {mref.get(getJunctionTableOrderColumnName()), idValue0, idValue1};
+  }
+
   private static class BatchAddPreparedStatementSetter implements BatchPreparedStatementSetter {
     private final List<? extends Entity> entities;
     private final List<Attribute> tableAttrs;
@@ -771,22 +1085,10 @@ class PostgreSqlRepository extends AbstractRepository {
 
     @Override
     public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
-      Map<String, Object> mref = mrefs.get(i);
-
-      Object idValue0;
-      Object idValue1;
-      if (attr.isMappedBy()) {
-        Entity mrefEntity = (Entity) mref.get(attr.getName());
-        idValue0 = getPostgreSqlValue(mrefEntity, attr.getRefEntity().getIdAttribute());
-        idValue1 = mref.get(idAttr.getName());
-      } else {
-        idValue0 = mref.get(idAttr.getName());
-        Entity mrefEntity = (Entity) mref.get(attr.getName());
-        idValue1 = getPostgreSqlValue(mrefEntity, mrefEntity.getEntityType().getIdAttribute());
-      }
-      preparedStatement.setInt(1, (int) mref.get(getJunctionTableOrderColumnName()));
-      preparedStatement.setObject(2, idValue0);
-      preparedStatement.setObject(3, idValue1);
+      Object[] values = getJunctionTableRowValues(mrefs.get(i), attr, idAttr);
+      preparedStatement.setInt(1, (int) values[0]);
+      preparedStatement.setObject(2, values[1]);
+      preparedStatement.setObject(3, values[2]);
     }
 
     @Override
@@ -0,0 +1,269 @@
+package org.molgenis.data.postgresql.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import org.molgenis.data.EntityKey;
+import org.molgenis.data.cache.invalidation.CacheInvalidation;
+import org.molgenis.data.cache.invalidation.CacheInvalidationListener;
+import org.molgenis.data.transaction.TransactionInformation;
+import org.molgenis.data.transaction.TransactionListener;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.util.ExecutorServiceUtils;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Broadcasts the entities and repositories changed by a transaction to the other application nodes
+ * sharing the database using PostgreSQL LISTEN/NOTIFY, and invalidates the caches of this node for
+ * the changes broadcast by the other nodes.
+ *
+ * <p>Notifications are sent as part of the transaction, so PostgreSQL only delivers them once the
+ * transaction commits.
+ */
+@Component
+public class PostgreSqlCacheInvalidationBus implements TransactionListener {
+  private static final Logger LOG = LoggerFactory.getLogger(PostgreSqlCacheInvalidationBus.class);
+
+  static final String CHANNEL = "molgenis_cache_invalidation";
+  /** PostgreSQL notification payloads must be shorter than 8000 bytes */
+  static final int MAX_PAYLOAD_BYTES = 7999;
+
+  private static final String SQL_NOTIFY = "SELECT pg_notify(?, ?)";
+  private static final int POLL_TIMEOUT_MILLIS = 500;
+  private static final long RECONNECT_DELAY_MILLIS = 5000L;
+  private static final String ID_TYPE_STRING = "s";
+  private static final String ID_TYPE_INT = "i";
+  private static final String ID_TYPE_LONG = "l";
+
+  private final TransactionInformation transactionInformation;
+  private final DataSource dataSource;
+  private final JdbcTemplate jdbcTemplate;
+  private final List<CacheInvalidationListener> cacheInvalidationListeners;
+  private final boolean enabled;
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Gson gson = new Gson();
+
+  private ExecutorService executorService;
+  private volatile boolean listening;
+
+  public PostgreSqlCacheInvalidationBus(
+      TransactionManager transactionManager,
+      TransactionInformation transactionInformation,
+      DataSource dataSource,
+      JdbcTemplate jdbcTemplate,
+      List<CacheInvalidationListener> cacheInvalidationListeners,
+      @Value("${cache.invalidation.cluster:false}") boolean enabled) {
+    this.transactionInformation = requireNonNull(transactionInformation);
+    this.dataSource = requireNonNull(dataSource);
+    this.jdbcTemplate = requireNonNull(jdbcTemplate);
+    this.cacheInvalidationListeners = requireNonNull(cacheInvalidationListeners);
+    this.enabled = enabled;
+    if (enabled) {
+      requireNonNull(transactionManager).addTransactionListener(this);
+    }
+  }
+
+  @PostConstruct
+  void startListening() {
+    if (enabled) {
+      listening = true;
+      executorService =
+          ExecutorServiceUtils.newFixedThreadPool(1, "molgenis-cache-invalidation-%d");
+      executorService.execute(this::listen);
+    }
+  }
+
+  @PreDestroy
+  void stopListening() {
+    listening = false;
+    if (executorService != null) {
+      ExecutorServiceUtils.shutdownAndAwaitTermination(executorService);
+    }
+  }
+
+  @Override
+  public void commitTransaction(String transactionId) {
+    CacheInvalidation cacheInvalidation = CacheInvalidation.create(transactionInformation);
+    if (!cacheInvalidation.isEmpty()) {
+      createPayloads(cacheInvalidation)
+          .forEach(payload -> jdbcTemplate.queryForList(SQL_NOTIFY, CHANNEL, payload));
+    }
+  }
+
+  /**
+   * Listens for notifications until {@link #stopListening()} is called, reconnecting if the
+   * connection fails.
+   */
+  private void listen() {
+    while (listening) {
+      try (Connection connection = dataSource.getConnection()) {
+        connection.setAutoCommit(true);
+        execute(connection, "LISTEN " + CHANNEL);
+        LOG.info("Listening for cache invalidations on channel '{}'", CHANNEL);
+
+        // changes might have been committed while this node was not listening
+        cacheInvalidationListeners.forEach(CacheInvalidationListener::invalidateAll);
+
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (listening) {
+          PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              handlePayload(notification.getParameter());
+            }
+          }
+        }
+        execute(connection, "UNLISTEN " + CHANNEL);
+      } catch (SQLException e) {
+        LOG.error("Error listening for cache invalidations, reconnecting ...", e);
+        try {
+          Thread.sleep(RECONNECT_DELAY_MILLIS);
+        } catch (InterruptedException interruptedException) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private static void execute(Connection connection, String sql) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  void handlePayload(String payload) {
+    Message message;
+    CacheInvalidation cacheInvalidation;
+    try {
+      message = requireNonNull(gson.fromJson(payload, Message.class));
+      cacheInvalidation = toCacheInvalidation(message);
+    } catch (RuntimeException e) {
+      LOG.error("Invalid cache invalidation '{}', invalidating all caches", payload, e);
+      cacheInvalidationListeners.forEach(CacheInvalidationListener::invalidateAll);
+      return;
+    }
+    if (nodeId.equals(message.node)) {
+      // the caches of this node were already invalidated after commit
+      return;
+    }
+
+    LOG.debug("Invalidating caches for changes by node '{}': {}", message.node, cacheInvalidation);
+    cacheInvalidationListeners.forEach(listener -> listener.invalidate(cacheInvalidation));
+  }
+
+  /**
+   * Creates notification payloads for a cache invalidation. If the dirty entities do not fit in a
+   * single payload, the repositories of the dirty entities are invalidated instead.
+   */
+  List<String> createPayloads(CacheInvalidation cacheInvalidation) {
+    String payload =
+        toPayload(cacheInvalidation.getDirtyEntities(), cacheInvalidation.getDirtyRepositories());
+    if (fits(payload)) {
+      return singletonList(payload);
+    }
+
+    List<String> payloads = new ArrayList<>();
+    List<String> entityTypeIds = new ArrayList<>();
+    for (String entityTypeId : cacheInvalidation.getEntityTypeIds()) {
+      entityTypeIds.add(entityTypeId);
+      if (!fits(toPayload(emptySet(), entityTypeIds))) {
+        entityTypeIds.remove(entityTypeIds.size() - 1);
+        payloads.add(toPayload(emptySet(), entityTypeIds));
+        entityTypeIds = new ArrayList<>(singletonList(entityTypeId));
+      }
+    }
+    payloads.add(toPayload(emptySet(), entityTypeIds));
+    return payloads;
+  }
+
+  private static boolean fits(String payload) {
+    return payload.getBytes(UTF_8).length <= MAX_PAYLOAD_BYTES;
+  }
+
+  private String toPayload(Set<EntityKey> dirtyEntities, Collection<String> dirtyRepositories) {
+    Message message = new Message();
+    message.node = nodeId;
+    message.repositories = new ArrayList<>(dirtyRepositories);
+    message.entities = new ArrayList<>();
+    for (EntityKey entityKey : dirtyEntities) {
+      String idType = getIdType(entityKey.getId());
+      if (idType != null) {
+        message.entities.add(
+            ImmutableList.of(entityKey.getEntityTypeId(), idType, entityKey.getId().toString()));
+      } else if (!message.repositories.contains(entityKey.getEntityTypeId())) {
+        message.repositories.add(entityKey.getEntityTypeId());
+      }
+    }
+    return gson.toJson(message);
+  }
+
+  private static String getIdType(Object id) {
+    if (id instanceof String) {
+      return ID_TYPE_STRING;
+    } else if (id instanceof Integer) {
+      return ID_TYPE_INT;
+    } else if (id instanceof Long) {
+      return ID_TYPE_LONG;
+    } else {
+      return null;
+    }
+  }
+
+  private static CacheInvalidation toCacheInvalidation(Message message) {
+    Set<String> dirtyRepositories =
+        message.repositories != null ? new LinkedHashSet<>(message.repositories) : emptySet();
+    Set<EntityKey> dirtyEntities = new HashSet<>();
+    if (message.entities != null) {
+      for (List<String> entity : message.entities) {
+        dirtyEntities.add(EntityKey.create(entity.get(0), toId(entity.get(1), entity.get(2))));
+      }
+    }
+    return CacheInvalidation.create(dirtyEntities, dirtyRepositories);
+  }
+
+  private static Object toId(String idType, String id) {
+    switch (idType) {
+      case ID_TYPE_STRING:
+        return id;
+      case ID_TYPE_INT:
+        return Integer.valueOf(id);
+      case ID_TYPE_LONG:
+        return Long.valueOf(id);
+      default:
+        throw new JsonParseException(String.format("Unknown id type '%s'", idType));
+    }
+  }
+
+  /** Notification payload, entities are encoded as [entityTypeId, idType, id] */
+  private static class Message {
+    private String node;
+    private List<String> repositories;
+    private List<List<String>> entities;
+  }
+}
@@ -0,0 +1,32 @@
+package org.molgenis.data.postgresql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+class PostgreSqlCopyUtilsTest {
+  @Test
+  void testAppendCsvRow() {
+    StringBuilder buffer = new StringBuilder();
+    PostgreSqlCopyUtils.appendCsvRow(
+        buffer,
+        new Object[] {
+          "str", "", null, 1, 1.5, true, LocalDate.of(2019, 1, 31), "a \"quoted\",\nvalue"
+        });
+    assertEquals(
+        "\"str\",\"\",,\"1\",\"1.5\",\"true\",\"2019-01-31\",\"a \"\"quoted\"\",\nvalue\"\n",
+        buffer.toString());
+  }
+
+  @Test
+  void testAppendCsvRowDateTime() {
+    StringBuilder buffer = new StringBuilder();
+    PostgreSqlCopyUtils.appendCsvRow(
+        buffer,
+        new Object[] {OffsetDateTime.of(2019, 1, 31, 12, 30, 15, 0, ZoneOffset.ofHours(2))});
+    assertEquals("\"2019-01-31T12:30:15+02:00\"\n", buffer.toString());
+  }
+}
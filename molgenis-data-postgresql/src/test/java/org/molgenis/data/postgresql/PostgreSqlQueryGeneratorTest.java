@@ -3,14 +3,18 @@ package org.molgenis.data.postgresql;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.QueryRule.Operator.AND;
 import static org.molgenis.data.QueryRule.Operator.EQUALS;
 import static org.molgenis.data.QueryRule.Operator.NESTED;
 import static org.molgenis.data.QueryRule.Operator.OR;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.meta.AttributeType.BOOL;
 import static org.molgenis.data.meta.AttributeType.CATEGORICAL;
 import static org.molgenis.data.meta.AttributeType.CATEGORICAL_MREF;
@@ -33,6 +37,7 @@ import static org.molgenis.data.meta.AttributeType.TEXT;
 import static org.molgenis.data.meta.AttributeType.XREF;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.ColumnMode.EXCLUDE_DEFAULT_CONSTRAINT;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.ColumnMode.INCLUDE_DEFAULT_CONSTRAINT;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlAggregate;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlJunctionTableSelect;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlSelect;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlSort;
@@ -49,15 +54,18 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.PermittedObjectsFilter;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.Sort;
+import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.IllegalAttributeTypeException;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.Package;
 import org.molgenis.data.postgresql.PostgreSqlQueryGenerator.ColumnMode;
+import org.molgenis.data.support.AggregateQueryImpl;
 import org.molgenis.data.support.QueryImpl;
 
 class PostgreSqlQueryGeneratorTest {
@@ -237,6 +245,18 @@ class PostgreSqlQueryGeneratorTest {
     assertEquals(expectedSql, PostgreSqlQueryGenerator.getSqlDropUpdateTrigger(entityType));
   }
 
+  @Test
+  void getSqlSelectPartitionBoundaries() {
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("id").getMock();
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    String expectedSql =
+        "SELECT MIN(\"id\") FROM (SELECT \"id\", ntile(?) OVER (ORDER BY \"id\") AS \"partition\" FROM \"entityTypeId#c34894ba\") AS \"partitions\" GROUP BY \"partition\" ORDER BY 1";
+    assertEquals(
+        expectedSql, PostgreSqlQueryGenerator.getSqlSelectPartitionBoundaries(entityType));
+  }
+
   @Test
   void getSqlCreateForeignKey() {
     Attribute refIdAttr = when(mock(Attribute.class).getName()).thenReturn("refIdAttr").getMock();
@@ -434,6 +454,29 @@ class PostgreSqlQueryGeneratorTest {
         getSqlJunctionTableSelect(entityType, attr, 3));
   }
 
+  @Test
+  void getSqlAggregate() {
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    Attribute xAttr = when(mock(Attribute.class).getName()).thenReturn("xAttr").getMock();
+    when(xAttr.getDataType()).thenReturn(STRING);
+    Attribute yAttr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(yAttr.getDataType()).thenReturn(MREF);
+    Attribute distinctAttr =
+        when(mock(Attribute.class).getName()).thenReturn("distinctAttr").getMock();
+    when(distinctAttr.getDataType()).thenReturn(XREF);
+
+    AggregateQuery aggregateQuery =
+        new AggregateQueryImpl().attrX(xAttr).attrY(yAttr).attrDistinct(distinctAttr);
+    List<Object> parameters = new ArrayList<>();
+    assertEquals(
+        "SELECT this.\"xAttr\", y.\"attr\", COUNT(DISTINCT this.\"distinctAttr\") FROM \"entityTypeId#c34894ba\" AS this LEFT JOIN \"entityTypeId#c34894ba_attr\" AS y ON (this.\"idAttr\" = y.\"idAttr\") GROUP BY this.\"xAttr\", y.\"attr\"",
+        getSqlAggregate(entityType, aggregateQuery, parameters));
+    assertEquals(emptyList(), parameters);
+  }
+
   @Test
   void getSqlInsertJunction() {
     EntityType entityType = when(mock(EntityType.class).getId()).thenReturn("entity").getMock();
@@ -449,6 +492,40 @@ class PostgreSqlQueryGeneratorTest {
         PostgreSqlQueryGenerator.getSqlInsertJunction(entityType, attr));
   }
 
+  @Test
+  void getSqlCopy() {
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    when(idAttr.getDataType()).thenReturn(STRING);
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(XREF);
+    Attribute mrefAttr = when(mock(Attribute.class).getName()).thenReturn("mrefAttr").getMock();
+    when(mrefAttr.getDataType()).thenReturn(MREF);
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+    when(entityType.getAtomicAttributes()).thenReturn(newArrayList(idAttr, attr, mrefAttr));
+    assertEquals(
+        "COPY \"entityTypeId#c34894ba\" (\"idAttr\", \"attr\") FROM STDIN (FORMAT csv)",
+        PostgreSqlQueryGenerator.getSqlCopy(entityType));
+  }
+
+  @Test
+  void getSqlCopyJunction() {
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(MREF);
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    assertEquals(
+        "COPY \"entityTypeId#c34894ba_attr\" (\"order\",\"idAttr\",\"attr\") "
+            + "FROM STDIN (FORMAT csv)",
+        PostgreSqlQueryGenerator.getSqlCopyJunction(entityType, attr));
+  }
+
   @Test
   void getSqlInsertJunctionInversedBy() {
     EntityType entityType = when(mock(EntityType.class).getId()).thenReturn("entity").getMock();
@@ -526,6 +603,69 @@ class PostgreSqlQueryGeneratorTest {
     assertEquals(emptyList(), parameters);
   }
 
+  @Test
+  void getSqlSelectAfterIdValue() {
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    when(idAttr.getDataType()).thenReturn(STRING);
+    when(idAttr.isUnique()).thenReturn(true);
+
+    EntityType entityType = when(mock(EntityType.class).getId()).thenReturn("entity").getMock();
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getAtomicAttributes()).thenReturn(singletonList(idAttr));
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("idAttr")).thenReturn(idAttr);
+
+    Query<Entity> q = new QueryImpl<>().pageSize(1000);
+    List<Object> parameters = Lists.newArrayList();
+    assertEquals(
+        "SELECT this.\"idAttr\" FROM \"entityTypeId#c34894ba\" AS this WHERE this.\"idAttr\" > ? ORDER BY \"idAttr\" ASC LIMIT 1000",
+        getSqlSelect(entityType, q, parameters, true, "id0"));
+    assertEquals(singletonList("id0"), parameters);
+  }
+
+  @Test
+  void getSqlSelectAfterIdValueSortDescending() {
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    when(idAttr.getDataType()).thenReturn(STRING);
+    when(idAttr.isUnique()).thenReturn(true);
+
+    EntityType entityType = when(mock(EntityType.class).getId()).thenReturn("entity").getMock();
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getAtomicAttributes()).thenReturn(singletonList(idAttr));
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("idAttr")).thenReturn(idAttr);
+
+    Query<Entity> q = new QueryImpl<>().sort(new Sort("idAttr", Sort.Direction.DESC));
+    List<Object> parameters = Lists.newArrayList();
+    assertEquals(
+        "SELECT this.\"idAttr\" FROM \"entityTypeId#c34894ba\" AS this WHERE this.\"idAttr\" < ? ORDER BY \"idAttr\" DESC",
+        getSqlSelect(entityType, q, parameters, true, "id0"));
+    assertEquals(singletonList("id0"), parameters);
+  }
+
+  @Test
+  void isKeysetPaginationSupported() {
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+
+    assertTrue(PostgreSqlQueryGenerator.isKeysetPaginationSupported(entityType, new QueryImpl<>()));
+    assertTrue(
+        PostgreSqlQueryGenerator.isKeysetPaginationSupported(
+            entityType, new QueryImpl<>().sort(new Sort("idAttr", Sort.Direction.DESC))));
+    assertFalse(
+        PostgreSqlQueryGenerator.isKeysetPaginationSupported(
+            entityType, new QueryImpl<>().sort(new Sort("attr"))));
+    assertFalse(
+        PostgreSqlQueryGenerator.isKeysetPaginationSupported(
+            entityType, new QueryImpl<>().sort(new Sort("idAttr").on("attr"))));
+    assertFalse(
+        PostgreSqlQueryGenerator.isKeysetPaginationSupported(
+            entityType, new QueryImpl<>().fetch(new Fetch().field("attr"))));
+  }
+
   static Iterator<Object[]> getSqlSelectOneToManyMappedByProvider() {
     List<Object[]> dataList = new ArrayList<>();
     dataList.add(
@@ -1372,6 +1512,124 @@ class PostgreSqlQueryGeneratorTest {
         sqlWhere);
   }
 
+  @Test
+  void getSqlWherePermitted() {
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    when(idAttr.getDataType()).thenReturn(INT);
+
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(STRING);
+
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("attr")).thenReturn(attr);
+
+    PermittedObjectsFilter permittedObjectsFilter =
+        PermittedObjectsFilter.create(
+            "entity-entityTypeId", singletonList("user"), asList("ROLE_USER", "ROLE_X"), 12);
+    QueryImpl<Entity> q = new QueryImpl<>();
+    q.addRule(new QueryRule("attr", EQUALS, "value"));
+    q.addRule(new QueryRule(AND));
+    q.addRule(new QueryRule(PERMITTED, permittedObjectsFilter));
+
+    List<Object> parameters = Lists.newArrayList();
+    String sqlWhere =
+        PostgreSqlQueryGenerator.getSqlWhere(entityType, q, parameters, new AtomicInteger());
+    String sidOrder =
+        "CASE WHEN acl_sid.principal AND acl_sid.sid = ? THEN 0"
+            + " WHEN NOT acl_sid.principal AND acl_sid.sid = ? THEN 1"
+            + " WHEN NOT acl_sid.principal AND acl_sid.sid = ? THEN 2 END";
+    String permissionGranted =
+        "(SELECT permission_entry.granting"
+            + " FROM (SELECT acl_entry.granting, acl_entry.ace_order, "
+            + sidOrder
+            + " AS sid_order FROM acl_entry JOIN acl_sid ON acl_entry.sid = acl_sid.id"
+            + " WHERE acl_entry.acl_object_identity = acl_object_identity.id"
+            + " AND (acl_entry.mask & ?) <> 0) AS permission_entry"
+            + " WHERE permission_entry.sid_order IS NOT NULL"
+            + " ORDER BY permission_entry.sid_order, permission_entry.ace_order LIMIT 1)";
+    assertEquals(
+        "this.\"attr\" = ?  AND this.\"idAttr\" IN"
+            + " (SELECT CAST(acl_object_identity.object_id_identity AS integer)"
+            + " FROM acl_object_identity"
+            + " JOIN acl_class ON acl_object_identity.object_id_class = acl_class.id"
+            + " WHERE acl_class.class = ? AND ("
+            + permissionGranted
+            + " OR "
+            + permissionGranted
+            + "))",
+        sqlWhere);
+    assertEquals(
+        asList(
+            "value",
+            "entity-entityTypeId",
+            "user",
+            "ROLE_USER",
+            "ROLE_X",
+            4,
+            "user",
+            "ROLE_USER",
+            "ROLE_X",
+            8),
+        parameters);
+  }
+
+  /**
+   * A user with a denying entry and a group with a granting entry: the entry of the user is ordered
+   * first and decides, as in the permission granting strategy.
+   */
+  @Test
+  void getSqlWherePermittedDenyingEntry() {
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    when(idAttr.getDataType()).thenReturn(STRING);
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+
+    PermittedObjectsFilter permittedObjectsFilter =
+        PermittedObjectsFilter.create(
+            "entity-entityTypeId", singletonList("user"), singletonList("ROLE_GROUP"), 4);
+    QueryImpl<Entity> q = new QueryImpl<>();
+    q.addRule(new QueryRule(PERMITTED, permittedObjectsFilter));
+
+    List<Object> parameters = Lists.newArrayList();
+    String sqlWhere =
+        PostgreSqlQueryGenerator.getSqlWhere(entityType, q, parameters, new AtomicInteger());
+    assertEquals(
+        "this.\"idAttr\" IN"
+            + " (SELECT CAST(acl_object_identity.object_id_identity AS character varying(255))"
+            + " FROM acl_object_identity"
+            + " JOIN acl_class ON acl_object_identity.object_id_class = acl_class.id"
+            + " WHERE acl_class.class = ? AND ((SELECT permission_entry.granting"
+            + " FROM (SELECT acl_entry.granting, acl_entry.ace_order,"
+            + " CASE WHEN acl_sid.principal AND acl_sid.sid = ? THEN 0"
+            + " WHEN NOT acl_sid.principal AND acl_sid.sid = ? THEN 1 END"
+            + " AS sid_order FROM acl_entry JOIN acl_sid ON acl_entry.sid = acl_sid.id"
+            + " WHERE acl_entry.acl_object_identity = acl_object_identity.id"
+            + " AND (acl_entry.mask & ?) <> 0) AS permission_entry"
+            + " WHERE permission_entry.sid_order IS NOT NULL"
+            + " ORDER BY permission_entry.sid_order, permission_entry.ace_order LIMIT 1)))",
+        sqlWhere);
+    assertEquals(asList("entity-entityTypeId", "user", "ROLE_GROUP", 4), parameters);
+  }
+
+  @Test
+  void getSqlWherePermittedNoSids() {
+    EntityType entityType = mock(EntityType.class);
+    PermittedObjectsFilter permittedObjectsFilter =
+        PermittedObjectsFilter.create("entity-entityTypeId", emptyList(), emptyList(), 4);
+    QueryImpl<Entity> q = new QueryImpl<>();
+    q.addRule(new QueryRule(PERMITTED, permittedObjectsFilter));
+
+    List<Object> parameters = Lists.newArrayList();
+    assertEquals(
+        "FALSE",
+        PostgreSqlQueryGenerator.getSqlWhere(entityType, q, parameters, new AtomicInteger()));
+    assertEquals(emptyList(), parameters);
+  }
+
   @Test
   void testGetSqlUpdate() {
     String idAttributeName = "MyIdAttribute";
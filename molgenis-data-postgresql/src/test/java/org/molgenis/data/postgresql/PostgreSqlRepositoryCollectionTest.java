@@ -53,7 +53,7 @@ class PostgreSqlRepositoryCollectionTest {
     dataService = mock(DataService.class);
     postgreSqlRepoCollection =
         new PostgreSqlRepositoryCollection(
-            postgreSqlEntityFactory, dataSource, jdbcTemplate, dataService);
+            postgreSqlEntityFactory, dataSource, jdbcTemplate, dataService, false);
   }
 
   @Test
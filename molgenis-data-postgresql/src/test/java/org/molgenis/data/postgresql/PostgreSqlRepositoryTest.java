@@ -2,13 +2,20 @@ package org.molgenis.data.postgresql;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.nCopies;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockitoSession;
@@ -29,6 +36,8 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Multimap;
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
@@ -46,13 +55,20 @@ import org.mockito.MockitoSession;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
+import org.molgenis.data.aggregation.AggregateResult;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.support.AggregateQueryImpl;
+import org.molgenis.data.support.QueryImpl;
 import org.molgenis.data.validation.MolgenisValidationException;
 import org.molgenis.util.UnexpectedEnumException;
 import org.molgenis.validation.ConstraintViolation;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
@@ -72,7 +88,8 @@ class PostgreSqlRepositoryTest {
   void setUpBeforeMethod() throws Exception {
     mockitoSession = mockitoSession().initMocks(this).strictness(STRICT_STUBS).startMocking();
     postgreSqlRepo =
-        new PostgreSqlRepository(postgreSqlEntityFactory, jdbcTemplate, dataSource, entityType);
+        new PostgreSqlRepository(
+            postgreSqlEntityFactory, jdbcTemplate, dataSource, entityType, false);
   }
 
   @AfterEach
@@ -124,6 +141,41 @@ class PostgreSqlRepositoryTest {
     assertEquals(count, postgreSqlRepo.count(query));
   }
 
+  @Test
+  void testAggregate() throws SQLException {
+    Attribute idAttr = mock(Attribute.class);
+    when(idAttr.getName()).thenReturn("id");
+    Attribute xAttr = mock(Attribute.class);
+    when(xAttr.getName()).thenReturn("xAttr");
+    when(xAttr.getDataType()).thenReturn(STRING);
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getString(1)).thenReturn("b", "a", null);
+    when(resultSet.getLong(2)).thenReturn(2L, 3L, 1L);
+    String sql =
+        "SELECT this.\"xAttr\", COUNT(DISTINCT this.\"id\") FROM \"entityTypeId#c34894ba\" AS this GROUP BY this.\"xAttr\"";
+    doAnswer(
+            invocation -> {
+              RowCallbackHandler rowCallbackHandler = invocation.getArgument(2);
+              for (int i = 0; i < 3; i++) {
+                rowCallbackHandler.processRow(resultSet);
+              }
+              return null;
+            })
+        .when(jdbcTemplate)
+        .query(eq(sql), eq(new Object[0]), any(RowCallbackHandler.class));
+
+    AggregateResult expectedAggregateResult =
+        new AggregateResult(
+            asList(singletonList(3L), singletonList(2L), singletonList(1L)),
+            asList("a", "b", null),
+            emptyList());
+    assertEquals(
+        expectedAggregateResult, postgreSqlRepo.aggregate(new AggregateQueryImpl().attrX(xAttr)));
+  }
+
   @Test
   void findAllQueryOneToManyEquals() throws Exception {
     String oneToManyAttrName = "oneToManyAttr";
@@ -161,7 +213,8 @@ class PostgreSqlRepositoryTest {
     when(entityType.getAtomicAttributes()).thenReturn(newArrayList(idAttr, oneToManyAttr));
     EntityType entityType = this.entityType;
     postgreSqlRepo =
-        new PostgreSqlRepository(postgreSqlEntityFactory, jdbcTemplate, dataSource, entityType);
+        new PostgreSqlRepository(
+            postgreSqlEntityFactory, jdbcTemplate, dataSource, entityType, false);
 
     int queryValue = 2;
     QueryRule queryRule = new QueryRule(oneToManyAttrName, EQUALS, queryValue);
@@ -177,6 +230,37 @@ class PostgreSqlRepositoryTest {
     assertEquals(singletonList(entity0), postgreSqlRepo.findAll(query).collect(toList()));
   }
 
+  @Test
+  void testIteratorKeysetPagination() {
+    Attribute idAttr = mock(Attribute.class);
+    when(idAttr.getName()).thenReturn("entityId");
+    when(idAttr.getDataType()).thenReturn(STRING);
+
+    when(entityType.getId()).thenReturn("entityId");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("entityId")).thenReturn(idAttr);
+    when(entityType.getAtomicAttributes()).thenReturn(singletonList(idAttr));
+    when(postgreSqlEntityFactory.createRowMapper(entityType, null)).thenReturn(rowMapper);
+
+    Entity lastEntityOfFirstBatch = mock(Entity.class);
+    when(lastEntityOfFirstBatch.getIdValue()).thenReturn("id999");
+    List<Entity> firstBatch = newArrayList(nCopies(999, mock(Entity.class)));
+    firstBatch.add(lastEntityOfFirstBatch);
+    String firstBatchSql =
+        "SELECT this.\"entityId\" FROM \"entityId#fc2928f6\" AS this ORDER BY \"entityId\" ASC LIMIT 1000";
+    when(jdbcTemplate.query(firstBatchSql, new Object[0], rowMapper)).thenReturn(firstBatch);
+
+    Entity entityOfSecondBatch = mock(Entity.class);
+    String secondBatchSql =
+        "SELECT this.\"entityId\" FROM \"entityId#fc2928f6\" AS this WHERE this.\"entityId\" > ? ORDER BY \"entityId\" ASC LIMIT 1000";
+    when(jdbcTemplate.query(secondBatchSql, new Object[] {"id999"}, rowMapper))
+        .thenReturn(singletonList(entityOfSecondBatch));
+
+    List<Entity> entities = newArrayList(postgreSqlRepo.iterator());
+    assertEquals(1001, entities.size());
+    assertEquals(entityOfSecondBatch, entities.get(1000));
+  }
+
   @Test
   void testUpdateEntitiesExist() {
     Attribute idAttr = mock(Attribute.class);
@@ -228,6 +312,60 @@ class PostgreSqlRepositoryTest {
         .containsPattern("Cannot update \\[entity\\] with id \\[id1\\] because it does not exist");
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  void testAddStreamBulkLoad() throws SQLException {
+    postgreSqlRepo =
+        new PostgreSqlRepository(
+            postgreSqlEntityFactory, jdbcTemplate, dataSource, entityType, true);
+
+    Attribute idAttr = mock(Attribute.class);
+    when(idAttr.getName()).thenReturn("id");
+    when(idAttr.getDataType()).thenReturn(STRING);
+    Attribute attr = mock(Attribute.class);
+    when(attr.getName()).thenReturn("attr");
+    when(attr.getDataType()).thenReturn(STRING);
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAtomicAttributes()).thenReturn(asList(idAttr, attr));
+
+    Entity entity0 = mock(Entity.class);
+    when(entity0.getString("id")).thenReturn("id0");
+    when(entity0.getString("attr")).thenReturn("value \"0\"");
+    Entity entity1 = mock(Entity.class);
+    when(entity1.getString("id")).thenReturn("id1");
+
+    ByteArrayOutputStream copiedBytes = new ByteArrayOutputStream();
+    CopyIn copyIn = mock(CopyIn.class);
+    doAnswer(
+            invocation -> {
+              copiedBytes.write(
+                  invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+              return null;
+            })
+        .when(copyIn)
+        .writeToCopy(any(byte[].class), anyInt(), anyInt());
+    when(copyIn.endCopy()).thenReturn(2L);
+    CopyManager copyManager = mock(CopyManager.class);
+    String copySql = "COPY \"entityTypeId#c34894ba\" (\"id\", \"attr\") FROM STDIN (FORMAT csv)";
+    when(copyManager.copyIn(copySql)).thenReturn(copyIn);
+    PGConnection pgConnection = mock(PGConnection.class);
+    when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+    Connection connection = mock(Connection.class);
+    when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+    doAnswer(
+            invocation ->
+                invocation.<ConnectionCallback<Long>>getArgument(0).doInConnection(connection))
+        .when(jdbcTemplate)
+        .execute(any(ConnectionCallback.class));
+
+    assertEquals(Integer.valueOf(2), postgreSqlRepo.add(Stream.of(entity0, entity1)));
+    assertEquals(
+        "\"id0\",\"value \"\"0\"\"\"\n\"id1\",\n", new String(copiedBytes.toByteArray(), UTF_8));
+    verify(jdbcTemplate).execute(any(ConnectionCallback.class));
+    verifyNoMoreInteractions(jdbcTemplate);
+  }
+
   @SuppressWarnings("ConstantConditions")
   @Test
   void testAddEntityNull() {
@@ -258,6 +396,30 @@ class PostgreSqlRepositoryTest {
     };
   }
 
+  @Test
+  void testPartition() {
+    Attribute idAttr = mock(Attribute.class);
+    when(idAttr.getName()).thenReturn("id");
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    String sql =
+        "SELECT MIN(\"id\") FROM (SELECT \"id\", ntile(?) OVER (ORDER BY \"id\") AS \"partition\" FROM \"entityTypeId#c34894ba\") AS \"partitions\" GROUP BY \"partition\" ORDER BY 1";
+    when(jdbcTemplate.queryForList(sql, new Object[] {3}, Object.class))
+        .thenReturn(asList("a", "h", "p"));
+
+    assertEquals(
+        asList(
+            new QueryImpl<>().lt("id", "h"),
+            new QueryImpl<>().ge("id", "h").and().lt("id", "p"),
+            new QueryImpl<>().ge("id", "p")),
+        postgreSqlRepo.partition(3));
+  }
+
+  @Test
+  void testPartitionSingle() {
+    assertEquals(singletonList(new QueryImpl<>()), postgreSqlRepo.partition(1));
+  }
+
   @Test
   void testMrefValueTooLong() {
     Attribute attr = mock(Attribute.class);
@@ -0,0 +1,146 @@
+package org.molgenis.data.postgresql.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.postgresql.cache.PostgreSqlCacheInvalidationBus.CHANNEL;
+import static org.molgenis.data.postgresql.cache.PostgreSqlCacheInvalidationBus.MAX_PAYLOAD_BYTES;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.molgenis.data.EntityKey;
+import org.molgenis.data.cache.invalidation.CacheInvalidation;
+import org.molgenis.data.cache.invalidation.CacheInvalidationListener;
+import org.molgenis.data.transaction.TransactionInformation;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.test.AbstractMockitoTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class PostgreSqlCacheInvalidationBusTest extends AbstractMockitoTest {
+  @Mock private TransactionManager transactionManager;
+  @Mock private TransactionInformation transactionInformation;
+  @Mock private DataSource dataSource;
+  @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private CacheInvalidationListener cacheInvalidationListener;
+  private PostgreSqlCacheInvalidationBus postgreSqlCacheInvalidationBus;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    postgreSqlCacheInvalidationBus = createBus();
+  }
+
+  private PostgreSqlCacheInvalidationBus createBus() {
+    return new PostgreSqlCacheInvalidationBus(
+        transactionManager,
+        transactionInformation,
+        dataSource,
+        jdbcTemplate,
+        singletonList(cacheInvalidationListener),
+        false);
+  }
+
+  @Test
+  void testCommitTransaction() {
+    when(transactionInformation.getEntirelyDirtyRepositories()).thenReturn(singleton("entityA"));
+    when(transactionInformation.getDirtyEntities())
+        .thenReturn(
+            ImmutableSet.of(EntityKey.create("entityA", "id0"), EntityKey.create("entityB", 1)));
+
+    postgreSqlCacheInvalidationBus.commitTransaction("transactionId");
+
+    ArgumentCaptor<String> payloadCaptor = ArgumentCaptor.forClass(String.class);
+    verify(jdbcTemplate)
+        .queryForList(eq("SELECT pg_notify(?, ?)"), eq(CHANNEL), payloadCaptor.capture());
+
+    createBus().handlePayload(payloadCaptor.getValue());
+    verify(cacheInvalidationListener)
+        .invalidate(
+            CacheInvalidation.create(
+                singleton(EntityKey.create("entityB", 1)), singleton("entityA")));
+  }
+
+  @Test
+  void testCommitTransactionNothingDirty() {
+    when(transactionInformation.getEntirelyDirtyRepositories()).thenReturn(emptySet());
+    when(transactionInformation.getDirtyEntities()).thenReturn(emptySet());
+
+    postgreSqlCacheInvalidationBus.commitTransaction("transactionId");
+
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void testHandlePayloadTypedIds() {
+    Set<EntityKey> dirtyEntities =
+        ImmutableSet.of(
+            EntityKey.create("entityA", "id0"),
+            EntityKey.create("entityB", 1),
+            EntityKey.create("entityC", 2L));
+    CacheInvalidation cacheInvalidation = CacheInvalidation.create(dirtyEntities, emptySet());
+    List<String> payloads = createBus().createPayloads(cacheInvalidation);
+    assertEquals(1, payloads.size());
+
+    postgreSqlCacheInvalidationBus.handlePayload(payloads.get(0));
+
+    verify(cacheInvalidationListener).invalidate(cacheInvalidation);
+  }
+
+  @Test
+  void testHandlePayloadSameNode() {
+    CacheInvalidation cacheInvalidation = CacheInvalidation.create(emptySet(), singleton("entity"));
+    List<String> payloads = postgreSqlCacheInvalidationBus.createPayloads(cacheInvalidation);
+
+    postgreSqlCacheInvalidationBus.handlePayload(payloads.get(0));
+
+    verifyNoInteractions(cacheInvalidationListener);
+  }
+
+  @Test
+  void testHandlePayloadInvalid() {
+    postgreSqlCacheInvalidationBus.handlePayload("invalid");
+
+    verify(cacheInvalidationListener).invalidateAll();
+    verify(cacheInvalidationListener, never()).invalidate(any());
+  }
+
+  @Test
+  void testCreatePayloadsTooManyEntities() {
+    Set<EntityKey> dirtyEntities =
+        IntStream.range(0, 2000)
+            .mapToObj(i -> EntityKey.create("entity" + i, "id" + i))
+            .collect(toSet());
+    CacheInvalidation cacheInvalidation = CacheInvalidation.create(dirtyEntities, emptySet());
+
+    List<String> payloads = postgreSqlCacheInvalidationBus.createPayloads(cacheInvalidation);
+
+    assertTrue(payloads.size() > 1);
+    payloads.forEach(
+        payload -> assertTrue(payload.getBytes(UTF_8).length <= MAX_PAYLOAD_BYTES, payload));
+    payloads.forEach(createBus()::handlePayload);
+    ArgumentCaptor<CacheInvalidation> captor = ArgumentCaptor.forClass(CacheInvalidation.class);
+    verify(cacheInvalidationListener, times(payloads.size())).invalidate(captor.capture());
+    Set<String> dirtyRepositories =
+        captor.getAllValues().stream()
+            .flatMap(invalidation -> invalidation.getDirtyRepositories().stream())
+            .collect(toSet());
+    assertEquals(cacheInvalidation.getEntityTypeIds(), dirtyRepositories);
+  }
+}
@@ -51,6 +51,13 @@ public class RepositorySecurityDecorator extends AbstractRepositoryDecorator<Ent
     delegate().forEachBatched(fetch, consumer, batchSize);
   }
 
+  @Override
+  public List<Query<Entity>> partition(int numberOfPartitions) {
+    EntityType entityType = delegate().getEntityType();
+    validatePermission(entityType, READ_DATA);
+    return delegate().partition(numberOfPartitions);
+  }
+
   @Override
   public void close() throws IOException {
     delegate().close();
@@ -22,6 +22,11 @@ public class AnonymizedAggregateResult extends AggregateResult {
     return anonymizationThreshold;
   }
 
+  @Override
+  public AnonymizedAggregateResult withLabels(List<Object> xLabels, List<Object> yLabels) {
+    return new AnonymizedAggregateResult(getMatrix(), xLabels, yLabels, anonymizationThreshold);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -4,20 +4,37 @@ import static com.google.common.collect.Iterators.partition;
 import static com.google.common.collect.Streams.stream;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
+import static org.molgenis.data.QueryRule.Operator.AND;
+import static org.molgenis.data.QueryRule.Operator.DIS_MAX;
+import static org.molgenis.data.QueryRule.Operator.FUZZY_MATCH;
+import static org.molgenis.data.QueryRule.Operator.FUZZY_MATCH_NGRAM;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
+import static org.molgenis.data.QueryRule.Operator.SEARCH;
+import static org.molgenis.data.QueryRule.Operator.SHOULD;
+import static org.molgenis.data.QueryUtils.containsAnyOperator;
+import static org.molgenis.data.QueryUtils.containsComputedAttribute;
+import static org.molgenis.data.QueryUtils.containsNestedQueryRuleField;
 import static org.molgenis.data.security.owned.AbstractRowLevelSecurityRepositoryDecorator.Action.COUNT;
 import static org.molgenis.data.security.owned.AbstractRowLevelSecurityRepositoryDecorator.Action.DELETE;
 import static org.molgenis.data.security.owned.AbstractRowLevelSecurityRepositoryDecorator.Action.READ;
 import static org.molgenis.data.security.owned.AbstractRowLevelSecurityRepositoryDecorator.Action.UPDATE;
 import static org.molgenis.security.core.utils.SecurityUtils.currentUserIsSuOrSystem;
 
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.molgenis.data.AbstractRepositoryDecorator;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
+import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.Repository;
 import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.aggregation.AggregateResult;
@@ -31,6 +48,10 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
     extends AbstractRepositoryDecorator<E> {
   private static final int BATCH_SIZE = 1000;
 
+  /** Operators that cause queries to be routed to the index */
+  private static final Set<Operator> INDEX_OPERATORS =
+      EnumSet.of(SEARCH, SHOULD, DIS_MAX, FUZZY_MATCH, FUZZY_MATCH_NGRAM);
+
   private final MutableAclService mutableAclService;
 
   /** The operation that is being performed on this repository. */
@@ -69,11 +90,15 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
 
   @Override
   public long count() {
-    return findAllPermitted(COUNT).count();
+    return count(new QueryImpl<>());
   }
 
   @Override
   public long count(Query<E> q) {
+    Query<E> permittedQuery = createPermittedQuery(q, COUNT);
+    if (permittedQuery != null) {
+      return delegate().count(permittedQuery);
+    }
     return findAllPermitted(q, COUNT).count();
   }
 
@@ -224,11 +249,12 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
                 }));
   }
 
-  private Stream<E> findAllPermitted(Action action) {
-    return findAllPermitted(new QueryImpl<>(), action);
-  }
-
   private Stream<E> findAllPermitted(Query<E> query, Action action) {
+    Query<E> permittedQuery = createPermittedQuery(query, action);
+    if (permittedQuery != null) {
+      return delegate().findAll(permittedQuery);
+    }
+
     Query<E> qWithoutLimitOffset = new QueryImpl<>(query);
     qWithoutLimitOffset.offset(0).pageSize(Integer.MAX_VALUE);
     Stream<E> permittedEntityStream =
@@ -242,6 +268,64 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
     return permittedEntityStream;
   }
 
+  /**
+   * Returns a copy of the query that only matches entities for which the action is permitted, so
+   * that the delegate repository can apply paging, sorting and counting. Returns <code>null</code>
+   * if permissions have to be checked entity by entity.
+   */
+  @Nullable
+  @CheckForNull
+  private Query<E> createPermittedQuery(Query<E> query, Action action) {
+    if (!isPermittedQuerySupported(query)) {
+      return null;
+    }
+    Optional<QueryRule> optionalPermittedQueryRule = createPermittedQueryRule(action);
+    if (!optionalPermittedQueryRule.isPresent()) {
+      return null;
+    }
+    if (currentUserIsSuOrSystem()) {
+      return query;
+    }
+
+    QueryRule permittedQueryRule = optionalPermittedQueryRule.get();
+    QueryImpl<E> permittedQuery = new QueryImpl<>();
+    List<QueryRule> queryRules = query.getRules();
+    if (queryRules.isEmpty()) {
+      permittedQuery.addRule(permittedQueryRule);
+    } else {
+      permittedQuery.addRule(new QueryRule(queryRules));
+      permittedQuery.addRule(new QueryRule(AND));
+      permittedQuery.addRule(permittedQueryRule);
+    }
+    permittedQuery.offset(query.getOffset());
+    permittedQuery.pageSize(query.getPageSize());
+    permittedQuery.sort(query.getSort());
+    permittedQuery.fetch(query.getFetch());
+    return permittedQuery;
+  }
+
+  /**
+   * Returns whether the delegate repository can evaluate the query combined with a {@link
+   * Operator#PERMITTED} query rule. Queries that would be routed to the index can't be combined
+   * with the access control list tables.
+   */
+  @SuppressWarnings("unchecked")
+  private boolean isPermittedQuerySupported(Query<E> query) {
+    Query<Entity> entityQuery = (Query<Entity>) query;
+    return delegate().getQueryOperators().contains(PERMITTED)
+        && !containsAnyOperator(entityQuery, INDEX_OPERATORS)
+        && !containsComputedAttribute(entityQuery, getEntityType())
+        && !containsNestedQueryRuleField(entityQuery);
+  }
+
+  /**
+   * Returns a {@link Operator#PERMITTED} query rule that matches entities for which the action is
+   * permitted, or an empty Optional if permissions have to be checked entity by entity.
+   */
+  Optional<QueryRule> createPermittedQueryRule(Action action) {
+    return Optional.empty();
+  }
+
   void deleteAcl(ObjectIdentity objectIdentity) {
     mutableAclService.deleteAcl(objectIdentity, true);
   }
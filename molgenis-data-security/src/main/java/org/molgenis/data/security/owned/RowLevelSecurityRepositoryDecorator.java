@@ -2,8 +2,11 @@ package org.molgenis.data.security.owned;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.Optional;
+import javax.annotation.Nullable;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityAlreadyExistsException;
+import org.molgenis.data.QueryRule;
 import org.molgenis.data.Repository;
 import org.molgenis.data.security.EntityIdentity;
 import org.molgenis.data.security.EntityPermission;
@@ -25,14 +28,28 @@ public class RowLevelSecurityRepositoryDecorator
     extends AbstractRowLevelSecurityRepositoryDecorator<Entity> {
   private final UserPermissionEvaluator userPermissionEvaluator;
   private final MutableAclService mutableAclService;
+  private final PermittedQueryRuleFactory permittedQueryRuleFactory;
 
   RowLevelSecurityRepositoryDecorator(
       Repository<Entity> delegateRepository,
       UserPermissionEvaluator userPermissionEvaluator,
       MutableAclService mutableAclService) {
+    this(delegateRepository, userPermissionEvaluator, mutableAclService, null);
+  }
+
+  /**
+   * @param permittedQueryRuleFactory if not <code>null</code> then permissions are added to
+   *     queries as a query rule instead of being checked for each entity
+   */
+  RowLevelSecurityRepositoryDecorator(
+      Repository<Entity> delegateRepository,
+      UserPermissionEvaluator userPermissionEvaluator,
+      MutableAclService mutableAclService,
+      @Nullable PermittedQueryRuleFactory permittedQueryRuleFactory) {
     super(delegateRepository, mutableAclService);
     this.userPermissionEvaluator = requireNonNull(userPermissionEvaluator);
     this.mutableAclService = requireNonNull(mutableAclService);
+    this.permittedQueryRuleFactory = permittedQueryRuleFactory;
   }
 
   @Override
@@ -45,6 +62,14 @@ public class RowLevelSecurityRepositoryDecorator
     return isActionPermitted(toEntityIdentity(id), operation);
   }
 
+  @Override
+  Optional<QueryRule> createPermittedQueryRule(Action action) {
+    if (permittedQueryRuleFactory == null) {
+      return Optional.empty();
+    }
+    return Optional.of(permittedQueryRuleFactory.create(getEntityType(), getPermission(action)));
+  }
+
   @Override
   public void throwPermissionException(Entity entity, Action action) {
     throw new EntityPermissionDeniedException(getPermission(action), entity);
@@ -4,9 +4,11 @@ import static java.util.Objects.requireNonNull;
 
 import org.molgenis.data.Entity;
 import org.molgenis.data.Repository;
+import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.security.EntityIdentityUtils;
 import org.molgenis.security.acl.MutableAclClassService;
 import org.molgenis.security.core.UserPermissionEvaluator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.acls.model.MutableAclService;
 import org.springframework.stereotype.Component;
 
@@ -16,14 +18,24 @@ public class RowLevelSecurityRepositoryDecoratorFactory {
   private final UserPermissionEvaluator userPermissionEvaluator;
   private final MutableAclService mutableAclService;
   private final MutableAclClassService mutableAclClassService;
+  private final PermittedQueryRuleFactory permittedQueryRuleFactory;
+  private final boolean queryFilterEnabled;
 
+  /**
+   * @param queryFilterEnabled whether to let the repository filter permitted entities by joining
+   *     the access control list tables instead of checking permissions entity by entity
+   */
   RowLevelSecurityRepositoryDecoratorFactory(
       UserPermissionEvaluator userPermissionEvaluator,
       MutableAclService mutableAclService,
-      MutableAclClassService mutableAclClassService) {
+      MutableAclClassService mutableAclClassService,
+      PermittedQueryRuleFactory permittedQueryRuleFactory,
+      @Value("${rowlevelsecurity.queryfilter.enabled:false}") boolean queryFilterEnabled) {
     this.userPermissionEvaluator = requireNonNull(userPermissionEvaluator);
     this.mutableAclService = requireNonNull(mutableAclService);
     this.mutableAclClassService = requireNonNull(mutableAclClassService);
+    this.permittedQueryRuleFactory = requireNonNull(permittedQueryRuleFactory);
+    this.queryFilterEnabled = queryFilterEnabled;
   }
 
   public Repository<Entity> createDecoratedRepository(Repository<Entity> repository) {
@@ -31,15 +43,22 @@ public class RowLevelSecurityRepositoryDecoratorFactory {
     if (isRowLevelSecured(repository)) {
       decoratedRepository =
           new RowLevelSecurityRepositoryDecorator(
-              repository, userPermissionEvaluator, mutableAclService);
+              repository,
+              userPermissionEvaluator,
+              mutableAclService,
+              queryFilterEnabled ? permittedQueryRuleFactory : null);
     } else {
       decoratedRepository = repository;
     }
     return decoratedRepository;
   }
 
-  private boolean isRowLevelSecured(Repository<Entity> repository) {
-    String aclClass = EntityIdentityUtils.toType(repository.getEntityType());
+  public boolean isRowLevelSecured(Repository<Entity> repository) {
+    return isRowLevelSecured(repository.getEntityType());
+  }
+
+  public boolean isRowLevelSecured(EntityType entityType) {
+    String aclClass = EntityIdentityUtils.toType(entityType);
     return mutableAclClassService.hasAclClass(aclClass);
   }
 }
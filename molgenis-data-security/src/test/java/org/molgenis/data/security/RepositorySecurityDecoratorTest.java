@@ -1,6 +1,7 @@
 package org.molgenis.data.security;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -402,6 +403,26 @@ class RepositorySecurityDecoratorTest extends AbstractMockitoTest {
         .containsPattern("permission:READ_DATA entityTypeId:entityTypeId");
   }
 
+  @Test
+  void testPartitionPermissionGranted() {
+    initPermissionServiceMock(EntityTypePermission.READ_DATA, true);
+    @SuppressWarnings("unchecked")
+    List<Query<Entity>> partitions = mock(List.class);
+    when(delegateRepository.partition(4)).thenReturn(partitions);
+    assertEquals(partitions, repositorySecurityDecorator.partition(4));
+  }
+
+  @Test
+  void testPartitionPermissionDenied() {
+    initPermissionServiceMock(EntityTypePermission.READ_DATA, false);
+    Exception exception =
+        assertThrows(
+            EntityTypePermissionDeniedException.class,
+            () -> repositorySecurityDecorator.partition(4));
+    assertThat(exception.getMessage())
+        .containsPattern("permission:READ_DATA entityTypeId:entityTypeId");
+  }
+
   @Test
   void testIteratorPermissionGranted() {
     initPermissionServiceMock(EntityTypePermission.READ_DATA, true);
@@ -0,0 +1,22 @@
+package org.molgenis.data.security.aggregation;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AnonymizedAggregateResultTest {
+  @Test
+  void testWithLabels() {
+    List<List<Long>> matrix = asList(singletonList(11L), singletonList(-1L));
+    AnonymizedAggregateResult result =
+        new AnonymizedAggregateResult(matrix, asList("x1", "x2"), emptyList(), 10);
+
+    assertEquals(
+        new AnonymizedAggregateResult(matrix, asList("label1", "label2"), emptyList(), 10),
+        result.withLabels(asList("label1", "label2"), emptyList()));
+  }
+}
@@ -16,10 +16,15 @@ import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.molgenis.data.QueryRule.Operator.AND;
+import static org.molgenis.data.QueryRule.Operator.EQUALS;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.security.EntityPermission.READ;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -31,9 +36,11 @@ import org.molgenis.data.Entity;
 import org.molgenis.data.EntityAlreadyExistsException;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
 import org.molgenis.data.Repository;
 import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.aggregation.AggregateResult;
+import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.security.EntityIdentity;
 import org.molgenis.data.security.EntityPermission;
@@ -58,6 +65,8 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
   @Mock private Repository<Entity> delegateRepository;
   @Mock private UserPermissionEvaluator userPermissionEvaluator;
   @Mock private MutableAclService mutableAclService;
+  @Mock private PermittedQueryRuleFactory permittedQueryRuleFactory;
+  @Mock private EntityType entityType;
   private RowLevelSecurityRepositoryDecorator rowLevelSecurityRepositoryDecorator;
 
   @BeforeEach
@@ -417,6 +426,64 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
     assertEquals(emptyList(), rowLevelSecurityRepositoryDecorator.findAll(query).collect(toList()));
   }
 
+  @WithMockUser(username = USERNAME)
+  @Test
+  void testFindAllQueryPermittedQueryRule() {
+    RowLevelSecurityRepositoryDecorator decorator = getPermittedQueryRuleDecorator();
+    when(delegateRepository.getEntityType()).thenReturn(entityType);
+    when(entityType.getAttribute("attr")).thenReturn(mock(Attribute.class));
+    QueryRule permittedQueryRule = mock(QueryRule.class);
+    when(permittedQueryRuleFactory.create(entityType, READ)).thenReturn(permittedQueryRule);
+
+    Query<Entity> query = new QueryImpl<>().eq("attr", "value").pageSize(10).offset(20);
+    QueryImpl<Entity> permittedQuery = new QueryImpl<>();
+    permittedQuery.addRule(new QueryRule(query.getRules()));
+    permittedQuery.addRule(new QueryRule(AND));
+    permittedQuery.addRule(permittedQueryRule);
+    permittedQuery.pageSize(10).offset(20);
+
+    Entity entity = getEntityMock();
+    when(delegateRepository.findAll(permittedQuery)).thenAnswer(invocation -> Stream.of(entity));
+    assertEquals(singletonList(entity), decorator.findAll(query).collect(toList()));
+    verifyZeroInteractions(userPermissionEvaluator);
+  }
+
+  @WithMockUser(username = USERNAME)
+  @Test
+  void testCountPermittedQueryRule() {
+    RowLevelSecurityRepositoryDecorator decorator = getPermittedQueryRuleDecorator();
+    when(delegateRepository.getEntityType()).thenReturn(entityType);
+    QueryRule permittedQueryRule = mock(QueryRule.class);
+    when(permittedQueryRuleFactory.create(entityType, READ)).thenReturn(permittedQueryRule);
+    when(delegateRepository.count(new QueryImpl<>(permittedQueryRule))).thenReturn(3L);
+    assertEquals(3L, decorator.count());
+    verifyZeroInteractions(userPermissionEvaluator);
+  }
+
+  @WithMockUser(username = USERNAME, roles = "SU")
+  @Test
+  void testCountPermittedQueryRuleSuperuser() {
+    RowLevelSecurityRepositoryDecorator decorator = getPermittedQueryRuleDecorator();
+    when(delegateRepository.getEntityType()).thenReturn(entityType);
+    when(delegateRepository.count(new QueryImpl<>())).thenReturn(3L);
+    assertEquals(3L, decorator.count());
+    verifyZeroInteractions(permittedQueryRuleFactory);
+  }
+
+  @WithMockUser(username = USERNAME)
+  @Test
+  void testFindAllQueryPermittedQueryRuleSearch() {
+    RowLevelSecurityRepositoryDecorator decorator = getPermittedQueryRuleDecorator();
+    Query<Entity> query = new QueryImpl<>().search("text");
+    Entity entity = getEntityMock();
+    when(delegateRepository.findAll(
+            new QueryImpl<>().search("text").offset(0).pageSize(Integer.MAX_VALUE)))
+        .thenAnswer(invocation -> Stream.of(entity));
+    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), READ)).thenReturn(true);
+    assertEquals(singletonList(entity), decorator.findAll(query).collect(toList()));
+    verifyZeroInteractions(permittedQueryRuleFactory);
+  }
+
   @SuppressWarnings("unchecked")
   @Test
   void testFindAllStream() {
@@ -575,6 +642,12 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
         () -> rowLevelSecurityRepositoryDecorator.aggregate(aggregateQuery));
   }
 
+  private RowLevelSecurityRepositoryDecorator getPermittedQueryRuleDecorator() {
+    when(delegateRepository.getQueryOperators()).thenReturn(EnumSet.of(EQUALS, PERMITTED));
+    return new RowLevelSecurityRepositoryDecorator(
+        delegateRepository, userPermissionEvaluator, mutableAclService, permittedQueryRuleFactory);
+  }
+
   private Entity getEntityMock() {
     EntityType entityType = mock(EntityType.class);
     when(entityType.getId()).thenReturn("entityTypeId");
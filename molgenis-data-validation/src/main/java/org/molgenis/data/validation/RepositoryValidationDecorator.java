@@ -6,6 +6,7 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Collections.unmodifiableMap;
 import static java.util.Collections.unmodifiableSet;
@@ -19,11 +20,16 @@ import static org.molgenis.data.util.EntityTypeUtils.isMultipleReferenceType;
 import static org.molgenis.data.util.EntityTypeUtils.isReferenceType;
 import static org.molgenis.data.util.EntityTypeUtils.isSingleReferenceType;
 
+import com.google.common.collect.Iterators;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
@@ -37,11 +43,11 @@ import org.molgenis.data.Repository;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.support.QueryImpl;
-import org.molgenis.util.HugeMap;
-import org.molgenis.util.HugeSet;
 import org.molgenis.validation.ConstraintViolation;
 
 public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<Entity> {
+  private static final int VALIDATION_BATCH_SIZE = 1000;
+
   private enum ValidationMode {
     ADD,
     UPDATE
@@ -136,19 +142,103 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
 
     ValidationProfile validationProfile = new ValidationProfile().invoke();
 
-    // add validation operation to stream
-    return entities.filter(
-        entity -> {
-          validate(entity, validationResource, validationMode, validationProfile);
-
-          return true;
-        });
+    // add validation operation to stream, validate entities in batches to look up unique values
+    // and referenced ids in the validation indices in sorted order
+    Iterator<List<Entity>> batches =
+        Iterators.partition(entities.iterator(), VALIDATION_BATCH_SIZE);
+    Iterator<Entity> validatedEntities =
+        Iterators.concat(
+            Iterators.transform(
+                batches,
+                batch -> {
+                  validate(batch, validationResource, validationMode, validationProfile);
+                  return batch.iterator();
+                }));
+    return stream(validatedEntities).onClose(entities::close);
   }
 
   private void validate(
       Entity entity, ValidationResource validationResource, ValidationMode validationMode) {
     initValidation(validationResource, validationMode);
-    validate(entity, validationResource, validationMode, new ValidationProfile().invoke());
+    validate(
+        singletonList(entity),
+        validationResource,
+        validationMode,
+        new ValidationProfile().invoke());
+  }
+
+  private void validate(
+      List<Entity> entities,
+      ValidationResource validationResource,
+      ValidationMode validationMode,
+      ValidationProfile validationProfile) {
+    lookupRefEntitiesIds(entities, validationResource);
+    if (validationProfile.isValidateUniqueness()) {
+      lookupUniqueAttrsValues(entities, validationResource);
+    }
+    entities.forEach(
+        entity -> validate(entity, validationResource, validationMode, validationProfile));
+  }
+
+  /** Looks up the ids referenced by a batch of entities in the referenced entity id indices */
+  private void lookupRefEntitiesIds(List<Entity> entities, ValidationResource validationResource) {
+    Map<String, Set<Object>> batchRefEntitiesIds = new HashMap<>();
+    validationResource
+        .getRefAttrs()
+        .forEach(
+            refAttr -> {
+              Set<Object> refEntityIds =
+                  batchRefEntitiesIds.computeIfAbsent(
+                      refAttr.getRefEntity().getId(), refEntityName -> new HashSet<>());
+              entities.forEach(
+                  entity ->
+                      getRefEntities(entity, refAttr)
+                          .forEach(refEntity -> refEntityIds.add(refEntity.getIdValue())));
+            });
+
+    batchRefEntitiesIds.forEach(
+        (refEntityName, refEntityIds) -> {
+          List<Object> ids = new ArrayList<>(refEntityIds);
+          byte[][] values = validationResource.getRefEntitiesIds().get(refEntityName).get(ids);
+          refEntityIds.clear();
+          for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+              refEntityIds.add(ids.get(i));
+            }
+          }
+        });
+    validationResource.setBatchRefEntitiesIds(batchRefEntitiesIds);
+  }
+
+  /** Looks up the unique values of a batch of entities in the unique value indices */
+  private void lookupUniqueAttrsValues(
+      List<Entity> entities, ValidationResource validationResource) {
+    Map<String, Map<Object, byte[]>> batchUniqueAttrsValues = new HashMap<>();
+    validationResource
+        .getUniqueAttrs()
+        .forEach(
+            uniqueAttr -> {
+              List<Object> attrValues =
+                  entities.stream()
+                      .map(entity -> getUniqueAttrValue(entity, uniqueAttr))
+                      .filter(Objects::nonNull)
+                      .distinct()
+                      .collect(toList());
+              byte[][] entityIds =
+                  validationResource
+                      .getUniqueAttrsValues()
+                      .get(uniqueAttr.getName())
+                      .get(attrValues);
+
+              Map<Object, byte[]> uniqueAttrValues = new HashMap<>();
+              for (int i = 0; i < entityIds.length; i++) {
+                if (entityIds[i] != null) {
+                  uniqueAttrValues.put(attrValues.get(i), entityIds[i]);
+                }
+              }
+              batchUniqueAttrsValues.put(uniqueAttr.getName(), uniqueAttrValues);
+            });
+    validationResource.setBatchUniqueAttrsValues(batchUniqueAttrsValues);
   }
 
   private void validate(
@@ -231,14 +321,14 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
 
     // get referenced entity ids
     if (!refAttrs.isEmpty()) {
-      Map<String, HugeSet<Object>> refEntitiesIds = new HashMap<>();
+      Map<String, ValidationIndex> refEntitiesIds = new HashMap<>();
       refAttrs.forEach(
           refAttr -> {
             EntityType refEntityType = refAttr.getRefEntity();
             String refEntityName = refEntityType.getId();
-            HugeSet<Object> refEntityIds = refEntitiesIds.get(refEntityName);
+            ValidationIndex refEntityIds = refEntitiesIds.get(refEntityName);
             if (refEntityIds == null) {
-              refEntityIds = new HugeSet<>();
+              refEntityIds = new ValidationIndex();
               refEntitiesIds.put(refEntityName, refEntityIds);
 
               Query<Entity> q =
@@ -276,12 +366,12 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
 
       // get existing values for each attributes
       if (!uniqueAttrs.isEmpty()) {
-        Map<String, HugeMap<Object, Object>> uniqueAttrsValues = new HashMap<>();
+        Map<String, ValidationIndex> uniqueAttrsValues = new HashMap<>();
 
         Fetch fetch = new Fetch();
         uniqueAttrs.forEach(
             uniqueAttr -> {
-              uniqueAttrsValues.put(uniqueAttr.getName(), new HugeMap<>());
+              uniqueAttrsValues.put(uniqueAttr.getName(), new ValidationIndex());
               fetch.field(uniqueAttr.getName());
             });
 
@@ -292,14 +382,11 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
                 entity ->
                     uniqueAttrs.forEach(
                         uniqueAttr -> {
-                          HugeMap<Object, Object> uniqueAttrValues =
-                              uniqueAttrsValues.get(uniqueAttr.getName());
-                          Object attrValue = entity.get(uniqueAttr.getName());
+                          Object attrValue = getUniqueAttrValue(entity, uniqueAttr);
                           if (attrValue != null) {
-                            if (isSingleReferenceType(uniqueAttr)) {
-                              attrValue = ((Entity) attrValue).getIdValue();
-                            }
-                            uniqueAttrValues.put(attrValue, entity.getIdValue());
+                            uniqueAttrsValues
+                                .get(uniqueAttr.getName())
+                                .put(attrValue, entity.getIdValue());
                           }
                         }));
 
@@ -362,19 +449,16 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
         .getUniqueAttrs()
         .forEach(
             uniqueAttr -> {
-              Object attrValue = entity.get(uniqueAttr.getName());
+              Object attrValue = getUniqueAttrValue(entity, uniqueAttr);
               if (attrValue != null) {
-                if (isSingleReferenceType(uniqueAttr)) {
-                  attrValue = ((Entity) attrValue).getIdValue();
-                }
-
-                HugeMap<Object, Object> uniqueAttrValues =
-                    validationResource.getUniqueAttrsValues().get(uniqueAttr.getName());
-                Object existingEntityId = uniqueAttrValues.get(attrValue);
+                Map<Object, byte[]> uniqueAttrValues =
+                    validationResource.getBatchUniqueAttrsValues().get(uniqueAttr.getName());
+                byte[] existingEntityId = uniqueAttrValues.get(attrValue);
+                byte[] entityId = ValidationIndex.encode(entity.getIdValue());
                 if ((validationMode == ValidationMode.ADD && existingEntityId != null)
                     || (validationMode == ValidationMode.UPDATE
                         && existingEntityId != null
-                        && !existingEntityId.equals(entity.getIdValue()))) {
+                        && !Arrays.equals(existingEntityId, entityId))) {
                   ConstraintViolation constraintViolation =
                       new ConstraintViolation(
                           format(
@@ -383,33 +467,33 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
                           (long) validationResource.getRow());
                   validationResource.addViolation(constraintViolation);
                 } else {
-                  uniqueAttrValues.put(attrValue, entity.getIdValue());
+                  uniqueAttrValues.put(attrValue, entityId);
+                  validationResource
+                      .getUniqueAttrsValues()
+                      .get(uniqueAttr.getName())
+                      .put(attrValue, entity.getIdValue());
                 }
               }
             });
   }
 
+  private static Object getUniqueAttrValue(Entity entity, Attribute uniqueAttr) {
+    Object attrValue = entity.get(uniqueAttr.getName());
+    if (attrValue != null && isSingleReferenceType(uniqueAttr)) {
+      attrValue = ((Entity) attrValue).getIdValue();
+    }
+    return attrValue;
+  }
+
   private void validateEntityValueReferences(Entity entity, ValidationResource validationResource) {
     validationResource
         .getRefAttrs()
         .forEach(
             refAttr -> {
-              HugeSet<Object> refEntityIds =
-                  validationResource.getRefEntitiesIds().get(refAttr.getRefEntity().getId());
-
-              Iterable<Entity> refEntities;
-              if (isSingleReferenceType(refAttr)) {
-                Entity refEntity = entity.getEntity(refAttr.getName());
-                if (refEntity != null) {
-                  refEntities = singleton(refEntity);
-                } else {
-                  refEntities = emptyList();
-                }
-              } else {
-                refEntities = entity.getEntities(refAttr.getName());
-              }
+              Set<Object> refEntityIds =
+                  validationResource.getBatchRefEntitiesIds().get(refAttr.getRefEntity().getId());
 
-              for (Entity refEntity : refEntities) {
+              for (Entity refEntity : getRefEntities(entity, refAttr)) {
                 if (!refEntityIds.contains(refEntity.getIdValue())) {
                   boolean selfReference =
                       entity.getEntityType().getId().equals(refAttr.getRefEntity().getId());
@@ -435,6 +519,21 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
             });
   }
 
+  private static Iterable<Entity> getRefEntities(Entity entity, Attribute refAttr) {
+    Iterable<Entity> refEntities;
+    if (isSingleReferenceType(refAttr)) {
+      Entity refEntity = entity.getEntity(refAttr.getName());
+      if (refEntity != null) {
+        refEntities = singleton(refEntity);
+      } else {
+        refEntities = emptyList();
+      }
+    } else {
+      refEntities = entity.getEntities(refAttr.getName());
+    }
+    return refEntities;
+  }
+
   @SuppressWarnings("unchecked")
   private void validateEntityValueReadOnly(Entity entity, ValidationResource validationResource) {
     if (validationResource.getReadonlyAttrs().isEmpty()) {
@@ -485,9 +584,11 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
     private AtomicInteger rowNr;
     private List<Attribute> requiredValueAttrs;
     private List<Attribute> refAttrs;
-    private Map<String, HugeSet<Object>> refEntitiesIds;
+    private Map<String, ValidationIndex> refEntitiesIds;
+    private Map<String, Set<Object>> batchRefEntitiesIds;
     private List<Attribute> uniqueAttrs;
-    private Map<String, HugeMap<Object, Object>> uniqueAttrsValues;
+    private Map<String, ValidationIndex> uniqueAttrsValues;
+    private Map<String, Map<Object, byte[]>> batchUniqueAttrsValues;
     private List<Attribute> readonlyAttrs;
     private boolean selfReferencing;
     private Set<ConstraintViolation> violations;
@@ -520,19 +621,29 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
       this.refAttrs = refAttrs;
     }
 
-    Map<String, HugeSet<Object>> getRefEntitiesIds() {
+    Map<String, ValidationIndex> getRefEntitiesIds() {
       return refEntitiesIds != null ? unmodifiableMap(refEntitiesIds) : emptyMap();
     }
 
-    void setRefEntitiesIds(Map<String, HugeSet<Object>> refEntitiesIds) {
+    void setRefEntitiesIds(Map<String, ValidationIndex> refEntitiesIds) {
       this.refEntitiesIds = refEntitiesIds;
     }
 
+    /** Returns the existing referenced ids of the current batch */
+    Map<String, Set<Object>> getBatchRefEntitiesIds() {
+      return batchRefEntitiesIds != null ? unmodifiableMap(batchRefEntitiesIds) : emptyMap();
+    }
+
+    void setBatchRefEntitiesIds(Map<String, Set<Object>> batchRefEntitiesIds) {
+      this.batchRefEntitiesIds = batchRefEntitiesIds;
+    }
+
     void addRefEntityId(String name, Object idValue) {
-      HugeSet<Object> refEntityIds = refEntitiesIds.get(name);
+      ValidationIndex refEntityIds = refEntitiesIds.get(name);
       // only add entity id if this validation run requires entity
       if (refEntityIds != null) {
         refEntityIds.add(idValue);
+        batchRefEntitiesIds.get(name).add(idValue);
       }
     }
 
@@ -544,14 +655,23 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
       this.uniqueAttrs = uniqueAttrs;
     }
 
-    Map<String, HugeMap<Object, Object>> getUniqueAttrsValues() {
+    Map<String, ValidationIndex> getUniqueAttrsValues() {
       return uniqueAttrsValues != null ? unmodifiableMap(uniqueAttrsValues) : emptyMap();
     }
 
-    void setUniqueAttrsValues(Map<String, HugeMap<Object, Object>> uniqueAttrsValues) {
+    void setUniqueAttrsValues(Map<String, ValidationIndex> uniqueAttrsValues) {
       this.uniqueAttrsValues = uniqueAttrsValues;
     }
 
+    /** Returns the existing unique values of the current batch with their encoded entity ids */
+    Map<String, Map<Object, byte[]>> getBatchUniqueAttrsValues() {
+      return batchUniqueAttrsValues != null ? unmodifiableMap(batchUniqueAttrsValues) : emptyMap();
+    }
+
+    void setBatchUniqueAttrsValues(Map<String, Map<Object, byte[]>> batchUniqueAttrsValues) {
+      this.batchUniqueAttrsValues = batchUniqueAttrsValues;
+    }
+
     List<Attribute> getReadonlyAttrs() {
       return readonlyAttrs != null ? unmodifiableList(readonlyAttrs) : emptyList();
     }
@@ -586,12 +706,12 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
     @Override
     public void close() {
       if (refEntitiesIds != null) {
-        for (HugeSet<Object> refEntityIds : refEntitiesIds.values()) {
+        for (ValidationIndex refEntityIds : refEntitiesIds.values()) {
           refEntityIds.close();
         }
       }
       if (uniqueAttrsValues != null) {
-        for (HugeMap<Object, Object> uniqueAttrValues : uniqueAttrsValues.values()) {
+        for (ValidationIndex uniqueAttrValues : uniqueAttrsValues.values()) {
           uniqueAttrValues.close();
         }
       }
@@ -0,0 +1,294 @@
+package org.molgenis.data.validation;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of existing unique values or referenced ids used during repository validation.
+ *
+ * <p>Keys and values are stored as byte-encoded values in sorted order. Entries are buffered in
+ * memory until the buffer exceeds a threshold, after which the buffer is written to a temporary
+ * file in sorted order and memory-mapped. A batch of keys is looked up by sorting the keys and
+ * merging them with each sorted run, so each run is searched with a cursor that only moves
+ * forward.
+ *
+ * <p>Entries that are put later replace entries with the same key that were put earlier.
+ */
+class ValidationIndex implements AutoCloseable {
+  private static final Logger LOG = LoggerFactory.getLogger(ValidationIndex.class);
+
+  private static final int DEFAULT_MAX_BUFFERED_BYTES = 32 * 1024 * 1024;
+  /**
+   * Estimated heap usage of a buffered entry in addition to the key and value bytes: a TreeMap
+   * entry object plus the headers and padding of the key and value arrays
+   */
+  private static final int BUFFERED_ENTRY_OVERHEAD_BYTES = 88;
+  /** Size of the key and value lengths that precede the key and value of a written entry */
+  private static final int WRITTEN_ENTRY_OVERHEAD_BYTES = 2 * Integer.BYTES;
+  private static final byte[] NO_VALUE = new byte[0];
+  private static final Comparator<byte[]> KEY_COMPARATOR = Arrays::compareUnsigned;
+
+  private static final byte TYPE_NULL = 0;
+  private static final byte TYPE_STRING = 1;
+  private static final byte TYPE_INTEGER = 2;
+  private static final byte TYPE_LONG = 3;
+  private static final byte TYPE_OTHER = 4;
+
+  private final int maxBufferedBytes;
+  private final TreeMap<byte[], byte[]> buffer = new TreeMap<>(KEY_COMPARATOR);
+  private long nrBufferedBytes;
+  /** Sorted runs, from oldest to newest */
+  private final List<SortedRun> runs = new ArrayList<>();
+
+  ValidationIndex() {
+    this(DEFAULT_MAX_BUFFERED_BYTES);
+  }
+
+  ValidationIndex(int maxBufferedBytes) {
+    if (maxBufferedBytes < 1) {
+      throw new IllegalArgumentException("Maximum number of buffered bytes must be greater than 0");
+    }
+    this.maxBufferedBytes = maxBufferedBytes;
+  }
+
+  /** Adds a key without a value */
+  void add(@Nullable Object key) {
+    put(encode(key), NO_VALUE);
+  }
+
+  /** Adds a key with a value, replaces the value of an existing key */
+  void put(@Nullable Object key, @Nullable Object value) {
+    put(encode(key), encode(value));
+  }
+
+  private void put(byte[] key, byte[] value) {
+    byte[] previousValue = buffer.put(key, value);
+    if (previousValue != null) {
+      nrBufferedBytes += value.length - previousValue.length;
+    } else {
+      nrBufferedBytes += key.length + value.length + BUFFERED_ENTRY_OVERHEAD_BYTES;
+    }
+    if (nrBufferedBytes >= maxBufferedBytes) {
+      spill();
+    }
+  }
+
+  /**
+   * Looks up a batch of keys.
+   *
+   * @return for each key the value encoded with {@link #encode(Object)}, an empty array for keys
+   *     without a value or <code>null</code> if the index does not contain the key
+   */
+  byte[][] get(List<?> keys) {
+    byte[][] encodedKeys = keys.stream().map(ValidationIndex::encode).toArray(byte[][]::new);
+    byte[][] values = new byte[encodedKeys.length][];
+
+    int nrUnresolvedKeys = 0;
+    for (int i = 0; i < encodedKeys.length; i++) {
+      values[i] = buffer.get(encodedKeys[i]);
+      if (values[i] == null) {
+        nrUnresolvedKeys++;
+      }
+    }
+    if (nrUnresolvedKeys == 0 || runs.isEmpty()) {
+      return values;
+    }
+
+    int[] sortedKeyIndices =
+        IntStream.range(0, encodedKeys.length)
+            .filter(i -> values[i] == null)
+            .boxed()
+            .sorted((i, j) -> KEY_COMPARATOR.compare(encodedKeys[i], encodedKeys[j]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    for (int i = runs.size() - 1; i >= 0 && nrUnresolvedKeys > 0; i--) {
+      nrUnresolvedKeys -= runs.get(i).merge(encodedKeys, sortedKeyIndices, values);
+    }
+    return values;
+  }
+
+  private void spill() {
+    SortedRun run;
+    try {
+      run = SortedRun.write(buffer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    runs.add(run);
+    buffer.clear();
+    nrBufferedBytes = 0;
+  }
+
+  @Override
+  public void close() {
+    buffer.clear();
+    runs.forEach(SortedRun::close);
+    runs.clear();
+  }
+
+  /**
+   * Encodes a value to bytes. Encoded values are equal if and only if the values are equal for the
+   * value types that are used as entity ids and attribute values.
+   */
+  static byte[] encode(@Nullable Object value) {
+    if (value == null) {
+      return new byte[] {TYPE_NULL};
+    } else if (value instanceof String) {
+      return encode(TYPE_STRING, ((String) value).getBytes(UTF_8));
+    } else if (value instanceof Integer) {
+      return ByteBuffer.allocate(1 + Integer.BYTES)
+          .put(TYPE_INTEGER)
+          .putInt((Integer) value)
+          .array();
+    } else if (value instanceof Long) {
+      return ByteBuffer.allocate(1 + Long.BYTES).put(TYPE_LONG).putLong((Long) value).array();
+    } else {
+      String text = value.getClass().getName() + ':' + value.toString();
+      return encode(TYPE_OTHER, text.getBytes(UTF_8));
+    }
+  }
+
+  private static byte[] encode(byte type, byte[] bytes) {
+    byte[] encodedBytes = new byte[bytes.length + 1];
+    encodedBytes[0] = type;
+    System.arraycopy(bytes, 0, encodedBytes, 1, bytes.length);
+    return encodedBytes;
+  }
+
+  /** Sorted entries in a memory-mapped temporary file */
+  private static class SortedRun {
+    private final Path file;
+    private final MappedByteBuffer mappedBuffer;
+    /** Offset of each entry, an entry is stored as key length, key, value length and value */
+    private final int[] offsets;
+
+    private SortedRun(Path file, MappedByteBuffer mappedBuffer, int[] offsets) {
+      this.file = requireNonNull(file);
+      this.mappedBuffer = requireNonNull(mappedBuffer);
+      this.offsets = requireNonNull(offsets);
+    }
+
+    static SortedRun write(TreeMap<byte[], byte[]> entries) throws IOException {
+      Path file = Files.createTempFile("validation", ".idx");
+      try {
+        int[] offsets = new int[entries.size()];
+        int offset = 0;
+        int index = 0;
+        try (DataOutputStream outputStream =
+            new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+          for (Entry<byte[], byte[]> entry : entries.entrySet()) {
+            offsets[index++] = offset;
+            outputStream.writeInt(entry.getKey().length);
+            outputStream.write(entry.getKey());
+            outputStream.writeInt(entry.getValue().length);
+            outputStream.write(entry.getValue());
+            offset +=
+                WRITTEN_ENTRY_OVERHEAD_BYTES + entry.getKey().length + entry.getValue().length;
+          }
+        }
+
+        MappedByteBuffer mappedBuffer;
+        try (FileChannel fileChannel = FileChannel.open(file)) {
+          mappedBuffer = fileChannel.map(MapMode.READ_ONLY, 0, fileChannel.size());
+        }
+        return new SortedRun(file, mappedBuffer, offsets);
+      } catch (IOException | RuntimeException e) {
+        Files.deleteIfExists(file);
+        throw e;
+      }
+    }
+
+    /**
+     * Merges sorted keys with the entries of this run and sets the values of the keys that are
+     * found in this run.
+     *
+     * @param sortedKeyIndices indices of keys in key order, keys with a value are skipped
+     * @return number of keys found in this run
+     */
+    int merge(byte[][] keys, int[] sortedKeyIndices, byte[][] values) {
+      int nrFoundKeys = 0;
+      int cursor = 0;
+      for (int keyIndex : sortedKeyIndices) {
+        if (values[keyIndex] != null) {
+          continue;
+        }
+        cursor = lowerBound(keys[keyIndex], cursor);
+        if (cursor == offsets.length) {
+          break;
+        }
+        if (compareKey(offsets[cursor], keys[keyIndex]) == 0) {
+          values[keyIndex] = getValue(offsets[cursor]);
+          nrFoundKeys++;
+        }
+      }
+      return nrFoundKeys;
+    }
+
+    /** Returns the index of the first entry with a key equal to or greater than the given key */
+    private int lowerBound(byte[] key, int fromIndex) {
+      int low = fromIndex;
+      int high = offsets.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (compareKey(offsets[mid], key) < 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    private int compareKey(int offset, byte[] key) {
+      int keyLength = mappedBuffer.getInt(offset);
+      int keyOffset = offset + Integer.BYTES;
+      int length = Math.min(keyLength, key.length);
+      for (int i = 0; i < length; i++) {
+        int result = Byte.compareUnsigned(mappedBuffer.get(keyOffset + i), key[i]);
+        if (result != 0) {
+          return result;
+        }
+      }
+      return keyLength - key.length;
+    }
+
+    private byte[] getValue(int offset) {
+      int valueLengthOffset = offset + Integer.BYTES + mappedBuffer.getInt(offset);
+      int valueLength = mappedBuffer.getInt(valueLengthOffset);
+      byte[] value = new byte[valueLength];
+      for (int i = 0; i < valueLength; i++) {
+        value[i] = mappedBuffer.get(valueLengthOffset + Integer.BYTES + i);
+      }
+      return value;
+    }
+
+    void close() {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        LOG.warn("Error deleting validation index file '{}'", file, e);
+      }
+    }
+  }
+}
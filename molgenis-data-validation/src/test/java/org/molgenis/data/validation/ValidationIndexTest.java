@@ -0,0 +1,71 @@
+package org.molgenis.data.validation;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ValidationIndexTest {
+  @Test
+  void testValidationIndexInvalidMaxBufferedBytes() {
+    assertThrows(IllegalArgumentException.class, () -> new ValidationIndex(0));
+  }
+
+  @Test
+  void testGet() {
+    try (ValidationIndex validationIndex = new ValidationIndex()) {
+      validationIndex.put("value0", "id0");
+      validationIndex.put(1, 2L);
+      validationIndex.put(LocalDate.of(2019, 1, 31), "id1");
+
+      byte[][] values =
+          validationIndex.get(asList("value0", 1, 1L, LocalDate.of(2019, 1, 31), "value1"));
+      assertArrayEquals(ValidationIndex.encode("id0"), values[0]);
+      assertArrayEquals(ValidationIndex.encode(2L), values[1]);
+      assertNull(values[2]);
+      assertArrayEquals(ValidationIndex.encode("id1"), values[3]);
+      assertNull(values[4]);
+    }
+  }
+
+  @Test
+  void testGetSpilled() {
+    try (ValidationIndex validationIndex = new ValidationIndex(1000)) {
+      List<Object> keys = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        validationIndex.add("id" + i);
+        keys.add("id" + (999 - i));
+        keys.add("unknown" + i);
+      }
+
+      byte[][] values = validationIndex.get(keys);
+      for (int i = 0; i < keys.size(); i += 2) {
+        assertNotNull(values[i]);
+        assertNull(values[i + 1]);
+      }
+    }
+  }
+
+  @Test
+  void testPutReplacesSpilledValue() {
+    try (ValidationIndex validationIndex = new ValidationIndex(1000)) {
+      for (int i = 0; i < 100; i++) {
+        validationIndex.put("value" + i, "id" + i);
+      }
+      validationIndex.put("value0", "id100");
+      for (int i = 100; i < 200; i++) {
+        validationIndex.put("value" + i, "id" + i);
+      }
+
+      byte[][] values = validationIndex.get(asList("value0", "value1"));
+      assertArrayEquals(ValidationIndex.encode("id100"), values[0]);
+      assertArrayEquals(ValidationIndex.encode("id1"), values[1]);
+    }
+  }
+}
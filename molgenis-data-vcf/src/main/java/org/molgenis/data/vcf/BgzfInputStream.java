@@ -0,0 +1,223 @@
+package org.molgenis.data.vcf;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+import org.molgenis.util.ExecutorServiceUtils;
+
+/**
+ * Input stream that decompresses BGZF (block compressed gzip) data as written by bgzip. A BGZF file
+ * is a series of independent gzip members of at most 64KB that store their compressed size in the
+ * gzip header, so blocks can be read ahead and inflated concurrently while they are returned in
+ * order.
+ */
+class BgzfInputStream extends InputStream {
+  private static final int GZIP_ID1 = 31;
+  private static final int GZIP_ID2 = 139;
+  private static final int GZIP_CM_DEFLATE = 8;
+  private static final int GZIP_FLG_FEXTRA = 4;
+  private static final int GZIP_HEADER_LENGTH = 12;
+  private static final int GZIP_TRAILER_LENGTH = 8;
+  private static final int BGZF_SI1 = 66;
+  private static final int BGZF_SI2 = 67;
+  private static final int BGZF_SLEN = 2;
+  private static final byte[] EMPTY_BLOCK = new byte[0];
+
+  private final DataInputStream inputStream;
+  private final ExecutorService executorService;
+  private final int maxQueuedBlocks;
+  private final Deque<Future<byte[]>> queuedBlocks;
+  private byte[] block = EMPTY_BLOCK;
+  private int position;
+  private boolean endOfInput;
+
+  BgzfInputStream(InputStream inputStream, int nrThreads) {
+    this.executorService = ExecutorServiceUtils.newFixedThreadPool(nrThreads, "molgenis-bgzf-%d");
+    this.inputStream = new DataInputStream(requireNonNull(inputStream));
+    this.maxQueuedBlocks = 4 * nrThreads;
+    this.queuedBlocks = new ArrayDeque<>(maxQueuedBlocks);
+  }
+
+  /** Returns whether the file starts with a BGZF block header */
+  static boolean isBgzf(File file) throws IOException {
+    try (DataInputStream inputStream = new DataInputStream(new FileInputStream(file))) {
+      return readBlockSize(inputStream) != -1;
+    } catch (EOFException | ZipException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!hasRemaining()) {
+      return -1;
+    }
+    return block[position++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    if (!hasRemaining()) {
+      return -1;
+    }
+    int nrBytes = Math.min(length, block.length - position);
+    System.arraycopy(block, position, bytes, offset, nrBytes);
+    position += nrBytes;
+    return nrBytes;
+  }
+
+  @Override
+  public int available() {
+    return block.length - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    queuedBlocks.forEach(queuedBlock -> queuedBlock.cancel(true));
+    queuedBlocks.clear();
+    executorService.shutdownNow();
+    inputStream.close();
+  }
+
+  private boolean hasRemaining() throws IOException {
+    while (position == block.length) {
+      queueBlocks();
+      Future<byte[]> queuedBlock = queuedBlocks.poll();
+      if (queuedBlock == null) {
+        return false;
+      }
+      block = getBlock(queuedBlock);
+      position = 0;
+    }
+    return true;
+  }
+
+  private void queueBlocks() throws IOException {
+    while (!endOfInput && queuedBlocks.size() < maxQueuedBlocks) {
+      int blockSize = readBlockSize(inputStream);
+      if (blockSize == -1) {
+        endOfInput = true;
+      } else {
+        byte[] compressedBlock = new byte[blockSize];
+        inputStream.readFully(compressedBlock);
+        queuedBlocks.add(executorService.submit(() -> inflate(compressedBlock)));
+      }
+    }
+  }
+
+  /**
+   * Reads a BGZF block header.
+   *
+   * @return number of bytes of the block following the header or -1 at the end of the input
+   * @throws ZipException if the header is not a BGZF block header
+   */
+  private static int readBlockSize(DataInputStream inputStream) throws IOException {
+    int id1 = inputStream.read();
+    if (id1 == -1) {
+      return -1;
+    }
+    byte[] header = new byte[GZIP_HEADER_LENGTH];
+    header[0] = (byte) id1;
+    inputStream.readFully(header, 1, GZIP_HEADER_LENGTH - 1);
+    if ((header[0] & 0xff) != GZIP_ID1
+        || (header[1] & 0xff) != GZIP_ID2
+        || header[2] != GZIP_CM_DEFLATE
+        || (header[3] & GZIP_FLG_FEXTRA) == 0) {
+      throw new ZipException("Not in BGZF format");
+    }
+
+    int extraLength = getUnsignedShort(header, 10);
+    byte[] extra = new byte[extraLength];
+    inputStream.readFully(extra);
+    for (int i = 0; i + 4 <= extraLength; i += 4 + getUnsignedShort(extra, i + 2)) {
+      if (extra[i] == BGZF_SI1 && extra[i + 1] == BGZF_SI2) {
+        if (getUnsignedShort(extra, i + 2) != BGZF_SLEN || i + 6 > extraLength) {
+          throw new ZipException("Invalid BGZF block size field");
+        }
+        int totalBlockSize = getUnsignedShort(extra, i + 4) + 1;
+        int blockSize = totalBlockSize - GZIP_HEADER_LENGTH - extraLength;
+        if (blockSize < GZIP_TRAILER_LENGTH) {
+          throw new ZipException("Invalid BGZF block size " + totalBlockSize);
+        }
+        return blockSize;
+      }
+    }
+    throw new ZipException("Not in BGZF format");
+  }
+
+  /** Inflates compressed data followed by the gzip trailer and verifies the checksum */
+  private static byte[] inflate(byte[] compressedBlock) throws IOException {
+    int dataLength = compressedBlock.length - GZIP_TRAILER_LENGTH;
+    long expectedCrc = getUnsignedInt(compressedBlock, dataLength);
+    int size = (int) getUnsignedInt(compressedBlock, dataLength + 4);
+
+    byte[] block = new byte[size];
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(compressedBlock, 0, dataLength);
+      int nrBytes = 0;
+      while (nrBytes < size && !inflater.finished()) {
+        int nrInflatedBytes = inflater.inflate(block, nrBytes, size - nrBytes);
+        if (nrInflatedBytes == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        nrBytes += nrInflatedBytes;
+      }
+      if (nrBytes != size) {
+        throw new ZipException("Corrupt BGZF block, expected " + size + " bytes");
+      }
+    } catch (DataFormatException e) {
+      throw new ZipException(e.getMessage());
+    } finally {
+      inflater.end();
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(block, 0, size);
+    if (crc.getValue() != expectedCrc) {
+      throw new ZipException("Corrupt BGZF block, checksum mismatch");
+    }
+    return block;
+  }
+
+  private static byte[] getBlock(Future<byte[]> queuedBlock) throws IOException {
+    try {
+      return queuedBlock.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while inflating BGZF block");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  private static int getUnsignedShort(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8;
+  }
+
+  private static long getUnsignedInt(byte[] bytes, int offset) {
+    return getUnsignedShort(bytes, offset) | (long) getUnsignedShort(bytes, offset + 2) << 16;
+  }
+}
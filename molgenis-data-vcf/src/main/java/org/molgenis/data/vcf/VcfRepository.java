@@ -1,8 +1,5 @@
 package org.molgenis.data.vcf;
 
-import static com.google.common.collect.Iterators.partition;
-import static com.google.common.collect.Iterators.transform;
-import static com.google.common.collect.Streams.stream;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
@@ -11,11 +8,15 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.zip.GZIPInputStream;
@@ -30,13 +31,18 @@ import org.molgenis.data.meta.model.EntityTypeFactory;
 import org.molgenis.data.support.AbstractRepository;
 import org.molgenis.data.vcf.format.VcfToEntity;
 import org.molgenis.data.vcf.model.VcfAttributes;
+import org.molgenis.util.ExecutorServiceUtils;
 import org.molgenis.vcf.VcfReader;
+import org.molgenis.vcf.VcfRecord;
 import org.molgenis.vcf.meta.VcfMeta;
 
 /**
  * Repository implementation for vcf files.
  *
  * <p>The filename without the extension is considered to be the entityname
+ *
+ * <p>Block compressed (bgzip) files are decompressed on multiple threads. The next batch of
+ * records is read and converted on a separate thread while the current batch is consumed.
  */
 public class VcfRepository extends AbstractRepository {
   public static final String DEFAULT_ATTRIBUTE_DESCRIPTION = "Description not provided";
@@ -45,6 +51,9 @@ public class VcfRepository extends AbstractRepository {
   public static final String ORIGINAL_NAME = "ORIGINAL_NAME";
 
   public static final int BATCH_SIZE = 1000;
+  private static final int NR_BGZF_THREADS =
+      Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
   private final String entityTypeId;
   private final VcfAttributes vcfAttributes;
   private final EntityTypeFactory entityTypeFactory;
@@ -104,9 +113,52 @@ public class VcfRepository extends AbstractRepository {
   @Override
   public void forEachBatched(Consumer<List<Entity>> consumer, int batchSize) {
     withReader(
-        reader ->
-            stream(partition(transform(reader.iterator(), vcfToEntity::toEntity), batchSize))
-                .forEach(consumer));
+        reader -> {
+          Iterator<VcfRecord> vcfRecords = reader.iterator();
+          ExecutorService executorService =
+              ExecutorServiceUtils.newFixedThreadPool(1, "molgenis-vcf-reader-%d");
+          Future<List<Entity>> nextBatch = null;
+          try {
+            nextBatch = executorService.submit(() -> readBatch(vcfRecords, batchSize));
+            List<Entity> batch = ExecutorServiceUtils.getResult(nextBatch);
+            while (!batch.isEmpty()) {
+              nextBatch = executorService.submit(() -> readBatch(vcfRecords, batchSize));
+              consumer.accept(batch);
+              batch = ExecutorServiceUtils.getResult(nextBatch);
+            }
+          } finally {
+            if (nextBatch != null) {
+              nextBatch.cancel(true);
+            }
+            executorService.shutdownNow();
+            // the reader is closed after this lambda returns and does not support concurrent access
+            awaitTermination(executorService);
+          }
+        });
+  }
+
+  /** Waits until the reader thread has ended, also if the current thread is interrupted */
+  private static void awaitTermination(ExecutorService executorService) {
+    boolean interrupted = false;
+    while (!executorService.isTerminated()) {
+      try {
+        executorService.awaitTermination(1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Reads and converts the next batch of records, records are converted as soon as read */
+  private List<Entity> readBatch(Iterator<VcfRecord> vcfRecords, int batchSize) {
+    List<Entity> batch = new ArrayList<>(batchSize);
+    while (batch.size() < batchSize && vcfRecords.hasNext()) {
+      batch.add(vcfToEntity.toEntity(vcfRecords.next()));
+    }
+    return batch;
   }
 
   private void withReader(Consumer<VcfReader> consumer) {
@@ -124,7 +176,11 @@ public class VcfRepository extends AbstractRepository {
   private void withInputStream(Consumer<InputStream> consumer) {
     try {
       if (file.getName().endsWith(".gz")) {
-        consumer.accept(new GZIPInputStream(new FileInputStream(file)));
+        if (BgzfInputStream.isBgzf(file)) {
+          consumer.accept(new BgzfInputStream(new FileInputStream(file), NR_BGZF_THREADS));
+        } else {
+          consumer.accept(new GZIPInputStream(new FileInputStream(file)));
+        }
       } else if (file.getName().endsWith(".zip")) {
         try (ZipFile zipFile = new ZipFile(file.getPath())) {
           Enumeration<? extends ZipEntry> e = zipFile.entries();
@@ -31,10 +31,12 @@ import static org.molgenis.data.vcf.model.VcfAttributes.QUAL;
 import static org.molgenis.data.vcf.model.VcfAttributes.REF;
 import static org.molgenis.data.vcf.model.VcfAttributes.SAMPLES;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -47,7 +49,7 @@ import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.AttributeFactory;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.EntityTypeFactory;
-import org.molgenis.data.support.DynamicEntity;
+import org.molgenis.data.support.ArrayEntity;
 import org.molgenis.data.validation.meta.NameValidator;
 import org.molgenis.data.vcf.VcfRepository;
 import org.molgenis.data.vcf.model.VcfAttributes;
@@ -81,6 +83,9 @@ public class VcfToEntity {
   /** Performance: VCF record info column ID to attribute name map */
   private final Map<String, String> infoFieldKeyToAttrNameMap;
 
+  /** Performance: VCF record format to sample attributes map */
+  private final Map<List<String>, Attribute[]> formatToSampleAttrsMap = new HashMap<>();
+
   public VcfToEntity(
       String entityTypeId,
       VcfMeta vcfMeta,
@@ -99,6 +104,13 @@ public class VcfToEntity {
 
     this.sampleEntityType = createSampleEntityType(entityTypeId, vcfMeta.getFormatMeta());
     this.entityType = createEntityType(entityTypeId, vcfMeta);
+
+    // initialize lazily created attribute caches, so entities can be created on another thread
+    // than the thread that reads the entity types
+    entityType.getAtomicAttributes().forEach(Attribute::getName);
+    if (sampleEntityType != null) {
+      sampleEntityType.getAtomicAttributes().forEach(Attribute::getName);
+    }
   }
 
   private EntityType createEntityType(String entityTypeId, VcfMeta vcfMeta) {
@@ -285,7 +297,7 @@ public class VcfToEntity {
   }
 
   public Entity toEntity(VcfRecord vcfRecord) {
-    Entity entity = new DynamicEntity(entityType);
+    Entity entity = new ArrayEntity(entityType);
     entity.set(CHROM, vcfRecord.getChromosome());
     entity.set(
         ALT,
@@ -314,14 +326,15 @@ public class VcfToEntity {
     Iterator<VcfSample> sampleIterator = vcfRecord.getSamples().iterator();
     if (vcfRecord.getNrSamples() > 0) {
       Iterator<String> sampleNameIterator = vcfMeta.getSampleNames().iterator();
+      String[] format = vcfRecord.getFormat();
+      Attribute[] formatAttrs = getSampleAttributes(format);
       for (int j = 0; sampleIterator.hasNext(); ++j) {
-        String[] format = vcfRecord.getFormat();
         VcfSample sample = sampleIterator.next();
-        Entity sampleEntity = new DynamicEntity(sampleEntityType);
+        Entity sampleEntity = new ArrayEntity(sampleEntityType);
         for (int i = 0; i < format.length; i = i + 1) {
           String strValue = sample.getData(i);
           Object value = null;
-          Attribute attr = sampleEntityType.getAttribute(format[i]);
+          Attribute attr = formatAttrs[i];
           if (attr != null) {
             if (strValue != null) {
               value = getTypedValue(strValue, attr);
@@ -351,6 +364,18 @@ public class VcfToEntity {
     return samples;
   }
 
+  /**
+   * Returns the sample attributes for the fields of a VCF record format. Records usually share a
+   * small number of formats, so attributes are looked up once per format instead of once per
+   * sample field.
+   */
+  private Attribute[] getSampleAttributes(String[] format) {
+    return formatToSampleAttrsMap.computeIfAbsent(
+        ImmutableList.copyOf(format),
+        formatKey ->
+            formatKey.stream().map(sampleEntityType::getAttribute).toArray(Attribute[]::new));
+  }
+
   private void writeInfoFieldsToEntity(VcfRecord vcfRecord, Entity entity) {
     // Set default values for VCF info fields of type 'flag' to false. Note that VcfInfo of a
     // VcfRecord do not
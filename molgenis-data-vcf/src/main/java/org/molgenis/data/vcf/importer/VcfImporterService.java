@@ -36,11 +36,15 @@ import org.molgenis.data.security.permission.PermissionSystemService;
 import org.molgenis.data.vcf.VcfFileExtensions;
 import org.molgenis.data.vcf.VcfRepository;
 import org.molgenis.data.vcf.model.VcfAttributes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class VcfImporterService implements ImportService {
+  private static final Logger LOG = LoggerFactory.getLogger(VcfImporterService.class);
+
   private static final int BATCH_SIZE = 10000;
 
   private final DataService dataService;
@@ -164,23 +168,36 @@ public class VcfImporterService implements ImportService {
 
       addedEntities.add(entityType);
 
-      if (sampleRepository != null) {
-        int sampleEntityCount = addSampleEntities(sampleRepository, inRepository);
-
-        report.addNewEntity(sampleRepository.getName());
-        if (sampleEntityCount > 0) {
-          report.addEntityCount(sampleRepository.getName(), sampleEntityCount);
-        }
-      }
-
+      // read the file once, samples of a batch are added before the records that refer to them
+      AtomicInteger sampleEntityCount = new AtomicInteger();
       AtomicInteger vcfEntityCount = new AtomicInteger();
+      long start = System.nanoTime();
       inRepository.forEachBatched(
           rowBatch -> {
+            if (sampleRepository != null) {
+              sampleEntityCount.addAndGet(addSampleEntities(sampleRepository, rowBatch));
+            }
             outRepository.add(rowBatch.stream());
             vcfEntityCount.addAndGet(rowBatch.size());
+            LOG.debug(
+                "Imported {} records of '{}' ({} records/s)",
+                vcfEntityCount.get(),
+                entityTypeId,
+                getRecordsPerSecond(vcfEntityCount.get(), start));
           },
           VcfRepository.BATCH_SIZE);
+      LOG.info(
+          "Imported {} records of '{}' ({} records/s)",
+          vcfEntityCount.get(),
+          entityTypeId,
+          getRecordsPerSecond(vcfEntityCount.get(), start));
 
+      if (sampleRepository != null) {
+        report.addNewEntity(sampleRepository.getName());
+        if (sampleEntityCount.get() > 0) {
+          report.addEntityCount(sampleRepository.getName(), sampleEntityCount.get());
+        }
+      }
       if (vcfEntityCount.get() > 0) {
         report.addEntityCount(entityTypeId, vcfEntityCount.get());
       }
@@ -191,34 +208,35 @@ public class VcfImporterService implements ImportService {
     return report;
   }
 
-  private int addSampleEntities(
-      Repository<Entity> sampleRepository, Repository<Entity> inRepository) {
-    final AtomicInteger sampleEntityCount = new AtomicInteger(0);
+  private static long getRecordsPerSecond(int nrRecords, long start) {
+    long nanos = System.nanoTime() - start;
+    return nanos > 0 ? nrRecords * 1_000_000_000L / nanos : 0;
+  }
+
+  /** Adds the samples of a batch of records */
+  private int addSampleEntities(Repository<Entity> sampleRepository, List<Entity> rowBatch) {
+    int sampleEntityCount = 0;
     List<Entity> sampleBatch = new ArrayList<>();
-    inRepository.forEachBatched(
-        rowBatch -> {
-          for (Entity entity : rowBatch) {
-            Iterable<Entity> samples = entity.getEntities(VcfAttributes.SAMPLES);
-            if (samples != null) {
-              for (Entity sample : samples) {
-                sampleBatch.add(sample);
-
-                if (sampleBatch.size() == BATCH_SIZE) {
-                  sampleRepository.add(sampleBatch.stream());
-                  sampleEntityCount.addAndGet(sampleBatch.size());
-                  sampleBatch.clear();
-                }
-              }
-            }
+    for (Entity entity : rowBatch) {
+      Iterable<Entity> samples = entity.getEntities(VcfAttributes.SAMPLES);
+      if (samples != null) {
+        for (Entity sample : samples) {
+          sampleBatch.add(sample);
+
+          if (sampleBatch.size() == BATCH_SIZE) {
+            sampleRepository.add(sampleBatch.stream());
+            sampleEntityCount += sampleBatch.size();
+            sampleBatch.clear();
           }
-        },
-        1000);
+        }
+      }
+    }
 
     if (!sampleBatch.isEmpty()) {
       sampleRepository.add(sampleBatch.stream());
-      sampleEntityCount.addAndGet(sampleBatch.size());
+      sampleEntityCount += sampleBatch.size();
     }
-    return sampleEntityCount.get();
+    return sampleEntityCount;
   }
 
   private Repository<Entity> createSampleRepository(
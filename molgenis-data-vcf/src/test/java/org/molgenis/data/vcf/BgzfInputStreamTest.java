@@ -0,0 +1,146 @@
+package org.molgenis.data.vcf;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+import org.junit.jupiter.api.Test;
+
+class BgzfInputStreamTest {
+  @Test
+  void testBgzfInputStreamInvalidNrThreads() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new BgzfInputStream(new ByteArrayInputStream(new byte[0]), 0));
+  }
+
+  @Test
+  void testRead() throws IOException {
+    byte[] data = createData(500000);
+    try (InputStream inputStream =
+        new BgzfInputStream(new ByteArrayInputStream(bgzip(data, 65280)), 2)) {
+      assertArrayEquals(data, readAllBytes(inputStream));
+    }
+  }
+
+  @Test
+  void testReadSingleBytes() throws IOException {
+    byte[] data = createData(1000);
+    try (InputStream inputStream =
+        new BgzfInputStream(new ByteArrayInputStream(bgzip(data, 100)), 3)) {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      for (int value = inputStream.read(); value != -1; value = inputStream.read()) {
+        outputStream.write(value);
+      }
+      assertArrayEquals(data, outputStream.toByteArray());
+    }
+  }
+
+  @Test
+  void testReadCorruptBlock() throws IOException {
+    byte[] bgzfData = bgzip(createData(1000), 1000);
+    bgzfData[bgzfData.length - 36] ^= 0xff; // corrupt checksum, followed by 28 byte end block
+    try (InputStream inputStream = new BgzfInputStream(new ByteArrayInputStream(bgzfData), 1)) {
+      assertThrows(ZipException.class, () -> readAllBytes(inputStream));
+    }
+  }
+
+  @Test
+  void testIsBgzf() throws IOException {
+    File file = Files.createTempFile("test", ".vcf.gz").toFile();
+    try {
+      Files.write(file.toPath(), bgzip(createData(10), 10));
+      assertTrue(BgzfInputStream.isBgzf(file));
+    } finally {
+      Files.delete(file.toPath());
+    }
+  }
+
+  @Test
+  void testIsBgzfGzip() throws IOException {
+    File file = Files.createTempFile("test", ".vcf.gz").toFile();
+    try {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+        gzipOutputStream.write(createData(10));
+      }
+      Files.write(file.toPath(), outputStream.toByteArray());
+      assertFalse(BgzfInputStream.isBgzf(file));
+    } finally {
+      Files.delete(file.toPath());
+    }
+  }
+
+  private static byte[] createData(int nrBytes) {
+    StringBuilder stringBuilder = new StringBuilder(nrBytes);
+    for (int i = 0; stringBuilder.length() < nrBytes; i++) {
+      stringBuilder.append("1\t").append(i).append("\t.\tA\tG\t.\tPASS\tDP=").append(i % 97);
+      stringBuilder.append('\n');
+    }
+    return stringBuilder.substring(0, nrBytes).getBytes(UTF_8);
+  }
+
+  private static byte[] readAllBytes(InputStream inputStream) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    for (int nrBytes = inputStream.read(buffer);
+        nrBytes != -1;
+        nrBytes = inputStream.read(buffer)) {
+      outputStream.write(buffer, 0, nrBytes);
+    }
+    return outputStream.toByteArray();
+  }
+
+  /** Compresses data to BGZF blocks followed by the empty end-of-file block */
+  static byte[] bgzip(byte[] data, int blockSize) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    for (int offset = 0; offset < data.length; offset += blockSize) {
+      int end = Math.min(offset + blockSize, data.length);
+      writeBlock(outputStream, Arrays.copyOfRange(data, offset, end));
+    }
+    writeBlock(outputStream, new byte[0]);
+    return outputStream.toByteArray();
+  }
+
+  private static void writeBlock(ByteArrayOutputStream outputStream, byte[] block) {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setInput(block);
+    deflater.finish();
+    byte[] compressedBlock = new byte[block.length + 1024];
+    int compressedLength = deflater.deflate(compressedBlock);
+    deflater.end();
+
+    CRC32 crc = new CRC32();
+    crc.update(block);
+    int totalBlockSize = 18 + compressedLength + 8;
+    outputStream.write(new byte[] {31, (byte) 139, 8, 4, 0, 0, 0, 0, 0, (byte) 255, 6, 0}, 0, 12);
+    outputStream.write(new byte[] {66, 67, 2, 0}, 0, 4);
+    writeShort(outputStream, totalBlockSize - 1);
+    outputStream.write(compressedBlock, 0, compressedLength);
+    writeInt(outputStream, crc.getValue());
+    writeInt(outputStream, block.length);
+  }
+
+  private static void writeShort(ByteArrayOutputStream outputStream, int value) {
+    outputStream.write(value & 0xff);
+    outputStream.write((value >> 8) & 0xff);
+  }
+
+  private static void writeInt(ByteArrayOutputStream outputStream, long value) {
+    writeShort(outputStream, (int) (value & 0xffff));
+    writeShort(outputStream, (int) ((value >> 16) & 0xffff));
+  }
+}
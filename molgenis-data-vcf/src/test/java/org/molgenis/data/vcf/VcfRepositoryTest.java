@@ -2,11 +2,15 @@ package org.molgenis.data.vcf;
 
 import static com.google.common.collect.ImmutableList.of;
 import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.write;
 import static java.util.Collections.singleton;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -58,18 +62,22 @@ class VcfRepositoryTest extends AbstractMolgenisSpringTest {
   @Captor private ArgumentCaptor<List<Entity>> entityListCaptor;
 
   private static File testData;
+  private static File testDataBgzf;
   private static File testNoData;
   private static File testEmptyFile;
 
   @BeforeAll
   static void beforeClass() throws IOException {
     testData = new ClassPathResource("testdata.vcf").getFile();
+    testDataBgzf = createTempFile("testdata", ".vcf.gz").toFile();
+    write(testDataBgzf.toPath(), BgzfInputStreamTest.bgzip(readAllBytes(testData.toPath()), 256));
     testNoData = new ClassPathResource("testnodata.vcf").getFile();
     testEmptyFile = createTempFile("empty", "vcf").toFile();
   }
 
   @AfterAll
   static void afterClass() {
+    testDataBgzf.delete();
     testEmptyFile.delete();
   }
 
@@ -153,6 +161,39 @@ class VcfRepositoryTest extends AbstractMolgenisSpringTest {
     assertEquals(singleton("1"), chroms);
   }
 
+  @Test
+  void testForEachBatchedBgzf() {
+    VcfRepository vcfRepository =
+        new VcfRepository(testDataBgzf, "testData", vcfAttrs, entityTypeFactory, attrMetaFactory);
+
+    // batches of a single record, so that each batch is read ahead while the previous is consumed
+    vcfRepository.forEachBatched(batchConsumer, 1);
+
+    verify(batchConsumer, times(7)).accept(entityListCaptor.capture());
+    List<Integer> positions =
+        entityListCaptor.getAllValues().stream()
+            .flatMap(batch -> batch.stream().map(entity -> entity.getInt(POS)))
+            .collect(Collectors.toList());
+    assertEquals(of(565286, 2243618, 3171929, 3172062, 3172273, 6097450, 7569187), positions);
+  }
+
+  @Test
+  void testForEachBatchedConsumerThrowsException() {
+    VcfRepository vcfRepository =
+        new VcfRepository(testDataBgzf, "testData", vcfAttrs, entityTypeFactory, attrMetaFactory);
+    MolgenisDataException exception = new MolgenisDataException("consumer failed");
+    doThrow(exception).when(batchConsumer).accept(any());
+
+    assertEquals(
+        exception,
+        assertThrows(
+            MolgenisDataException.class, () -> vcfRepository.forEachBatched(batchConsumer, 1)));
+    verify(batchConsumer).accept(any());
+
+    // the file can be read again after the read-ahead was stopped
+    assertEquals(7, vcfRepository.count());
+  }
+
   @Test
   void iterator_noValues() {
     VcfRepository vcfRepository =
@@ -14,6 +14,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -35,6 +37,7 @@ import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatcher;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.molgenis.data.DataAction;
@@ -53,6 +56,7 @@ import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.Package;
 import org.molgenis.data.security.permission.PermissionSystemService;
 import org.molgenis.data.support.AbstractRepository;
+import org.molgenis.data.vcf.VcfRepository;
 import org.molgenis.data.vcf.model.VcfAttributes;
 import org.molgenis.test.AbstractMockitoTest;
 import org.springframework.security.core.context.SecurityContext;
@@ -253,6 +257,12 @@ class VcfImporterServiceTest extends AbstractMockitoTest {
     verify(metaDataService).createRepository(argThat(eqName(entityType0)));
     verify(permissionSystemService).giveUserWriteMetaPermissions(entityType0);
     verify(permissionSystemService).giveUserWriteMetaPermissions(sampleEntityType0);
+
+    // the file is read once, samples of a batch are added before the batch itself
+    verify(repo0).forEachBatched(any(Consumer.class), eq(VcfRepository.BATCH_SIZE));
+    InOrder inOrder = inOrder(outSampleRepo0, outRepo0);
+    inOrder.verify(outSampleRepo0).add(any(Stream.class));
+    inOrder.verify(outRepo0).add(any(Stream.class));
   }
 
   @SuppressWarnings("deprecation")
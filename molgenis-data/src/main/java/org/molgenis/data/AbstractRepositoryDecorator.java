@@ -41,6 +41,11 @@ public abstract class AbstractRepositoryDecorator<E extends Entity> extends Forw
     delegate().forEachBatched(fetch, consumer, batchSize);
   }
 
+  @Override
+  public List<Query<E>> partition(int numberOfPartitions) {
+    return delegate().partition(numberOfPartitions);
+  }
+
   @Override
   public void close() throws IOException {
     delegate().close();
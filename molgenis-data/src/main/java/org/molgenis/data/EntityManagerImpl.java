@@ -2,56 +2,105 @@ package org.molgenis.data;
 
 import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.StreamSupport.stream;
 import static org.molgenis.data.EntityManager.CreationMode.NO_POPULATE;
 import static org.molgenis.data.EntityManager.CreationMode.POPULATE;
 import static org.molgenis.data.util.EntityTypeUtils.isMultipleReferenceType;
 import static org.molgenis.data.util.EntityTypeUtils.isSingleReferenceType;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Iterators;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Streams;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.populate.EntityPopulator;
-import org.molgenis.data.support.DynamicEntity;
+import org.molgenis.data.support.ArrayEntity;
 import org.molgenis.data.support.EntityWithComputedAttributes;
 import org.molgenis.data.support.PartialEntity;
 import org.molgenis.data.util.EntityTypeUtils;
+import org.molgenis.util.ExecutorServiceUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.stereotype.Component;
 
 /**
  * Entity manager responsible for creating entities, entity references and resolving references of
  * reference attributes.
+ *
+ * <p>References of a stream of entities are resolved in batches that grow from {@link
+ * #MIN_BATCH_SIZE} to {@link #MAX_BATCH_SIZE} entities, so that the first entities are available
+ * quickly while long streams require few lookups. The referenced entities of different entity types
+ * in a batch are retrieved concurrently outside read-write transactions: the calling thread
+ * retrieves one entity type and hands the others to idle resolver threads. Lookups that find all
+ * resolver threads busy are done by the calling thread as well, so requests never wait for each
+ * other. References of referenced entities are resolved per lookup in the same way.
  */
 @Component
 public class EntityManagerImpl implements EntityManager {
-  private static final int BATCH_SIZE = 100;
+  private static final int MIN_BATCH_SIZE = 100;
+  private static final int MAX_BATCH_SIZE = 1000;
+  private static final int KEEP_ALIVE_SECONDS = 60;
 
   private final DataService dataService;
   private final EntityFactoryRegistry entityFactoryRegistry;
   private final EntityPopulator entityPopulator;
   private final EntityReferenceCreator entityReferenceCreator;
+  private final ExecutorService executorService;
 
   public EntityManagerImpl(
       DataService dataService,
       EntityFactoryRegistry entityFactoryRegistry,
       EntityPopulator entityPopulator,
-      EntityReferenceCreator entityReferenceCreator) {
+      EntityReferenceCreator entityReferenceCreator,
+      @Value("${entity.references.resolve.threads:4}") int resolveThreads) {
     this.dataService = requireNonNull(dataService);
     this.entityFactoryRegistry = requireNonNull(entityFactoryRegistry);
     this.entityPopulator = requireNonNull(entityPopulator);
     this.entityReferenceCreator = requireNonNull(entityReferenceCreator);
+    this.executorService = createExecutorService(resolveThreads);
+  }
+
+  /**
+   * Creates a pool of at most the given number of resolver threads that are started on demand and
+   * stop when idle. The pool has no queue, a lookup is rejected when all resolver threads are busy.
+   */
+  private static ExecutorService createExecutorService(int resolveThreads) {
+    return new DelegatingSecurityContextExecutorService(
+        new ThreadPoolExecutor(
+            0,
+            resolveThreads,
+            KEEP_ALIVE_SECONDS,
+            SECONDS,
+            new SynchronousQueue<>(),
+            ExecutorServiceUtils.newDaemonThreadFactory("molgenis-reference-resolver-%d")));
+  }
+
+  @PreDestroy
+  void preDestroy() {
+    ExecutorServiceUtils.shutdownAndAwaitTermination(executorService);
   }
 
   @Override
@@ -65,7 +114,7 @@ public class EntityManagerImpl implements EntityManager {
   }
 
   private Entity create(EntityType entityType, Fetch fetch, CreationMode creationMode) {
-    Entity entity = new DynamicEntity(entityType);
+    Entity entity = new ArrayEntity(entityType);
     if (fetch != null) {
       // create partial entity that loads attribute values not contained in the fetch on demand.
       entity = new PartialEntity(entity, fetch, this);
@@ -136,7 +185,7 @@ public class EntityManagerImpl implements EntityManager {
       return entities;
     }
 
-    Iterable<List<Entity>> iterable = () -> Iterators.partition(entities.iterator(), BATCH_SIZE);
+    Iterable<List<Entity>> iterable = () -> partition(entities.iterator());
     return Streams.stream(iterable)
         .flatMap(
             batch -> {
@@ -145,6 +194,26 @@ public class EntityManagerImpl implements EntityManager {
             });
   }
 
+  /** Partitions entities in batches that double in size up to the maximum batch size */
+  private static Iterator<List<Entity>> partition(Iterator<Entity> entities) {
+    return new AbstractIterator<List<Entity>>() {
+      private int batchSize = MIN_BATCH_SIZE;
+
+      @Override
+      protected List<Entity> computeNext() {
+        if (!entities.hasNext()) {
+          return endOfData();
+        }
+        List<Entity> batch = new ArrayList<>(batchSize);
+        while (batch.size() < batchSize && entities.hasNext()) {
+          batch.add(entities.next());
+        }
+        batchSize = Math.min(2 * batchSize, MAX_BATCH_SIZE);
+        return batch;
+      }
+    };
+  }
+
   private List<Entity> resolveReferences(
       List<Attribute> resolvableAttrs, List<Entity> entities, Fetch fetch) {
     // entity name --> entity ids
@@ -178,23 +247,14 @@ public class EntityManagerImpl implements EntityManager {
       refEntityAttrsMap.put(refEntityName, attr);
     }
 
-    // batch retrieve referred entities and replace entity references with actual entities
-    for (Entry<String, Collection<Object>> entry : lazyRefEntityIdsMap.asMap().entrySet()) {
-      String refEntityName = entry.getKey();
-
-      // create a fetch for the referenced entity which is a union of the fetches defined by
-      // attributes
-      // referencing this entity
-      Set<Attribute> attrs = refEntityAttrsMap.get(refEntityName);
-      Fetch subFetch = createSubFetch(fetch, attrs);
-
-      // retrieve referenced entities
-      Stream<Entity> refEntities =
-          dataService.findAll(refEntityName, entry.getValue().stream(), subFetch);
-
-      Map<Object, Entity> refEntitiesIdMap =
-          refEntities.collect(Collectors.toMap(Entity::getIdValue, Function.identity()));
+    // batch retrieve referred entities
+    Map<String, Map<Object, Entity>> refEntitiesIdMaps =
+        findRefEntities(lazyRefEntityIdsMap, refEntityAttrsMap, fetch);
 
+    // replace entity references with actual entities
+    for (Entry<String, Map<Object, Entity>> entry : refEntitiesIdMaps.entrySet()) {
+      Set<Attribute> attrs = refEntityAttrsMap.get(entry.getKey());
+      Map<Object, Entity> refEntitiesIdMap = entry.getValue();
       for (Attribute attr : attrs) {
         if (isSingleReferenceType(attr)) {
           String attrName = attr.getName();
@@ -230,6 +290,78 @@ public class EntityManagerImpl implements EntityManager {
     return entities;
   }
 
+  /**
+   * Retrieves referenced entities per referenced entity type. The first entity type is retrieved
+   * on the calling thread, the other entity types on idle resolver threads if possible.
+   *
+   * @return referenced entities by id per referenced entity type
+   */
+  private Map<String, Map<Object, Entity>> findRefEntities(
+      SetMultimap<String, Object> lazyRefEntityIdsMap,
+      SetMultimap<String, Attribute> refEntityAttrsMap,
+      Fetch fetch) {
+    Map<String, Supplier<Map<Object, Entity>>> refEntitiesFinders = new HashMap<>();
+    for (Entry<String, Collection<Object>> entry : lazyRefEntityIdsMap.asMap().entrySet()) {
+      String refEntityName = entry.getKey();
+
+      // create a fetch for the referenced entity which is a union of the fetches defined by
+      // attributes referencing this entity
+      Fetch subFetch = createSubFetch(fetch, refEntityAttrsMap.get(refEntityName));
+
+      Collection<Object> refEntityIds = entry.getValue();
+      refEntitiesFinders.put(
+          refEntityName,
+          () ->
+              dataService
+                  .findAll(refEntityName, refEntityIds.stream(), subFetch)
+                  .collect(Collectors.toMap(Entity::getIdValue, Function.identity())));
+    }
+
+    Map<String, Map<Object, Entity>> refEntitiesIdMaps = new HashMap<>();
+    Map<String, Future<Map<Object, Entity>>> futures = new HashMap<>();
+    try {
+      if (refEntitiesFinders.size() > 1 && ExecutorServiceUtils.isConcurrentExecutionAllowed()) {
+        refEntitiesFinders.entrySet().stream()
+            .skip(1)
+            .forEach(
+                entry -> {
+                  Future<Map<Object, Entity>> future = trySubmit(entry.getValue());
+                  if (future != null) {
+                    futures.put(entry.getKey(), future);
+                  }
+                });
+      }
+      refEntitiesFinders.forEach(
+          (refEntityName, refEntitiesFinder) -> {
+            if (!futures.containsKey(refEntityName)) {
+              refEntitiesIdMaps.put(refEntityName, refEntitiesFinder.get());
+            }
+          });
+      futures.forEach(
+          (refEntityName, future) ->
+              refEntitiesIdMaps.put(refEntityName, ExecutorServiceUtils.getResult(future)));
+    } finally {
+      futures.values().forEach(future -> future.cancel(true));
+    }
+    return refEntitiesIdMaps;
+  }
+
+  /**
+   * Hands a lookup to an idle resolver thread that runs with the security context of the current
+   * thread.
+   *
+   * @return lookup result or <code>null</code> if all resolver threads are busy
+   */
+  @Nullable
+  @CheckForNull
+  private Future<Map<Object, Entity>> trySubmit(Supplier<Map<Object, Entity>> refEntitiesFinder) {
+    try {
+      return executorService.submit(refEntitiesFinder::get);
+    } catch (RejectedExecutionException e) {
+      return null;
+    }
+  }
+
   private static Fetch createSubFetch(Fetch fetch, Iterable<Attribute> attrs) {
     Fetch subFetch = null;
     for (Attribute attr : attrs) {
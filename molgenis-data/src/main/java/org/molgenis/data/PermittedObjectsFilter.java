@@ -0,0 +1,32 @@
+package org.molgenis.data;
+
+import com.google.auto.value.AutoValue;
+import java.util.List;
+
+/**
+ * Value object describing the access control entries an entity must have to match a {@link
+ * QueryRule.Operator#PERMITTED} query rule: for one of the permissions in the given mask, the first
+ * entry in the given ACL class for the given security identities must be granting. Security
+ * identities are evaluated in order, principals before authorities, and the entries of a security
+ * identity in entry order.
+ */
+@AutoValue
+@SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
+public abstract class PermittedObjectsFilter {
+  /** ACL class of the object identities, e.g. 'entity-myEntityTypeId' */
+  public abstract String getAclClass();
+
+  /** Security identities of type principal (user names) in evaluation order */
+  public abstract List<String> getPrincipals();
+
+  /** Security identities of type granted authority (e.g. roles) in evaluation order */
+  public abstract List<String> getAuthorities();
+
+  /** Permission bit mask, an entity matches if any of the permissions is granted */
+  public abstract int getMask();
+
+  public static PermittedObjectsFilter create(
+      String aclClass, List<String> principals, List<String> authorities, int mask) {
+    return new AutoValue_PermittedObjectsFilter(aclClass, principals, authorities, mask);
+  }
+}
@@ -114,7 +114,13 @@ public class QueryRule {
     FUZZY_MATCH("FUZZY_MATCH"),
 
     /** Fuzzy match operator */
-    FUZZY_MATCH_NGRAM("FUZZY_MATCH_NGRAM");
+    FUZZY_MATCH_NGRAM("FUZZY_MATCH_NGRAM"),
+
+    /**
+     * entity is permitted according to the access control lists, value being a {@link
+     * PermittedObjectsFilter}. The parameter 'field' is ommitted.
+     */
+    PERMITTED("PERMITTED");
 
     private String label;
 
@@ -162,6 +168,13 @@ public class QueryRule {
     if (operator == Operator.SEARCH) {
       this.operator = operator;
       setValue(value);
+    } else if (operator == Operator.PERMITTED) {
+      if (!(value instanceof PermittedObjectsFilter)) {
+        throw new IllegalArgumentException(
+            "QueryRule(PERMITTED, value): value should be PermittedObjectsFilter");
+      }
+      this.operator = operator;
+      setValue(value);
     } else if (Operator.NESTED.equals(operator)) {
       boolean okay = true;
       if (value instanceof List) {
@@ -2,6 +2,7 @@ package org.molgenis.data;
 
 import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.partitioningBy;
 import static java.util.stream.Collectors.toSet;
 
@@ -17,6 +18,7 @@ import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.aggregation.AggregateResult;
 import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.support.QueryImpl;
 
 /**
  * Repository gives access to a collection of Entity. Synonyms: EntityReader, EntitySource,
@@ -69,6 +71,17 @@ public interface Repository<E extends Entity> extends Iterable<E>, Closeable {
    */
   void forEachBatched(Fetch fetch, Consumer<List<E>> consumer, int batchSize);
 
+  /**
+   * Splits the entities in this repository into disjoint partitions of roughly equal size that
+   * can be retrieved concurrently using {@link #findAll(Query)}.
+   *
+   * @param numberOfPartitions maximum number of partitions
+   * @return queries that together select all entities in this repository
+   */
+  default List<Query<E>> partition(int numberOfPartitions) {
+    return singletonList(new QueryImpl<>());
+  }
+
   /**
    * Returns repository capabilities, e.g. writable
    *
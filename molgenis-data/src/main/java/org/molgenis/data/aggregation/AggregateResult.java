@@ -26,6 +26,11 @@ public class AggregateResult {
     return yLabels;
   }
 
+  /** Returns a copy of this result with the same counts and other labels */
+  public AggregateResult withLabels(List<Object> xLabels, List<Object> yLabels) {
+    return new AggregateResult(matrix, xLabels, yLabels);
+  }
+
   @Override
   public String toString() {
     return "AggregateResult [matrix="
@@ -12,9 +12,9 @@ import static org.molgenis.data.event.BootstrappingEvent.BootstrappingStatus.FIN
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
@@ -28,10 +28,11 @@ import org.springframework.stereotype.Component;
 
 @Component
 public class DynamicRepositoryDecoratorRegistryImpl implements DynamicRepositoryDecoratorRegistry {
-  private final Map<String, DynamicRepositoryDecoratorFactory> factories = new HashMap<>();
+  private final Map<String, DynamicRepositoryDecoratorFactory> factories =
+      new ConcurrentHashMap<>();
   private final DataService dataService;
   private final Gson gson;
-  private boolean bootstrappingDone = false;
+  private volatile boolean bootstrappingDone = false;
 
   private static final Type MAP_TOKEN = new TypeToken<Map<String, Object>>() {}.getType();
 
@@ -67,7 +68,7 @@ public class DynamicRepositoryDecoratorRegistryImpl implements DynamicRepository
    * repository.
    */
   @Override
-  public synchronized Repository<Entity> decorate(Repository<Entity> repository) {
+  public Repository<Entity> decorate(Repository<Entity> repository) {
     String entityTypeId = repository.getEntityType().getId();
 
     if (!entityTypeId.equals(DECORATOR_CONFIGURATION) && bootstrappingDone) {
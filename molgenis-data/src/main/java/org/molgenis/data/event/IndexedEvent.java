@@ -0,0 +1,19 @@
+package org.molgenis.data.event;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Set;
+
+/** Published when the index of entity types was updated and refreshed. */
+public class IndexedEvent {
+  private final Set<String> entityTypeIds;
+
+  public IndexedEvent(Set<String> entityTypeIds) {
+    this.entityTypeIds = requireNonNull(entityTypeIds);
+  }
+
+  /** @return ids of the entity types whose index was updated */
+  public Set<String> getEntityTypeIds() {
+    return entityTypeIds;
+  }
+}
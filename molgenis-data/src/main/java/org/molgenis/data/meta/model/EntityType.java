@@ -48,6 +48,7 @@ import org.molgenis.util.i18n.Labeled;
 public class EntityType extends StaticEntity implements Labeled {
   private Map<String, Attribute> cachedOwnAttrs;
   private Boolean cachedHasAttrWithExpression;
+  private EntityTypeLayout cachedLayout;
 
   public EntityType(Entity entity) {
     super(entity);
@@ -643,6 +644,18 @@ public class EntityType extends StaticEntity implements Labeled {
     return cachedHasAttrWithExpression;
   }
 
+  /**
+   * Returns the slots in which entities of this type store their atomic attribute values
+   *
+   * @return entity type layout
+   */
+  public EntityTypeLayout getLayout() {
+    if (cachedLayout == null) {
+      cachedLayout = EntityTypeLayout.create(this);
+    }
+    return cachedLayout;
+  }
+
   public void removeAttribute(Attribute attr) {
     Map<String, Attribute> cachedOwnAttributes = getCachedOwnAttrs();
     removeAttributeRecursive(attr, cachedOwnAttributes);
@@ -751,6 +764,8 @@ public class EntityType extends StaticEntity implements Labeled {
     super.set(attributeName, value);
     if (ATTRIBUTES.equals(attributeName)) {
       invalidateCachedOwnAttrs();
+    } else if (EXTENDS.equals(attributeName)) {
+      cachedLayout = null;
     }
   }
 
@@ -770,6 +785,7 @@ public class EntityType extends StaticEntity implements Labeled {
 
   private void invalidateCachedOwnAttrs() {
     cachedOwnAttrs = null;
+    cachedLayout = null;
   }
 
   public enum AttributeRole {
@@ -0,0 +1,50 @@
+package org.molgenis.data.meta.model;
+
+import static com.google.common.collect.Maps.newHashMapWithExpectedSize;
+import static com.google.common.collect.Streams.stream;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+
+/**
+ * Assigns each atomic attribute of an entity type a fixed slot, so that entities of this type can
+ * store their values in an array instead of a map per entity.
+ *
+ * @see org.molgenis.data.support.ArrayEntity
+ */
+public class EntityTypeLayout {
+  private static final int NO_SLOT = -1;
+
+  private final Attribute[] attributes;
+  /** Maps attribute names to slots */
+  private final Map<String, Integer> slots;
+
+  private EntityTypeLayout(Attribute[] attributes) {
+    this.attributes = requireNonNull(attributes);
+    this.slots = newHashMapWithExpectedSize(attributes.length);
+    for (int i = 0; i < attributes.length; ++i) {
+      slots.put(attributes[i].getName(), i);
+    }
+  }
+
+  static EntityTypeLayout create(EntityType entityType) {
+    return new EntityTypeLayout(
+        stream(entityType.getAtomicAttributes()).toArray(Attribute[]::new));
+  }
+
+  /** Returns the number of slots */
+  public int getSize() {
+    return attributes.length;
+  }
+
+  /** Returns the slot of the attribute with the given name or -1 if no such attribute exists */
+  public int getSlot(String attrName) {
+    Integer slot = slots.get(attrName);
+    return slot != null ? slot : NO_SLOT;
+  }
+
+  /** Returns the attribute stored in the given slot */
+  public Attribute getAttribute(int slot) {
+    return attributes[slot];
+  }
+}
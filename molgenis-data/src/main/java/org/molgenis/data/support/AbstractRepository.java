@@ -47,7 +47,8 @@ public abstract class AbstractRepository implements Repository<Entity> {
     if (!getCapabilities().contains(RepositoryCapability.QUERYABLE)) {
       return Collections.emptySet();
     } else {
-      return EnumSet.allOf(Operator.class);
+      // access control list filtering is only available in repositories that explicitly support it
+      return EnumSet.complementOf(EnumSet.of(Operator.PERMITTED));
     }
   }
 
@@ -0,0 +1,71 @@
+package org.molgenis.data.support;
+
+import static com.google.common.collect.Maps.newHashMap;
+
+import java.util.Map;
+import org.molgenis.data.UnknownAttributeException;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.meta.model.EntityTypeLayout;
+
+/**
+ * Entity that stores its values in an array with a slot per atomic attribute as defined by the
+ * {@link EntityTypeLayout} of its entity type. Compared to {@link DynamicEntity} no map entries are
+ * allocated per value, which matters when large numbers of entities are read or imported.
+ *
+ * <p>Values of attributes that were added to the entity type after the entity was created are
+ * stored separately.
+ */
+public class ArrayEntity extends AbstractEntity {
+  private final EntityTypeLayout layout;
+  /** Values by attribute slot. Value class types are determined by attribute data type. */
+  private final Object[] values;
+  /** Maps names of attributes without a slot to values, created on demand */
+  private Map<String, Object> otherValues;
+
+  public ArrayEntity(EntityType entityType) {
+    super(entityType);
+    this.layout = entityType.getLayout();
+    this.values = new Object[layout.getSize()];
+  }
+
+  @Override
+  public Object get(String attrName) {
+    int slot = layout.getSlot(attrName);
+    if (slot != -1) {
+      return values[slot];
+    }
+    return otherValues != null ? otherValues.get(attrName) : null;
+  }
+
+  @Override
+  public void set(String attrName, Object value) {
+    int slot = layout.getSlot(attrName);
+    if (slot != -1) {
+      if (value != null) {
+        validateValueType(layout.getAttribute(slot), attrName, value);
+      }
+      values[slot] = value;
+    } else {
+      setOtherValue(attrName, value);
+    }
+  }
+
+  private void setOtherValue(String attrName, Object value) {
+    if (value != null) {
+      EntityType entityType = getEntityType();
+      Attribute attr = entityType.getAttribute(attrName);
+      if (attr == null) {
+        throw new UnknownAttributeException(entityType, attrName);
+      }
+      validateValueType(attr, attrName, value);
+    } else if (otherValues == null) {
+      return;
+    }
+
+    if (otherValues == null) {
+      otherValues = newHashMap();
+    }
+    otherValues.put(attrName, value);
+  }
+}
@@ -1,15 +1,29 @@
 package org.molgenis.data;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.meta.AttributeType.XREF;
 
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.populate.EntityPopulator;
 import org.molgenis.data.support.DynamicEntity;
@@ -26,7 +40,21 @@ class EntityManagerImplTest extends AbstractMockitoTest {
   void setUpBeforeMethod() {
     entityManagerImpl =
         new EntityManagerImpl(
-            dataService, entityFactoryRegistry, entityPopulator, entityReferenceCreator);
+            dataService, entityFactoryRegistry, entityPopulator, entityReferenceCreator, 2);
+  }
+
+  @AfterEach
+  void tearDownAfterEach() {
+    entityManagerImpl.preDestroy();
+  }
+
+  @Test
+  void testEntityManagerImplInvalidResolveThreads() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new EntityManagerImpl(
+                dataService, entityFactoryRegistry, entityPopulator, entityReferenceCreator, 0));
   }
 
   @Test
@@ -69,4 +97,63 @@ class EntityManagerImplTest extends AbstractMockitoTest {
         entityManagerImpl.resolveReferences(entityType, Stream.of(entity0, entity1), fetch);
     assertEquals(asList(entity0, entity1), entities.collect(toList()));
   }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void resolveReferencesStreamConcurrently() {
+    Attribute attr0 = createXrefAttribute("attr0", "refEntityType0");
+    Attribute attr1 = createXrefAttribute("attr1", "refEntityType1");
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getAtomicAttributes()).thenReturn(asList(attr0, attr1));
+
+    Entity lazyRefEntity0 = mock(Entity.class);
+    when(lazyRefEntity0.getIdValue()).thenReturn("id0");
+    Entity lazyRefEntity1 = mock(Entity.class);
+    when(lazyRefEntity1.getIdValue()).thenReturn("id1");
+    Entity entity = mock(Entity.class);
+    when(entity.getEntity("attr0")).thenReturn(lazyRefEntity0);
+    when(entity.getEntity("attr1")).thenReturn(lazyRefEntity1);
+
+    Entity refEntity0 = mock(Entity.class);
+    when(refEntity0.getIdValue()).thenReturn("id0");
+    Entity refEntity1 = mock(Entity.class);
+    when(refEntity1.getIdValue()).thenReturn("id1");
+    Set<String> threadNames = ConcurrentHashMap.newKeySet();
+    when(dataService.findAll(eq("refEntityType0"), any(Stream.class), isNull()))
+        .thenAnswer(
+            invocation -> {
+              threadNames.add(Thread.currentThread().getName());
+              return Stream.of(refEntity0);
+            });
+    when(dataService.findAll(eq("refEntityType1"), any(Stream.class), isNull()))
+        .thenAnswer(
+            invocation -> {
+              threadNames.add(Thread.currentThread().getName());
+              return Stream.of(refEntity1);
+            });
+
+    Fetch fetch = new Fetch().field("attr0").field("attr1");
+    List<Entity> entities =
+        entityManagerImpl.resolveReferences(entityType, Stream.of(entity), fetch).collect(toList());
+    assertEquals(singletonList(entity), entities);
+    verify(entity).set("attr0", refEntity0);
+    verify(entity).set("attr1", refEntity1);
+    assertAll(
+        () -> assertEquals(2, threadNames.size()),
+        () -> assertTrue(threadNames.contains(Thread.currentThread().getName())),
+        () ->
+            assertTrue(
+                threadNames.stream()
+                    .anyMatch(name -> name.startsWith("molgenis-reference-resolver-"))));
+  }
+
+  private static Attribute createXrefAttribute(String name, String refEntityTypeId) {
+    EntityType refEntityType = mock(EntityType.class);
+    when(refEntityType.getId()).thenReturn(refEntityTypeId);
+    Attribute attr = mock(Attribute.class);
+    when(attr.getName()).thenReturn(name);
+    when(attr.getDataType()).thenReturn(XREF);
+    when(attr.getRefEntity()).thenReturn(refEntityType);
+    return attr;
+  }
 }
@@ -0,0 +1,86 @@
+package org.molgenis.data.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.meta.AttributeType.INT;
+import static org.molgenis.data.meta.AttributeType.STRING;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.UnknownAttributeException;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.meta.model.EntityTypeLayout;
+import org.molgenis.test.AbstractMockitoTest;
+
+class ArrayEntityTest extends AbstractMockitoTest {
+  @Mock private EntityType entityType;
+  @Mock private EntityTypeLayout layout;
+  private ArrayEntity arrayEntity;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    when(layout.getSize()).thenReturn(2);
+    when(entityType.getLayout()).thenReturn(layout);
+    arrayEntity = new ArrayEntity(entityType);
+  }
+
+  @Test
+  void testSet() {
+    Attribute attr = mock(Attribute.class);
+    when(attr.getDataType()).thenReturn(STRING);
+    when(layout.getSlot("attr")).thenReturn(1);
+    when(layout.getAttribute(1)).thenReturn(attr);
+
+    arrayEntity.set("attr", "value");
+    assertEquals("value", arrayEntity.get("attr"));
+  }
+
+  @Test
+  void testSetNull() {
+    when(layout.getSlot("attr")).thenReturn(1);
+
+    arrayEntity.set("attr", null);
+    assertNull(arrayEntity.get("attr"));
+  }
+
+  @Test
+  void testSetInvalidValue() {
+    Attribute attr = mock(Attribute.class);
+    when(attr.getDataType()).thenReturn(INT);
+    when(layout.getSlot("attr")).thenReturn(0);
+    when(layout.getAttribute(0)).thenReturn(attr);
+
+    assertThrows(MolgenisDataException.class, () -> arrayEntity.set("attr", "value"));
+  }
+
+  @Test
+  void testSetAttributeWithoutSlot() {
+    Attribute attr = mock(Attribute.class);
+    when(attr.getDataType()).thenReturn(STRING);
+    when(entityType.getAttribute("attr")).thenReturn(attr);
+    when(layout.getSlot("attr")).thenReturn(-1);
+
+    arrayEntity.set("attr", "value");
+    assertEquals("value", arrayEntity.get("attr"));
+  }
+
+  @Test
+  void testSetUnknownAttribute() {
+    when(layout.getSlot("attr")).thenReturn(-1);
+    assertThrows(UnknownAttributeException.class, () -> arrayEntity.set("attr", "value"));
+  }
+
+  @Test
+  void testSetUnknownAttributeNull() {
+    when(layout.getSlot("attr")).thenReturn(-1);
+
+    arrayEntity.set("attr", null);
+    assertNull(arrayEntity.get("attr"));
+  }
+}
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.Set;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.molgenis.data.DataService;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.csv.CsvWriter;
@@ -23,9 +24,13 @@ import org.molgenis.data.support.AbstractWritable.EntityWriteMode;
 import org.molgenis.dataexplorer.controller.DataRequest;
 import org.molgenis.util.UnexpectedEnumException;
 
+/**
+ * Writes data explorer downloads to an output stream while the entities are being retrieved, so
+ * the download starts right away and the memory use does not depend on the number of rows.
+ */
 public class DataExplorerDownloadHandler {
-  // Magic value: https://github.com/molgenis/molgenis/issues/6687
-  private static final long MAX_EXCEL_CELLS = 500000L;
+  // Excel sheet row limit minus the header row
+  private static final long MAX_EXCEL_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1L;
   private final DataService dataService;
   private final AttributeFactory attrMetaFactory;
 
@@ -37,7 +42,7 @@ public class DataExplorerDownloadHandler {
   public void writeToExcel(DataRequest dataRequest, OutputStream outputStream) throws IOException {
     String entityTypeId = dataRequest.getEntityName();
     List<Attribute> attributes = filterAttributes(dataRequest);
-    checkNumberOfCells(dataRequest, entityTypeId, attributes.size());
+    checkNumberOfRows(dataRequest, entityTypeId);
     AttributeWriteMode attributeWriteMode = getAttributeWriteMode(dataRequest.getColNames());
     try (ExcelWriter excelWriter = new ExcelWriter(outputStream, attrMetaFactory, FileFormat.XLSX);
         ExcelSheetWriter excelSheetWriter =
@@ -55,13 +60,13 @@ public class DataExplorerDownloadHandler {
         .collect(toList());
   }
 
-  private void checkNumberOfCells(DataRequest dataRequest, String entityTypeId, int cols) {
+  private void checkNumberOfRows(DataRequest dataRequest, String entityTypeId) {
     long rows = dataService.count(entityTypeId, dataRequest.getQuery());
-    if (rows * cols >= MAX_EXCEL_CELLS) {
+    if (rows > MAX_EXCEL_ROWS) {
       throw new MolgenisDataException(
           String.format(
-              "Total number of cells for this download exceeds the maximum of %s for .xlsx downloads, please use .csv instead",
-              MAX_EXCEL_CELLS));
+              "Total number of rows for this download exceeds the maximum of %s for .xlsx downloads, please use .csv instead",
+              MAX_EXCEL_ROWS));
     }
   }
 
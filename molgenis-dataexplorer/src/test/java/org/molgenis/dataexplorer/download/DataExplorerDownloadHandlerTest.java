@@ -115,8 +115,8 @@ class DataExplorerDownloadHandlerTest extends AbstractMockitoTest {
   }
 
   @Test
-  void testWriteToExcelTooManyCells() throws Exception {
-    when(dataService.count("sys_set_thousandgenomes", query)).thenReturn(2500001L);
+  void testWriteToExcelTooManyRows() throws Exception {
+    when(dataService.count("sys_set_thousandgenomes", query)).thenReturn(1048576L);
     when(dataService.getEntityType("sys_set_thousandgenomes")).thenReturn(entityType);
     when(entityType.getAtomicAttributes()).thenReturn(asList(attribute1, attribute2, attribute3));
     when(attribute1.getName()).thenReturn("attr1");
@@ -136,7 +136,7 @@ class DataExplorerDownloadHandlerTest extends AbstractMockitoTest {
             () -> dataExplorerDownloadHandler.writeToExcel(dataRequest, mock(OutputStream.class)));
     assertThat(exception.getMessage())
         .containsPattern(
-            "Total number of cells for this download exceeds the maximum of 500000 for .xlsx downloads, please use .csv instead");
+            "Total number of rows for this download exceeds the maximum of 1048575 for .xlsx downloads, please use .csv instead");
   }
 
   static Object[][] writeToExcelDataProvider() {
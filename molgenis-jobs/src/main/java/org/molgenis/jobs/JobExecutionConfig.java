@@ -9,7 +9,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
-@Import({JobFactoryRegistry.class, JobExecutor.class})
+@Import({JobFactoryRegistry.class, JobExecutionQueue.class, JobExecutor.class})
 @Configuration
 public class JobExecutionConfig {
   private ExecutorService executorService;
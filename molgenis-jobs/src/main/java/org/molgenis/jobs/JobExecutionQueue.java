@@ -0,0 +1,236 @@
+package org.molgenis.jobs;
+
+import static java.util.Comparator.comparingInt;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Splitter.MapSplitter;
+import com.google.common.collect.ImmutableMap;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import org.molgenis.jobs.model.JobExecution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs submitted jobs on a bounded number of workers.
+ *
+ * <p>Jobs are started in order of priority and, for equal priorities, in order of submission as
+ * soon as a worker is available and the number of running jobs of the same {@link
+ * JobExecution#getType() type} is below the limit for that type. Jobs waiting in the queue keep
+ * their persisted {@link JobExecution.Status#PENDING} status until they start, their progress
+ * message tells the user that they are queued.
+ *
+ * <p>Limits and priorities per type are configured as comma separated type=value pairs. Jobs with a
+ * higher priority are started first, the default priority is 0.
+ */
+@Component
+class JobExecutionQueue {
+  private static final Logger LOG = LoggerFactory.getLogger(JobExecutionQueue.class);
+  private static final MapSplitter TYPE_VALUE_SPLITTER =
+      Splitter.on(',').trimResults().omitEmptyStrings().withKeyValueSeparator('=');
+  private static final int DEFAULT_PRIORITY = 0;
+  static final String QUEUED_MESSAGE = "Queued, waiting for other jobs to finish";
+
+  private final ExecutorService executorService;
+  private final int maxWorkers;
+  private final Map<String, Integer> maxWorkersPerType;
+  private final Map<String, Integer> priorityPerType;
+
+  private final NavigableSet<QueuedJob> queuedJobs;
+  private final Map<String, Integer> nrRunningJobsPerType;
+  private int nrRunningJobs;
+  private long nrSubmittedJobs;
+
+  JobExecutionQueue(
+      ExecutorService executorService,
+      @Value("${jobs.max.workers:8}") int maxWorkers,
+      @Value("${jobs.max.workers.per.type:mapping=2,SORTA=2}") String maxWorkersPerType,
+      @Value("${jobs.priority.per.type:ResourceDownloadJob=-10}")
+          String priorityPerType) {
+    this.executorService = requireNonNull(executorService);
+    if (maxWorkers < 1) {
+      throw new IllegalArgumentException("jobs.max.workers must be greater than zero");
+    }
+    this.maxWorkers = maxWorkers;
+    this.maxWorkersPerType = parseTypeValues(maxWorkersPerType);
+    this.priorityPerType = parseTypeValues(priorityPerType);
+
+    Comparator<QueuedJob> comparator =
+        comparingInt(QueuedJob::getPriority)
+            .reversed()
+            .thenComparingLong(QueuedJob::getSequenceNumber);
+    this.queuedJobs = new TreeSet<>(comparator);
+    this.nrRunningJobsPerType = new HashMap<>();
+  }
+
+  private static Map<String, Integer> parseTypeValues(String typeValues) {
+    ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builder();
+    TYPE_VALUE_SPLITTER
+        .split(typeValues)
+        .forEach((type, value) -> builder.put(type, Integer.valueOf(value)));
+    return builder.build();
+  }
+
+  /**
+   * Queues a job and starts it as soon as the limits allow.
+   *
+   * @param jobExecution the job execution of the job
+   * @param progress progress of the job, receives a status message if the job has to wait
+   * @param job the job to run
+   * @return future that completes when the job finishes or is canceled while queued
+   */
+  synchronized CompletableFuture<Void> submit(
+      JobExecution jobExecution, Progress progress, Runnable job) {
+    String type = jobExecution.getType();
+    int priority = priorityPerType.getOrDefault(type, DEFAULT_PRIORITY);
+    QueuedJob queuedJob = new QueuedJob(jobExecution, job, priority, nrSubmittedJobs++);
+    queuedJobs.add(queuedJob);
+    startJobs();
+
+    if (queuedJobs.contains(queuedJob)) {
+      LOG.debug("Queued job of type '{}', {} jobs queued", type, queuedJobs.size());
+      progress.status(QUEUED_MESSAGE);
+    }
+    return queuedJob.getFuture();
+  }
+
+  /**
+   * Removes a job that did not start yet from the queue and cancels its future.
+   *
+   * @return <code>true</code> if the job was removed, <code>false</code> if it is not queued
+   */
+  synchronized boolean cancel(JobExecution jobExecution) {
+    for (Iterator<QueuedJob> it = queuedJobs.iterator(); it.hasNext(); ) {
+      QueuedJob queuedJob = it.next();
+      if (isSameJobExecution(queuedJob.getJobExecution(), jobExecution)) {
+        it.remove();
+        queuedJob.getFuture().cancel(false);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  synchronized int getNrQueuedJobs() {
+    return queuedJobs.size();
+  }
+
+  synchronized int getNrRunningJobs() {
+    return nrRunningJobs;
+  }
+
+  private static boolean isSameJobExecution(JobExecution jobExecution, JobExecution other) {
+    return jobExecution.getType().equals(other.getType())
+        && jobExecution.getIdentifier().equals(other.getIdentifier());
+  }
+
+  /** Starts queued jobs until no more jobs are allowed to run, must hold lock. */
+  private void startJobs() {
+    QueuedJob queuedJob;
+    while ((queuedJob = pollStartableJob()) != null) {
+      start(queuedJob);
+    }
+  }
+
+  private QueuedJob pollStartableJob() {
+    if (nrRunningJobs >= maxWorkers) {
+      return null;
+    }
+    for (Iterator<QueuedJob> it = queuedJobs.iterator(); it.hasNext(); ) {
+      QueuedJob queuedJob = it.next();
+      String type = queuedJob.getType();
+      if (nrRunningJobsPerType.getOrDefault(type, 0)
+          < maxWorkersPerType.getOrDefault(type, maxWorkers)) {
+        it.remove();
+        nrRunningJobs++;
+        nrRunningJobsPerType.merge(type, 1, Integer::sum);
+        return queuedJob;
+      }
+    }
+    return null;
+  }
+
+  private void start(QueuedJob queuedJob) {
+    try {
+      executorService.execute(() -> run(queuedJob));
+    } catch (RejectedExecutionException e) {
+      decrementNrRunningJobs(queuedJob.getType());
+      queuedJob.getFuture().completeExceptionally(e);
+    }
+  }
+
+  private void run(QueuedJob queuedJob) {
+    Throwable throwable = null;
+    try {
+      queuedJob.getJob().run();
+    } catch (RuntimeException | Error e) {
+      throwable = e;
+    }
+
+    synchronized (this) {
+      decrementNrRunningJobs(queuedJob.getType());
+      startJobs();
+    }
+
+    if (throwable != null) {
+      queuedJob.getFuture().completeExceptionally(throwable);
+    } else {
+      queuedJob.getFuture().complete(null);
+    }
+  }
+
+  private void decrementNrRunningJobs(String type) {
+    nrRunningJobs--;
+    nrRunningJobsPerType.computeIfPresent(type, (key, count) -> count > 1 ? count - 1 : null);
+  }
+
+  private static class QueuedJob {
+    private final JobExecution jobExecution;
+    private final Runnable job;
+    private final int priority;
+    private final long sequenceNumber;
+    private final CompletableFuture<Void> future;
+
+    QueuedJob(JobExecution jobExecution, Runnable job, int priority, long sequenceNumber) {
+      this.jobExecution = requireNonNull(jobExecution);
+      this.job = requireNonNull(job);
+      this.priority = priority;
+      this.sequenceNumber = sequenceNumber;
+      this.future = new CompletableFuture<>();
+    }
+
+    JobExecution getJobExecution() {
+      return jobExecution;
+    }
+
+    String getType() {
+      return jobExecution.getType();
+    }
+
+    Runnable getJob() {
+      return job;
+    }
+
+    int getPriority() {
+      return priority;
+    }
+
+    long getSequenceNumber() {
+      return sequenceNumber;
+    }
+
+    CompletableFuture<Void> getFuture() {
+      return future;
+    }
+  }
+}
@@ -9,8 +9,11 @@ import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
 import org.molgenis.data.DataService;
 import org.molgenis.data.EntityManager;
 import org.molgenis.data.UnknownEntityException;
@@ -33,7 +36,7 @@ public class JobExecutor {
 
   private final DataService dataService;
   private final EntityManager entityManager;
-  private final ExecutorService executorService;
+  private final JobExecutionQueue jobExecutionQueue;
   private final JobFactoryRegistry jobFactoryRegistry;
   private final JobExecutionContextFactory jobExecutionContextFactory;
   private final JobExecutionRegistry jobExecutionRegistry;
@@ -44,13 +47,13 @@ public class JobExecutor {
   public JobExecutor(
       DataService dataService,
       EntityManager entityManager,
-      ExecutorService executorService,
+      JobExecutionQueue jobExecutionQueue,
       JobFactoryRegistry jobFactoryRegistry,
       JobExecutionContextFactory jobExecutionContextFactory,
       JobExecutionRegistry jobExecutionRegistry) {
     this.dataService = requireNonNull(dataService);
     this.entityManager = requireNonNull(entityManager);
-    this.executorService = requireNonNull(executorService);
+    this.jobExecutionQueue = requireNonNull(jobExecutionQueue);
     this.jobFactoryRegistry = requireNonNull(jobFactoryRegistry);
     this.jobExecutionContextFactory = requireNonNull(jobExecutionContextFactory);
     this.jobExecutionRegistry = requireNonNull(jobExecutionRegistry);
@@ -60,7 +63,9 @@ public class JobExecutor {
   }
 
   /**
-   * Executes a {@link ScheduledJob} in the current thread.
+   * Executes a {@link ScheduledJob} through the {@link JobExecutionQueue} and waits in the current
+   * thread until it finishes, so the scheduler does not start it again while it is queued or
+   * running.
    *
    * @param scheduledJobId ID of the {@link ScheduledJob} to run
    */
@@ -78,9 +83,16 @@ public class JobExecutor {
     Progress progress = jobExecutionRegistry.registerJobExecution(jobExecution);
     try {
       long callingThreadId = Thread.currentThread().getId();
-      runJob(jobExecution, molgenisJob, progress, callingThreadId);
-    } catch (Exception ex) {
-      handleJobException(jobExecution, ex);
+      jobExecutionQueue
+          .submit(
+              jobExecution,
+              progress,
+              () -> runJob(jobExecution, molgenisJob, progress, callingThreadId))
+          .join();
+    } catch (CancellationException ex) {
+      LOG.debug("Scheduled job '{}' was canceled while queued", scheduledJobId);
+    } catch (CompletionException ex) {
+      handleJobException(jobExecution, ex.getCause());
     } finally {
       jobExecutionRegistry.unregisterJobExecution(jobExecution);
     }
@@ -98,36 +110,45 @@ public class JobExecutor {
   }
 
   /**
-   * Saves execution in the current thread, then creates a Job and submits that for asynchronous
-   * execution.
+   * Saves execution in the current thread, then creates a Job and submits that to the {@link
+   * JobExecutionQueue} for asynchronous execution. The job execution stays pending until the queue
+   * starts the job.
    *
    * @param jobExecution the {@link JobExecution} to save and submit.
    */
   public CompletableFuture<Void> submit(JobExecution jobExecution) {
-    return submit(jobExecution, executorService);
+    return submit(
+        jobExecution, (job, progress) -> jobExecutionQueue.submit(jobExecution, progress, job));
   }
 
   /**
    * Saves execution in the current thread, then creates a Job and submits that for asynchronous
-   * execution to a specific ExecutorService.
+   * execution to a specific ExecutorService, bypassing the {@link JobExecutionQueue}.
    *
    * @param jobExecution the {@link JobExecution} to save and submit.
    * @param executorService the ExecutorService to run the submitted job on
    */
   public CompletableFuture<Void> submit(
       JobExecution jobExecution, ExecutorService executorService) {
+    return submit(
+        jobExecution, (job, progress) -> CompletableFuture.runAsync(job, executorService));
+  }
+
+  private CompletableFuture<Void> submit(
+      JobExecution jobExecution,
+      BiFunction<Runnable, Progress, CompletableFuture<Void>> jobRunner) {
     overwriteJobExecutionUser(jobExecution);
     Job<?> molgenisJob = saveExecutionAndCreateJob(jobExecution);
 
     long callingThreadId = Thread.currentThread().getId();
     Progress progress = jobExecutionRegistry.registerJobExecution(jobExecution);
     CompletableFuture<Void> completableFuture =
-        CompletableFuture.runAsync(
-            () -> runJob(jobExecution, molgenisJob, progress, callingThreadId), executorService);
+        jobRunner.apply(
+            () -> runJob(jobExecution, molgenisJob, progress, callingThreadId), progress);
 
     return completableFuture.handle(
         (voidResult, throwable) -> {
-          if (throwable != null) {
+          if (throwable != null && !(throwable instanceof CancellationException)) {
             handleJobException(jobExecution, throwable);
           }
           jobExecutionRegistry.unregisterJobExecution(jobExecution);
@@ -146,9 +167,17 @@ public class JobExecutor {
     }
   }
 
+  /**
+   * Cancels a job. A job that is still queued is removed from the queue and canceled immediately,
+   * a running job is requested to cancel.
+   */
   public void cancel(JobExecution jobExecution) {
     Progress progress = jobExecutionRegistry.getJobExecutionProgress(jobExecution);
-    progress.canceling();
+    if (jobExecutionQueue.cancel(jobExecution)) {
+      progress.canceled();
+    } else {
+      progress.canceling();
+    }
   }
 
   private void overwriteJobExecutionUser(JobExecution jobExecution) {
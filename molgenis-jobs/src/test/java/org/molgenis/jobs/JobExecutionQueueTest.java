@@ -0,0 +1,200 @@
+package org.molgenis.jobs;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.jobs.model.JobExecution;
+import org.molgenis.test.AbstractMockitoTest;
+
+class JobExecutionQueueTest extends AbstractMockitoTest {
+  @Mock private ExecutorService executorService;
+  private List<Runnable> startedJobs;
+  private List<String> ranJobs;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    startedJobs = new ArrayList<>();
+    ranJobs = new ArrayList<>();
+  }
+
+  private void captureStartedJobs() {
+    doAnswer(
+            invocation -> {
+              startedJobs.add(invocation.getArgument(0));
+              return null;
+            })
+        .when(executorService)
+        .execute(any(Runnable.class));
+  }
+
+  private CompletableFuture<Void> submit(JobExecutionQueue queue, String type, String id) {
+    JobExecution jobExecution = mock(JobExecution.class);
+    when(jobExecution.getType()).thenReturn(type);
+    return submit(queue, jobExecution, id);
+  }
+
+  private CompletableFuture<Void> submit(
+      JobExecutionQueue queue, JobExecution jobExecution, String id) {
+    return queue.submit(jobExecution, mock(Progress.class), () -> ranJobs.add(id));
+  }
+
+  /** Runs the job that was started first, which might start other jobs */
+  private void runFirstStartedJob() {
+    startedJobs.remove(0).run();
+  }
+
+  @Test
+  void testJobExecutionQueueInvalidMaxWorkers() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new JobExecutionQueue(executorService, 0, "", ""));
+  }
+
+  @Test
+  void testJobExecutionQueueInvalidTypeValues() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new JobExecutionQueue(executorService, 1, "MyJob", ""));
+  }
+
+  @Test
+  void testSubmitMaxWorkers() throws ExecutionException, InterruptedException {
+    captureStartedJobs();
+    JobExecutionQueue queue = new JobExecutionQueue(executorService, 2, "", "");
+
+    CompletableFuture<Void> future0 = submit(queue, "MyJob", "job0");
+    submit(queue, "MyJob", "job1");
+    submit(queue, "MyJob", "job2");
+    assertEquals(2, queue.getNrRunningJobs());
+    assertEquals(1, queue.getNrQueuedJobs());
+
+    runFirstStartedJob();
+    future0.get();
+    assertEquals(2, queue.getNrRunningJobs());
+    assertEquals(0, queue.getNrQueuedJobs());
+
+    runFirstStartedJob();
+    runFirstStartedJob();
+    assertEquals(0, queue.getNrRunningJobs());
+    assertEquals(asList("job0", "job1", "job2"), ranJobs);
+  }
+
+  @Test
+  void testSubmitMaxWorkersPerType() {
+    captureStartedJobs();
+    JobExecutionQueue queue = new JobExecutionQueue(executorService, 2, "MyJob=1", "");
+
+    submit(queue, "MyJob", "job0");
+    submit(queue, "MyJob", "job1");
+    submit(queue, "MyOtherJob", "job2");
+    assertEquals(2, queue.getNrRunningJobs());
+    assertEquals(1, queue.getNrQueuedJobs());
+
+    runFirstStartedJob();
+    runFirstStartedJob();
+    runFirstStartedJob();
+    assertEquals(asList("job0", "job2", "job1"), ranJobs);
+  }
+
+  @Test
+  void testSubmitPriority() {
+    captureStartedJobs();
+    JobExecutionQueue queue =
+        new JobExecutionQueue(executorService, 1, "", "MyImportantJob=10,MyUnimportantJob=-1");
+
+    submit(queue, "MyJob", "job0");
+    submit(queue, "MyUnimportantJob", "job1");
+    submit(queue, "MyJob", "job2");
+    submit(queue, "MyImportantJob", "job3");
+
+    runFirstStartedJob();
+    runFirstStartedJob();
+    runFirstStartedJob();
+    runFirstStartedJob();
+    assertEquals(asList("job0", "job3", "job2", "job1"), ranJobs);
+  }
+
+  @Test
+  void testSubmitQueuedStatus() {
+    captureStartedJobs();
+    JobExecutionQueue queue = new JobExecutionQueue(executorService, 1, "", "");
+
+    JobExecution jobExecution = mock(JobExecution.class);
+    when(jobExecution.getType()).thenReturn("MyJob");
+    Progress progress = mock(Progress.class);
+    queue.submit(jobExecution, progress, () -> ranJobs.add("job0"));
+    Progress queuedProgress = mock(Progress.class);
+    queue.submit(jobExecution, queuedProgress, () -> ranJobs.add("job1"));
+
+    verify(progress, never()).status(JobExecutionQueue.QUEUED_MESSAGE);
+    verify(queuedProgress).status(JobExecutionQueue.QUEUED_MESSAGE);
+  }
+
+  @Test
+  void testSubmitJobThrowsException() {
+    captureStartedJobs();
+    JobExecutionQueue queue = new JobExecutionQueue(executorService, 1, "", "");
+
+    JobExecution jobExecution = mock(JobExecution.class);
+    when(jobExecution.getType()).thenReturn("MyJob");
+    CompletableFuture<Void> future =
+        queue.submit(
+            jobExecution,
+            mock(Progress.class),
+            () -> {
+              throw new IllegalStateException();
+            });
+    submit(queue, "MyJob", "job1");
+
+    runFirstStartedJob();
+    assertTrue(future.isCompletedExceptionally());
+    runFirstStartedJob();
+    assertEquals(asList("job1"), ranJobs);
+  }
+
+  @Test
+  void testCancel() {
+    captureStartedJobs();
+    JobExecutionQueue queue = new JobExecutionQueue(executorService, 1, "", "");
+
+    submit(queue, "MyJob", "job0");
+    JobExecution queuedJobExecution = mock(JobExecution.class);
+    when(queuedJobExecution.getType()).thenReturn("MyJob");
+    when(queuedJobExecution.getIdentifier()).thenReturn("job1");
+    CompletableFuture<Void> future = submit(queue, queuedJobExecution, "job1");
+
+    JobExecution jobExecution = mock(JobExecution.class);
+    when(jobExecution.getType()).thenReturn("MyJob");
+    when(jobExecution.getIdentifier()).thenReturn("job1");
+    assertTrue(queue.cancel(jobExecution));
+    assertTrue(future.isCancelled());
+    assertEquals(0, queue.getNrQueuedJobs());
+
+    runFirstStartedJob();
+    assertEquals(asList("job0"), ranJobs);
+  }
+
+  @Test
+  void testCancelNotQueued() {
+    JobExecutionQueue queue = new JobExecutionQueue(executorService, 1, "", "");
+
+    JobExecution jobExecution = mock(JobExecution.class);
+    assertFalse(queue.cancel(jobExecution));
+  }
+}
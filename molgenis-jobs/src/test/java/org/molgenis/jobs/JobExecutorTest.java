@@ -1,15 +1,18 @@
 package org.molgenis.jobs;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.EntityManager.CreationMode.POPULATE;
 import static org.molgenis.jobs.model.ScheduledJobMetadata.SCHEDULED_JOB;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import org.junit.jupiter.api.BeforeEach;
@@ -34,15 +37,17 @@ class JobExecutorTest extends AbstractMockitoTest {
   @Mock private JobExecutionContextFactory jobExecutionContextFactory;
   @Mock private JobExecutionTemplate jobExecutionTemplate;
   @Mock private JobExecutionRegistry jobExecutionRegistry;
+  private JobExecutionQueue jobExecutionQueue;
   private JobExecutor jobExecutor;
 
   @BeforeEach
   void setUpBeforeMethod() {
+    jobExecutionQueue = new JobExecutionQueue(executorService, 1, "", "");
     jobExecutor =
         new JobExecutor(
             dataService,
             entityManager,
-            executorService,
+            jobExecutionQueue,
             jobFactoryRegistry,
             jobExecutionContextFactory,
             jobExecutionRegistry);
@@ -89,6 +94,13 @@ class JobExecutorTest extends AbstractMockitoTest {
 
     Progress progress = mock(Progress.class);
     when(jobExecutionRegistry.registerJobExecution(jobExecution)).thenReturn(progress);
+    doAnswer(
+            (InvocationOnMock invocation) -> {
+              ((Runnable) invocation.getArguments()[0]).run();
+              return null;
+            })
+        .when(executorService)
+        .execute(any(Runnable.class));
 
     jobExecutor.executeScheduledJob(scheduledJobId);
 
@@ -204,4 +216,37 @@ class JobExecutorTest extends AbstractMockitoTest {
     jobExecutor.cancel(jobExecution);
     verify(progress).canceling();
   }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void testCancelQueued() {
+    String jobExecutionEntityTypeId = "MyJobExecutionId";
+    EntityType jobExecutionEntityType = mock(EntityType.class);
+    when(jobExecutionEntityType.getId()).thenReturn(jobExecutionEntityTypeId);
+
+    JobExecution runningJobExecution = mock(JobExecution.class);
+    when(runningJobExecution.getType()).thenReturn("MyJob");
+    when(runningJobExecution.getEntityType()).thenReturn(jobExecutionEntityType);
+    JobExecution queuedJobExecution = mock(JobExecution.class);
+    when(queuedJobExecution.getType()).thenReturn("MyJob");
+    when(queuedJobExecution.getIdentifier()).thenReturn("queuedJobExecutionId");
+    when(queuedJobExecution.getEntityType()).thenReturn(jobExecutionEntityType);
+
+    JobFactory jobFactory = mock(JobFactory.class);
+    when(jobFactoryRegistry.getJobFactory(any(JobExecution.class))).thenReturn(jobFactory);
+    when(jobFactory.createJob(any(JobExecution.class))).thenReturn(mock(Job.class));
+    Progress progress = mock(Progress.class);
+    when(jobExecutionRegistry.registerJobExecution(any(JobExecution.class))).thenReturn(progress);
+    when(jobExecutionRegistry.getJobExecutionProgress(queuedJobExecution)).thenReturn(progress);
+
+    // the executor never runs the first job, so the second job stays queued
+    jobExecutor.submit(runningJobExecution);
+    CompletableFuture<Void> future = jobExecutor.submit(queuedJobExecution);
+    jobExecutor.cancel(queuedJobExecution);
+
+    assertTrue(future.isDone());
+    verify(progress).canceled();
+    verify(progress, never()).canceling();
+    verify(jobExecutionRegistry).unregisterJobExecution(queuedJobExecution);
+  }
 }
@@ -4,9 +4,13 @@ import static java.util.Arrays.asList;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.stream.Collectors.toList;
+import static org.molgenis.data.meta.AttributeType.COMPOUND;
 import static org.molgenis.util.ResourceUtils.getString;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import java.io.IOException;
 import java.time.Instant;
@@ -15,6 +19,11 @@ import java.time.ZoneId;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 import javax.script.Bindings;
 import javax.script.SimpleBindings;
 import jdk.nashorn.api.scripting.JSObject;
@@ -23,6 +32,7 @@ import org.molgenis.data.Entity;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.IllegalAttributeTypeException;
 import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.js.nashorn.NashornScriptEngine;
 import org.molgenis.script.core.ScriptException;
 import org.molgenis.util.UnexpectedEnumException;
@@ -41,9 +51,17 @@ public class JsMagmaScriptEvaluator {
   private static final String KEY_MAGMA_SCRIPT = "MagmaScript";
   private static final String BIND = "bind";
   public static final String KEY_ID_VALUE = "_idValue";
+  private static final Pattern ATTRIBUTE_REFERENCE_PATTERN =
+      Pattern.compile("\\$\\(\\s*(['\"])((?:(?!\\1).)*)\\1\\s*\\)");
+  private static final int MAX_ANALYZED_EXPRESSIONS = 10_000;
 
   private final NashornScriptEngine jsScriptEngine;
   private final Bindings magmaBindings = new SimpleBindings();
+  /** Attributes referenced by an expression, empty if they cannot be determined statically */
+  private final LoadingCache<String, Optional<Set<String>>> referencedAttributeNames =
+      Caffeine.newBuilder()
+          .maximumSize(MAX_ANALYZED_EXPRESSIONS)
+          .build(JsMagmaScriptEvaluator::findReferencedAttributeNames);
 
   private static final List<String> RESOURCE_NAMES;
 
@@ -76,7 +94,11 @@ public class JsMagmaScriptEvaluator {
     if (LOG.isTraceEnabled()) {
       stopwatch = Stopwatch.createStarted();
     }
-    Bindings bindings = createBindings(entity, ENTITY_REFERENCE_DEFAULT_FETCHING_DEPTH);
+    Bindings bindings =
+        bindEntity(
+            entity,
+            getReferencedAttributeNames(expressions),
+            ENTITY_REFERENCE_DEFAULT_FETCHING_DEPTH);
     List<Object> result =
         expressions.stream().map(expression -> eval(bindings, expression)).collect(toList());
     if (stopwatch != null) {
@@ -86,6 +108,26 @@ public class JsMagmaScriptEvaluator {
     return result;
   }
 
+  /**
+   * Evaluates multiple expressions for each entity in a stream. Only the entity attributes
+   * referenced by the expressions are converted to script engine values.
+   *
+   * @param expressions expressions to evaluate
+   * @param entities entities to bind the magmascript $ function to
+   * @return for each entity a List containing the expression results in expression order
+   */
+  public Stream<List<Object>> evalBatch(List<String> expressions, Stream<Entity> entities) {
+    Optional<Set<String>> attributeNames = getReferencedAttributeNames(expressions);
+    return entities.map(
+        entity -> {
+          Bindings bindings =
+              bindEntity(entity, attributeNames, ENTITY_REFERENCE_DEFAULT_FETCHING_DEPTH);
+          return expressions.stream()
+              .map(expression -> eval(bindings, expression))
+              .collect(toList());
+        });
+  }
+
   public Object eval(String expression, Entity entity) {
     return eval(expression, entity, ENTITY_REFERENCE_DEFAULT_FETCHING_DEPTH);
   }
@@ -98,7 +140,7 @@ public class JsMagmaScriptEvaluator {
    * @return evaluated expression result, return type depends on the expression.
    */
   public Object eval(String expression, Entity entity, int depth) {
-    return eval(createBindings(entity, depth), expression);
+    return eval(bindEntity(entity, referencedAttributeNames.get(expression), depth), expression);
   }
 
   /**
@@ -126,18 +168,102 @@ public class JsMagmaScriptEvaluator {
    * @return Bindings with $ function bound to the entity
    */
   private Bindings createBindings(Entity entity, int depth) {
+    return createBindings(toScriptEngineValueMap(entity, depth));
+  }
+
+  /**
+   * Creates magmascript bindings for the given entity values. Bindings are created per evaluation,
+   * the engine stores the global scope in them so reusing bindings would leak variables assigned
+   * by expressions to later evaluations.
+   *
+   * @param entityValue the script engine value to bind to the magmascript $ function
+   * @return Bindings with $ function bound to the entity value
+   */
+  private Bindings createBindings(Object entityValue) {
     Bindings bindings = new SimpleBindings();
     JSObject global = (JSObject) magmaBindings.get("nashorn.global");
     JSObject magmaScript = (JSObject) global.getMember(KEY_MAGMA_SCRIPT);
     JSObject dollarFunction = (JSObject) magmaScript.getMember(KEY_DOLLAR);
     JSObject bindFunction = (JSObject) dollarFunction.getMember(BIND);
-    Object boundDollar = bindFunction.call(dollarFunction, toScriptEngineValueMap(entity, depth));
+    Object boundDollar = bindFunction.call(dollarFunction, entityValue);
     bindings.put(KEY_DOLLAR, boundDollar);
     bindings.put(KEY_NEW_VALUE, magmaScript.getMember(KEY_NEW_VALUE));
     bindings.put(KEY_IS_NULL, magmaScript.getMember(KEY_IS_NULL));
     return bindings;
   }
 
+  /**
+   * Creates magmascript bindings for a given Entity, converting only the given attributes.
+   *
+   * @param entity the entity to bind to the magmascript $ function
+   * @param attributeNames names of the attributes to bind, empty to bind all atomic attributes
+   * @param depth maximum depth to follow references when creating the entity value map
+   * @return Bindings with $ function bound to the entity
+   */
+  private Bindings bindEntity(Entity entity, Optional<Set<String>> attributeNames, int depth) {
+    if (entity == null || depth == 0) {
+      return createBindings(entity, depth);
+    }
+    return createBindings(toScriptEngineValueMap(entity, attributeNames, depth));
+  }
+
+  private Optional<Set<String>> getReferencedAttributeNames(Collection<String> expressions) {
+    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+    for (String expression : expressions) {
+      Optional<Set<String>> attributeNames = referencedAttributeNames.get(expression);
+      if (!attributeNames.isPresent()) {
+        return Optional.empty();
+      }
+      builder.addAll(attributeNames.get());
+    }
+    return Optional.of(builder.build());
+  }
+
+  /**
+   * Returns the names of the attributes referenced by an expression using $('name') or $("name").
+   * Returns an empty Optional if the expression uses $ in any other way, e.g. $(variable).
+   */
+  private static Optional<Set<String>> findReferencedAttributeNames(String expression) {
+    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+    int nrReferences = 0;
+    Matcher matcher = ATTRIBUTE_REFERENCE_PATTERN.matcher(expression);
+    while (matcher.find()) {
+      builder.add(matcher.group(2));
+      nrReferences++;
+    }
+    long nrDollars = expression.chars().filter(c -> c == '$').count();
+    return nrDollars == nrReferences ? Optional.of(builder.build()) : Optional.empty();
+  }
+
+  /**
+   * Convert entity attributes to a JavaScript object. Adds "_idValue" as a special key.
+   *
+   * @param entity The entity to be flattened, should not be null
+   * @param attributeNames names of the attributes to add, empty to add all atomic attributes
+   * @param depth Represents the number of reference levels being added to the JavaScript object
+   * @return A JavaScript object in Tree form, containing entities and there references
+   */
+  private Map<String, Object> toScriptEngineValueMap(
+      Entity entity, Optional<Set<String>> attributeNames, int depth) {
+    EntityType entityType = entity.getEntityType();
+    Map<String, Object> map = Maps.newHashMap();
+    if (attributeNames.isPresent()) {
+      for (String attributeName : attributeNames.get()) {
+        Attribute attr = entityType.getAttribute(attributeName);
+        // unknown attributes are left out so that $ reports them as such
+        if (attr != null && attr.getDataType() != COMPOUND) {
+          map.put(attributeName, toScriptEngineValue(entity, attr, depth));
+        }
+      }
+    } else {
+      entityType
+          .getAtomicAttributes()
+          .forEach(attr -> map.put(attr.getName(), toScriptEngineValue(entity, attr, depth)));
+    }
+    map.put(KEY_ID_VALUE, toScriptEngineValue(entity, entityType.getIdAttribute(), 0));
+    return map;
+  }
+
   /**
    * Convert entity to a JavaScript object. Adds "_idValue" as a special key to every level for
    * quick access to the id value of an entity.
@@ -8,9 +8,13 @@ import static java.time.Instant.now;
 import static java.time.ZoneOffset.UTC;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.meta.AttributeType.BOOL;
 import static org.molgenis.data.meta.AttributeType.CATEGORICAL;
@@ -32,8 +36,10 @@ import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 import javax.script.ScriptException;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Disabled;
@@ -662,6 +668,89 @@ class JsMagmaScriptEvaluatorTest {
     assertEquals(asList(80, 400), result);
   }
 
+  @Test
+  void evalBatch() {
+    Entity person0 = new DynamicEntity(personWeightAndHeightEntityType);
+    person0.set("weight", 80);
+    person0.set("height", 20);
+    Entity person1 = new DynamicEntity(personWeightAndHeightEntityType);
+    person1.set("weight", 70);
+    person1.set("height", 10);
+
+    List<List<Object>> result =
+        jsMagmaScriptEvaluator
+            .evalBatch(
+                asList("$('weight').value()", "$(\"height\").pow(2).value()"),
+                Stream.of(person0, person1))
+            .collect(toList());
+    assertEquals(asList(asList(80, 400), asList(70, 100)), result);
+  }
+
+  @Test
+  void evalBatchOnlyConvertsReferencedAttributes() {
+    Entity person = mock(Entity.class);
+    when(person.getEntityType()).thenReturn(personWeightAndHeightEntityType);
+    when(person.getInt("weight")).thenReturn(80);
+
+    List<List<Object>> result =
+        jsMagmaScriptEvaluator
+            .evalBatch(singletonList("$('weight').value()"), Stream.of(person))
+            .collect(toList());
+    assertEquals(singletonList(singletonList(80)), result);
+    verify(person, never()).getInt("height");
+  }
+
+  @Test
+  void evalBatchDynamicAttributeReference() {
+    Entity person = new DynamicEntity(personWeightAndHeightEntityType);
+    person.set("weight", 80);
+    person.set("height", 20);
+
+    List<List<Object>> result =
+        jsMagmaScriptEvaluator
+            .evalBatch(singletonList("var attr = 'height'; $(attr).value()"), Stream.of(person))
+            .collect(toList());
+    assertEquals(singletonList(singletonList(20)), result);
+  }
+
+  @Test
+  void evalVariablesNotSharedBetweenEntities() {
+    Entity person0 = new DynamicEntity(personWeightEntityType);
+    person0.set("weight", 80);
+    Entity person1 = new DynamicEntity(personWeightEntityType);
+    person1.set("weight", 70);
+
+    assertEquals(1, jsMagmaScriptEvaluator.eval("x = 1", person0));
+    assertEquals("undefined", jsMagmaScriptEvaluator.eval("typeof x", person1));
+  }
+
+  @Test
+  void evalBatchVariablesNotSharedBetweenEntities() {
+    Entity person0 = new DynamicEntity(personWeightEntityType);
+    person0.set("weight", 80);
+    Entity person1 = new DynamicEntity(personWeightEntityType);
+    person1.set("weight", 70);
+
+    List<List<Object>> result =
+        jsMagmaScriptEvaluator
+            .evalBatch(asList("typeof x", "x = 1"), Stream.of(person0, person1))
+            .collect(toList());
+    assertEquals(asList(asList("undefined", 1), asList("undefined", 1)), result);
+  }
+
+  @Test
+  void evalBatchUnknownAttribute() {
+    Entity person = new DynamicEntity(personWeightEntityType);
+    person.set("weight", 80);
+
+    List<Object> result =
+        jsMagmaScriptEvaluator
+            .evalBatch(singletonList("$('height').value()"), Stream.of(person))
+            .findFirst()
+            .orElseThrow(IllegalStateException::new);
+    assertTrue(result.get(0) instanceof org.molgenis.script.core.ScriptException);
+  }
+
   @Disabled
   @Test
   void testPerformance() {
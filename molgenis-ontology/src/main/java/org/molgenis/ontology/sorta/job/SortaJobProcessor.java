@@ -1,13 +1,17 @@
 package org.molgenis.ontology.sorta.job;
 
-import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 import static org.molgenis.ontology.sorta.meta.OntologyTermHitMetaData.SCORE;
 import static org.molgenis.util.ApplicationContextProvider.getApplicationContext;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.PreDestroy;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.populate.IdGenerator;
@@ -19,30 +23,39 @@ import org.molgenis.ontology.sorta.controller.SortaController;
 import org.molgenis.ontology.sorta.meta.MatchingTaskContentMetaData;
 import org.molgenis.ontology.sorta.service.SortaService;
 import org.molgenis.security.core.runas.RunAsSystemAspect;
+import org.molgenis.util.ExecutorServiceUtils;
 import org.molgenis.web.menu.MenuReaderService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class SortaJobProcessor {
   private static final int ADD_BATCH_SIZE = 1000;
-  private static final int PROGRESS_UPDATE_BATCH_SIZE = 50;
 
   private final DataService dataService;
   private final SortaService sortaService;
   private final IdGenerator idGenerator;
-  private final AtomicInteger counter;
   private final MenuReaderService menuReaderService;
+  private final ExecutorService executorService;
 
   SortaJobProcessor(
       DataService dataService,
       SortaService sortaService,
       IdGenerator idGenerator,
-      MenuReaderService menuReaderService) {
+      MenuReaderService menuReaderService,
+      @Value("${sorta.job.threads:4}") int nrMatchingThreads) {
     this.dataService = requireNonNull(dataService);
     this.sortaService = requireNonNull(sortaService);
     this.idGenerator = requireNonNull(idGenerator);
-    this.counter = new AtomicInteger(0);
     this.menuReaderService = requireNonNull(menuReaderService);
+    this.executorService =
+        ExecutorServiceUtils.newSecurityContextFixedThreadPool(
+            nrMatchingThreads, "molgenis-sorta-%d");
+  }
+
+  @PreDestroy
+  void preDestroy() {
+    ExecutorServiceUtils.shutdownAndAwaitTermination(executorService);
   }
 
   public Void process(
@@ -67,59 +80,29 @@ public class SortaJobProcessor {
           MatchingTaskContentMetaData matchingTaskContentMetaData =
               getApplicationContext().getBean(MatchingTaskContentMetaData.class);
 
-          // Match input terms with code
-          List<Entity> entitiesToAdd = newArrayList();
-          dataService
-              .findAll(inputRepositoryName)
-              .forEach(
-                  inputRow -> {
-                    Entity resultEntity =
-                        new DynamicEntity(matchingTaskContentMetaData) {
-                          @Override
-                          protected void validateValueType(String attrName, Object value) {
-                            // FIXME enable validation by not overriding this method
-                          }
-                        };
-                    resultEntity.set(MatchingTaskContentMetaData.INPUT_TERM, inputRow);
-                    resultEntity.set(
-                        MatchingTaskContentMetaData.IDENTIFIER, idGenerator.generateId());
-                    resultEntity.set(MatchingTaskContentMetaData.VALIDATED, false);
-                    entitiesToAdd.add(resultEntity);
-
-                    Iterable<Entity> ontologyTermEntities =
-                        sortaService.findOntologyTermEntities(ontologyIri, inputRow);
-                    if (Iterables.size(ontologyTermEntities) > 0) {
-                      Entity firstMatchedOntologyTerm =
-                          Iterables.getFirst(
-                              ontologyTermEntities, new DynamicEntity(matchingTaskContentMetaData));
-                      resultEntity.set(
-                          MatchingTaskContentMetaData.MATCHED_TERM,
-                          firstMatchedOntologyTerm.get(OntologyTermMetadata.ONTOLOGY_TERM_IRI));
-                      resultEntity.set(
-                          MatchingTaskContentMetaData.SCORE, firstMatchedOntologyTerm.get(SCORE));
-                    } else {
-                      resultEntity.set(MatchingTaskContentMetaData.SCORE, 0.0);
-                    }
-
-                    // Add entity in batch
-                    if (entitiesToAdd.size() >= ADD_BATCH_SIZE) {
-                      dataService.add(resultRepositoryName, entitiesToAdd.stream());
-                      entitiesToAdd.clear();
-                    }
-
-                    // Increase the number of the progress
-                    counter.incrementAndGet();
-
-                    // Update the progress only when the progress proceeds the threshold
-                    if (counter.get() % PROGRESS_UPDATE_BATCH_SIZE == 0) {
-                      progress.progress(counter.get(), "Processed " + counter + " input terms.");
-                    }
-                  });
-          // Add the rest
-          if (!entitiesToAdd.isEmpty()) {
+          // Match input terms with code on worker threads that run as system, add the results of
+          // each batch in input order on the job thread
+          int count = 0;
+          Iterator<List<Entity>> batches =
+              Iterators.partition(
+                  dataService.findAll(inputRepositoryName).iterator(), ADD_BATCH_SIZE);
+          while (batches.hasNext()) {
+            List<Future<Entity>> resultEntityFutures =
+                batches.next().stream()
+                    .map(
+                        inputRow ->
+                            executorService.submit(
+                                () ->
+                                    createResultEntity(
+                                        ontologyIri, inputRow, matchingTaskContentMetaData)))
+                    .collect(toList());
+            List<Entity> entitiesToAdd = getResultEntities(resultEntityFutures);
             dataService.add(resultRepositoryName, entitiesToAdd.stream());
+
+            count += entitiesToAdd.size();
+            progress.progress(count, "Processed " + count + " input terms.");
           }
-          progress.progress(counter.get(), "Processed " + counter + " input terms.");
+          progress.progress(count, "Processed " + count + " input terms.");
           progress.setResultUrl(
               menuReaderService.findMenuItemPath(SortaController.ID)
                   + "/result/"
@@ -127,4 +110,43 @@ public class SortaJobProcessor {
         });
     return null;
   }
+
+  private Entity createResultEntity(
+      String ontologyIri,
+      Entity inputRow,
+      MatchingTaskContentMetaData matchingTaskContentMetaData) {
+    Entity resultEntity =
+        new DynamicEntity(matchingTaskContentMetaData) {
+          @Override
+          protected void validateValueType(String attrName, Object value) {
+            // FIXME enable validation by not overriding this method
+          }
+        };
+    resultEntity.set(MatchingTaskContentMetaData.INPUT_TERM, inputRow);
+    resultEntity.set(MatchingTaskContentMetaData.IDENTIFIER, idGenerator.generateId());
+    resultEntity.set(MatchingTaskContentMetaData.VALIDATED, false);
+
+    Iterable<Entity> ontologyTermEntities =
+        sortaService.findOntologyTermEntities(ontologyIri, inputRow);
+    if (Iterables.size(ontologyTermEntities) > 0) {
+      Entity firstMatchedOntologyTerm =
+          Iterables.getFirst(ontologyTermEntities, new DynamicEntity(matchingTaskContentMetaData));
+      resultEntity.set(
+          MatchingTaskContentMetaData.MATCHED_TERM,
+          firstMatchedOntologyTerm.get(OntologyTermMetadata.ONTOLOGY_TERM_IRI));
+      resultEntity.set(MatchingTaskContentMetaData.SCORE, firstMatchedOntologyTerm.get(SCORE));
+    } else {
+      resultEntity.set(MatchingTaskContentMetaData.SCORE, 0.0);
+    }
+    return resultEntity;
+  }
+
+  /** Waits for the result entities, cancels the remaining matching tasks if a task failed */
+  private static List<Entity> getResultEntities(List<Future<Entity>> resultEntityFutures) {
+    try {
+      return resultEntityFutures.stream().map(ExecutorServiceUtils::getResult).collect(toList());
+    } finally {
+      resultEntityFutures.forEach(resultEntityFuture -> resultEntityFuture.cancel(true));
+    }
+  }
 }
@@ -0,0 +1,247 @@
+package org.molgenis.ontology.sorta.service.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.primitives.ImmutableIntArray;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.annotation.Nullable;
+import org.molgenis.semanticsearch.string.NGramDistanceAlgorithm;
+
+/**
+ * In-memory n-gram index of the synonyms of the ontology terms of one ontology.
+ *
+ * <p>Synonyms are tokenized once when building the index. For each n-gram the index stores a
+ * posting list of the synonyms containing the n-gram packed with the n-gram frequency in a single
+ * int, so searching only requires tokenizing the query. Scores are equal to the scores of {@link
+ * NGramDistanceAlgorithm#stringMatching(String, String)}.
+ *
+ * <p>Instances are immutable and can be searched concurrently.
+ */
+class OntologyTermNGramIndex {
+  private static final int FREQUENCY_BITS = 8;
+  private static final int MAX_FREQUENCY = (1 << FREQUENCY_BITS) - 1;
+  private static final int MAX_NR_SYNONYMS = 1 << (Integer.SIZE - 1 - FREQUENCY_BITS);
+
+  private final Object ontologyId;
+  private final Map<String, Integer> nGramIndices;
+  private final int[][] postings;
+  private final int[] synonymTermIndices;
+  private final int[] synonymNGramTotals;
+  private final Object[] termIds;
+
+  /** Search contexts that are not in use, at most one per concurrent search */
+  private final Queue<SearchContext> searchContexts = new ConcurrentLinkedQueue<>();
+
+  private OntologyTermNGramIndex(Builder builder) {
+    this.ontologyId = builder.ontologyId;
+    this.nGramIndices = builder.nGramIndices;
+    this.postings =
+        builder.postings.stream().map(posting -> posting.build().toArray()).toArray(int[][]::new);
+    this.synonymTermIndices = builder.synonymTermIndices.build().toArray();
+    this.synonymNGramTotals = builder.synonymNGramTotals.build().toArray();
+    this.termIds = builder.termIds.toArray();
+  }
+
+  /** Returns the id of the ontology that this index was built for */
+  @Nullable
+  Object getOntologyId() {
+    return ontologyId;
+  }
+
+  boolean isEmpty() {
+    return synonymTermIndices.length == 0;
+  }
+
+  /**
+   * Returns the ontology terms with the highest n-gram score of their best matching synonym.
+   *
+   * @param query lowercase query with illegal characters removed
+   * @param maxNrTerms maximum number of ontology terms to return
+   * @return matching ontology terms ordered by descending score, terms without shared n-grams are
+   *     not returned
+   */
+  List<ScoredOntologyTerm> search(String query, int maxNrTerms) {
+    Map<String, Integer> queryNGrams = NGramDistanceAlgorithm.createNGrams(query, true);
+    int queryNGramTotal = queryNGrams.values().stream().mapToInt(Integer::intValue).sum();
+    if (queryNGramTotal == 0 || maxNrTerms <= 0) {
+      return new ArrayList<>();
+    }
+
+    SearchContext context = searchContexts.poll();
+    if (context == null) {
+      context = new SearchContext(synonymTermIndices.length);
+    }
+    try {
+      for (Entry<String, Integer> queryNGram : queryNGrams.entrySet()) {
+        Integer nGramIndex = nGramIndices.get(queryNGram.getKey());
+        if (nGramIndex != null) {
+          context.addMatches(postings[nGramIndex], queryNGram.getValue());
+        }
+      }
+      return getTopTerms(context, queryNGramTotal, maxNrTerms);
+    } finally {
+      context.reset();
+      searchContexts.offer(context);
+    }
+  }
+
+  private List<ScoredOntologyTerm> getTopTerms(
+      SearchContext context, int queryNGramTotal, int maxNrTerms) {
+    PriorityQueue<ScoredOntologyTerm> topTerms =
+        new PriorityQueue<>(Comparator.comparingDouble(ScoredOntologyTerm::getScore));
+    Map<Integer, ScoredOntologyTerm> topTermsByIndex = new HashMap<>();
+    for (int i = 0; i < context.nrMatchedSynonyms; i++) {
+      int synonymIndex = context.matchedSynonyms[i];
+      double score =
+          2.0
+              * context.nrMatchedNGrams[synonymIndex]
+              / (queryNGramTotal + synonymNGramTotals[synonymIndex])
+              * 100;
+      int termIndex = synonymTermIndices[synonymIndex];
+
+      ScoredOntologyTerm scoredTerm = topTermsByIndex.get(termIndex);
+      if (scoredTerm != null) {
+        if (score > scoredTerm.score) {
+          topTerms.remove(scoredTerm);
+          scoredTerm.score = score;
+          topTerms.add(scoredTerm);
+        }
+      } else if (topTerms.size() < maxNrTerms || score > topTerms.element().score) {
+        if (topTerms.size() == maxNrTerms) {
+          topTermsByIndex.remove(topTerms.remove().termIndex);
+        }
+        scoredTerm = new ScoredOntologyTerm(termIndex, termIds[termIndex], score);
+        topTerms.add(scoredTerm);
+        topTermsByIndex.put(termIndex, scoredTerm);
+      }
+    }
+
+    List<ScoredOntologyTerm> result = new ArrayList<>(topTerms);
+    result.sort(
+        Comparator.comparingDouble(ScoredOntologyTerm::getScore)
+            .reversed()
+            .thenComparingInt(scoredTerm -> scoredTerm.termIndex));
+    return result;
+  }
+
+  static Builder builder(@Nullable Object ontologyId) {
+    return new Builder(ontologyId);
+  }
+
+  static class Builder {
+    private final Object ontologyId;
+    private final Map<String, Integer> nGramIndices = new HashMap<>();
+    private final List<ImmutableIntArray.Builder> postings = new ArrayList<>();
+    private final ImmutableIntArray.Builder synonymTermIndices = ImmutableIntArray.builder();
+    private final ImmutableIntArray.Builder synonymNGramTotals = ImmutableIntArray.builder();
+    private final List<Object> termIds = new ArrayList<>();
+    private int nrSynonyms;
+
+    private Builder(@Nullable Object ontologyId) {
+      this.ontologyId = ontologyId;
+    }
+
+    /**
+     * Adds an ontology term with its synonyms.
+     *
+     * @param termId ontology term id
+     * @param synonyms lowercase synonyms with illegal characters removed
+     */
+    Builder addOntologyTerm(Object termId, Iterable<String> synonyms) {
+      int termIndex = termIds.size();
+      termIds.add(requireNonNull(termId));
+      for (String synonym : synonyms) {
+        addSynonym(termIndex, synonym);
+      }
+      return this;
+    }
+
+    private void addSynonym(int termIndex, String synonym) {
+      Map<String, Integer> nGrams = NGramDistanceAlgorithm.createNGrams(synonym, true);
+      if (nGrams.isEmpty()) {
+        return;
+      }
+      if (nrSynonyms == MAX_NR_SYNONYMS) {
+        throw new IllegalStateException("Maximum number of synonyms exceeded");
+      }
+
+      int synonymIndex = nrSynonyms++;
+      int nGramTotal = 0;
+      for (Entry<String, Integer> nGram : nGrams.entrySet()) {
+        int nGramIndex = nGramIndices.computeIfAbsent(nGram.getKey(), key -> addNGram());
+        int frequency = Math.min(nGram.getValue(), MAX_FREQUENCY);
+        postings.get(nGramIndex).add((synonymIndex << FREQUENCY_BITS) | frequency);
+        nGramTotal += nGram.getValue();
+      }
+      synonymTermIndices.add(termIndex);
+      synonymNGramTotals.add(nGramTotal);
+    }
+
+    private int addNGram() {
+      postings.add(ImmutableIntArray.builder());
+      return postings.size() - 1;
+    }
+
+    OntologyTermNGramIndex build() {
+      return new OntologyTermNGramIndex(this);
+    }
+  }
+
+  static class ScoredOntologyTerm {
+    private final int termIndex;
+    private final Object termId;
+    private double score;
+
+    private ScoredOntologyTerm(int termIndex, Object termId, double score) {
+      this.termIndex = termIndex;
+      this.termId = termId;
+      this.score = score;
+    }
+
+    Object getTermId() {
+      return termId;
+    }
+
+    double getScore() {
+      return score;
+    }
+  }
+
+  /** Reusable buffers to count the matched n-grams of each synonym without allocating */
+  private static class SearchContext {
+    private final int[] nrMatchedNGrams;
+    private final int[] matchedSynonyms;
+    private int nrMatchedSynonyms;
+
+    SearchContext(int nrSynonyms) {
+      this.nrMatchedNGrams = new int[nrSynonyms];
+      this.matchedSynonyms = new int[nrSynonyms];
+    }
+
+    void addMatches(int[] posting, int queryFrequency) {
+      for (int packedSynonym : posting) {
+        int synonymIndex = packedSynonym >>> FREQUENCY_BITS;
+        int frequency = packedSynonym & MAX_FREQUENCY;
+        if (nrMatchedNGrams[synonymIndex] == 0) {
+          matchedSynonyms[nrMatchedSynonyms++] = synonymIndex;
+        }
+        nrMatchedNGrams[synonymIndex] += Math.min(queryFrequency, frequency);
+      }
+    }
+
+    void reset() {
+      for (int i = 0; i < nrMatchedSynonyms; i++) {
+        nrMatchedNGrams[matchedSynonyms[i]] = 0;
+      }
+      nrMatchedSynonyms = 0;
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package org.molgenis.ontology.sorta.service.impl;
 
+import static com.google.common.collect.Streams.stream;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 import static org.molgenis.data.QueryRule.Operator.AND;
 import static org.molgenis.data.QueryRule.Operator.DIS_MAX;
 import static org.molgenis.data.QueryRule.Operator.EQUALS;
@@ -14,19 +16,27 @@ import static org.molgenis.ontology.core.meta.OntologyTermMetadata.ONTOLOGY_TERM
 import static org.molgenis.ontology.sorta.meta.OntologyTermHitMetaData.COMBINED_SCORE;
 import static org.molgenis.ontology.sorta.meta.OntologyTermHitMetaData.SCORE;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.commons.lang3.StringUtils;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.ontology.core.meta.OntologyMetadata;
@@ -38,6 +48,7 @@ import org.molgenis.ontology.roc.InformationContentService;
 import org.molgenis.ontology.sorta.bean.OntologyTermHitEntity;
 import org.molgenis.ontology.sorta.meta.OntologyTermHitMetaData;
 import org.molgenis.ontology.sorta.service.SortaService;
+import org.molgenis.ontology.sorta.service.impl.OntologyTermNGramIndex.ScoredOntologyTerm;
 import org.molgenis.semanticsearch.string.NGramDistanceAlgorithm;
 import org.molgenis.semanticsearch.string.Stemmer;
 
@@ -50,6 +61,7 @@ public class SortaServiceImpl implements SortaService {
   private static final String SINGLE_WHITESPACE = " ";
   private static final int MAX_NUMBER_MATCHES = 50;
   private static final int NUMBER_NGRAM_MATCHES = 10;
+  private static final int MAX_NUMBER_ONTOLOGY_TERM_INDICES = 5;
 
   // Global fields that are used by other classes
   public static final Character DEFAULT_SEPARATOR = ';';
@@ -61,6 +73,12 @@ public class SortaServiceImpl implements SortaService {
   private final InformationContentService informationContentService;
   private final OntologyTermHitMetaData ontologyTermHitMetaData;
   private final OntologyTermSynonymFactory ontologyTermSynonymFactory;
+  /** N-gram indices of ontology term synonyms by ontology IRI */
+  private final LoadingCache<String, OntologyTermNGramIndex> ontologyTermIndices =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_NUMBER_ONTOLOGY_TERM_INDICES)
+          .expireAfterWrite(1, TimeUnit.DAYS)
+          .build(CacheLoader.from(this::createOntologyTermIndex));
 
   public SortaServiceImpl(
       DataService dataService,
@@ -159,9 +177,12 @@ public class SortaServiceImpl implements SortaService {
           inputEntity, ontologyEntity, relevantEntities, rulesForOtherFields);
     }
 
-    // Find the ontology terms based on the lexical similarities
-    if (!rulesForOntologyTermFields.isEmpty()) {
-      int pageSize = MAX_NUMBER_MATCHES - relevantEntities.size();
+    // Find the ontology terms based on the lexical similarities, use Elasticsearch if the
+    // ontology term index has no matches
+    int pageSize = MAX_NUMBER_MATCHES - relevantEntities.size();
+    if (!rulesForOntologyTermFields.isEmpty()
+        && !indexMatchOntologyTerms(
+            ontologyIri, inputEntity, ontologyEntity, pageSize, relevantEntities)) {
       lexicalMatchOntologyTerms(
           ontologyIri,
           inputEntity,
@@ -169,16 +190,16 @@ public class SortaServiceImpl implements SortaService {
           pageSize,
           rulesForOntologyTermFields,
           relevantEntities);
-    }
 
-    if (!rulesForOntologyTermFieldsNGram.isEmpty()) {
-      lexicalMatchOntologyTerms(
-          ontologyIri,
-          inputEntity,
-          ontologyEntity,
-          NUMBER_NGRAM_MATCHES,
-          rulesForOntologyTermFieldsNGram,
-          relevantEntities);
+      if (!rulesForOntologyTermFieldsNGram.isEmpty()) {
+        lexicalMatchOntologyTerms(
+            ontologyIri,
+            inputEntity,
+            ontologyEntity,
+            NUMBER_NGRAM_MATCHES,
+            rulesForOntologyTermFieldsNGram,
+            relevantEntities);
+      }
     }
 
     relevantEntities.sort(
@@ -224,6 +245,101 @@ public class SortaServiceImpl implements SortaService {
     }
   }
 
+  /**
+   * Finds the ontology terms with the synonyms that are most similar to the input names and
+   * synonyms using the n-gram index of the ontology.
+   *
+   * @return <code>false</code> if the index did not find any matching ontology terms
+   */
+  private boolean indexMatchOntologyTerms(
+      String ontologyIri,
+      Entity inputEntity,
+      Entity ontologyEntity,
+      int maxNumberMatches,
+      List<Entity> relevantEntities) {
+    if (maxNumberMatches <= 0) {
+      return true;
+    }
+    OntologyTermNGramIndex ontologyTermIndex = getOntologyTermIndex(ontologyIri, ontologyEntity);
+    if (ontologyTermIndex.isEmpty()) {
+      return false;
+    }
+
+    Map<Object, Double> ontologyTermScores = new HashMap<>();
+    for (String attributeName : inputEntity.getAttributeNames()) {
+      String queryString = inputEntity.getString(attributeName);
+      if (StringUtils.isNotEmpty(queryString) && isAttrNameValidForLexicalMatch(attributeName)) {
+        for (ScoredOntologyTerm scoredOntologyTerm :
+            ontologyTermIndex.search(toIndexString(queryString), maxNumberMatches)) {
+          ontologyTermScores.merge(
+              scoredOntologyTerm.getTermId(), scoredOntologyTerm.getScore(), Math::max);
+        }
+      }
+    }
+    if (ontologyTermScores.isEmpty()) {
+      return false;
+    }
+
+    Stream<Object> ontologyTermIds =
+        ontologyTermScores.entrySet().stream()
+            .sorted(Entry.<Object, Double>comparingByValue().reversed())
+            .limit(maxNumberMatches)
+            .map(Entry::getKey);
+    dataService
+        .findAll(ONTOLOGY_TERM, ontologyTermIds)
+        .map(ontologyTerm -> addLexicalScoreToMatchedEntity(inputEntity, ontologyTerm, ontologyIri))
+        .forEach(
+            matchedEntity -> {
+              if (!relevantEntities.contains(matchedEntity)) {
+                relevantEntities.add(matchedEntity);
+              }
+            });
+    return true;
+  }
+
+  /** Returns the n-gram index of an ontology, rebuilds the index if the ontology was replaced */
+  private OntologyTermNGramIndex getOntologyTermIndex(String ontologyIri, Entity ontologyEntity) {
+    OntologyTermNGramIndex ontologyTermIndex = ontologyTermIndices.getUnchecked(ontologyIri);
+    if (!Objects.equals(ontologyTermIndex.getOntologyId(), ontologyEntity.getIdValue())) {
+      ontologyTermIndices.invalidate(ontologyIri);
+      ontologyTermIndex = ontologyTermIndices.getUnchecked(ontologyIri);
+    }
+    return ontologyTermIndex;
+  }
+
+  private OntologyTermNGramIndex createOntologyTermIndex(String ontologyIri) {
+    Entity ontologyEntity = getOntologyEntity(ontologyIri);
+    if (ontologyEntity == null) {
+      return OntologyTermNGramIndex.builder(null).build();
+    }
+
+    OntologyTermNGramIndex.Builder builder =
+        OntologyTermNGramIndex.builder(ontologyEntity.getIdValue());
+    Fetch fetch =
+        new Fetch()
+            .field(OntologyTermMetadata.ID)
+            .field(
+                OntologyTermMetadata.ONTOLOGY_TERM_SYNONYM,
+                new Fetch().field(OntologyTermSynonymMetadata.ONTOLOGY_TERM_SYNONYM_ATTR));
+    dataService
+        .findAll(
+            ONTOLOGY_TERM,
+            new QueryImpl<>().eq(OntologyTermMetadata.ONTOLOGY, ontologyEntity).fetch(fetch))
+        .forEach(
+            ontologyTerm ->
+                builder.addOntologyTerm(
+                    ontologyTerm.getIdValue(),
+                    stream(ontologyTerm.getEntities(OntologyTermMetadata.ONTOLOGY_TERM_SYNONYM))
+                        .map(
+                            synonym ->
+                                synonym.getString(
+                                    OntologyTermSynonymMetadata.ONTOLOGY_TERM_SYNONYM_ATTR))
+                        .filter(Objects::nonNull)
+                        .map(SortaServiceImpl::toIndexString)
+                        .collect(toList())));
+    return builder.build();
+  }
+
   private void lexicalMatchOntologyTerms(
       String ontologyIri,
       Entity inputEntity,
@@ -465,6 +581,11 @@ public class SortaServiceImpl implements SortaService {
     return string.replaceAll(ILLEGAL_CHARACTERS_PATTERN, SINGLE_WHITESPACE);
   }
 
+  /** Normalizes strings in the same way as the n-gram scoring of matched ontology terms */
+  private static String toIndexString(String string) {
+    return removeIllegalCharWithSingleWhiteSpace(string).toLowerCase().trim();
+  }
+
   private static String removeIllegalCharWithEmptyString(String string) {
     return string.replaceAll(ILLEGAL_CHARACTERS_PATTERN, StringUtils.EMPTY);
   }
@@ -0,0 +1,77 @@
+package org.molgenis.ontology.sorta.service.impl;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.molgenis.ontology.sorta.service.impl.OntologyTermNGramIndex.ScoredOntologyTerm;
+import org.molgenis.semanticsearch.string.NGramDistanceAlgorithm;
+
+class OntologyTermNGramIndexTest {
+  private OntologyTermNGramIndex ontologyTermIndex;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    ontologyTermIndex =
+        OntologyTermNGramIndex.builder("ontologyId")
+            .addOntologyTerm("term0", asList("hypertension", "high blood pressure"))
+            .addOntologyTerm("term1", singletonList("hypotension"))
+            .addOntologyTerm("term2", singletonList("cold"))
+            .build();
+  }
+
+  @Test
+  void testGetOntologyId() {
+    assertEquals("ontologyId", ontologyTermIndex.getOntologyId());
+  }
+
+  @Test
+  void testIsEmpty() {
+    assertFalse(ontologyTermIndex.isEmpty());
+    assertTrue(OntologyTermNGramIndex.builder(null).build().isEmpty());
+  }
+
+  @Test
+  void testSearch() {
+    List<ScoredOntologyTerm> scoredTerms = ontologyTermIndex.search("hypertension", 10);
+    assertEquals(asList("term0", "term1"), getTermIds(scoredTerms));
+    assertEquals(
+        NGramDistanceAlgorithm.stringMatching("hypertension", "hypertension"),
+        scoredTerms.get(0).getScore(),
+        1E-10);
+    assertEquals(
+        NGramDistanceAlgorithm.stringMatching("hypertension", "hypotension"),
+        scoredTerms.get(1).getScore(),
+        1E-10);
+  }
+
+  @Test
+  void testSearchBestMatchingSynonym() {
+    List<ScoredOntologyTerm> scoredTerms = ontologyTermIndex.search("blood pressure", 10);
+    assertEquals("term0", scoredTerms.get(0).getTermId());
+    assertEquals(
+        NGramDistanceAlgorithm.stringMatching("blood pressure", "high blood pressure"),
+        scoredTerms.get(0).getScore(),
+        1E-10);
+  }
+
+  @Test
+  void testSearchMaxNrTerms() {
+    assertEquals(singletonList("term0"), getTermIds(ontologyTermIndex.search("hypertension", 1)));
+  }
+
+  @Test
+  void testSearchNoMatch() {
+    assertTrue(ontologyTermIndex.search("xyz", 10).isEmpty());
+  }
+
+  private static List<Object> getTermIds(List<ScoredOntologyTerm> scoredTerms) {
+    return scoredTerms.stream().map(ScoredOntologyTerm::getTermId).collect(toList());
+  }
+}
@@ -4,6 +4,9 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.QueryRule.Operator.AND;
@@ -31,6 +34,7 @@ import org.mockito.quality.Strictness;
 import org.molgenis.data.AbstractMolgenisSpringTest;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
@@ -395,6 +399,68 @@ class SortaServiceImplTest extends AbstractMolgenisSpringTest {
     assertEquals(false, iterator_test3.hasNext());
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  void findOntologyTermEntitiesIndexMatches() {
+    Ontology ontology = ontologyFactory.create();
+    ontology.setId("indexedOntologyId");
+    ontology.setOntologyIri(ONTOLOGY_IRI);
+    when(dataService.findOne(
+            ONTOLOGY, new QueryImpl<>().eq(OntologyMetadata.ONTOLOGY_IRI, ONTOLOGY_IRI)))
+        .thenReturn(ontology);
+
+    OntologyTermSynonym ontologyTermSynonym0 = ontologyTermSynonymFactory.create();
+    ontologyTermSynonym0.setOntologyTermSynonym("hearing impairment");
+    OntologyTerm ontologyTerm0 = ontologyTermFactory.create();
+    ontologyTerm0.setId("1");
+    ontologyTerm0.setOntology(ontology);
+    ontologyTerm0.setOntologyTermName("hearing impairment");
+    ontologyTerm0.setOntologyTermIri(ONTOLOGY_IRI + '1');
+    ontologyTerm0.setOntologyTermSynonyms(singletonList(ontologyTermSynonym0));
+    ontologyTerm0.setOntologyTermDynamicAnnotations(emptyList());
+
+    OntologyTermSynonym ontologyTermSynonym1 = ontologyTermSynonymFactory.create();
+    ontologyTermSynonym1.setOntologyTermSynonym("mixed hearing impairment");
+    OntologyTerm ontologyTerm1 = ontologyTermFactory.create();
+    ontologyTerm1.setId("2");
+    ontologyTerm1.setOntology(ontology);
+    ontologyTerm1.setOntologyTermName("mixed hearing impairment");
+    ontologyTerm1.setOntologyTermIri(ONTOLOGY_IRI + '2');
+    ontologyTerm1.setOntologyTermSynonyms(singletonList(ontologyTermSynonym1));
+    ontologyTerm1.setOntologyTermDynamicAnnotations(emptyList());
+
+    // the index is built from a query that fetches the synonyms, the matches are retrieved by id
+    when(dataService.findAll(
+            eq(ONTOLOGY_TERM), argThat((Query<Entity> query) -> query.getFetch() != null)))
+        .thenAnswer(invocation -> Stream.of(ontologyTerm0, ontologyTerm1));
+    when(dataService.findAll(eq(ONTOLOGY_TERM), any(Stream.class)))
+        .thenAnswer(invocation -> Stream.of(ontologyTerm0, ontologyTerm1));
+
+    Attribute nameAttr = when(mock(Attribute.class).getName()).thenReturn("Name").getMock();
+    when(nameAttr.getDataType()).thenReturn(STRING);
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getAtomicAttributes()).thenReturn(singletonList(nameAttr));
+    when(entityType.getAttribute("Name")).thenReturn(nameAttr);
+    Entity input = new DynamicEntity(entityType);
+    input.set("Name", "hearing impairment");
+
+    // the Elasticsearch queries are not stubbed for this ontology, so matches come from the index
+    Iterator<Entity> iterator =
+        sortaServiceImpl.findOntologyTermEntities(ONTOLOGY_IRI, input).iterator();
+
+    assertEquals(true, iterator.hasNext());
+    Entity firstMatch = iterator.next();
+    assertEquals("1", firstMatch.getIdValue());
+    assertEquals(100, firstMatch.getDouble(COMBINED_SCORE).intValue());
+
+    assertEquals(true, iterator.hasNext());
+    Entity secondMatch = iterator.next();
+    assertEquals("2", secondMatch.getIdValue());
+    assertEquals(85, secondMatch.getDouble(COMBINED_SCORE).intValue());
+
+    assertEquals(false, iterator.hasNext());
+  }
+
   @Test
   void getAllOntologyEntities() {
     Iterable<Entity> allOntologyEntities = sortaServiceImpl.getAllOntologyEntities();
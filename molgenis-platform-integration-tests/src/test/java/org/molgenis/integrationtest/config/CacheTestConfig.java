@@ -1,5 +1,6 @@
 package org.molgenis.integrationtest.config;
 
+import org.molgenis.data.cache.aggregate.AggregateCache;
 import org.molgenis.data.cache.l1.L1Cache;
 import org.molgenis.data.cache.l2.L2Cache;
 import org.molgenis.data.cache.l3.L3Cache;
@@ -8,5 +9,5 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
 @Configuration
-@Import({L1Cache.class, L2Cache.class, L3Cache.class, EntityHydration.class})
+@Import({L1Cache.class, L2Cache.class, L3Cache.class, AggregateCache.class, EntityHydration.class})
 public class CacheTestConfig {}
@@ -2,18 +2,38 @@ package org.molgenis.searchall.service;
 
 import static com.google.common.base.Predicates.not;
 import static com.google.common.collect.Streams.stream;
+import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 import static org.apache.commons.lang3.StringUtils.containsIgnoreCase;
+import static org.molgenis.data.decorator.meta.DecoratorConfigurationMetadata.DECORATOR_CONFIGURATION;
+import static org.molgenis.data.decorator.meta.DecoratorConfigurationMetadata.ENTITY_TYPE_ID;
 import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
 import static org.molgenis.data.meta.model.PackageMetadata.PACKAGE;
+import static org.molgenis.data.security.EntityTypePermission.COUNT_DATA;
+import static org.molgenis.security.core.runas.RunAsSystemAspect.runAsSystem;
 import static org.molgenis.util.i18n.LanguageService.getCurrentUserLanguageCode;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.PreDestroy;
 import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Query;
+import org.molgenis.data.decorator.meta.DecoratorConfiguration;
+import org.molgenis.data.index.SearchService;
+import org.molgenis.data.index.exception.UnknownIndexException;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.Package;
+import org.molgenis.data.security.EntityTypeIdentity;
+import org.molgenis.data.security.owned.RowLevelSecurityRepositoryDecoratorFactory;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.data.util.EntityTypeUtils;
 import org.molgenis.data.util.PackageUtils;
@@ -21,25 +41,64 @@ import org.molgenis.searchall.model.AttributeResult;
 import org.molgenis.searchall.model.EntityTypeResult;
 import org.molgenis.searchall.model.PackageResult;
 import org.molgenis.searchall.model.Result;
+import org.molgenis.security.core.UserPermissionEvaluator;
+import org.molgenis.util.ExecutorServiceUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class SearchAllService {
+  private static final Logger LOG = LoggerFactory.getLogger(SearchAllService.class);
+
   private final DataService dataService;
+  private final SearchService searchService;
+  private final UserPermissionEvaluator userPermissionEvaluator;
+  private final RowLevelSecurityRepositoryDecoratorFactory
+      rowLevelSecurityRepositoryDecoratorFactory;
+  private final ExecutorService executorService;
 
-  public SearchAllService(DataService dataService) {
+  public SearchAllService(
+      DataService dataService,
+      SearchService searchService,
+      UserPermissionEvaluator userPermissionEvaluator,
+      RowLevelSecurityRepositoryDecoratorFactory rowLevelSecurityRepositoryDecoratorFactory,
+      @Value("${searchall.count.threads:4}") int countThreads) {
     this.dataService = requireNonNull(dataService);
+    this.searchService = requireNonNull(searchService);
+    this.userPermissionEvaluator = requireNonNull(userPermissionEvaluator);
+    this.rowLevelSecurityRepositoryDecoratorFactory =
+        requireNonNull(rowLevelSecurityRepositoryDecoratorFactory);
+    this.executorService =
+        ExecutorServiceUtils.newSecurityContextFixedThreadPool(
+            countThreads, "molgenis-searchall-count-%d");
+  }
+
+  @PreDestroy
+  void preDestroy() {
+    ExecutorServiceUtils.shutdownAndAwaitTermination(executorService);
   }
 
   public Result searchAll(final String searchTerm) {
     final String lang = getCurrentUserLanguageCode();
+    List<EntityType> entityTypes =
+        dataService
+            .findAll(ENTITY_TYPE_META_DATA, EntityType.class)
+            .filter(not(EntityTypeUtils::isSystemEntity))
+            .filter(not(EntityType::isAbstract))
+            .collect(toList());
+    Map<String, Long> nrOfMatchingEntities = countMatchingEntities(searchTerm, entityTypes);
     return Result.builder()
         .setEntityTypes(
-            dataService
-                .findAll(ENTITY_TYPE_META_DATA, EntityType.class)
-                .filter(not(EntityTypeUtils::isSystemEntity))
-                .filter(not(EntityType::isAbstract))
-                .map(entityType -> toEntityTypeResult(searchTerm, entityType, lang))
+            entityTypes.stream()
+                .map(
+                    entityType ->
+                        toEntityTypeResult(
+                            searchTerm,
+                            entityType,
+                            lang,
+                            nrOfMatchingEntities.get(entityType.getId())))
                 .filter(EntityTypeResult::isMatch)
                 .collect(toList()))
         .setPackages(
@@ -52,8 +111,101 @@ public class SearchAllService {
         .build();
   }
 
+  /**
+   * Counts the entities matching the search term per entity type. Entity types whose counts are
+   * not changed by repository decorators are counted in the index with one request, the other
+   * entity types are counted through the data service.
+   */
+  private Map<String, Long> countMatchingEntities(
+      String searchTerm, List<EntityType> entityTypes) {
+    Query<Entity> query = new QueryImpl<>().search(searchTerm);
+    Map<String, Long> counts = new HashMap<>(countInIndex(entityTypes, query));
+    List<EntityType> uncountedEntityTypes =
+        entityTypes.stream()
+            .filter(entityType -> !counts.containsKey(entityType.getId()))
+            .collect(toList());
+    counts.putAll(countInRepositories(uncountedEntityTypes, query));
+    return counts;
+  }
+
+  /**
+   * Counts the entities matching the query in the index for entity types that the current user
+   * can count, that are not row level secured and that have no dynamic decorators. Returns no
+   * counts if not all entity types are indexed yet, they are then counted by the repositories that
+   * wait for the index.
+   */
+  private Map<String, Long> countInIndex(List<EntityType> entityTypes, Query<Entity> query) {
+    List<EntityType> countableEntityTypes =
+        entityTypes.stream()
+            .filter(
+                entityType ->
+                    userPermissionEvaluator.hasPermission(
+                        new EntityTypeIdentity(entityType), COUNT_DATA))
+            .filter(not(rowLevelSecurityRepositoryDecoratorFactory::isRowLevelSecured))
+            .collect(toList());
+    if (countableEntityTypes.isEmpty()) {
+      return emptyMap();
+    }
+
+    Set<String> decoratedEntityTypeIds = getDecoratedEntityTypeIds(countableEntityTypes);
+    List<EntityType> undecoratedEntityTypes =
+        countableEntityTypes.stream()
+            .filter(entityType -> !decoratedEntityTypeIds.contains(entityType.getId()))
+            .collect(toList());
+    try {
+      return searchService.count(undecoratedEntityTypes, query);
+    } catch (UnknownIndexException e) {
+      LOG.debug("Counting matching entities in index failed, counting per entity type", e);
+      return emptyMap();
+    }
+  }
+
+  private Set<String> getDecoratedEntityTypeIds(List<EntityType> entityTypes) {
+    Query<DecoratorConfiguration> query =
+        new QueryImpl<DecoratorConfiguration>()
+            .in(ENTITY_TYPE_ID, entityTypes.stream().map(EntityType::getId).collect(toList()));
+    return runAsSystem(
+        () ->
+            dataService
+                .findAll(DECORATOR_CONFIGURATION, query, DecoratorConfiguration.class)
+                .map(DecoratorConfiguration::getEntityTypeId)
+                .collect(toSet()));
+  }
+
+  /**
+   * Counts the entities matching the query through the data service. Entity types are counted
+   * concurrently with the security context of the current thread outside read-write transactions.
+   */
+  private Map<String, Long> countInRepositories(List<EntityType> entityTypes, Query<Entity> query) {
+    if (entityTypes.size() < 2 || !ExecutorServiceUtils.isConcurrentExecutionAllowed()) {
+      return entityTypes.stream()
+          .collect(toMap(EntityType::getId, entityType -> count(entityType, query)));
+    }
+
+    Map<String, Future<Long>> futures =
+        entityTypes.stream()
+            .collect(
+                toMap(
+                    EntityType::getId,
+                    entityType -> executorService.submit(() -> count(entityType, query))));
+    try {
+      return futures.entrySet().stream()
+          .collect(
+              toMap(Map.Entry::getKey, entry -> ExecutorServiceUtils.getResult(entry.getValue())));
+    } finally {
+      futures.values().forEach(future -> future.cancel(true));
+    }
+  }
+
+  private long count(EntityType entityType, Query<Entity> query) {
+    return dataService.count(entityType.getId(), query);
+  }
+
   private EntityTypeResult toEntityTypeResult(
-      final String searchTerm, final EntityType entityType, final String lang) {
+      final String searchTerm,
+      final EntityType entityType,
+      final String lang,
+      final long nrOfMatchingEntities) {
     EntityTypeResult.Builder builder =
         EntityTypeResult.builder()
             .setId(entityType.getId())
@@ -69,8 +221,7 @@ public class SearchAllService {
         .setLabelMatch(containsIgnoreCase(entityType.getLabel(lang), searchTerm))
         .setDescriptionMatch(containsIgnoreCase(entityType.getDescription(lang), searchTerm))
         .setAttributes(matchingAttributes(searchTerm, entityType.getAllAttributes(), lang))
-        .setNrOfMatchingEntities(
-            dataService.count(entityType.getId(), new QueryImpl<>().search(searchTerm)));
+        .setNrOfMatchingEntities(nrOfMatchingEntities);
 
     return builder.build();
   }
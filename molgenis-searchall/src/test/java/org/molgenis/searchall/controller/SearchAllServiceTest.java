@@ -2,33 +2,55 @@ package org.molgenis.searchall.controller;
 
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.molgenis.data.decorator.meta.DecoratorConfigurationMetadata.DECORATOR_CONFIGURATION;
+import static org.molgenis.data.decorator.meta.DecoratorConfigurationMetadata.ENTITY_TYPE_ID;
 import static org.molgenis.data.meta.AttributeType.BOOL;
+import static org.molgenis.data.security.EntityTypePermission.COUNT_DATA;
 import static org.molgenis.data.system.model.RootSystemPackage.PACKAGE_SYSTEM;
 
+import com.google.common.collect.ImmutableMap;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Locale;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.molgenis.data.DataService;
+import org.molgenis.data.Query;
+import org.molgenis.data.decorator.meta.DecoratorConfiguration;
+import org.molgenis.data.index.SearchService;
+import org.molgenis.data.index.exception.UnknownIndexException;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.EntityTypeMetadata;
 import org.molgenis.data.meta.model.Package;
 import org.molgenis.data.meta.model.PackageMetadata;
+import org.molgenis.data.security.EntityTypeIdentity;
+import org.molgenis.data.security.owned.RowLevelSecurityRepositoryDecoratorFactory;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.searchall.model.AttributeResult;
 import org.molgenis.searchall.model.EntityTypeResult;
 import org.molgenis.searchall.model.PackageResult;
 import org.molgenis.searchall.model.Result;
 import org.molgenis.searchall.service.SearchAllService;
+import org.molgenis.security.core.UserPermissionEvaluator;
 import org.springframework.context.i18n.LocaleContextHolder;
 
 class SearchAllServiceTest {
   private DataService dataService;
+  private SearchService searchService;
+  private UserPermissionEvaluator userPermissionEvaluator;
+  private RowLevelSecurityRepositoryDecoratorFactory rowLevelSecurityRepositoryDecoratorFactory;
   private SearchAllService searchAllService;
   private EntityType entity1;
   private EntityType entity2;
@@ -50,7 +72,10 @@ class SearchAllServiceTest {
   @BeforeEach
   void setUp() {
     dataService = mock(DataService.class);
-    searchAllService = new SearchAllService(dataService);
+    searchService = mock(SearchService.class);
+    userPermissionEvaluator = mock(UserPermissionEvaluator.class);
+    rowLevelSecurityRepositoryDecoratorFactory =
+        mock(RowLevelSecurityRepositoryDecoratorFactory.class);
 
     LocaleContextHolder.setLocale(Locale.ENGLISH);
 
@@ -146,16 +171,77 @@ class SearchAllServiceTest {
     when(abstractEntity.getPackage()).thenReturn(pack1);
   }
 
+  @AfterEach
+  void tearDown() {
+    searchAllService.preDestroy();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2})
+  void testFindAll(int countThreads) {
+    searchAllService = createSearchAllService(countThreads);
+    when(dataService.count("entity id 1", new QueryImpl<>().search("test"))).thenReturn(2L);
+    when(dataService.count("entity id 3", new QueryImpl<>().search("test"))).thenReturn(6L);
+    when(dataService.count("entity id 4", new QueryImpl<>().search("test"))).thenReturn(11L);
+
+    assertEquals(createResult(), searchAllService.searchAll("test"));
+    verify(searchService, never()).count(anyList(), any());
+  }
+
+  @Test
+  void testFindAllCountInIndex() {
+    searchAllService = createSearchAllService(2);
+    when(userPermissionEvaluator.hasPermission(any(EntityTypeIdentity.class), eq(COUNT_DATA)))
+        .thenReturn(true);
+    Query<DecoratorConfiguration> decoratorConfigurationQuery =
+        new QueryImpl<DecoratorConfiguration>()
+            .in(
+                ENTITY_TYPE_ID,
+                Arrays.asList("entity id 1", "entity id 2", "entity id 3", "entity id 4"));
+    DecoratorConfiguration decoratorConfiguration = mock(DecoratorConfiguration.class);
+    when(decoratorConfiguration.getEntityTypeId()).thenReturn("entity id 4");
+    when(dataService.findAll(
+            DECORATOR_CONFIGURATION, decoratorConfigurationQuery, DecoratorConfiguration.class))
+        .thenReturn(Stream.of(decoratorConfiguration));
+    when(searchService.count(
+            Arrays.asList(entity1, entity2, entity3), new QueryImpl<>().search("test")))
+        .thenReturn(ImmutableMap.of("entity id 1", 2L, "entity id 2", 0L, "entity id 3", 6L));
+    when(dataService.count("entity id 4", new QueryImpl<>().search("test"))).thenReturn(11L);
+
+    assertEquals(createResult(), searchAllService.searchAll("test"));
+    verify(dataService, never()).count(eq("entity id 1"), any());
+  }
+
   @Test
-  void testFindAll() throws Exception {
+  void testFindAllCountInIndexUnknownIndex() {
+    searchAllService = createSearchAllService(1);
+    when(userPermissionEvaluator.hasPermission(any(EntityTypeIdentity.class), eq(COUNT_DATA)))
+        .thenReturn(true);
+    when(dataService.findAll(
+            eq(DECORATOR_CONFIGURATION), any(Query.class), eq(DecoratorConfiguration.class)))
+        .thenReturn(Stream.empty());
+    when(searchService.count(anyList(), any())).thenThrow(new UnknownIndexException("index"));
+    when(dataService.count("entity id 1", new QueryImpl<>().search("test"))).thenReturn(2L);
+    when(dataService.count("entity id 3", new QueryImpl<>().search("test"))).thenReturn(6L);
+    when(dataService.count("entity id 4", new QueryImpl<>().search("test"))).thenReturn(11L);
+
+    assertEquals(createResult(), searchAllService.searchAll("test"));
+  }
+
+  private SearchAllService createSearchAllService(int countThreads) {
     when(dataService.findAll(PackageMetadata.PACKAGE, Package.class))
         .thenReturn(Stream.of(pack1, pack2, pack3, pack_sys));
     when(dataService.findAll(EntityTypeMetadata.ENTITY_TYPE_META_DATA, EntityType.class))
         .thenReturn(Stream.of(entity1, entity2, entity3, entity4, abstractEntity));
-    when(dataService.count("entity id 1", new QueryImpl<>().search("test"))).thenReturn(2L);
-    when(dataService.count("entity id 3", new QueryImpl<>().search("test"))).thenReturn(6L);
-    when(dataService.count("entity id 4", new QueryImpl<>().search("test"))).thenReturn(11L);
+    return new SearchAllService(
+        dataService,
+        searchService,
+        userPermissionEvaluator,
+        rowLevelSecurityRepositoryDecoratorFactory,
+        countThreads);
+  }
 
+  private static Result createResult() {
     PackageResult packageResult =
         PackageResult.create("package id 1", "package test nr 1", "package description 1");
     AttributeResult attributeResult =
@@ -194,12 +280,9 @@ class SearchAllServiceTest {
             .setAttributes(Collections.emptyList())
             .setNrOfMatchingEntities(11)
             .build();
-    Result result =
-        Result.builder()
-            .setEntityTypes(Arrays.asList(entityTypeResult1, entityTypeResult2, entityTypeResult3))
-            .setPackages(singletonList(packageResult))
-            .build();
-
-    assertEquals(result, searchAllService.searchAll("test"));
+    return Result.builder()
+        .setEntityTypes(Arrays.asList(entityTypeResult1, entityTypeResult2, entityTypeResult3))
+        .setPackages(singletonList(packageResult))
+        .build();
   }
 }
@@ -27,6 +27,7 @@ import org.molgenis.semanticmapper.service.impl.AlgorithmTemplateServiceImpl;
 import org.molgenis.semanticmapper.service.impl.MappingServiceImpl;
 import org.molgenis.semanticmapper.service.impl.UnitResolverImpl;
 import org.molgenis.semanticsearch.service.SemanticSearchService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -44,6 +45,7 @@ public class MappingConfig {
   private final MappingProjectMetadata mappingProjectMeta;
   private final EntityManager entityManager;
   private final JsMagmaScriptEvaluator jsMagmaScriptEvaluator;
+  private final int mappingThreads;
 
   public MappingConfig(
       PermissionSystemService permissionSystemService,
@@ -55,7 +57,8 @@ public class MappingConfig {
       AttributeFactory attrMetaFactory,
       MappingProjectMetadata mappingProjectMeta,
       EntityManager entityManager,
-      JsMagmaScriptEvaluator jsMagmaScriptEvaluator) {
+      JsMagmaScriptEvaluator jsMagmaScriptEvaluator,
+      @Value("${mapping.job.threads:4}") int mappingThreads) {
     this.permissionSystemService = requireNonNull(permissionSystemService);
     this.dataService = requireNonNull(dataService);
     this.semanticSearchService = requireNonNull(semanticSearchService);
@@ -66,6 +69,7 @@ public class MappingConfig {
     this.mappingProjectMeta = requireNonNull(mappingProjectMeta);
     this.entityManager = requireNonNull(entityManager);
     this.jsMagmaScriptEvaluator = requireNonNull(jsMagmaScriptEvaluator);
+    this.mappingThreads = mappingThreads;
   }
 
   @Bean
@@ -76,7 +80,8 @@ public class MappingConfig {
         mappingProjectRepository(),
         permissionSystemService,
         attrMetaFactory,
-        entityManager);
+        entityManager,
+        mappingThreads);
   }
 
   @Bean
@@ -16,6 +16,7 @@ import static org.molgenis.semanticmapper.meta.MappingProjectMetadata.NAME;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.molgenis.data.DataService;
@@ -40,6 +41,8 @@ import org.molgenis.semanticmapper.mapping.model.MappingTarget;
 import org.molgenis.semanticmapper.repository.MappingProjectRepository;
 import org.molgenis.semanticmapper.service.AlgorithmService;
 import org.molgenis.semanticmapper.service.MappingService;
+import org.molgenis.util.ExecutorServiceUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -56,6 +59,7 @@ public class MappingServiceImpl implements MappingService {
   private final PermissionSystemService permissionSystemService;
   private final AttributeFactory attrMetaFactory;
   private final EntityManager entityManager;
+  private final int mappingThreads;
 
   public MappingServiceImpl(
       DataService dataService,
@@ -63,13 +67,15 @@ public class MappingServiceImpl implements MappingService {
       MappingProjectRepository mappingProjectRepository,
       PermissionSystemService permissionSystemService,
       AttributeFactory attrMetaFactory,
-      EntityManager entityManager) {
+      EntityManager entityManager,
+      @Value("${mapping.job.threads:4}") int mappingThreads) {
     this.dataService = requireNonNull(dataService);
     this.algorithmService = requireNonNull(algorithmService);
     this.mappingProjectRepository = requireNonNull(mappingProjectRepository);
     this.permissionSystemService = requireNonNull(permissionSystemService);
     this.attrMetaFactory = requireNonNull(attrMetaFactory);
     this.entityManager = requireNonNull(entityManager);
+    this.mappingThreads = mappingThreads;
   }
 
   @Override
@@ -331,41 +337,58 @@ public class MappingServiceImpl implements MappingService {
         .sum();
   }
 
-  /** Package-private for testability */
+  /**
+   * Maps the source batches on {@link #mappingThreads} worker threads. Mapped batches are written
+   * to the target repository in source order on the calling thread. Within a read-write
+   * transaction the batches are mapped on the calling thread, because worker threads do not see
+   * the changes made in the transaction.
+   *
+   * <p>Package-private for testability
+   */
   long applyMappingToRepo(
       EntityMapping sourceMapping, Repository<Entity> targetRepo, Progress progress, int depth) {
     progress.status(format("Mapping source [%s]...", sourceMapping.getLabel()));
     AtomicLong counter = new AtomicLong();
 
     boolean canAdd = targetRepo.count() == 0;
-    dataService
-        .getRepository(sourceMapping.getName())
-        .forEachBatched(
+    EntityType targetEntityType = targetRepo.getEntityType();
+    Repository<Entity> sourceRepo = dataService.getRepository(sourceMapping.getName());
+    Consumer<List<Entity>> batchWriter =
+        mappedEntities -> writeBatch(targetRepo, progress, counter, canAdd, mappedEntities);
+    if (ExecutorServiceUtils.isConcurrentExecutionAllowed()) {
+      try (ParallelBatchMapper<Entity> batchMapper =
+          new ParallelBatchMapper<>(mappingThreads, batchWriter)) {
+        sourceRepo.forEachBatched(
             entities ->
-                processBatch(sourceMapping, targetRepo, progress, counter, canAdd, entities, depth),
+                batchMapper.submit(
+                    () -> mapEntities(sourceMapping, targetEntityType, entities, depth)),
             MAPPING_BATCH_SIZE);
+        batchMapper.finish();
+      }
+    } else {
+      sourceRepo.forEachBatched(
+          entities ->
+              batchWriter.accept(mapEntities(sourceMapping, targetEntityType, entities, depth)),
+          MAPPING_BATCH_SIZE);
+    }
 
     progress.status(format("Mapped %s [%s] entities.", counter, sourceMapping.getLabel()));
     return counter.get();
   }
 
-  private void processBatch(
-      EntityMapping sourceMapping,
+  private static void writeBatch(
       Repository<Entity> targetRepo,
       Progress progress,
       AtomicLong counter,
       boolean canAdd,
-      List<Entity> entities,
-      int depth) {
-    List<Entity> mappedEntities =
-        mapEntities(sourceMapping, targetRepo.getEntityType(), entities, depth);
+      List<Entity> mappedEntities) {
     if (canAdd) {
       targetRepo.add(mappedEntities.stream());
     } else {
       targetRepo.upsertBatch(mappedEntities);
     }
     progress.increment(1);
-    counter.addAndGet(entities.size());
+    counter.addAndGet(mappedEntities.size());
   }
 
   private List<Entity> mapEntities(
@@ -0,0 +1,65 @@
+package org.molgenis.semanticmapper.service.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import org.molgenis.util.ExecutorServiceUtils;
+
+/**
+ * Maps batches on a pool of worker threads and writes the mapped batches on the calling thread in
+ * submission order, so writes take part in the transaction of the calling thread.
+ *
+ * <p>The number of pending batches is bounded: submitting a batch when the limit is reached first
+ * waits for the oldest batch to be mapped and written. Workers run with the security context of
+ * the submitting thread.
+ */
+class ParallelBatchMapper<E> implements AutoCloseable {
+  private final ExecutorService executorService;
+  private final int maxPendingBatches;
+  private final Consumer<List<E>> batchWriter;
+  private final Deque<Future<List<E>>> pendingBatches;
+
+  /**
+   * @param nrThreads number of worker threads
+   * @param batchWriter writes mapped batches, always called on the calling thread
+   */
+  ParallelBatchMapper(int nrThreads, Consumer<List<E>> batchWriter) {
+    this.executorService =
+        ExecutorServiceUtils.newSecurityContextFixedThreadPool(nrThreads, "molgenis-mapper-%d");
+    this.maxPendingBatches = 2 * nrThreads;
+    this.batchWriter = requireNonNull(batchWriter);
+    this.pendingBatches = new ArrayDeque<>(maxPendingBatches);
+  }
+
+  /** Submits a batch mapping task, waits for the oldest batch if too many batches are pending */
+  void submit(Callable<List<E>> batchMapper) {
+    if (pendingBatches.size() >= maxPendingBatches) {
+      writeOldestBatch();
+    }
+    pendingBatches.add(executorService.submit(batchMapper));
+  }
+
+  /** Waits for all pending batches and writes them */
+  void finish() {
+    while (!pendingBatches.isEmpty()) {
+      writeOldestBatch();
+    }
+  }
+
+  private void writeOldestBatch() {
+    batchWriter.accept(ExecutorServiceUtils.getResult(pendingBatches.remove()));
+  }
+
+  @Override
+  public void close() {
+    pendingBatches.forEach(pendingBatch -> pendingBatch.cancel(true));
+    pendingBatches.clear();
+    executorService.shutdownNow();
+  }
+}
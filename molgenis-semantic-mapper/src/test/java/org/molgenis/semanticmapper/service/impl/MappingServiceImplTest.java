@@ -3,6 +3,7 @@ package org.molgenis.semanticmapper.service.impl;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toSet;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -78,6 +79,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
 @ContextConfiguration(
@@ -515,6 +517,52 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
     Mockito.verifyNoMoreInteractions(progress);
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  void testApplyMappingsToRepoInReadWriteTransaction() {
+    Repository<Entity> targetRepo = mock(Repository.class);
+    Repository<Entity> sourceRepo = mock(Repository.class);
+    EntityMapping sourceMapping = mock(EntityMapping.class);
+    when(sourceMapping.getLabel()).thenReturn("sourceMappingLabel");
+    when(sourceMapping.getName()).thenReturn("sourceMappingID");
+    Set<Thread> mappingThreads = newHashSet();
+    when(sourceMapping.getAttributeMappings())
+        .thenAnswer(
+            invocation -> {
+              mappingThreads.add(Thread.currentThread());
+              return emptyList();
+            });
+
+    when(dataService.getRepository("sourceMappingID")).thenReturn(sourceRepo);
+    when(targetRepo.count()).thenReturn(0L);
+    EntityType targetEntityType = mock(EntityType.class);
+    when(targetRepo.getEntityType()).thenReturn(targetEntityType);
+
+    List<Entity> batch = newArrayList(mock(Entity.class), mock(Entity.class));
+    Mockito.doAnswer(
+            invocationOnMock -> {
+              Consumer<List<Entity>> consumer =
+                  (Consumer<List<Entity>>) invocationOnMock.<Consumer>getArgument(0);
+              consumer.accept(batch);
+              consumer.accept(batch);
+              return null;
+            })
+        .when(sourceRepo)
+        .forEachBatched(ArgumentMatchers.any(Consumer.class), eq(MAPPING_BATCH_SIZE));
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      mappingService.applyMappingToRepo(sourceMapping, targetRepo, progress, 3);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    // worker threads would not see the changes made in the read-write transaction
+    assertEquals(singleton(Thread.currentThread()), mappingThreads);
+    Mockito.verify(targetRepo, Mockito.times(2)).add(ArgumentMatchers.any(Stream.class));
+    Mockito.verify(progress).status("Mapped 4 [sourceMappingLabel] entities.");
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   void testApplyMappingsToRepoUpsert() {
@@ -0,0 +1,71 @@
+package org.molgenis.semanticmapper.service.impl;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ParallelBatchMapperTest {
+  @Test
+  void testParallelBatchMapperInvalidNrThreads() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new ParallelBatchMapper<Integer>(0, batch -> {}));
+  }
+
+  @Test
+  void testSubmitWritesBatchesInSubmissionOrder() {
+    List<Integer> writtenValues = new ArrayList<>();
+    try (ParallelBatchMapper<Integer> batchMapper =
+        new ParallelBatchMapper<>(4, writtenValues::addAll)) {
+      for (int i = 0; i < 20; i++) {
+        int value = i;
+        batchMapper.submit(
+            () -> {
+              // later batches finish first
+              Thread.sleep(20L - value);
+              return singletonList(value);
+            });
+      }
+      batchMapper.finish();
+    }
+    assertEquals(IntStream.range(0, 20).boxed().collect(toList()), writtenValues);
+  }
+
+  @Test
+  void testSubmitBoundsPendingBatches() {
+    AtomicInteger nrWrittenBatches = new AtomicInteger();
+    List<Integer> nrWrittenBatchesOnSubmit = new ArrayList<>();
+    try (ParallelBatchMapper<Integer> batchMapper =
+        new ParallelBatchMapper<>(1, batch -> nrWrittenBatches.incrementAndGet())) {
+      for (int i = 0; i < 5; i++) {
+        nrWrittenBatchesOnSubmit.add(nrWrittenBatches.get());
+        batchMapper.submit(() -> singletonList(1));
+      }
+      batchMapper.finish();
+    }
+    // one thread allows two pending batches
+    assertEquals(asList(0, 0, 0, 1, 2), nrWrittenBatchesOnSubmit);
+    assertEquals(5, nrWrittenBatches.get());
+  }
+
+  @Test
+  void testFinishRethrowsMappingException() {
+    IllegalStateException exception = new IllegalStateException("invalid value");
+    try (ParallelBatchMapper<Integer> batchMapper = new ParallelBatchMapper<>(2, batch -> {})) {
+      batchMapper.submit(
+          () -> {
+            throw exception;
+          });
+      Exception actualException = assertThrows(IllegalStateException.class, batchMapper::finish);
+      assertSame(exception, actualException);
+    }
+  }
+}
@@ -1,15 +1,93 @@
 package org.molgenis.util;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 public class ExecutorServiceUtils {
   private static final Logger LOG = LoggerFactory.getLogger(ExecutorServiceUtils.class);
 
   private ExecutorServiceUtils() {}
 
+  /**
+   * Creates a thread pool that reuses a fixed number of daemon threads.
+   *
+   * @param nrThreads number of threads, must be greater than 0
+   * @param nameFormat thread name format, e.g. "molgenis-foo-%d"
+   * @throws IllegalArgumentException if the number of threads is smaller than 1
+   */
+  public static ExecutorService newFixedThreadPool(int nrThreads, String nameFormat) {
+    if (nrThreads < 1) {
+      throw new IllegalArgumentException("Number of threads must be greater than 0");
+    }
+    return Executors.newFixedThreadPool(nrThreads, newDaemonThreadFactory(nameFormat));
+  }
+
+  /**
+   * Creates a thread factory for named daemon threads.
+   *
+   * @param nameFormat thread name format, e.g. "molgenis-foo-%d"
+   */
+  public static ThreadFactory newDaemonThreadFactory(String nameFormat) {
+    return new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build();
+  }
+
+  /**
+   * Creates a thread pool that reuses a fixed number of daemon threads and runs tasks with the
+   * security context of the thread that submitted them.
+   *
+   * @param nrThreads number of threads, must be greater than 0
+   * @param nameFormat thread name format, e.g. "molgenis-foo-%d"
+   * @throws IllegalArgumentException if the number of threads is smaller than 1
+   */
+  public static ExecutorService newSecurityContextFixedThreadPool(
+      int nrThreads, String nameFormat) {
+    return new DelegatingSecurityContextExecutorService(newFixedThreadPool(nrThreads, nameFormat));
+  }
+
+  /**
+   * Returns whether work of the current thread can be handed to other threads. Changes made in a
+   * read-write transaction are only visible to the thread that the transaction is bound to.
+   */
+  public static boolean isConcurrentExecutionAllowed() {
+    return !TransactionSynchronizationManager.isSynchronizationActive()
+        || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+  }
+
+  /**
+   * Waits for a task to complete and returns its result. Unchecked exceptions and errors thrown by
+   * the task are rethrown, checked exceptions are wrapped in an {@link
+   * UncheckedExecutionException}.
+   *
+   * @throws UncheckedInterruptedException if the current thread was interrupted while waiting
+   */
+  public static <T> T getResult(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new UncheckedInterruptedException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new UncheckedExecutionException(cause);
+    }
+  }
+
   /**
    * Shuts down an ExecutorService in two phases, first by calling shutdown to reject incoming
    * tasks, and then calling shutdownNow, if necessary, to cancel any lingering tasks.
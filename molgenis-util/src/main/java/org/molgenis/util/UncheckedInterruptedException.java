@@ -0,0 +1,15 @@
+package org.molgenis.util;
+
+/** Wraps an {@link InterruptedException} with an unchecked exception. */
+public class UncheckedInterruptedException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public UncheckedInterruptedException(InterruptedException e) {
+    super(e);
+  }
+
+  @Override
+  public synchronized InterruptedException getCause() {
+    return (InterruptedException) super.getCause();
+  }
+}
@@ -1,7 +1,16 @@
 package org.molgenis.util;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import org.junit.jupiter.api.Test;
@@ -13,4 +22,49 @@ class ExecutorServiceUtilsTest {
     ExecutorService executorService = Executors.newSingleThreadExecutor();
     assertDoesNotThrow(() -> ExecutorServiceUtils.shutdownAndAwaitTermination(executorService));
   }
+
+  @Test
+  void testNewFixedThreadPool() throws Exception {
+    ExecutorService executorService = ExecutorServiceUtils.newFixedThreadPool(2, "test-%d");
+    try {
+      Thread thread = executorService.submit(Thread::currentThread).get();
+      assertAll(
+          () -> assertEquals("test-0", thread.getName()), () -> assertTrue(thread.isDaemon()));
+    } finally {
+      ExecutorServiceUtils.shutdownAndAwaitTermination(executorService);
+    }
+  }
+
+  @Test
+  void testNewFixedThreadPoolInvalidNrThreads() {
+    assertThrows(
+        IllegalArgumentException.class, () -> ExecutorServiceUtils.newFixedThreadPool(0, "test"));
+  }
+
+  @Test
+  void testGetResult() {
+    assertEquals("result", ExecutorServiceUtils.getResult(completedFuture("result")));
+  }
+
+  @Test
+  void testGetResultRuntimeException() {
+    IllegalStateException exception = new IllegalStateException();
+    CompletableFuture<String> future = new CompletableFuture<>();
+    future.completeExceptionally(exception);
+    assertSame(
+        exception,
+        assertThrows(IllegalStateException.class, () -> ExecutorServiceUtils.getResult(future)));
+  }
+
+  @Test
+  void testGetResultCheckedException() {
+    IOException exception = new IOException();
+    CompletableFuture<String> future = new CompletableFuture<>();
+    future.completeExceptionally(exception);
+    assertSame(
+        exception,
+        assertThrows(
+                UncheckedExecutionException.class, () -> ExecutorServiceUtils.getResult(future))
+            .getCause());
+  }
 }